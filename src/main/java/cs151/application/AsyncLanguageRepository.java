@@ -0,0 +1,50 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous front of {@link LanguageRepository} for the controllers.
+ * <p>
+ * Reads and writes run on the I/O executor of {@link AsyncProfileCache} and return a {@link CompletableFuture} that
+ * completes with the result, or exceptionally with the {@link IOException} the repository threw. Controllers attach
+ * their callbacks with {@link AsyncProfileCache#FX_THREAD} as the executor.
+ * </p>
+ */
+public final class AsyncLanguageRepository {
+
+    private static final AsyncLanguageRepository INSTANCE = new AsyncLanguageRepository(new LanguageRepository());
+
+    private final LanguageRepository repository;
+
+    AsyncLanguageRepository(LanguageRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @return the facade over the language file in the default storage location
+     */
+    public static AsyncLanguageRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @see LanguageRepository#loadAll()
+     */
+    public CompletableFuture<List<ProgrammingLanguage>> loadAll() {
+        return AsyncProfileCache.submit(repository::loadAll);
+    }
+
+    /**
+     * @param languages languages to store; copied before this method returns, so the caller may keep changing it
+     * @see LanguageRepository#saveAll(List)
+     */
+    public CompletableFuture<Void> saveAll(List<ProgrammingLanguage> languages) {
+        List<ProgrammingLanguage> snapshot = List.copyOf(languages);
+        return AsyncProfileCache.submit(() -> {
+            repository.saveAll(snapshot);
+            return null;
+        });
+    }
+}
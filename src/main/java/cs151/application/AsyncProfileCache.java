@@ -0,0 +1,216 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+
+/**
+ * Asynchronous front of {@link ProfileCache} for the controllers.
+ * <p>
+ * Every operation runs on a virtual thread of a shared I/O executor and returns a {@link CompletableFuture} that
+ * completes with the result, or exceptionally with the {@link IOException} the cache threw. Controllers attach their
+ * callbacks with {@link #FX_THREAD} as the executor, so the scene is only touched on the JavaFX application thread.
+ * Operations are not ordered among themselves; the cache serializes mutations.
+ * </p>
+ */
+public final class AsyncProfileCache {
+
+    /** Runs completion callbacks on the JavaFX application thread. */
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    private static final ExecutorService IO_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("profile-io-", 0).factory());
+
+    /** Runs blocking reads on the virtual threads of the executor behind the operations. */
+    public static final Executor IO_THREADS = IO_EXECUTOR;
+
+    private static final AsyncProfileCache INSTANCE = new AsyncProfileCache(ProfileCache.getInstance());
+
+    private final ProfileCache profileCache;
+
+    AsyncProfileCache(ProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    /**
+     * @return the facade over the application's shared {@link ProfileCache}
+     */
+    public static AsyncProfileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the cache the operations run against, for calls that never touch the disk
+     */
+    public ProfileCache getCache() {
+        return profileCache;
+    }
+
+    /**
+     * @see ProfileCache#getProfiles()
+     */
+    public CompletableFuture<List<StudentProfile>> getProfiles() {
+        return submit(profileCache::getProfiles);
+    }
+
+    /**
+     * @see ProfileCache#refresh()
+     */
+    public CompletableFuture<List<StudentProfile>> refresh() {
+        return submit(profileCache::refresh);
+    }
+
+    /**
+     * @see ProfileCache#findByName(String)
+     */
+    public CompletableFuture<Optional<StudentProfile>> findByName(String fullName) {
+        return submit(() -> profileCache.findByName(fullName));
+    }
+
+    /**
+     * @see ProfileCache#findById(int)
+     */
+    public CompletableFuture<Optional<StudentProfile>> findById(int id) {
+        return submit(() -> profileCache.findById(id));
+    }
+
+    /**
+     * @see ProfileCache#containsName(String)
+     */
+    public CompletableFuture<Boolean> containsName(String fullName) {
+        return submit(() -> profileCache.containsName(fullName));
+    }
+
+    /**
+     * @see ProfileCache#hydrate(StudentProfile)
+     */
+    public CompletableFuture<Optional<StudentProfile>> hydrate(StudentProfile profile) {
+        return submit(() -> profileCache.hydrate(profile));
+    }
+
+    /**
+     * @see ProfileCache#addProfile(StudentProfile)
+     */
+    public CompletableFuture<Optional<StudentProfile>> addProfile(StudentProfile profile) {
+        return submit(() -> profileCache.addProfile(profile));
+    }
+
+    /**
+     * @see ProfileCache#updateProfile(String, StudentProfile)
+     */
+    public CompletableFuture<Boolean> updateProfile(String originalName, StudentProfile updatedProfile) {
+        return submit(() -> profileCache.updateProfile(originalName, updatedProfile));
+    }
+
+    /**
+     * @see ProfileCache#updateProfile(int, StudentProfile)
+     */
+    public CompletableFuture<Boolean> updateProfile(int id, StudentProfile updatedProfile) {
+        return submit(() -> profileCache.updateProfile(id, updatedProfile));
+    }
+
+    /**
+     * @see ProfileCache#appendComment(String, String)
+     */
+    public CompletableFuture<Boolean> appendComment(String fullName, String comment) {
+        return submit(() -> profileCache.appendComment(fullName, comment));
+    }
+
+    /**
+     * @see ProfileCache#appendComment(int, String)
+     */
+    public CompletableFuture<Boolean> appendComment(int id, String comment) {
+        return submit(() -> profileCache.appendComment(id, comment));
+    }
+
+    /**
+     * @see ProfileCache#deleteByName(String)
+     */
+    public CompletableFuture<Boolean> deleteByName(String fullName) {
+        return submit(() -> profileCache.deleteByName(fullName));
+    }
+
+    /**
+     * @see ProfileCache#deleteById(int)
+     */
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return submit(() -> profileCache.deleteById(id));
+    }
+
+    /**
+     * @see ProfileCache#migrateLegacyIds()
+     */
+    public CompletableFuture<Boolean> migrateLegacyIds() {
+        return submit(profileCache::migrateLegacyIds);
+    }
+
+    /**
+     * @see ProfileCache#saveAll(List)
+     */
+    public CompletableFuture<Void> saveAll(List<StudentProfile> replacement) {
+        return submit(() -> {
+            profileCache.saveAll(replacement);
+            return null;
+        });
+    }
+
+    /**
+     * @see ProfileCache#whenWritten()
+     */
+    public CompletableFuture<Void> whenWritten() {
+        return profileCache.whenWritten();
+    }
+
+    /**
+     * @see ProfileCache#flushWrites()
+     */
+    public CompletableFuture<Void> flushWrites() {
+        return submit(() -> {
+            profileCache.flushWrites();
+            return null;
+        });
+    }
+
+    /**
+     * @see ProfileCache#searchComments(String, int)
+     */
+    public CompletableFuture<List<CommentSearchResult>> searchComments(String query, int limit) {
+        return submit(() -> profileCache.searchComments(query, limit));
+    }
+
+    /**
+     * @see ProfileCache#openPagedSource(Set)
+     */
+    public CompletableFuture<PagedProfileSource> openPagedSource(Set<ProfileField> keyFields) {
+        return submit(() -> profileCache.openPagedSource(keyFields));
+    }
+
+    /**
+     * Runs a blocking call on the shared I/O executor.
+     *
+     * @return a future completing with the call's result, or exceptionally with what it threw
+     */
+    static <T> CompletableFuture<T> submit(IoCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        IO_EXECUTOR.execute(() -> {
+            try {
+                future.complete(call.call());
+            } catch (Throwable failure) {
+                future.completeExceptionally(failure);
+            }
+        });
+        return future;
+    }
+
+    @FunctionalInterface
+    interface IoCall<T> {
+        T call() throws IOException;
+    }
+}
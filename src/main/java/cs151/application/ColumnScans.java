@@ -0,0 +1,59 @@
+package cs151.application;
+
+/**
+ * Scan kernels over the columns of a {@link ProfileColumns} store.
+ * <p>
+ * Two implementations exist: {@link VectorColumnScans} uses the {@code jdk.incubator.vector} API and is picked when
+ * that module is part of the running image (add {@code --add-modules jdk.incubator.vector}); {@link ScalarColumnScans}
+ * is plain Java and is used otherwise, or when the application is started with {@code -Dcs151.vectorScans=false}.
+ * Both return identical results.
+ * </p>
+ * <p>
+ * Bitmaps hold one bit per row: row {@code r} is bit {@code r % 64} of word {@code r / 64}.
+ * </p>
+ */
+interface ColumnScans {
+
+    String VECTOR_PROPERTY = "cs151.vectorScans";
+
+    /**
+     * @return the vector kernels when available and enabled, the scalar kernels otherwise
+     */
+    static ColumnScans best() {
+        return Holder.BEST;
+    }
+
+    /**
+     * Sets the bit of every row in {@code [0, size)} whose code equals {@code code}; other bits are left unchanged.
+     */
+    void markEqual(int[] codes, int size, int code, long[] bits);
+
+    /**
+     * @return number of set bits in {@code bits}
+     */
+    int popCount(long[] bits);
+
+    /**
+     * @return number of bits set in both bitmaps, which must have the same length
+     */
+    int popCountAnd(long[] left, long[] right);
+
+    /**
+     * Selects the implementation once, so a missing vector module is only probed on first use.
+     */
+    final class Holder {
+
+        private static final ColumnScans BEST = select();
+
+        private Holder() {
+        }
+
+        private static ColumnScans select() {
+            boolean enabled = Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"));
+            if (enabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                return new VectorColumnScans();
+            }
+            return new ScalarColumnScans();
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package cs151.application;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Full-text inverted index over student comments, ranked with BM25.
+ * <p>
+ * Every comment is a document. Comments are split into case-folded runs of letters and digits, and each term maps to
+ * the documents containing it together with the term frequency. The index is persisted next to the profile snapshot
+ * with its postings, so a restart reads it back instead of re-tokenizing every comment. Before the first search after
+ * a load, the stored comments of each student are compared with the current profiles and only students whose comments
+ * differ are re-indexed; after that, {@link ProfileCache} keeps the index current as profiles change and the file is
+ * rewritten on a background thread.
+ * </p>
+ * <p>
+ * Document ids freed by a re-indexed or removed student are handed to the next indexed comments, so the document table
+ * stays as long as the most comments indexed at once. Each document remembers where it sits in the postings of each of
+ * its terms, which makes removing it proportional to its own term count rather than to the postings lengths.
+ * </p>
+ */
+final class CommentIndex {
+
+    private static final int MAGIC = 0x43494458;
+    private static final int VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SNIPPET_CONTEXT = 60;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "comment-index-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path path;
+    private final DurableFileWriter fileWriter = new DurableFileWriter(FsyncPolicy.NEVER);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    /** Indexed comments by document id; {@code null} where {@link #freeDocumentIds} lists the id. */
+    private final List<Document> documents = new ArrayList<>();
+    private final List<Integer> freeDocumentIds = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, List<Integer>> documentsByStudent = new HashMap<>();
+    private long totalLength;
+    private int liveDocuments;
+
+    /** Whether the persisted file has been read; guarded by {@link #lock}. */
+    private boolean loadedFromDisk;
+
+    /** Whether the index matches the cached profiles; mutations are skipped until the next search reconciles. */
+    private volatile boolean synced;
+
+    CommentIndex(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Runs a ranked search. Callers {@linkplain #reconcile(Collection) reconcile} the index first when it is not
+     * {@linkplain #isSynced() synced}.
+     *
+     * @param query free text; every word is looked up case-insensitively
+     * @param limit maximum number of results
+     * @return matching comments, most relevant first
+     */
+    List<CommentSearchResult> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveDocuments == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / liveDocuments;
+            double[] scores = new double[documents.size()];
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocuments - termPostings.size + 0.5) / (termPostings.size + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int documentId = termPostings.documentIds[i];
+                    int frequency = termPostings.frequencies[i];
+                    double lengthRatio = documents.get(documentId).length / averageLength;
+                    scores[documentId] += idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+                }
+            }
+
+            PriorityQueue<Integer> best = new PriorityQueue<>(
+                    (left, right) -> Double.compare(scores[left], scores[right]));
+            for (int documentId = 0; documentId < scores.length; documentId++) {
+                if (scores[documentId] > 0) {
+                    best.add(documentId);
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+
+            CommentSearchResult[] results = new CommentSearchResult[best.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                int documentId = best.poll();
+                Document document = documents.get(documentId);
+                results[i] = new CommentSearchResult(document.studentName, document.text,
+                        snippet(document.text, terms), scores[documentId]);
+            }
+            return Arrays.asList(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes the comments of one profile, replacing the comments indexed under {@code previousName}.
+     */
+    void update(String previousName, StudentProfile profile) {
+        if (!synced) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (previousName != null) {
+                removeStudent(StudentProfileRepository.nameKey(previousName));
+            }
+            if (profile != null) {
+                removeStudent(StudentProfileRepository.nameKey(profile.getFullName()));
+                addStudent(profile);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleSave();
+    }
+
+    /**
+     * @return {@code true} when the index is known to match the cached profiles
+     */
+    boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Marks the index as possibly out of date with the cached profiles, e.g. after they were reloaded from disk.
+     */
+    void invalidate() {
+        synced = false;
+    }
+
+    /**
+     * Brings the index in line with the given profiles, reading the persisted index first if it has not been read yet.
+     * The caller must keep the profiles from changing until this returns, since updates are ignored until it does.
+     */
+    void reconcile(Collection<StudentProfile> profiles) {
+        boolean changed = false;
+        lock.writeLock().lock();
+        try {
+            if (synced) {
+                return;
+            }
+            if (!loadedFromDisk) {
+                loadedFromDisk = true;
+                changed = !readFromDisk();
+            }
+
+            Set<String> liveStudents = new HashSet<>();
+            for (StudentProfile profile : profiles) {
+                String key = StudentProfileRepository.nameKey(profile.getFullName());
+                liveStudents.add(key);
+                if (!indexedComments(key).equals(profile.getComments())
+                        || !indexedName(key).equals(profile.getFullName())) {
+                    removeStudent(key);
+                    addStudent(profile);
+                    changed = true;
+                }
+            }
+            for (String key : new ArrayList<>(documentsByStudent.keySet())) {
+                if (!liveStudents.contains(key)) {
+                    removeStudent(key);
+                    changed = true;
+                }
+            }
+            synced = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changed) {
+            scheduleSave();
+        }
+    }
+
+    private List<String> indexedComments(String studentKey) {
+        List<Integer> ids = documentsByStudent.getOrDefault(studentKey, List.of());
+        String[] texts = new String[ids.size()];
+        for (int id : ids) {
+            Document document = documents.get(id);
+            texts[document.ordinal] = document.text;
+        }
+        return Arrays.asList(texts);
+    }
+
+    private String indexedName(String studentKey) {
+        List<Integer> ids = documentsByStudent.get(studentKey);
+        return ids == null || ids.isEmpty() ? "" : documents.get(ids.get(0)).studentName;
+    }
+
+    private void addStudent(StudentProfile profile) {
+        List<String> comments = profile.getComments();
+        if (comments.isEmpty()) {
+            return;
+        }
+        String key = StudentProfileRepository.nameKey(profile.getFullName());
+        List<Integer> ids = new ArrayList<>(comments.size());
+        for (int ordinal = 0; ordinal < comments.size(); ordinal++) {
+            Map<String, Integer> frequencies = new LinkedHashMap<>();
+            List<String> tokens = tokenize(comments.get(ordinal));
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            String[] terms = frequencies.keySet().toArray(new String[0]);
+            int[] counts = frequencies.values().stream().mapToInt(Integer::intValue).toArray();
+            ids.add(addDocument(new Document(profile.getFullName(), ordinal, comments.get(ordinal), tokens.size(),
+                    terms, counts)));
+        }
+        documentsByStudent.put(key, ids);
+    }
+
+    private int addDocument(Document document) {
+        int documentId;
+        if (freeDocumentIds.isEmpty()) {
+            documentId = documents.size();
+            documents.add(document);
+        } else {
+            documentId = freeDocumentIds.remove(freeDocumentIds.size() - 1);
+            documents.set(documentId, document);
+        }
+        for (int i = 0; i < document.terms.length; i++) {
+            document.postingPositions[i] = postings.computeIfAbsent(document.terms[i], term -> new Postings())
+                    .add(documentId, document.counts[i], i);
+        }
+        totalLength += document.length;
+        liveDocuments++;
+        return documentId;
+    }
+
+    private void removeStudent(String studentKey) {
+        List<Integer> ids = documentsByStudent.remove(studentKey);
+        if (ids == null) {
+            return;
+        }
+        for (int documentId : ids) {
+            removeDocument(documentId);
+        }
+    }
+
+    private void removeDocument(int documentId) {
+        Document document = documents.get(documentId);
+        for (int i = 0; i < document.terms.length; i++) {
+            Postings termPostings = postings.get(document.terms[i]);
+            int position = document.postingPositions[i];
+            termPostings.removeAt(position);
+            if (termPostings.size == 0) {
+                postings.remove(document.terms[i]);
+            } else if (position < termPostings.size) {
+                // The last entry moved into the freed position; tell its document.
+                documents.get(termPostings.documentIds[position]).postingPositions[termPostings.termSlots[position]] =
+                        position;
+            }
+        }
+        documents.set(documentId, null);
+        freeDocumentIds.add(documentId);
+        totalLength -= document.length;
+        liveDocuments--;
+    }
+
+    /**
+     * @return number of document ids in use or free for reuse
+     */
+    int documentSlots() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            WRITER.execute(() -> {
+                saveScheduled.set(false);
+                try {
+                    save();
+                } catch (IOException exception) {
+                    // The next change retries; a missing or stale file is reconciled on the next load.
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the index as a term dictionary followed by each comment with the dictionary ids and frequencies of its
+     * terms, so a load rebuilds the postings without tokenizing any text.
+     */
+    void save() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, Integer> termIds = new HashMap<>(postings.size() * 2);
+            out.writeInt(postings.size());
+            for (String term : postings.keySet()) {
+                termIds.put(term, termIds.size());
+                writeString(out, term);
+            }
+
+            out.writeInt(liveDocuments);
+            for (Document document : documents) {
+                if (document == null) {
+                    continue;
+                }
+                writeString(out, document.studentName);
+                out.writeInt(document.ordinal);
+                out.writeInt(document.length);
+                writeString(out, document.text);
+                out.writeInt(document.terms.length);
+                for (int i = 0; i < document.terms.length; i++) {
+                    out.writeInt(termIds.get(document.terms[i]));
+                    out.writeInt(document.counts[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        fileWriter.replace(path, ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Replaces the in-memory index with the persisted one. Caller holds the write lock.
+     *
+     * @return {@code false} when no usable index was found on disk, leaving the index empty
+     */
+    private boolean readFromDisk() {
+        if (Files.notExists(path)) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return false;
+            }
+            String[] terms = new String[in.getInt()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = readString(in);
+            }
+
+            int documentCount = in.getInt();
+            for (int i = 0; i < documentCount; i++) {
+                String studentName = readString(in);
+                int ordinal = in.getInt();
+                int length = in.getInt();
+                String text = readString(in);
+                String[] documentTerms = new String[in.getInt()];
+                int[] counts = new int[documentTerms.length];
+                for (int t = 0; t < documentTerms.length; t++) {
+                    documentTerms[t] = terms[in.getInt()];
+                    counts[t] = in.getInt();
+                }
+                int documentId = addDocument(new Document(studentName, ordinal, text, length, documentTerms, counts));
+                documentsByStudent.computeIfAbsent(StudentProfileRepository.nameKey(studentName),
+                        key -> new ArrayList<>()).add(documentId);
+            }
+            return true;
+        } catch (IOException | RuntimeException exception) {
+            // Truncated or corrupt; the reconcile that follows rebuilds the index from the profiles.
+            clear();
+            return false;
+        }
+    }
+
+    private void clear() {
+        documents.clear();
+        freeDocumentIds.clear();
+        postings.clear();
+        documentsByStudent.clear();
+        totalLength = 0;
+        liveDocuments = 0;
+    }
+
+    /**
+     * Splits text into case-folded runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Cuts a single-line excerpt of {@code text} around the first occurrence of any query term.
+     */
+    private static String snippet(String text, Set<String> terms) {
+        String folded = text.toLowerCase(Locale.ROOT);
+        int match = -1;
+        if (folded.length() == text.length()) {
+            for (String term : terms) {
+                int position = folded.indexOf(term);
+                if (position >= 0 && (match < 0 || position < match)) {
+                    match = position;
+                }
+            }
+        }
+        int start = Math.max(0, match - SNIPPET_CONTEXT);
+        int end = Math.min(text.length(), Math.max(match, 0) + SNIPPET_CONTEXT * 2);
+        String excerpt = text.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 ? "..." : "") + excerpt + (end < text.length() ? "..." : "");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] utf8 = new byte[in.getInt()];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One indexed comment. {@code postingPositions[i]} is the comment's position in the postings of {@code terms[i]}.
+     */
+    private record Document(String studentName, int ordinal, String text, int length, String[] terms, int[] counts,
+                            int[] postingPositions) {
+
+        Document(String studentName, int ordinal, String text, int length, String[] terms, int[] counts) {
+            this(studentName, ordinal, text, length, terms, counts, new int[terms.length]);
+        }
+    }
+
+    /**
+     * Growable parallel arrays of document ids and term frequencies for one term, in no particular order. Each entry
+     * also records which of its document's terms this is, so the document can be told when its entry moves.
+     */
+    private static final class Postings {
+
+        private int[] documentIds = new int[4];
+        private int[] frequencies = new int[4];
+        private int[] termSlots = new int[4];
+        private int size;
+
+        /**
+         * @return position of the new entry
+         */
+        int add(int documentId, int frequency, int termSlot) {
+            if (size == documentIds.length) {
+                documentIds = Arrays.copyOf(documentIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                termSlots = Arrays.copyOf(termSlots, size * 2);
+            }
+            documentIds[size] = documentId;
+            frequencies[size] = frequency;
+            termSlots[size] = termSlot;
+            return size++;
+        }
+
+        /**
+         * Removes the entry at {@code position} by moving the last entry into it.
+         */
+        void removeAt(int position) {
+            size--;
+            documentIds[position] = documentIds[size];
+            frequencies[position] = frequencies[size];
+            termSlots[position] = termSlots[size];
+        }
+    }
+}
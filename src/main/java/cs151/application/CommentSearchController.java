@@ -0,0 +1,163 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * Controller for ranked full-text search across all student comments.
+ */
+public class CommentSearchController {
+
+    private static final int MAX_RESULTS = 100;
+
+    private final AsyncProfileCache asyncProfileCache = AsyncProfileCache.getInstance();
+    /** Incremented for every search so that only the latest results are shown. */
+    private long searchGeneration;
+
+    private final ObservableList<CommentSearchResult> results = FXCollections.observableArrayList();
+
+    @FXML
+    private VBox rootContainer;
+
+    @FXML
+    private TextField queryField;
+
+    @FXML
+    private Label statusLabel;
+
+    @FXML
+    private TableView<CommentSearchResult> resultsTable;
+
+    @FXML
+    private TableColumn<CommentSearchResult, String> studentColumn;
+
+    @FXML
+    private TableColumn<CommentSearchResult, String> snippetColumn;
+
+    @FXML
+    private TableColumn<CommentSearchResult, String> scoreColumn;
+
+    @FXML
+    private void initialize() {
+        resultsTable.setItems(results);
+        resultsTable.setPlaceholder(new Label("Enter words above to search comments."));
+        studentColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().studentName()));
+        snippetColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().snippet()));
+        scoreColumn.setCellValueFactory(cell ->
+                new ReadOnlyStringWrapper(String.format(Locale.ENGLISH, "%.2f", cell.getValue().score())));
+        resultsTable.setRowFactory(table -> {
+            TableRow<CommentSearchResult> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) {
+                    openComments(row.getItem());
+                }
+            });
+            return row;
+        });
+        statusLabel.setText("");
+        Platform.runLater(() -> queryField.requestFocus());
+    }
+
+    @FXML
+    private void onSearch() {
+        String query = queryField.getText() == null ? "" : queryField.getText().trim();
+        if (query.isEmpty()) {
+            results.clear();
+            setError("Enter at least one word to search for.");
+            return;
+        }
+
+        long generation = ++searchGeneration;
+        results.clear();
+        resultsTable.setPlaceholder(new ProgressIndicator());
+        statusLabel.setText("Searching comments...");
+        statusLabel.setStyle("-fx-text-fill: #1976d2;");
+        asyncProfileCache.searchComments(query, MAX_RESULTS).whenCompleteAsync((matches, error) -> {
+            if (generation != searchGeneration) {
+                return;
+            }
+            resultsTable.setPlaceholder(new Label("No comments match the search."));
+            if (error != null) {
+                setError("Unable to search comments. Please try again.");
+            } else if (matches.isEmpty()) {
+                setError("No comments match the search.");
+            } else {
+                results.setAll(matches);
+                setSuccess(String.format(Locale.ENGLISH, "Showing %d matching comment%s.", matches.size(),
+                        matches.size() == 1 ? "" : "s"));
+            }
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    @FXML
+    private void onBackToHome() throws IOException {
+        Stage currentStage = (Stage) rootContainer.getScene().getWindow();
+        FXMLLoader loader = new FXMLLoader(Main.class.getResource("hello-view.fxml"));
+        Parent view = loader.load();
+        switchScene(currentStage, view, "Curriculum Setup");
+    }
+
+    private void openComments(CommentSearchResult result) {
+        asyncProfileCache.findByName(result.studentName()).whenCompleteAsync((profile, error) -> {
+            if (error != null) {
+                setError("Unable to open the student's comments. Please try again.");
+            } else if (profile.isEmpty()) {
+                setError("That student profile no longer exists.");
+            } else {
+                showComments(profile.get());
+            }
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    private void showComments(StudentProfile profile) {
+        try {
+            Stage currentStage = (Stage) rootContainer.getScene().getWindow();
+            FXMLLoader loader = new FXMLLoader(Main.class.getResource("view-student-comments-view.fxml"));
+            Parent view = loader.load();
+            ViewStudentCommentsController controller = loader.getController();
+            controller.setReturnState(profile.getFullName(), "", "", "", "");
+            controller.setProfile(profile);
+            switchScene(currentStage, view, "Student Comments");
+        } catch (IOException exception) {
+            setError("Unable to open the student's comments. Please try again.");
+        }
+    }
+
+    private void setError(String message) {
+        statusLabel.setText(message);
+        statusLabel.setStyle("-fx-text-fill: #d32f2f;");
+    }
+
+    private void setSuccess(String message) {
+        statusLabel.setText(message);
+        statusLabel.setStyle("-fx-text-fill: #2e7d32;");
+    }
+
+    private void switchScene(Stage stage, Parent view, String title) {
+        Scene scene = stage.getScene();
+        if (scene == null) {
+            scene = new Scene(view);
+            stage.setScene(scene);
+        } else {
+            scene.setRoot(view);
+        }
+        stage.setTitle(title);
+    }
+}
@@ -0,0 +1,12 @@
+package cs151.application;
+
+/**
+ * One comment matched by a full-text search.
+ *
+ * @param studentName name of the student the comment belongs to
+ * @param comment     full comment text
+ * @param snippet     short excerpt of the comment around the first matching word
+ * @param score       BM25 relevance score; higher is more relevant
+ */
+public record CommentSearchResult(String studentName, String comment, String snippet, double score) {
+}
@@ -0,0 +1,226 @@
+package cs151.application;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the {@code data/} directory for edits made outside the application, such as by scripts.
+ * <p>
+ * Changes to the profile snapshot or its journals make the shared {@link ProfileCache} reload and publish a
+ * {@link ProfileChange} to its listeners. Changes to the language file are diffed against the last known language list
+ * and published as a {@link LanguageChange}. Bursts of events, such as a save that writes a temporary file and renames
+ * it, are coalesced into a single reload, though a steady stream of events still reloads at least every
+ * {@link #MAX_DEBOUNCE_MILLIS}. Events caused by the application's own writes find the files as the repository last
+ * wrote them and are ignored.
+ * </p>
+ */
+public final class DataDirectoryWatcher implements Closeable {
+
+    /** Quiet period after the last event before the directory is reloaded. */
+    static final long DEBOUNCE_MILLIS = 200;
+
+    /** Longest time a burst of events can postpone the reload, counted from its first event. */
+    static final long MAX_DEBOUNCE_MILLIS = 2_000;
+
+    private static final Set<String> PROFILE_FILES = Set.of("student-profiles.csv", "student-profiles.journal",
+            "student-profiles.journal.compacting");
+    private static final String LANGUAGE_FILE = "programming-languages.csv";
+
+    private static final DataDirectoryWatcher INSTANCE = new DataDirectoryWatcher(
+            Paths.get(System.getProperty("user.dir"), "data"), ProfileCache.getInstance(), new LanguageRepository());
+
+    private final Path directory;
+    private final ProfileCache profileCache;
+    private final LanguageRepository languageRepository;
+    private final List<WeakReference<Consumer<LanguageChange>>> languageListeners = new CopyOnWriteArrayList<>();
+
+    /** Case-folded name to stored name of the languages seen by the last reload; used only by the watcher thread. */
+    private Map<String, String> knownLanguages = Map.of();
+
+    private WatchService watchService;
+    private Thread worker;
+    private volatile IOException lastFailure;
+
+    DataDirectoryWatcher(Path directory, ProfileCache profileCache, LanguageRepository languageRepository) {
+        this.directory = directory;
+        this.profileCache = profileCache;
+        this.languageRepository = languageRepository;
+    }
+
+    /**
+     * @return the watcher for the application's default data directory
+     */
+    public static DataDirectoryWatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts watching on a background daemon thread. Calling it again while running has no effect.
+     *
+     * @throws IOException when the directory cannot be created or watched
+     */
+    public synchronized void start() throws IOException {
+        if (worker != null) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        knownLanguages = loadLanguages();
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        worker = new Thread(this::watchLoop, "data-directory-watcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops watching. The watcher can be started again afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (worker == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException exception) {
+            // The worker exits once the service reports it is closed.
+        }
+        worker = null;
+        watchService = null;
+    }
+
+    /**
+     * Registers a listener for language changes. Listeners are called on the watcher thread and held weakly; the caller
+     * keeps a strong reference for as long as it wants to be notified.
+     *
+     * @param listener callback receiving each non-empty change
+     */
+    public void addLanguageListener(Consumer<LanguageChange> listener) {
+        languageListeners.add(new WeakReference<>(listener));
+    }
+
+    /**
+     * @return the error raised by the most recent failed reload, or {@code null} if the last reload succeeded
+     */
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    private void watchLoop() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DEBOUNCE_MILLIS);
+                boolean profilesChanged = false;
+                boolean languagesChanged = false;
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            profilesChanged = true;
+                            languagesChanged = true;
+                            continue;
+                        }
+                        String fileName = event.context().toString();
+                        profilesChanged |= PROFILE_FILES.contains(fileName);
+                        languagesChanged |= LANGUAGE_FILE.equals(fileName);
+                    }
+                    key.reset();
+                    // Events left queued at the deadline start the next burst.
+                    long remaining = deadline - System.nanoTime();
+                    key = remaining <= 0 ? null : service.poll(
+                            Math.min(TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS), remaining), TimeUnit.NANOSECONDS);
+                }
+
+                if (profilesChanged) {
+                    reloadProfiles();
+                }
+                if (languagesChanged) {
+                    reloadLanguages();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException exception) {
+            // Stopped by close().
+        }
+    }
+
+    private void reloadProfiles() {
+        try {
+            profileCache.reloadIfChanged();
+            lastFailure = null;
+        } catch (IOException exception) {
+            // A script may still be writing the file; the next event retries.
+            lastFailure = exception;
+        }
+    }
+
+    private void reloadLanguages() {
+        Map<String, String> current;
+        try {
+            current = loadLanguages();
+            lastFailure = null;
+        } catch (IOException exception) {
+            lastFailure = exception;
+            return;
+        }
+
+        List<String> added = new ArrayList<>();
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            if (!knownLanguages.containsKey(entry.getKey())) {
+                added.add(entry.getValue());
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, String> entry : knownLanguages.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                removed.add(entry.getValue());
+            }
+        }
+        knownLanguages = current;
+
+        LanguageChange change = new LanguageChange(added, removed);
+        if (change.isEmpty()) {
+            return;
+        }
+        for (WeakReference<Consumer<LanguageChange>> reference : languageListeners) {
+            Consumer<LanguageChange> listener = reference.get();
+            if (listener == null) {
+                languageListeners.remove(reference);
+            } else {
+                listener.accept(change);
+            }
+        }
+    }
+
+    private Map<String, String> loadLanguages() throws IOException {
+        Map<String, String> languages = new LinkedHashMap<>();
+        for (ProgrammingLanguage language : languageRepository.loadAll()) {
+            languages.putIfAbsent(language.getName().toLowerCase(Locale.ROOT), language.getName());
+        }
+        return languages;
+    }
+}
@@ -0,0 +1,79 @@
+package cs151.application;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an action once requests for it have stopped arriving for a delay, so a burst of requests runs it once.
+ * <p>
+ * {@link #request()} and {@link #cancel()} may be called from any thread. The action runs on the executor given at
+ * construction, such as {@link AsyncProfileCache#FX_THREAD}; a request or cancellation made after the delay has
+ * elapsed but before the action started still applies, so a cancelled action never runs.
+ * </p>
+ */
+final class Debouncer {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "debouncer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long delayMillis;
+    private final Executor executor;
+    private final Runnable action;
+    /** Incremented by every request and cancellation; only the run for the latest request goes ahead. */
+    private long generation;
+    /** Timer of the latest request; guarded by {@code this}. */
+    private ScheduledFuture<?> pending;
+
+    /**
+     * @param delayMillis quiet period after the last request before the action runs
+     * @param executor    runs the action
+     * @param action      action to run
+     */
+    Debouncer(long delayMillis, Executor executor, Runnable action) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("delayMillis must not be negative");
+        }
+        this.delayMillis = delayMillis;
+        this.executor = executor;
+        this.action = action;
+    }
+
+    /**
+     * Runs the action after the delay, unless another request or a cancellation comes first.
+     */
+    synchronized void request() {
+        long requested = ++generation;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = TIMER.schedule(() -> executor.execute(() -> runIfLatest(requested)), delayMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the pending run, if any.
+     */
+    synchronized void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void runIfLatest(long requested) {
+        synchronized (this) {
+            if (requested != generation) {
+                return;
+            }
+            pending = null;
+        }
+        action.run();
+    }
+}
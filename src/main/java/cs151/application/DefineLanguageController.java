@@ -3,6 +3,8 @@ package cs151.application;
 import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyStringWrapper;
@@ -21,11 +23,21 @@ import javafx.stage.Stage;
 
 /**
  * Controller for the Define Programming Language page. Provides validation and navigation back to the home page.
+ * <p>
+ * The language file is read and written on background threads. The name field stays disabled until the stored
+ * languages have been read, so a save never replaces the file with a partial list, and saves are written one after
+ * another in the order they were made.
+ * </p>
  */
 public class DefineLanguageController {
 
-    private final LanguageRepository repository = new LanguageRepository();
+    private final AsyncLanguageRepository repository = AsyncLanguageRepository.getInstance();
     private final ObservableList<ProgrammingLanguage> languages = FXCollections.observableArrayList();
+    /** Completes once the latest save has been written or has failed. */
+    private CompletableFuture<Void> lastSave = CompletableFuture.completedFuture(null);
+    // Held in a field because the watcher only keeps a weak reference to it.
+    private final Consumer<LanguageChange> languageChangeListener =
+            change -> Platform.runLater(() -> applyLanguageChange(change));
 
     @FXML
     private TextField nameField;
@@ -50,6 +62,7 @@ public class DefineLanguageController {
         languagesTable.getSortOrder().clear();
         languagesTable.getSortOrder().add(nameColumn);
         refreshFromStorage();
+        DataDirectoryWatcher.getInstance().addLanguageListener(languageChangeListener);
         Platform.runLater(() -> rootContainer.requestFocus());
     }
 
@@ -83,17 +96,23 @@ public class DefineLanguageController {
         languages.add(newLanguage);
         sortLanguages();
 
-        try {
-            repository.saveAll(languages);
-            feedbackLabel.setText(String.format("Saved programming language: %s", enteredName));
-            feedbackLabel.setStyle("-fx-text-fill: #2e7d32;");
-            nameField.clear();
-            nameField.requestFocus();
-        } catch (IOException exception) {
-            languages.remove(newLanguage);
-            feedbackLabel.setText("Unable to store language; please try again.");
-            feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
-        }
+        nameField.clear();
+        nameField.requestFocus();
+        List<ProgrammingLanguage> snapshot = List.copyOf(languages);
+        lastSave = lastSave.exceptionally(error -> null).thenCompose(ignored -> repository.saveAll(snapshot));
+        lastSave.whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                languages.remove(newLanguage);
+                if (nameField.getText().isEmpty()) {
+                    nameField.setText(enteredName);
+                }
+                feedbackLabel.setText("Unable to store language; please try again.");
+                feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
+            } else {
+                feedbackLabel.setText(String.format("Saved programming language: %s", enteredName));
+                feedbackLabel.setStyle("-fx-text-fill: #2e7d32;");
+            }
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     /**
@@ -121,18 +140,31 @@ public class DefineLanguageController {
     }
 
     private void refreshFromStorage() {
-        try {
-            List<ProgrammingLanguage> storedLanguages = repository.loadAll();
+        nameField.setDisable(true);
+        repository.loadAll().whenCompleteAsync((storedLanguages, error) -> {
+            nameField.setDisable(false);
+            if (error != null) {
+                feedbackLabel.setText("Unable to load stored languages. Add a new entry to begin.");
+                feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
+                return;
+            }
             languages.setAll(storedLanguages);
             sortLanguages();
-        } catch (IOException exception) {
-            feedbackLabel.setText("Unable to load stored languages. Add a new entry to begin.");
-            feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    private void applyLanguageChange(LanguageChange change) {
+        languages.removeIf(language -> change.removed().stream().anyMatch(language.getName()::equalsIgnoreCase));
+        for (String added : change.added()) {
+            if (languages.stream().noneMatch(language -> language.getName().equalsIgnoreCase(added))) {
+                languages.add(new ProgrammingLanguage(added));
+            }
         }
+        sortLanguages();
     }
 
     private void sortLanguages() {
-        FXCollections.sort(languages, Comparator.comparing(ProgrammingLanguage::getName, String.CASE_INSENSITIVE_ORDER));
+        FXCollections.sort(languages, Comparator.comparing(ProgrammingLanguage::getName, NameOrder.NAMES));
         languagesTable.sort();
     }
 }
@@ -0,0 +1,150 @@
+package cs151.application;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import javafx.collections.ModifiableObservableListBase;
+
+/**
+ * Observable list that can be brought in line with a new sorted list by removing, inserting and replacing only the
+ * rows that differ.
+ * <p>
+ * {@link #replaceSorted(List, Comparator)} walks the current and the new contents in step, as in a merge: rows that
+ * compare as equal keep their position, an equal but different instance is swapped in place, and everything else is
+ * removed or inserted. The new contents are built in one pass and all edits are reported as a single change, so a table
+ * backed by the list keeps the cells, selection and scroll position of every unchanged row, which {@code setAll} would
+ * discard. The bulk operations inherited from {@link ModifiableObservableListBase} shift the backing array once per
+ * element, so {@link #setAll(Collection)} is overridden to replace the contents in one step as well.
+ * </p>
+ *
+ * @param <E> element type
+ */
+public final class DiffingObservableList<E> extends ModifiableObservableListBase<E> {
+
+    private ArrayList<E> elements = new ArrayList<>();
+
+    /**
+     * Replaces the contents with {@code replacement}, reporting only the rows that differ. Falls back to a plain
+     * replacement when fewer than half of the new rows are already present or there are more edits than new rows,
+     * since a table then redraws most of its visible rows either way and one change is cheaper to process.
+     *
+     * @param replacement new contents, sorted by {@code order}, with no two elements comparing as equal
+     * @param order       order the new contents are sorted by; rows comparing as equal are the same row. The current
+     *                    contents should be sorted by it too, otherwise rows that are still present may be reported as
+     *                    removed and added again
+     */
+    public void replaceSorted(List<? extends E> replacement, Comparator<? super E> order) {
+        ArrayList<E> next = new ArrayList<>(replacement.size());
+        List<Edit<E>> edits = new ArrayList<>();
+        int kept = 0;
+        int i = 0;
+        int j = 0;
+        while (i < elements.size() || j < replacement.size()) {
+            E current = i < elements.size() ? elements.get(i) : null;
+            E candidate = j < replacement.size() ? replacement.get(j) : null;
+            int comparison;
+            if (current != null && current == candidate) {
+                comparison = 0;
+            } else if (candidate == null) {
+                comparison = -1;
+            } else if (current == null) {
+                comparison = 1;
+            } else {
+                comparison = order.compare(current, candidate);
+            }
+
+            // Positions are those of the list as it looks once every earlier edit has been applied.
+            if (comparison < 0) {
+                edits.add(new Edit<>(next.size(), current, false));
+                i++;
+            } else if (comparison > 0) {
+                edits.add(new Edit<>(next.size(), null, true));
+                next.add(candidate);
+                j++;
+            } else {
+                if (current != candidate) {
+                    edits.add(new Edit<>(next.size(), current, true));
+                } else {
+                    kept++;
+                }
+                next.add(candidate);
+                i++;
+                j++;
+            }
+        }
+
+        if (edits.isEmpty()) {
+            return;
+        }
+        if (kept * 2 < next.size() || edits.size() > next.size()) {
+            setAll(next);
+            return;
+        }
+        beginChange();
+        try {
+            elements = next;
+            for (Edit<E> edit : edits) {
+                if (!edit.added) {
+                    nextRemove(edit.position, edit.previous);
+                } else if (edit.previous == null) {
+                    nextAdd(edit.position, edit.position + 1);
+                } else {
+                    nextSet(edit.position, edit.previous);
+                }
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public boolean setAll(Collection<? extends E> replacement) {
+        beginChange();
+        try {
+            List<E> removed = elements;
+            elements = new ArrayList<>(replacement);
+            if (!removed.isEmpty()) {
+                nextRemove(0, removed);
+            }
+            if (!elements.isEmpty()) {
+                nextAdd(0, elements.size());
+            }
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    protected void doAdd(int index, E element) {
+        elements.add(index, element);
+    }
+
+    @Override
+    protected E doSet(int index, E element) {
+        return elements.set(index, element);
+    }
+
+    @Override
+    protected E doRemove(int index) {
+        return elements.remove(index);
+    }
+
+    /**
+     * One row removed, inserted, or replaced ({@code added} with a {@code previous} element) at {@code position}.
+     */
+    private record Edit<E>(int position, E previous, boolean added) {
+    }
+}
@@ -0,0 +1,218 @@
+package cs151.application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes repository files so that a crash never leaves a half-written file behind.
+ * <p>
+ * Full rewrites stream into a uniquely named temporary file in the target's directory, which is then moved over the
+ * original with an atomic rename. Appends go straight to the target. Whether and when the written data is forced to
+ * disk follows the configured {@link FsyncPolicy}, and the time spent forcing is recorded in {@link #stats()}.
+ * </p>
+ */
+final class DurableFileWriter {
+
+    /** Interval at which files appended to under {@link FsyncPolicy#BATCHED} are forced. */
+    static final long BATCH_INTERVAL_MILLIS = 250;
+
+    private static final ScheduledExecutorService BATCH_SYNCER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fsync-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Files awaiting a batched sync, mapped to the writer whose statistics the sync is charged to. */
+    private static final Map<Path, DurableFileWriter> PENDING_SYNCS = new ConcurrentHashMap<>();
+
+    static {
+        BATCH_SYNCER.scheduleWithFixedDelay(DurableFileWriter::syncPending, BATCH_INTERVAL_MILLIS,
+                BATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private volatile FsyncPolicy policy;
+
+    DurableFileWriter(FsyncPolicy policy) {
+        this.policy = policy;
+    }
+
+    FsyncPolicy getPolicy() {
+        return policy;
+    }
+
+    void setPolicy(FsyncPolicy policy) {
+        this.policy = policy;
+    }
+
+    FsyncStats stats() {
+        return new FsyncStats(syncs.get(), deferred.get(), totalNanos.get(), maxNanos.get());
+    }
+
+    /**
+     * Replaces {@code target} with the given lines via a temporary file and an atomic rename.
+     */
+    void replace(Path target, Iterable<String> lines) throws IOException {
+        commit(writeTemporary(target, lines), target);
+    }
+
+    /**
+     * Replaces {@code target} with the given bytes via a temporary file and an atomic rename.
+     */
+    void replace(Path target, ByteBuffer content) throws IOException {
+        Path temporary = createTemporary(target);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            syncBeforeCommit(channel);
+        } catch (IOException exception) {
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
+        commit(temporary, target);
+    }
+
+    /**
+     * Streams the lines into a new temporary file beside {@code target} and forces it unless the policy is
+     * {@link FsyncPolicy#NEVER}. The file is later moved into place with {@link #commit(Path, Path)}.
+     *
+     * @return the temporary file; its name is unique, so concurrent writers of the same target do not share it
+     */
+    Path writeTemporary(Path target, Iterable<String> lines) throws IOException {
+        Path temporary = createTemporary(target);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+            writer.flush();
+            syncBeforeCommit(channel);
+        } catch (IOException exception) {
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
+        return temporary;
+    }
+
+    /**
+     * Atomically moves a file produced by {@link #writeTemporary(Path, Iterable)} over {@code target}, then forces the
+     * directory so the rename itself survives a crash, unless the policy is {@link FsyncPolicy#NEVER}.
+     */
+    void commit(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (policy == FsyncPolicy.NEVER) {
+            deferred.incrementAndGet();
+        } else {
+            forceDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Appends the lines to {@code target}, creating it when missing. Under {@link FsyncPolicy#BATCHED} the file is
+     * forced by the next batch rather than before returning.
+     */
+    void append(Path target, List<String> lines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append(System.lineSeparator());
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (policy == FsyncPolicy.ALWAYS) {
+                force(channel);
+            }
+        }
+        if (policy != FsyncPolicy.ALWAYS) {
+            deferSync(target);
+        }
+    }
+
+    private static Path createTemporary(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        return Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+    }
+
+    /**
+     * A rewrite is forced before its rename under both {@link FsyncPolicy#ALWAYS} and {@link FsyncPolicy#BATCHED}:
+     * once renamed, the file replaces the previous version, and a crash must not leave it empty or truncated.
+     */
+    private void syncBeforeCommit(FileChannel channel) throws IOException {
+        if (policy != FsyncPolicy.NEVER) {
+            force(channel);
+        }
+    }
+
+    private void deferSync(Path target) {
+        deferred.incrementAndGet();
+        if (policy == FsyncPolicy.BATCHED) {
+            PENDING_SYNCS.put(target.toAbsolutePath(), this);
+        }
+    }
+
+    private static void syncPending() {
+        for (Path path : PENDING_SYNCS.keySet()) {
+            DurableFileWriter writer = PENDING_SYNCS.remove(path);
+            if (writer == null || Files.notExists(path)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                writer.force(channel);
+            } catch (IOException exception) {
+                // The file was replaced or removed after being queued; its successor is queued separately.
+            }
+        }
+    }
+
+    private void force(FileChannel channel) throws IOException {
+        long start = System.nanoTime();
+        channel.force(true);
+        long elapsed = System.nanoTime() - start;
+        syncs.incrementAndGet();
+        totalNanos.addAndGet(elapsed);
+        maxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            force(channel);
+        } catch (IOException exception) {
+            // Not every platform allows opening a directory for sync (e.g. Windows); the rename itself is still atomic.
+        }
+    }
+}
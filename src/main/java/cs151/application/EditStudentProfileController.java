@@ -16,6 +16,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
@@ -31,6 +32,10 @@ import javafx.stage.Stage;
 
 /**
  * Controller allowing faculty to review and edit a stored {@link StudentProfile} instance.
+ * <p>
+ * The defined languages are read on a background thread. Saving stays disabled until they are listed and the profile's
+ * languages are selected, so a save never drops languages that were not shown yet.
+ * </p>
  */
 public class EditStudentProfileController {
 
@@ -38,11 +43,13 @@ public class EditStudentProfileController {
     private static final List<String> DATABASE_OPTIONS = List.of("MySQL", "Postgres", "MongoDB", "SQLite", "Oracle");
     private static final List<String> PREFERRED_ROLES = List.of("Front-End", "Back-End", "Full-Stack", "Data", "Other");
 
-    private final StudentProfileRepository profileRepository = new StudentProfileRepository();
-    private final LanguageRepository languageRepository = new LanguageRepository();
+    private final AsyncProfileCache asyncProfileCache = AsyncProfileCache.getInstance();
+    private final AsyncLanguageRepository languageRepository = AsyncLanguageRepository.getInstance();
+    /** Incremented for every language load so that only the latest one fills the list. */
+    private int languageLoadGeneration;
 
     private ToggleGroup jobStatusGroup;
-    private String originalName;
+    private int profileId;
 
     private String returnNameFilter = "";
     private String returnStatusFilter = "";
@@ -90,6 +97,9 @@ public class EditStudentProfileController {
     @FXML
     private Label feedbackLabel;
 
+    @FXML
+    private Button saveButton;
+
     @FXML
     private void initialize() {
         initializeJobStatusControls();
@@ -99,10 +109,10 @@ public class EditStudentProfileController {
     }
 
     /**
-     * Populates fields with the stored profile data and retains the original name for update tracking.
+     * Populates fields with the stored profile data and retains the profile id for update tracking.
      */
     public void setProfile(StudentProfile profile) {
-        this.originalName = profile.getFullName();
+        this.profileId = profile.getId();
         populateFields(profile);
     }
 
@@ -188,18 +198,20 @@ public class EditStudentProfileController {
                 whitelist,
                 blacklist);
 
-        try {
-            boolean updated = profileRepository.updateProfile(originalName, updatedProfile);
-            if (updated) {
-                originalName = updatedProfile.getFullName();
+        saveButton.setDisable(true);
+        feedbackLabel.setText("Saving changes...");
+        feedbackLabel.setStyle("-fx-text-fill: #1976d2;");
+        asyncProfileCache.updateProfile(profileId, updatedProfile).whenCompleteAsync((updated, error) -> {
+            saveButton.setDisable(false);
+            if (error != null) {
+                setError("Unable to save changes. Please try again.");
+            } else if (updated) {
                 successMessageOnReturn = String.format(Locale.ENGLISH, "Updated profile for %s.", updatedProfile.getFullName());
                 setSuccess("Profile updated successfully.");
             } else {
                 setError("Unable to update profile. Ensure the name is unique and the original record still exists.");
             }
-        } catch (IOException exception) {
-            setError("Unable to save changes. Please try again.");
-        }
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     @FXML
@@ -254,7 +266,6 @@ public class EditStudentProfileController {
 
         loadLanguages(profile.getProgrammingLanguages());
     ensureItemsPresent(databasesListView, profile.getDatabases());
-        selectListValues(languagesListView, profile.getProgrammingLanguages());
         selectListValues(databasesListView, profile.getDatabases());
         selectComboValue(preferredRoleCombo, profile.getPreferredRole());
 
@@ -263,29 +274,42 @@ public class EditStudentProfileController {
         blacklistCheckBox.setSelected(profile.isBlacklist());
     }
 
+    /**
+     * Lists the defined languages together with {@code preferredLanguages}, then selects the latter.
+     */
     private void loadLanguages(List<String> preferredLanguages) {
-        try {
-            List<String> storedLanguages = languageRepository.loadAll().stream()
-                    .map(ProgrammingLanguage::getName)
-                    .collect(Collectors.toList());
-            Set<String> merged = new LinkedHashSet<>(storedLanguages);
-            merged.addAll(preferredLanguages);
-            ObservableList<String> items = FXCollections.observableArrayList(merged);
-            languagesListView.setItems(items);
-            languagesListView.setDisable(items.isEmpty());
-            if (items.isEmpty()) {
-                languagesListView.setPlaceholder(new Label("No languages defined."));
-            } else {
-                languagesListView.setPlaceholder(null);
+        int generation = ++languageLoadGeneration;
+        languagesListView.setDisable(true);
+        saveButton.setDisable(true);
+        languageRepository.loadAll().whenCompleteAsync((storedLanguages, error) -> {
+            if (generation != languageLoadGeneration) {
+                return;
             }
-        } catch (IOException exception) {
-            ObservableList<String> items = FXCollections.observableArrayList(preferredLanguages);
-            languagesListView.setItems(items);
-            languagesListView.setDisable(items.isEmpty());
-            if (items.isEmpty()) {
-                languagesListView.setPlaceholder(new Label("Unable to load languages."));
+            saveButton.setDisable(false);
+            if (error != null) {
+                ObservableList<String> items = FXCollections.observableArrayList(preferredLanguages);
+                languagesListView.setItems(items);
+                languagesListView.setDisable(items.isEmpty());
+                if (items.isEmpty()) {
+                    languagesListView.setPlaceholder(new Label("Unable to load languages."));
+                }
+            } else {
+                Set<String> merged = new LinkedHashSet<>();
+                for (ProgrammingLanguage language : storedLanguages) {
+                    merged.add(language.getName());
+                }
+                merged.addAll(preferredLanguages);
+                ObservableList<String> items = FXCollections.observableArrayList(merged);
+                languagesListView.setItems(items);
+                languagesListView.setDisable(items.isEmpty());
+                if (items.isEmpty()) {
+                    languagesListView.setPlaceholder(new Label("No languages defined."));
+                } else {
+                    languagesListView.setPlaceholder(null);
+                }
             }
-        }
+            selectListValues(languagesListView, preferredLanguages);
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     private void handleJobStatusChange(@SuppressWarnings("unused") javafx.beans.value.ObservableValue<? extends Toggle> observable,
@@ -0,0 +1,19 @@
+package cs151.application;
+
+/**
+ * Controls when data written by the repositories is forced to the storage device.
+ */
+public enum FsyncPolicy {
+    /** Force every write before it is reported as complete. Safest and slowest. */
+    ALWAYS,
+    /**
+     * Force rewritten files before they replace the original, but force appended files at most once per batch interval
+     * from a background thread.
+     */
+    BATCHED,
+    /**
+     * Never force; durability is left to the operating system's write-back, and a crash may leave a rewritten file
+     * empty.
+     */
+    NEVER
+}
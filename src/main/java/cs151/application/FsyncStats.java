@@ -0,0 +1,19 @@
+package cs151.application;
+
+/**
+ * Snapshot of the fsync work done by a {@link DurableFileWriter}.
+ *
+ * @param syncs        number of {@code force()} calls performed
+ * @param deferred     number of writes whose sync was deferred to a batch or skipped by policy
+ * @param totalNanos   total time spent in {@code force()}
+ * @param maxNanos     longest single {@code force()} call
+ */
+public record FsyncStats(long syncs, long deferred, long totalNanos, long maxNanos) {
+
+    /**
+     * @return average time of a single {@code force()} call in milliseconds, or zero when none ran
+     */
+    public double averageMillis() {
+        return syncs == 0 ? 0 : totalNanos / (double) syncs / 1_000_000;
+    }
+}
@@ -0,0 +1,40 @@
+package cs151.application;
+
+/**
+ * Development check that keeps blocking profile I/O off the JavaFX application thread.
+ * <p>
+ * When the application is started with {@code -Dcs151.strictFxThread=true}, {@link Main} registers the application
+ * thread here and every blocking {@link StudentProfileRepository} or {@link LanguageRepository} operation called on it
+ * fails immediately with an {@link IllegalStateException}, instead of freezing the window for as long as the disk takes.
+ * Without the property the check does nothing.
+ * </p>
+ */
+final class FxThreadGuard {
+
+    static final String STRICT_PROPERTY = "cs151.strictFxThread";
+
+    private static volatile Thread fxThread;
+
+    private FxThreadGuard() {
+    }
+
+    /**
+     * Registers the calling thread as the JavaFX application thread when strict mode is enabled.
+     */
+    static void install() {
+        if (Boolean.getBoolean(STRICT_PROPERTY)) {
+            fxThread = Thread.currentThread();
+        }
+    }
+
+    /**
+     * @param operation name of the blocking operation, for the error message
+     * @throws IllegalStateException when strict mode is enabled and the caller is the JavaFX application thread
+     */
+    static void checkNotFxThread(String operation) {
+        if (fxThread != null && Thread.currentThread() == fxThread) {
+            throw new IllegalStateException(operation + " blocks on file I/O and must not run on the JavaFX "
+                    + "application thread; use AsyncProfileCache or AsyncLanguageRepository instead");
+        }
+    }
+}
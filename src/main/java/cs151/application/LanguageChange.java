@@ -0,0 +1,24 @@
+package cs151.application;
+
+import java.util.List;
+
+/**
+ * Difference between two versions of the stored programming language list.
+ *
+ * @param added   names that were not stored before
+ * @param removed names that are no longer stored
+ */
+public record LanguageChange(List<String> added, List<String> removed) {
+
+    public LanguageChange {
+        added = List.copyOf(added);
+        removed = List.copyOf(removed);
+    }
+
+    /**
+     * @return {@code true} when no language was added or removed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
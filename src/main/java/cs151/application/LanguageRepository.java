@@ -5,7 +5,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,6 +19,7 @@ import java.util.stream.Collectors;
 public class LanguageRepository {
 
     private final Path storagePath;
+    private final DurableFileWriter fileWriter = new DurableFileWriter(FsyncPolicy.BATCHED);
 
     /**
       * Builds a repository using the default storage location inside the project workspace.
@@ -39,6 +39,7 @@ public class LanguageRepository {
      * @throws IOException when the storage file cannot be accessed
      */
     public List<ProgrammingLanguage> loadAll() throws IOException {
+        FxThreadGuard.checkNotFxThread("loadAll");
         if (Files.notExists(storagePath)) {
             ensureParentDirectory();
             return new ArrayList<>();
@@ -48,7 +49,7 @@ public class LanguageRepository {
             return Files.readAllLines(storagePath, StandardCharsets.UTF_8).stream()
                     .map(String::trim)
                     .filter(line -> !line.isEmpty())
-                    .sorted(String.CASE_INSENSITIVE_ORDER)
+                    .sorted(NameOrder.NAMES)
                     .map(ProgrammingLanguage::new)
                     .collect(Collectors.toCollection(ArrayList::new));
         } catch (IOException ioException) {
@@ -63,22 +64,38 @@ public class LanguageRepository {
      * @throws IOException when the storage file cannot be written
      */
     public void saveAll(List<ProgrammingLanguage> languages) throws IOException {
+        FxThreadGuard.checkNotFxThread("saveAll");
         ensureParentDirectory();
         List<String> sortedNames = languages.stream()
                 .map(ProgrammingLanguage::getName)
                 .map(String::trim)
                 .filter(name -> !name.isEmpty())
-                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .sorted(NameOrder.NAMES)
                 .collect(Collectors.toList());
 
         try {
-            Files.write(storagePath, sortedNames, StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            fileWriter.replace(storagePath, sortedNames);
         } catch (IOException ioException) {
             throw new IOException("Unable to save programming languages", ioException);
         }
     }
 
+    /**
+     * Chooses when saves are forced to disk. Defaults to {@link FsyncPolicy#BATCHED}.
+     *
+     * @param policy fsync policy for the language file
+     */
+    public void setFsyncPolicy(FsyncPolicy policy) {
+        fileWriter.setPolicy(policy);
+    }
+
+    /**
+     * @return time spent forcing the language file to disk so far
+     */
+    public FsyncStats getFsyncStats() {
+        return fileWriter.stats();
+    }
+
     private void ensureParentDirectory() throws IOException {
         Path parent = storagePath.getParent();
         if (parent != null && Files.notExists(parent)) {
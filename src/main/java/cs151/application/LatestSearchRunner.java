@@ -0,0 +1,71 @@
+package cs151.application;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs searches in the background where only the latest one counts.
+ * <p>
+ * Submitting a search interrupts the one still running, and a result is handed to its callback, on the publishing
+ * executor, only if no newer search was submitted and {@link #cancel()} was not called in the meantime; this is checked
+ * both when the search finishes and again on the publishing executor, so a result queued just before a newer
+ * submission is dropped too. Searches that ignore the interrupt still run to completion, but their results are dropped.
+ * </p>
+ */
+final class LatestSearchRunner {
+
+    private final ExecutorService searchExecutor;
+    private final Executor publisher;
+    /** Incremented for every submission and cancellation; a search publishes only while it still holds the latest. */
+    private final AtomicLong generation = new AtomicLong();
+    /** The latest search; guarded by {@code this}. */
+    private Future<?> pending;
+
+    /**
+     * @param searchExecutor runs the searches
+     * @param publisher      runs the callbacks, such as {@link AsyncProfileCache#FX_THREAD}
+     */
+    LatestSearchRunner(ExecutorService searchExecutor, Executor publisher) {
+        this.searchExecutor = searchExecutor;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Starts a search, cancelling the one still running.
+     *
+     * @param search  computes the result; should stop early when its thread is interrupted
+     * @param publish receives the result on the publishing executor, if this is still the latest search by then
+     */
+    synchronized <T> void submit(Supplier<T> search, Consumer<? super T> publish) {
+        long submitted = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(true);
+        }
+        pending = searchExecutor.submit(() -> {
+            T result = search.get();
+            if (Thread.currentThread().isInterrupted() || generation.get() != submitted) {
+                return;
+            }
+            publisher.execute(() -> {
+                if (generation.get() == submitted) {
+                    publish.accept(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancels the running search and drops any result not yet handed to its callback.
+     */
+    synchronized void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+}
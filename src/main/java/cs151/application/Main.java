@@ -10,11 +10,38 @@ import java.io.IOException;
 public class Main extends Application {
     @Override
     public void start(Stage stage) throws IOException {
+        FxThreadGuard.install();
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("hello-view.fxml"));
     Scene scene = new Scene(fxmlLoader.load(), 1100, 720);
         stage.setTitle("Curriculum Setup");
         stage.setScene(scene);
         stage.show();
+        // Files saved before profiles had ids are numbered once here rather than by whichever screen reads them first.
+        AsyncProfileCache.getInstance().migrateLegacyIds().exceptionally(error -> {
+            System.getLogger(Main.class.getName()).log(System.Logger.Level.WARNING,
+                    "Unable to write ids into the stored profiles; the next change will retry", error);
+            return false;
+        });
+        // Starting reads the language file, which must not happen on this thread.
+        AsyncProfileCache.IO_THREADS.execute(() -> {
+            try {
+                DataDirectoryWatcher.getInstance().start();
+            } catch (IOException exception) {
+                System.getLogger(Main.class.getName()).log(System.Logger.Level.WARNING,
+                        "Unable to watch the data directory; outside edits are picked up by the Refresh buttons only",
+                        exception);
+            }
+        });
+    }
+
+    @Override
+    public void stop() throws Exception {
+        try {
+            // Edits are written in the background; store the ones still queued before the JVM exits.
+            AsyncProfileCache.getInstance().flushWrites().get();
+        } finally {
+            DataDirectoryWatcher.getInstance().close();
+        }
     }
 
     public static void main(String[] args) {
@@ -31,6 +31,9 @@ public class MainController {
     @FXML
     private Button reportsButton;
 
+    @FXML
+    private Button searchCommentsButton;
+
     @FXML
     private void initialize() {
         Platform.runLater(() -> {
@@ -78,6 +81,13 @@ public class MainController {
         switchScene(currentStage, loader, "Student Reports");
     }
 
+    @FXML
+    protected void onSearchComments() throws IOException {
+        Stage currentStage = (Stage) searchCommentsButton.getScene().getWindow();
+        FXMLLoader loader = new FXMLLoader(Main.class.getResource("comment-search-view.fxml"));
+        switchScene(currentStage, loader, "Search Comments");
+    }
+
     private void switchScene(Stage stage, FXMLLoader loader, String title) throws IOException {
         Parent view = loader.load();
         Scene scene = stage.getScene();
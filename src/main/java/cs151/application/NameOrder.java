@@ -0,0 +1,170 @@
+package cs151.application;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+
+/**
+ * Order of student and language names shared by storage, cache and screens, so every list sorts the same way.
+ * <p>
+ * Names are compared with a {@link Collator} for {@link Locale#ROOT} at secondary strength: case is ignored, while
+ * accents are respected, so accented names sort next to their unaccented letters. The locale is fixed rather than
+ * taken from the machine, because the repository's sorted index and the binary searches used for inserts rely on the
+ * order staying the same from one run to the next. Names the collator considers equal are ordered by their exact text,
+ * so the order is total.
+ * </p>
+ * <p>
+ * Collating is slow, so names made only of ASCII letters, digits and spaces, which most names are, are compared
+ * without the collator: at primary strength it ignores spaces, ignores case and puts digits before letters, and only
+ * names that tie there are handed to it. Other names are collated on every comparison. No keys are kept on the
+ * profiles; {@link #sort(List)} computes a {@link CollationKey} per name for the length of one sort when the names are
+ * not all plain. {@link java.text.RuleBasedCollator} synchronizes its methods, so every thread works on its own copy
+ * of the collator rather than contending for a shared one.
+ * </p>
+ */
+final class NameOrder {
+
+    private static final Collator COLLATOR = createCollator();
+    private static final ThreadLocal<Collator> THREAD_COLLATOR =
+            ThreadLocal.withInitial(() -> (Collator) COLLATOR.clone());
+
+    /** Orders profiles by name. */
+    static final Comparator<StudentProfile> PROFILES = NameOrder::compareProfiles;
+
+    /** Orders plain names, for short lists that hold strings. */
+    static final Comparator<String> NAMES = NameOrder::compareNames;
+
+    private NameOrder() {
+    }
+
+    /**
+     * Sorts profiles by name, in the order of {@link #PROFILES}.
+     *
+     * @param profiles list to sort in place
+     */
+    static void sort(List<StudentProfile> profiles) {
+        StudentProfile[] sorted = profiles.toArray(new StudentProfile[0]);
+        sort(sorted);
+        ListIterator<StudentProfile> iterator = profiles.listIterator();
+        for (StudentProfile profile : sorted) {
+            iterator.next();
+            iterator.set(profile);
+        }
+    }
+
+    /**
+     * Sorts profiles by name, in the order of {@link #PROFILES}.
+     *
+     * @param profiles array to sort in place
+     */
+    static void sort(StudentProfile[] profiles) {
+        boolean plain = true;
+        for (int i = 0; i < profiles.length && plain; i++) {
+            plain = isPlain(nonNull(profiles[i].getFullName()));
+        }
+        if (plain) {
+            Arrays.sort(profiles, PROFILES);
+            return;
+        }
+        KeyedProfile[] keyed = new KeyedProfile[profiles.length];
+        Arrays.parallelSetAll(keyed, i -> new KeyedProfile(
+                THREAD_COLLATOR.get().getCollationKey(nonNull(profiles[i].getFullName())), profiles[i]));
+        Arrays.sort(keyed);
+        for (int i = 0; i < keyed.length; i++) {
+            profiles[i] = keyed[i].profile();
+        }
+    }
+
+    private static int compareProfiles(StudentProfile left, StudentProfile right) {
+        return compareNames(left.getFullName(), right.getFullName());
+    }
+
+    private static int compareNames(String left, String right) {
+        String leftName = nonNull(left);
+        String rightName = nonNull(right);
+        int order = comparePlain(leftName, rightName);
+        if (order == 0) {
+            order = THREAD_COLLATOR.get().compare(leftName, rightName);
+        }
+        return order != 0 ? order : exactOrder(leftName, rightName);
+    }
+
+    /**
+     * Compares two names the way the collator does at primary strength when both are plain.
+     *
+     * @return the order, or 0 when either name is not plain or the names tie at primary strength
+     */
+    private static int comparePlain(String left, String right) {
+        if (!isPlain(left) || !isPlain(right)) {
+            return 0;
+        }
+        int i = 0;
+        int j = 0;
+        while (true) {
+            while (i < left.length() && left.charAt(i) == ' ') {
+                i++;
+            }
+            while (j < right.length() && right.charAt(j) == ' ') {
+                j++;
+            }
+            if (i == left.length() || j == right.length()) {
+                return (i == left.length() ? 0 : 1) - (j == right.length() ? 0 : 1);
+            }
+            int order = primaryWeight(left.charAt(i++)) - primaryWeight(right.charAt(j++));
+            if (order != 0) {
+                return order;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} when the name holds only ASCII letters, digits and spaces
+     */
+    private static boolean isPlain(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != ' ' && (c < '0' || c > '9') && (c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the rank of a plain non-space character: digits first, then letters regardless of case
+     */
+    private static int primaryWeight(char c) {
+        return c <= '9' ? c : c | 0x20;
+    }
+
+    private static String nonNull(String name) {
+        return name == null ? "" : name;
+    }
+
+    private static int exactOrder(String left, String right) {
+        return left.compareTo(right);
+    }
+
+    /**
+     * A profile with the collation key of its name, held only while {@link #sort(StudentProfile[])} runs.
+     */
+    private record KeyedProfile(CollationKey key, StudentProfile profile) implements Comparable<KeyedProfile> {
+
+        @Override
+        public int compareTo(KeyedProfile other) {
+            int order = key.compareTo(other.key);
+            return order != 0 ? order : exactOrder(key.getSourceString(), other.key.getSourceString());
+        }
+    }
+
+    private static Collator createCollator() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.SECONDARY);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        return collator;
+    }
+}
@@ -0,0 +1,175 @@
+package cs151.application;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Read-only copy of encoded profile records kept outside the Java heap, backing a {@link PagedProfileSource} for
+ * cohorts too large to hold as objects.
+ * <p>
+ * The records live in {@link MemorySegment}s allocated from an automatic {@link Arena}, together with a row table of
+ * record positions. The heap holds none of it, so heap size and garbage collection work do not grow with the size of
+ * the records or their comments. {@link StudentProfile} instances are decoded on demand and are not retained.
+ * </p>
+ * <p>
+ * Records are copied rather than mapped from the snapshot file, because the repository replaces that file on every
+ * rewrite and some platforms refuse to replace a file that is mapped. The memory is released once the store is no
+ * longer reachable. Methods may be called from any thread.
+ * </p>
+ */
+final class OffHeapProfileStore {
+
+    /** Bytes per row table entry: the record's offset as a long, then its length as an int. */
+    private static final long ROW_BYTES = 16;
+
+    private final MemorySegment snapshotRecords;
+    private final MemorySegment journalRecords;
+    private final MemorySegment rowTable;
+    private final int rowCount;
+    private final ProfileRecordParser parser = new ProfileRecordParser();
+    private byte[] line = new byte[4096];
+
+    private OffHeapProfileStore(MemorySegment snapshotRecords, MemorySegment journalRecords, MemorySegment rowTable,
+                                int rowCount) {
+        this.snapshotRecords = snapshotRecords;
+        this.journalRecords = journalRecords;
+        this.rowTable = rowTable;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return number of stored records
+     */
+    int size() {
+        return rowCount;
+    }
+
+    /**
+     * @return bytes held outside the heap for records and the row table
+     */
+    long offHeapBytes() {
+        return snapshotRecords.byteSize() + journalRecords.byteSize() + rowTable.byteSize();
+    }
+
+    /**
+     * @param row row number, as returned by the {@link Builder}
+     * @return the complete profile, decoded for this call
+     */
+    StudentProfile get(int row) {
+        return get(row, ProfileField.all());
+    }
+
+    /**
+     * @param row    row number, as returned by the {@link Builder}
+     * @param fields columns to decode; the name is always decoded
+     * @return the (possibly partial) profile, decoded for this call
+     */
+    synchronized StudentProfile get(int row, Set<ProfileField> fields) {
+        int length = copyRecord(row);
+        return parser.parse(line, 0, length, fields);
+    }
+
+    /**
+     * Copies the encoded record of {@code row} into {@link #line}. Caller holds the monitor.
+     *
+     * @return the record length
+     */
+    private int copyRecord(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        long offset = rowTable.get(ValueLayout.JAVA_LONG, row * ROW_BYTES);
+        int length = rowTable.get(ValueLayout.JAVA_INT, row * ROW_BYTES + 8);
+        if (line.length < length) {
+            line = new byte[Math.max(length, line.length * 2)];
+        }
+        long snapshotBytes = snapshotRecords.byteSize();
+        MemorySegment source = offset < snapshotBytes ? snapshotRecords : journalRecords;
+        long start = offset < snapshotBytes ? offset : offset - snapshotBytes;
+        MemorySegment.copy(source, ValueLayout.JAVA_BYTE, start, line, 0, length);
+        return length;
+    }
+
+    /**
+     * Collects records while the repository scans its files, then lays out the row table. Row bookkeeping is held on
+     * the heap only until {@link #build()}.
+     */
+    static final class Builder {
+
+        private final Arena arena = Arena.ofAuto();
+        private final MemorySegment snapshotRecords;
+        private long snapshotUsed;
+        private long[] offsets = new long[1024];
+        private int[] lengths = new int[1024];
+        private int rowCount;
+        private byte[][] journalLines = new byte[16][];
+        private int journalLineCount;
+        private long journalBytes;
+
+        /**
+         * @param snapshotCapacity upper bound for the bytes passed to {@link #addSnapshotRecord}
+         */
+        Builder(long snapshotCapacity) {
+            this.snapshotRecords = arena.allocate(Math.max(1, snapshotCapacity), 1);
+        }
+
+        /**
+         * Copies one record read from the snapshot file.
+         *
+         * @return the record's row number
+         */
+        int addSnapshotRecord(byte[] source, int start, int end) {
+            int length = end - start;
+            MemorySegment.copy(source, start, snapshotRecords, ValueLayout.JAVA_BYTE, snapshotUsed, length);
+            int row = addRow(snapshotUsed, length);
+            snapshotUsed += length;
+            return row;
+        }
+
+        /**
+         * Adds one record whose latest version came from a journal.
+         *
+         * @param encoded the record in snapshot format, UTF-8 encoded
+         * @return the record's row number
+         */
+        int addJournalRecord(byte[] encoded) {
+            if (journalLineCount == journalLines.length) {
+                journalLines = Arrays.copyOf(journalLines, journalLineCount * 2);
+            }
+            journalLines[journalLineCount++] = encoded;
+            int row = addRow(snapshotRecords.byteSize() + journalBytes, encoded.length);
+            journalBytes += encoded.length;
+            return row;
+        }
+
+        OffHeapProfileStore build() {
+            MemorySegment journalRecords = arena.allocate(Math.max(1, journalBytes), 1);
+            long position = 0;
+            for (int i = 0; i < journalLineCount; i++) {
+                byte[] encoded = journalLines[i];
+                MemorySegment.copy(encoded, 0, journalRecords, ValueLayout.JAVA_BYTE, position, encoded.length);
+                position += encoded.length;
+            }
+
+            MemorySegment rowTable = arena.allocate(Math.max(1, rowCount) * ROW_BYTES, 8);
+            for (int row = 0; row < rowCount; row++) {
+                rowTable.set(ValueLayout.JAVA_LONG, row * ROW_BYTES, offsets[row]);
+                rowTable.set(ValueLayout.JAVA_INT, row * ROW_BYTES + 8, lengths[row]);
+            }
+            return new OffHeapProfileStore(snapshotRecords, journalRecords, rowTable, rowCount);
+        }
+
+        private int addRow(long offset, int length) {
+            if (rowCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, rowCount * 2);
+                lengths = Arrays.copyOf(lengths, rowCount * 2);
+            }
+            offsets[rowCount] = offset;
+            lengths[rowCount] = length;
+            return rowCount++;
+        }
+    }
+}
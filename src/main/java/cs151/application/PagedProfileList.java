@@ -0,0 +1,505 @@
+package cs151.application;
+
+import javafx.collections.ObservableListBase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * Read-only observable list over a {@link PagedProfileSource}, for tables that should not hold every complete profile.
+ * <p>
+ * The list exposes the source's rows through a view of row numbers: filtering and sorting only rebuild that view from
+ * the in-memory key columns, and flag and value filters combine bitmaps of the source's {@link ProfileColumns} instead
+ * of testing each row. Counts over the listed rows are taken from the same bitmaps. Complete profiles are fetched on
+ * access, a page of consecutive view positions at a time, and only the most recently used pages are kept, so a table
+ * scrolling through a million rows holds a few thousand complete profiles at most.
+ * </p>
+ * <p>
+ * A list created with a fetch executor reads pages there instead of on the calling thread: until a page arrives, its
+ * rows are served with their key columns, and the arriving page replaces them in a list change. Pages requested for a
+ * view that has since been rebuilt are dropped.
+ * </p>
+ * <p>
+ * When a new source or filter leaves the order unchanged, the rows of the new view are matched to the old ones by
+ * profile id and only the rows that were removed, added or whose key columns changed are reported, as in
+ * {@link DiffingObservableList}. A table therefore keeps its scroll position and selection when the source is reopened
+ * after a change to a few profiles.
+ * </p>
+ * <p>
+ * Must only be used on the JavaFX application thread.
+ * </p>
+ */
+public final class PagedProfileList extends ObservableListBase<StudentProfile> {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int MAX_PAGES = 16;
+    private static final int[] NO_ROWS = new int[0];
+
+    private final Map<Integer, StudentProfile[]> pages = new LinkedHashMap<>(MAX_PAGES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, StudentProfile[]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    private PagedProfileSource source;
+    private Predicate<StudentProfile> filter;
+    private ProfileField flagFilter;
+    private final Map<ProfileField, String> valueFilters = new EnumMap<>(ProfileField.class);
+    private ProfileField sortField = ProfileField.FULL_NAME;
+    private boolean ascending = true;
+    private int[] view = NO_ROWS;
+    /** The rows of {@link #view} as a bitmap, or {@code null} until a count needs it. */
+    private long[] viewBits;
+    private PagedProfileSource viewSource;
+    private ProfileField viewSortField;
+    private boolean viewAscending;
+    private Runnable onStale;
+
+    /** Where pages are read and where their results are applied; both {@code null} when pages are read on access. */
+    private final Executor fetchExecutor;
+    private final Executor resultExecutor;
+    /** Pages of the current view being read. */
+    private final Set<Integer> fetching = new HashSet<>();
+    /** Incremented whenever the view is rebuilt, so pages fetched for an older view are dropped. */
+    private long viewGeneration;
+
+    /**
+     * Creates a list that reads each page on the calling thread when it is first accessed.
+     */
+    public PagedProfileList() {
+        this.fetchExecutor = null;
+        this.resultExecutor = null;
+    }
+
+    /**
+     * Creates a list that reads pages in the background.
+     *
+     * @param fetchExecutor  runs the reads, such as {@link AsyncProfileCache#IO_THREADS}
+     * @param resultExecutor applies fetched pages to the list on the thread the list is used on, such as
+     *                       {@link AsyncProfileCache#FX_THREAD}
+     */
+    public PagedProfileList(Executor fetchExecutor, Executor resultExecutor) {
+        this.fetchExecutor = fetchExecutor;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Shows the rows of a new source, keeping the current filter and sort order. Rows of the previous source are
+     * matched to the new ones by profile id, so only the rows that differ are reported as changed.
+     */
+    public void setSource(PagedProfileSource source) {
+        this.source = source;
+        rebuildView();
+    }
+
+    /**
+     * @return the source currently shown, or {@code null}
+     */
+    public PagedProfileSource getSource() {
+        return source;
+    }
+
+    /**
+     * Restricts the list to rows whose key profile matches. The predicate only sees the source's key columns.
+     *
+     * @param filter predicate to apply, or {@code null} to show every row
+     */
+    public void setFilter(Predicate<StudentProfile> filter) {
+        this.filter = filter;
+        this.flagFilter = null;
+        rebuildView();
+    }
+
+    /**
+     * Restricts the list to rows with a flag column set, replacing any predicate filter. The flag must be a key column
+     * of the sources shown.
+     *
+     * @param flag {@link ProfileField#EMPLOYED}, {@link ProfileField#WHITELIST} or {@link ProfileField#BLACKLIST}
+     * @throws IllegalArgumentException for other columns
+     */
+    public void setFlagFilter(ProfileField flag) {
+        if (flag != ProfileField.EMPLOYED && flag != ProfileField.WHITELIST && flag != ProfileField.BLACKLIST) {
+            throw new IllegalArgumentException(flag + " is not a flag column");
+        }
+        this.filter = null;
+        this.flagFilter = flag;
+        rebuildView();
+    }
+
+    /**
+     * Restricts the list to rows holding a value in a dictionary column, on top of the other filters. The column must
+     * be a key column of the sources shown.
+     *
+     * @param column {@link ProfileField#ACADEMIC_STATUS} or {@link ProfileField#PREFERRED_ROLE}
+     * @param value  exact value to keep, or {@code null} to stop filtering on the column
+     * @throws IllegalArgumentException for other columns
+     */
+    public void setValueFilter(ProfileField column, String value) {
+        if (column != ProfileField.ACADEMIC_STATUS && column != ProfileField.PREFERRED_ROLE) {
+            throw new IllegalArgumentException(column + " is not a dictionary column");
+        }
+        if (value == null) {
+            valueFilters.remove(column);
+        } else {
+            valueFilters.put(column, value);
+        }
+        rebuildView();
+    }
+
+    /**
+     * @param flag {@link ProfileField#EMPLOYED}, {@link ProfileField#WHITELIST} or {@link ProfileField#BLACKLIST}
+     * @return number of listed rows with the flag set
+     * @throws IllegalArgumentException for other columns
+     */
+    public int countListed(ProfileField flag) {
+        return source == null ? 0 : source.columns().countWithin(listedBits(), flag);
+    }
+
+    /**
+     * @param column {@link ProfileField#ACADEMIC_STATUS} or {@link ProfileField#PREFERRED_ROLE}
+     * @param value  exact value to count
+     * @return number of listed rows holding the value
+     * @throws IllegalArgumentException for other columns
+     */
+    public int countListed(ProfileField column, String value) {
+        return source == null ? 0 : source.columns().countWithin(listedBits(), column, value);
+    }
+
+    /**
+     * Orders the list by one of the source's key columns, ties broken by name.
+     *
+     * @throws IllegalArgumentException when the column is not a sortable key column of the source
+     */
+    public void sortBy(ProfileField field, boolean ascending) {
+        if (source != null) {
+            source.sortIndex(field);
+        }
+        this.sortField = field;
+        this.ascending = ascending;
+        rebuildView();
+    }
+
+    /**
+     * @param onStale called when a fetch finds that the snapshot changed and the source should be reopened
+     */
+    public void setOnStale(Runnable onStale) {
+        this.onStale = onStale;
+    }
+
+    @Override
+    public StudentProfile get(int index) {
+        if (index < 0 || index >= view.length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / PAGE_SIZE;
+        StudentProfile[] profiles = pages.get(page);
+        if (profiles == null && fetchExecutor != null) {
+            requestPage(page);
+            return source.keyAt(view[index]);
+        }
+        if (profiles == null) {
+            int from = page * PAGE_SIZE;
+            int to = Math.min(view.length, from + PAGE_SIZE);
+            try {
+                profiles = source.fetch(view, from, to);
+            } catch (IOException e) {
+                return source.keyAt(view[index]);
+            }
+            pages.put(page, profiles);
+            if (source.isStale() && onStale != null) {
+                onStale.run();
+            }
+        }
+        return profiles[index - page * PAGE_SIZE];
+    }
+
+    @Override
+    public int size() {
+        return view.length;
+    }
+
+    /**
+     * Starts reading a page of the current view in the background unless it is already being read.
+     */
+    private void requestPage(int page) {
+        if (!fetching.add(page)) {
+            return;
+        }
+        PagedProfileSource requested = source;
+        int[] rows = view;
+        int from = page * PAGE_SIZE;
+        int to = Math.min(rows.length, from + PAGE_SIZE);
+        long generation = viewGeneration;
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return requested.fetch(rows, from, to);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, fetchExecutor).whenCompleteAsync((profiles, error) -> {
+            if (generation != viewGeneration) {
+                return;
+            }
+            fetching.remove(page);
+            // A failed page keeps showing its key columns and is read again on a later access.
+            if (profiles != null) {
+                pageFetched(page, from, profiles);
+            }
+        }, resultExecutor);
+    }
+
+    private void pageFetched(int page, int from, StudentProfile[] profiles) {
+        int to = from + profiles.length;
+        pages.put(page, profiles);
+        beginChange();
+        nextReplace(from, to, rowsOf(source, Arrays.copyOfRange(view, from, to)));
+        endChange();
+        if (source.isStale() && onStale != null) {
+            onStale.run();
+        }
+    }
+
+    private void rebuildView() {
+        int[] previous = view;
+        PagedProfileSource previousSource = viewSource;
+        boolean sameOrder = viewSortField == sortField && viewAscending == ascending;
+        viewBits = null;
+        view = computeView();
+        viewSource = source;
+        viewSortField = sortField;
+        viewAscending = ascending;
+        pages.clear();
+        fetching.clear();
+        viewGeneration++;
+
+        beginChange();
+        if (!sameOrder || !reportDifferences(previousSource, previous)) {
+            if (previous.length > 0) {
+                nextRemove(0, rowsOf(previousSource, previous));
+            }
+            if (view.length > 0) {
+                nextAdd(0, view.length);
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Reports the change from the previous view to the current one as removals, additions and replacements of single
+     * rows. Rows present in both views are matched by profile id; of those, the longest run that keeps its relative
+     * order stays in place and the others are reported as moved. Positions are those of the list as it looks once
+     * every earlier edit has been applied.
+     *
+     * @return {@code false}, reporting nothing, when the rows cannot be matched by id or fewer than half of the new
+     *         rows were already listed, in which case replacing the whole list is the cheaper change
+     */
+    private boolean reportDifferences(PagedProfileSource previousSource, int[] previous) {
+        if (previous.length == 0 || view.length == 0) {
+            return false;
+        }
+        int[] previousIds = idsOf(previousSource, previous);
+        int[] currentIds = idsOf(source, view);
+        if (previousIds == null || currentIds == null) {
+            return false;
+        }
+        int maxId = 0;
+        for (int id : previousIds) {
+            maxId = Math.max(maxId, id);
+        }
+        for (int id : currentIds) {
+            maxId = Math.max(maxId, id);
+        }
+        int[] currentPosition = new int[maxId + 1];
+        Arrays.fill(currentPosition, -1);
+        for (int position = 0; position < currentIds.length; position++) {
+            currentPosition[currentIds[position]] = position;
+        }
+        int[] target = new int[previous.length];
+        for (int i = 0; i < previous.length; i++) {
+            target[i] = currentPosition[previousIds[i]];
+        }
+        boolean[] keptPrevious = new boolean[previous.length];
+        boolean[] keptCurrent = new boolean[view.length];
+        int kept = markIncreasingRun(target, keptPrevious, keptCurrent);
+        if (kept * 2 < view.length) {
+            return false;
+        }
+
+        int i = 0;
+        int j = 0;
+        int position = 0;
+        while (i < previous.length || j < view.length) {
+            if (i < previous.length && !keptPrevious[i]) {
+                nextRemove(position, previousSource.keyAt(previous[i++]));
+            } else if (j < view.length && !keptCurrent[j]) {
+                nextAdd(position, ++position);
+                j++;
+            } else {
+                StudentProfile before = previousSource.keyAt(previous[i++]);
+                if (!before.hasSameContent(source.keyAt(view[j++]))) {
+                    nextReplace(position, position + 1, List.of(before));
+                }
+                position++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a longest strictly increasing subsequence of the non-negative entries of {@code target}, in O(n log n).
+     *
+     * @param target       for each previous row, its position in the current view, or -1 when it is gone
+     * @param keptPrevious set for the previous rows in the subsequence
+     * @param keptCurrent  set for the current positions in the subsequence
+     * @return length of the subsequence
+     */
+    private static int markIncreasingRun(int[] target, boolean[] keptPrevious, boolean[] keptCurrent) {
+        // tails[k]: index of the smallest last entry of an increasing run of length k + 1 seen so far.
+        int[] tails = new int[target.length];
+        int[] predecessor = new int[target.length];
+        int length = 0;
+        for (int i = 0; i < target.length; i++) {
+            if (target[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (target[tails[middle]] < target[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            predecessor[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessor[i]) {
+            keptPrevious[i] = true;
+            keptCurrent[target[i]] = true;
+        }
+        return length;
+    }
+
+    /**
+     * @return the profile ids of the rows, or {@code null} when a row has no id to match it by
+     */
+    private static int[] idsOf(PagedProfileSource source, int[] rows) {
+        int[] ids = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = source.keyAt(rows[i]).getId();
+            if (ids[i] <= 0) {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    private int[] computeView() {
+        if (source == null) {
+            return NO_ROWS;
+        }
+        int[] order = sortField == ProfileField.FULL_NAME ? null : source.sortIndex(sortField);
+        long[] bits = selectedBits();
+        if (bits != null && filter == null) {
+            // The bitmap lists exactly the rows of the view, whatever their order.
+            viewBits = bits;
+            if (order == null && ascending) {
+                return setRows(bits);
+            }
+        }
+        int size = source.size();
+        int[] rows = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int position = ascending ? i : size - 1 - i;
+            int row = order == null ? position : order[position];
+            if ((bits == null || (bits[row >>> 6] & 1L << row) != 0)
+                    && (filter == null || filter.test(source.keyAt(row)))) {
+                rows[count++] = row;
+            }
+        }
+        return count == size ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Combines the flag filter and the value filters into one bitmap of rows.
+     *
+     * @return the bitmap, which must not be modified, or {@code null} when none of these filters is set
+     */
+    private long[] selectedBits() {
+        ProfileColumns columns = source.columns();
+        long[] bits = flagFilter == null ? null : columns.flagBits(flagFilter);
+        for (Map.Entry<ProfileField, String> entry : valueFilters.entrySet()) {
+            long[] matching = columns.matching(entry.getKey(), entry.getValue());
+            if (bits != null) {
+                for (int word = 0; word < matching.length; word++) {
+                    matching[word] &= bits[word];
+                }
+            }
+            bits = matching;
+        }
+        return bits;
+    }
+
+    /**
+     * @return the rows of the view as a bitmap, built from the view when the filters did not produce one
+     */
+    private long[] listedBits() {
+        if (viewBits == null) {
+            long[] bits = new long[(source.size() + 63) >>> 6];
+            for (int row : view) {
+                bits[row >>> 6] |= 1L << row;
+            }
+            viewBits = bits;
+        }
+        return viewBits;
+    }
+
+    /**
+     * Lists the set bits of a bitmap in ascending order, skipping empty words.
+     */
+    private int[] setRows(long[] bits) {
+        int[] rows = new int[source.columns().count(bits)];
+        int count = 0;
+        for (int word = 0; word < bits.length; word++) {
+            for (long remaining = bits[word]; remaining != 0; remaining &= remaining - 1) {
+                rows[count++] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reports removed rows by their key profiles, so a removal does not read the snapshot again.
+     */
+    private static List<StudentProfile> rowsOf(PagedProfileSource source, int[] rows) {
+        return new AbstractList<>() {
+            @Override
+            public StudentProfile get(int index) {
+                return source.keyAt(rows[index]);
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,278 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stored profiles listed by position, with complete records decoded on demand.
+ * <p>
+ * Every row keeps a partial profile holding only the key columns, plus the byte range of its record in the snapshot
+ * file; rows whose latest version is still in the journal keep the complete profile instead. A snapshot record that
+ * only had comments appended in the journal has no usable byte range either, so it is served with its key columns
+ * and left to {@link StudentProfileRepository#hydrate(StudentProfile)}. {@link #fetch(int[], int, int)} reads and
+ * decodes the complete records of a range of rows. Sorting uses a key index: the row order for a
+ * column is computed once from the key columns and reused for every later sort by that column.
+ * </p>
+ * <p>
+ * The source describes the files as they were when it was opened. Once the snapshot is rewritten, the recorded byte
+ * ranges are meaningless, so fetches fall back to the key columns and the source reports itself {@linkplain #isStale()
+ * stale}; the caller is expected to open a new one.
+ * </p>
+ * <p>
+ * For snapshots above {@link StudentProfileRepository#setOffHeapRecordThreshold(long) a size threshold}, the
+ * repository instead copies every complete record into an {@link OffHeapProfileStore} when it opens the source. Rows
+ * then hold a record number in place of the byte range, journal records are held encoded outside the heap rather than
+ * as complete profiles, and fetches keep returning complete records after the snapshot is rewritten; the source still
+ * reports itself stale so the caller reopens it.
+ * </p>
+ */
+public final class PagedProfileSource {
+
+    private final Path snapshotPath;
+    private final long snapshotSize;
+    private final long snapshotModified;
+    private final Set<ProfileField> keyFields;
+    private final StudentProfile[] keys;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final OffHeapProfileStore records;
+    private final int[] recordRows;
+    private final Map<ProfileField, int[]> sortIndexes = new EnumMap<>(ProfileField.class);
+    private ProfileColumns columns;
+    private final ProfileRecordParser parser = new ProfileRecordParser();
+    private volatile boolean stale;
+
+    PagedProfileSource(Path snapshotPath, long snapshotSize, long snapshotModified, Set<ProfileField> keyFields,
+                       StudentProfile[] keys, long[] offsets, int[] lengths) {
+        this(snapshotPath, snapshotSize, snapshotModified, keyFields, keys, offsets, lengths, null, null);
+    }
+
+    PagedProfileSource(Path snapshotPath, long snapshotSize, long snapshotModified, Set<ProfileField> keyFields,
+                       StudentProfile[] keys, OffHeapProfileStore records, int[] recordRows) {
+        this(snapshotPath, snapshotSize, snapshotModified, keyFields, keys, null, null, records, recordRows);
+    }
+
+    private PagedProfileSource(Path snapshotPath, long snapshotSize, long snapshotModified,
+                               Set<ProfileField> keyFields, StudentProfile[] keys, long[] offsets, int[] lengths,
+                               OffHeapProfileStore records, int[] recordRows) {
+        this.snapshotPath = snapshotPath;
+        this.snapshotSize = snapshotSize;
+        this.snapshotModified = snapshotModified;
+        this.keyFields = keyFields;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.records = records;
+        this.recordRows = recordRows;
+    }
+
+    /**
+     * @return number of stored profiles
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return columns held in memory for every row
+     */
+    public Set<ProfileField> getKeyFields() {
+        return keyFields;
+    }
+
+    /**
+     * @param row row number, in name order
+     * @return the profile with only the key columns loaded (or complete, for records rewritten in the journal)
+     */
+    public StudentProfile keyAt(int row) {
+        return keys[row];
+    }
+
+    /**
+     * @return bytes of records held outside the heap, or zero when records are read from the snapshot file
+     */
+    long offHeapBytes() {
+        return records == null ? 0 : records.offHeapBytes();
+    }
+
+    /**
+     * @return {@code true} once a fetch found that the snapshot changed after the source was opened
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Returns the rows ordered by one key column, ties broken by name. The order is computed on first use and cached.
+     *
+     * @param field key column to sort by; lists cannot be sorted
+     * @return row numbers in ascending order of the column; must not be modified
+     * @throws IllegalArgumentException when the column is not a key column or cannot be sorted
+     */
+    public synchronized int[] sortIndex(ProfileField field) {
+        int[] index = sortIndexes.get(field);
+        if (index == null) {
+            if (!keyFields.contains(field)) {
+                throw new IllegalArgumentException(field + " is not a key column of this source");
+            }
+            index = buildSortIndex(field);
+            sortIndexes.put(field, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns a column store of the key profiles, built on first use. Only the key columns hold stored values.
+     *
+     * @return columns numbered like the rows of this source
+     */
+    synchronized ProfileColumns columns() {
+        if (columns == null) {
+            columns = ProfileColumns.of(keys);
+        }
+        return columns;
+    }
+
+    /**
+     * Decodes the complete profiles of {@code rows[from]} to {@code rows[to - 1]}. Records are read in file order with
+     * one positioned read each, or copied out of the off-heap store when the source has one.
+     *
+     * @return the profiles, in the order of {@code rows}
+     * @throws IOException when the snapshot cannot be read
+     */
+    synchronized StudentProfile[] fetch(int[] rows, int from, int to) throws IOException {
+        if (!stale && !snapshotUnchanged()) {
+            stale = true;
+        }
+        StudentProfile[] fetched = new StudentProfile[to - from];
+        if (records != null) {
+            for (int i = 0; i < fetched.length; i++) {
+                int row = rows[from + i];
+                fetched[i] = withKeyId(records.get(recordRows[row]), row);
+            }
+            return fetched;
+        }
+
+        Integer[] byOffset = new Integer[fetched.length];
+        for (int i = 0; i < fetched.length; i++) {
+            byOffset[i] = i;
+        }
+        Arrays.sort(byOffset, Comparator.comparingLong(i -> offsets[rows[from + i]]));
+
+        FileChannel channel = null;
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            for (int i : byOffset) {
+                int row = rows[from + i];
+                if (offsets[row] < 0 || stale) {
+                    fetched[i] = keys[row];
+                    continue;
+                }
+                if (channel == null) {
+                    channel = FileChannel.open(snapshotPath, StandardOpenOption.READ);
+                }
+                if (buffer.capacity() < lengths[row]) {
+                    buffer = ByteBuffer.allocate(Math.max(lengths[row], buffer.capacity() * 2));
+                }
+                buffer.clear().limit(lengths[row]);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offsets[row] + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                fetched[i] = withKeyId(parser.parse(buffer.array(), 0, buffer.position()), row);
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        return fetched;
+    }
+
+    /**
+     * The key carries the id, which records written before ids existed do not.
+     */
+    private StudentProfile withKeyId(StudentProfile profile, int row) {
+        return profile != null && profile.getFullName().equals(keys[row].getFullName())
+                ? profile.withId(keys[row].getId()) : keys[row];
+    }
+
+    private boolean snapshotUnchanged() throws IOException {
+        if (Files.notExists(snapshotPath)) {
+            return snapshotSize == 0;
+        }
+        return Files.size(snapshotPath) == snapshotSize
+                && Files.getLastModifiedTime(snapshotPath).to(TimeUnit.NANOSECONDS) == snapshotModified;
+    }
+
+    /**
+     * Counting sort over the column's distinct values. Rows are numbered in name order, so placing them stably by the
+     * column alone already breaks ties by name, and only the distinct values are compared.
+     */
+    private int[] buildSortIndex(ProfileField field) {
+        int[] index = new int[keys.length];
+        if (field == ProfileField.FULL_NAME) {
+            for (int row = 0; row < index.length; row++) {
+                index[row] = row;
+            }
+            return index;
+        }
+
+        Object[] values = new Object[keys.length];
+        Map<Object, int[]> positions = new HashMap<>();
+        for (int row = 0; row < keys.length; row++) {
+            values[row] = sortValue(field, keys[row]);
+            positions.computeIfAbsent(values[row], value -> new int[1])[0]++;
+        }
+        List<Object> distinct = new ArrayList<>(positions.keySet());
+        distinct.sort(valueOrder(field));
+        int start = 0;
+        for (Object value : distinct) {
+            int[] position = positions.get(value);
+            int count = position[0];
+            position[0] = start;
+            start += count;
+        }
+        for (int row = 0; row < keys.length; row++) {
+            index[positions.get(values[row])[0]++] = row;
+        }
+        return index;
+    }
+
+    private static Object sortValue(ProfileField field, StudentProfile profile) {
+        Object value = switch (field) {
+            case ACADEMIC_STATUS -> profile.getAcademicStatus();
+            case EMPLOYED -> profile.isEmployed();
+            case JOB_DETAILS -> profile.getJobDetails();
+            case PREFERRED_ROLE -> profile.getPreferredRole();
+            case WHITELIST -> profile.isWhitelist();
+            case BLACKLIST -> profile.isBlacklist();
+            case FULL_NAME, PROGRAMMING_LANGUAGES, DATABASES, COMMENTS ->
+                    throw new IllegalArgumentException(field + " cannot be sorted");
+        };
+        return value == null ? "" : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparator<Object> valueOrder(ProfileField field) {
+        Comparator<?> order = switch (field) {
+            case EMPLOYED, WHITELIST, BLACKLIST -> Comparator.<Boolean>naturalOrder();
+            default -> NameOrder.NAMES;
+        };
+        return (Comparator<Object>) order;
+    }
+}
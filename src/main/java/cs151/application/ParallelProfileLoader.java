@@ -0,0 +1,186 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads a profile snapshot by parsing newline-aligned byte ranges of the memory-mapped file on a {@link ForkJoinPool}.
+ * <p>
+ * The snapshot is written in name order, so each range parses into a sorted run; the runs are merged pairwise as the
+ * fork/join tasks complete, producing the same name-ordered list a sequential load would.
+ * </p>
+ */
+final class ParallelProfileLoader {
+
+    /** Smallest byte range worth handing to its own task. */
+    private static final long MIN_CHUNK_BYTES = 1024L * 1024;
+
+    private ParallelProfileLoader() {
+    }
+
+    /**
+     * Parses every record of {@code path} in parallel.
+     *
+     * @param path   snapshot file to load
+     * @param fields columns to decode
+     * @param pool   pool used to run the chunk tasks
+     * @return profiles sorted by name
+     * @throws IOException when the file cannot be mapped or read
+     */
+    static List<StudentProfile> load(Path path, Set<ProfileField> fields, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = splitIntoLines(channel, pool.getParallelism());
+            return pool.invoke(new ChunkTask(channel, boundaries, 0, boundaries.length - 1, fields));
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Picks roughly equal byte ranges and moves each interior boundary just past the next line terminator.
+     */
+    private static long[] splitIntoLines(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        int chunks = (int) Math.max(1, Math.min(parallelism * 4L, size / MIN_CHUNK_BYTES));
+        List<Long> boundaries = new ArrayList<>(chunks + 1);
+        boundaries.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < chunks; i++) {
+            long boundary = alignToLineStart(channel, size * i / chunks, probe);
+            if (boundary > boundaries.get(boundaries.size() - 1) && boundary < size) {
+                boundaries.add(boundary);
+            }
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long alignToLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long cursor = position;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, cursor);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return cursor + i + 1;
+                }
+            }
+            cursor += read;
+        }
+    }
+
+    private static List<StudentProfile> mergeByName(List<StudentProfile> left, List<StudentProfile> right) {
+        List<StudentProfile> merged = new ArrayList<>(left.size() + right.size());
+        // Ranges of a snapshot written in name order follow each other, so one comparison usually settles the merge.
+        if (left.isEmpty() || right.isEmpty()
+                || NameOrder.PROFILES.compare(left.get(left.size() - 1), right.get(0)) <= 0) {
+            merged.addAll(left);
+            merged.addAll(right);
+            return merged;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            if (NameOrder.PROFILES.compare(left.get(i), right.get(j)) <= 0) {
+                merged.add(left.get(i++));
+            } else {
+                merged.add(right.get(j++));
+            }
+        }
+        merged.addAll(left.subList(i, left.size()));
+        merged.addAll(right.subList(j, right.size()));
+        return merged;
+    }
+
+    /**
+     * Parses the ranges {@code boundaries[from] .. boundaries[to]}, splitting in half until a single range remains.
+     */
+    private static final class ChunkTask extends RecursiveTask<List<StudentProfile>> {
+
+        // Tasks are never serialized; ForkJoinTask is Serializable only by inheritance.
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+        private final transient Set<ProfileField> fields;
+
+        private ChunkTask(FileChannel channel, long[] boundaries, int from, int to, Set<ProfileField> fields) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+            this.fields = fields;
+        }
+
+        @Override
+        protected List<StudentProfile> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(channel, boundaries, from, middle, fields);
+                ChunkTask right = new ChunkTask(channel, boundaries, middle, to, fields);
+                left.fork();
+                List<StudentProfile> rightResult = right.compute();
+                return mergeByName(left.join(), rightResult);
+            }
+
+            try {
+                return parseRange(boundaries[from], boundaries[to]);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        private List<StudentProfile> parseRange(long start, long end) throws IOException {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            ProfileRecordParser parser = new ProfileRecordParser();
+            List<StudentProfile> profiles = new ArrayList<>();
+            byte[] line = new byte[4096];
+            int length = 0;
+            while (mapped.hasRemaining()) {
+                byte current = mapped.get();
+                if (current != '\n' && current != '\r') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[length++] = current;
+                    continue;
+                }
+                addParsed(parser, line, length, profiles);
+                length = 0;
+            }
+            addParsed(parser, line, length, profiles);
+            NameOrder.sort(profiles);
+            return profiles;
+        }
+
+        private void addParsed(ProfileRecordParser parser, byte[] line, int length, List<StudentProfile> out) {
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(line[i])) {
+                    StudentProfile profile = parser.parse(line, 0, length, fields);
+                    if (profile != null) {
+                        out.add(profile);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
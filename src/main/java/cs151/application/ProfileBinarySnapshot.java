@@ -0,0 +1,202 @@
+package cs151.application;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary copy of the profile snapshot used to skip Base64 parsing on startup.
+ * <p>
+ * Every distinct string is stored once in a table of length-prefixed UTF-8 entries and records refer to it by index, so
+ * repeated values such as academic status, roles and language names are decoded once and shared between profiles.
+ * The header carries the record count, the size and modification time of the CSV snapshot the copy was built from, and
+ * a CRC32C checksum of the body. A copy that does not match its CSV, or fails the checksum, is ignored.
+ * </p>
+ */
+final class ProfileBinarySnapshot {
+
+    private static final int MAGIC = 0x53505342;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+
+    private static final int EMPLOYED_FLAG = 1;
+    private static final int WHITELIST_FLAG = 1 << 1;
+    private static final int BLACKLIST_FLAG = 1 << 2;
+
+    private ProfileBinarySnapshot() {
+    }
+
+    /**
+     * Encodes the profiles into the binary format.
+     *
+     * @param profiles       profiles held by the CSV snapshot, written in iteration order
+     * @param sourceSize     size of the CSV snapshot in bytes
+     * @param sourceModified modification time of the CSV snapshot in nanoseconds
+     * @return buffer ready to be written to disk
+     */
+    static ByteBuffer encode(Collection<StudentProfile> profiles, long sourceSize, long sourceModified) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(profiles.size() * 32);
+        try (DataOutputStream records = new DataOutputStream(recordBytes)) {
+            for (StudentProfile profile : profiles) {
+                records.writeInt(profile.getId());
+                records.writeInt(intern(profile.getFullName(), ids, table));
+                records.writeInt(intern(profile.getAcademicStatus(), ids, table));
+                records.writeInt(intern(profile.getJobDetails(), ids, table));
+                records.writeInt(intern(profile.getPreferredRole(), ids, table));
+                writeList(records, profile.getProgrammingLanguages(), ids, table);
+                writeList(records, profile.getDatabases(), ids, table);
+                writeList(records, profile.getComments(), ids, table);
+                records.writeByte((profile.isEmployed() ? EMPLOYED_FLAG : 0)
+                        | (profile.isWhitelist() ? WHITELIST_FLAG : 0)
+                        | (profile.isBlacklist() ? BLACKLIST_FLAG : 0));
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream(recordBytes.size() + table.size() * 16);
+            try (DataOutputStream out = new DataOutputStream(body)) {
+                for (String value : table) {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                }
+                recordBytes.writeTo(out);
+            }
+
+            byte[] bodyBytes = body.toByteArray();
+            CRC32C checksum = new CRC32C();
+            checksum.update(bodyBytes);
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyBytes.length);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(sourceSize)
+                    .putLong(sourceModified)
+                    .putInt(profiles.size())
+                    .putInt(table.size())
+                    .putLong(checksum.getValue())
+                    .put(bodyBytes)
+                    .flip();
+            return buffer;
+        } catch (IOException exception) {
+            // Only in-memory streams are involved.
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Memory-maps and decodes a binary snapshot.
+     *
+     * @param path           binary snapshot file
+     * @param sourceSize     current size of the CSV snapshot in bytes
+     * @param sourceModified current modification time of the CSV snapshot in nanoseconds
+     * @return the stored profiles in file order, or {@code null} when the file is missing, stale or damaged
+     * @throws IOException when the file exists but cannot be read
+     */
+    static List<StudentProfile> read(Path path, long sourceSize, long sourceModified) throws IOException {
+        if (Files.notExists(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION
+                    || mapped.getLong() != sourceSize || mapped.getLong() != sourceModified) {
+                return null;
+            }
+            int recordCount = mapped.getInt();
+            int stringCount = mapped.getInt();
+            long expectedChecksum = mapped.getLong();
+
+            CRC32C checksum = new CRC32C();
+            checksum.update(mapped.slice());
+            if (checksum.getValue() != expectedChecksum || recordCount < 0 || stringCount < 0) {
+                return null;
+            }
+            return decode(mapped, recordCount, stringCount);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException exception) {
+            return null;
+        }
+    }
+
+    private static List<StudentProfile> decode(ByteBuffer body, int recordCount, int stringCount) {
+        String[] table = new String[stringCount];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < stringCount; i++) {
+            int length = body.getInt();
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            body.get(scratch, 0, length);
+            table[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        List<StudentProfile> profiles = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            int id = body.getInt();
+            String fullName = table[body.getInt()];
+            String academicStatus = table[body.getInt()];
+            String jobDetails = table[body.getInt()];
+            String preferredRole = table[body.getInt()];
+            List<String> languages = readList(body, table);
+            List<String> databases = readList(body, table);
+            List<String> comments = readList(body, table);
+            int flags = body.get();
+            profiles.add(new StudentProfile(id, fullName, academicStatus, (flags & EMPLOYED_FLAG) != 0, jobDetails,
+                    languages, databases, preferredRole, comments, (flags & WHITELIST_FLAG) != 0,
+                    (flags & BLACKLIST_FLAG) != 0, ProfileField.all()));
+        }
+        return profiles;
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<String> table) {
+        String nonNull = value == null ? "" : value;
+        Integer id = ids.get(nonNull);
+        if (id == null) {
+            id = table.size();
+            ids.put(nonNull, id);
+            table.add(nonNull);
+        }
+        return id;
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values, Map<String, Integer> ids,
+                                  List<String> table) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeInt(intern(value, ids, table));
+        }
+    }
+
+    private static List<String> readList(ByteBuffer body, String[] table) {
+        int count = body.getInt();
+        if (count == 0) {
+            return List.of();
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = table[body.getInt()];
+        }
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,595 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide in-memory view of the stored student profiles shared by all controllers.
+ * <p>
+ * The profiles are read from disk on first use and again only when {@link #refresh()} is called. Mutations go through
+ * the cache, which validates them against its own copy, applies them there and queues them on a
+ * {@link ProfileWriteBehind} that writes them to the underlying {@link StudentProfileRepository} in batches shortly
+ * afterwards. {@link #whenWritten()} tells callers when the queued writes have reached storage. Every change bumps a
+ * monotonic {@linkplain #getVersion() version}, so a screen can tell whether the list it rendered is still current.
+ * </p>
+ * <p>
+ * Profiles are identified by their {@linkplain StudentProfile#getId() id}, which survives renames; the id-based
+ * mutations are the primary ones and the name-based ones look the id up first. New profiles get their id from the
+ * repository when they are added.
+ * </p>
+ * <p>
+ * When the files are edited outside the application, {@link #reloadIfChanged()} reloads them, works out which records
+ * changed and hands that {@link ProfileChange} to the registered listeners, so open screens can patch just those rows.
+ * Screens that read the files themselves register a {@linkplain #addWriteListener(Runnable) write listener} as well,
+ * to hear when the application's own mutations have been stored.
+ * </p>
+ * <p>
+ * The cache also maintains the {@link CommentIndex} behind {@link #searchComments(String, int)}, re-indexing the
+ * comments of each profile it adds, updates or removes.
+ * </p>
+ */
+public final class ProfileCache {
+
+    private static final ProfileCache INSTANCE =
+            new ProfileCache(new StudentProfileRepository(StudentProfileRepository.PersistenceMode.JOURNALED));
+
+    private final StudentProfileRepository repository;
+    private final AtomicLong version = new AtomicLong();
+    /** Cached profiles by {@link StudentProfileRepository#nameKey(String)}; guarded by {@code this}. */
+    private final Map<String, StudentProfile> byName = new HashMap<>();
+    /** Cached profiles by id; guarded by {@code this}. */
+    private final IntObjectMap<StudentProfile> byId = new IntObjectMap<>();
+    private final List<WeakReference<Consumer<ProfileChange>>> listeners = new CopyOnWriteArrayList<>();
+    private final List<WeakReference<Runnable>> writeListeners = new CopyOnWriteArrayList<>();
+    private final ProfileFilterIndex filterIndex = new ProfileFilterIndex();
+    private final CommentIndex commentIndex;
+    private final ProfileWriteBehind writeBehind;
+
+    /**
+     * Name-sorted profiles; every change publishes a new version that shares most of its nodes with the previous one.
+     * {@code null} until first loaded.
+     */
+    private volatile SortedProfileList profiles;
+
+    ProfileCache(StudentProfileRepository repository) {
+        this.repository = repository;
+        this.commentIndex = new CommentIndex(repository.commentIndexPath());
+        this.writeBehind = new ProfileWriteBehind(repository, this::notifyWriteListeners);
+    }
+
+    /**
+     * @return the cache shared by the whole application
+     */
+    public static ProfileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the repository the cache reads from and writes through
+     */
+    public StudentProfileRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Writes ids into profile files saved before profiles had ids. Meant to run once at startup; mutations do it on
+     * demand otherwise.
+     *
+     * @return {@code true} when the files were rewritten
+     * @throws IOException when the files cannot be read or written
+     * @see StudentProfileRepository#migrateLegacyIds()
+     */
+    public boolean migrateLegacyIds() throws IOException {
+        return repository.migrateLegacyIds();
+    }
+
+    /**
+     * @return counter incremented on every load, refresh and mutation
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns all profiles sorted by name, loading them from disk on first use.
+     *
+     * @return unmodifiable list of the cached profiles
+     * @throws IOException when the first load fails
+     */
+    public List<StudentProfile> getProfiles() throws IOException {
+        List<StudentProfile> current = profiles;
+        return current != null ? current : load(false);
+    }
+
+    /**
+     * Discards the cached profiles and reads them from disk again.
+     *
+     * @return unmodifiable list of the reloaded profiles
+     * @throws IOException when the storage file cannot be read
+     */
+    public List<StudentProfile> refresh() throws IOException {
+        return load(true);
+    }
+
+    /**
+     * Returns the profiles matching every non-blank filter value using the cache's {@link ProfileFilterIndex}.
+     *
+     * @param nameFragment   text the name must contain (case-insensitive), or blank
+     * @param academicStatus academic status to match, or blank
+     * @param language       programming language the profile must list, or blank
+     * @param database       database the profile must list, or blank
+     * @param preferredRole  preferred role to match, or blank
+     * @return matching profiles in no particular order
+     * @throws IOException when the first load fails
+     */
+    public List<StudentProfile> filter(String nameFragment, String academicStatus, String language, String database,
+                                       String preferredRole) throws IOException {
+        getProfiles();
+        return filterIndex.query(nameFragment, academicStatus, language, database, preferredRole);
+    }
+
+    /**
+     * Finds the comments most relevant to a free-text query, ranked with BM25.
+     *
+     * @param query words to look for (case-insensitive)
+     * @param limit maximum number of results
+     * @return matching comments, most relevant first
+     * @throws IOException when the first load fails
+     */
+    public List<CommentSearchResult> searchComments(String query, int limit) throws IOException {
+        if (!commentIndex.isSynced()) {
+            synchronized (this) {
+                commentIndex.reconcile(getProfiles());
+            }
+        }
+        return commentIndex.search(query, limit);
+    }
+
+    /**
+     * Reloads the profiles if the files changed outside this cache and notifies the change listeners of the records that
+     * differ. Does nothing before the first load, since there is nothing to compare against yet. Files that still match
+     * the repository's own last write changed only through the application, so they are neither reloaded nor is the
+     * write-behind queue flushed early for them.
+     *
+     * @return the records that changed, or {@link ProfileChange#NONE}
+     * @throws IOException when the storage file cannot be read
+     */
+    public synchronized ProfileChange reloadIfChanged() throws IOException {
+        if (profiles == null || repository.isUpToDate()) {
+            return ProfileChange.NONE;
+        }
+        // Queued writes go first, so the comparison below does not report them as reverted.
+        writeBehind.flush();
+
+        // Unchanged records keep their cached instance, so rows already shown on screen stay valid. Records are matched
+        // by id, so a profile renamed outside the application is reported as updated rather than removed and added.
+        List<StudentProfile> loaded = repository.loadAll();
+        IntObjectMap<StudentProfile> previous = new IntObjectMap<>(byId.size());
+        for (StudentProfile profile : byId.values()) {
+            previous.put(profile.getId(), profile);
+        }
+        List<StudentProfile> merged = new ArrayList<>(loaded.size());
+        List<StudentProfile> added = new ArrayList<>();
+        List<StudentProfile> updated = new ArrayList<>();
+        List<StudentProfile> replaced = new ArrayList<>();
+        for (StudentProfile profile : loaded) {
+            StudentProfile before = previous.remove(profile.getId());
+            if (before == null) {
+                added.add(profile);
+                merged.add(profile);
+            } else if (!before.hasSameContent(profile)) {
+                updated.add(profile);
+                replaced.add(before);
+                merged.add(profile);
+            } else {
+                merged.add(before);
+            }
+        }
+
+        ProfileChange change = new ProfileChange(added, new ArrayList<>(previous.values()), updated);
+        if (change.isEmpty()) {
+            return change;
+        }
+        for (StudentProfile profile : change.removed()) {
+            filterIndex.remove(profile.getId());
+            commentIndex.update(profile.getFullName(), null);
+        }
+        for (StudentProfile profile : replaced) {
+            commentIndex.update(profile.getFullName(), null);
+        }
+        for (StudentProfile profile : change.updated()) {
+            filterIndex.add(profile);
+            commentIndex.update(null, profile);
+        }
+        for (StudentProfile profile : change.added()) {
+            filterIndex.add(profile);
+            commentIndex.update(null, profile);
+        }
+        publish(merged, false);
+        notifyListeners(change);
+        return change;
+    }
+
+    /**
+     * Registers a listener for changes picked up by {@link #reloadIfChanged()}. Listeners are called on the thread that
+     * performed the reload. They are held weakly, so a screen is not kept alive by the cache; the caller keeps a strong
+     * reference for as long as it wants to be notified.
+     *
+     * @param listener callback receiving each non-empty change
+     */
+    public void addChangeListener(Consumer<ProfileChange> listener) {
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    /**
+     * @param listener callback previously passed to {@link #addChangeListener(Consumer)}
+     */
+    public void removeChangeListener(Consumer<ProfileChange> listener) {
+        listeners.removeIf(reference -> {
+            Consumer<ProfileChange> registered = reference.get();
+            return registered == null || registered == listener;
+        });
+    }
+
+    /**
+     * Registers a listener for the application's own mutations reaching storage: it runs after each batch of queued
+     * writes and after {@link #saveAll(List)}, on the thread that wrote them. Screens that read the files directly use
+     * it to pick up changes made elsewhere in the application; {@link #addChangeListener(Consumer)} only reports
+     * changes made outside it. Listeners are held weakly, like change listeners.
+     *
+     * @param listener callback run after each write
+     */
+    public void addWriteListener(Runnable listener) {
+        writeListeners.add(new WeakReference<>(listener));
+    }
+
+    /**
+     * @param listener callback previously passed to {@link #addWriteListener(Runnable)}
+     */
+    public void removeWriteListener(Runnable listener) {
+        writeListeners.removeIf(reference -> {
+            Runnable registered = reference.get();
+            return registered == null || registered == listener;
+        });
+    }
+
+    /**
+     * Looks up a cached profile by name (case-insensitive).
+     *
+     * @param fullName name of the profile to find
+     * @return the profile, or an empty optional when no profile uses that name
+     * @throws IOException when the first load fails
+     */
+    public synchronized Optional<StudentProfile> findByName(String fullName) throws IOException {
+        if (fullName == null || fullName.isBlank()) {
+            return Optional.empty();
+        }
+        getProfiles();
+        return Optional.ofNullable(byName.get(StudentProfileRepository.nameKey(fullName)));
+    }
+
+    /**
+     * Looks up a cached profile by id.
+     *
+     * @param id id of the profile to find
+     * @return the profile, or an empty optional when no profile has that id
+     * @throws IOException when the first load fails
+     */
+    public synchronized Optional<StudentProfile> findById(int id) throws IOException {
+        getProfiles();
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * @param fullName name to check
+     * @return {@code true} when a cached profile already uses the name (case-insensitive)
+     * @throws IOException when the first load fails
+     */
+    public boolean containsName(String fullName) throws IOException {
+        return findByName(fullName).isPresent();
+    }
+
+    /**
+     * Returns the complete version of a profile that may have been loaded with only some of its columns.
+     *
+     * @param profile complete or partial profile
+     * @return the complete profile, or an empty optional when it is no longer stored
+     * @throws IOException when the storage file cannot be read
+     */
+    public Optional<StudentProfile> hydrate(StudentProfile profile) throws IOException {
+        if (profile.isComplete()) {
+            return Optional.of(profile);
+        }
+        Optional<StudentProfile> cached = findByName(profile.getFullName());
+        return cached.isPresent() ? cached : repository.hydrate(profile);
+    }
+
+    /**
+     * Adds a new profile unless another profile already uses the same name (case-insensitive). The profile is given a
+     * new id and written to storage in the background; see {@link #whenWritten()}.
+     *
+     * @param profile profile to add
+     * @return the cached profile, carrying its new id, or empty when the name is blank or already taken
+     * @throws IOException when the first load fails or no id can be reserved
+     */
+    public synchronized Optional<StudentProfile> addProfile(StudentProfile profile) throws IOException {
+        getProfiles();
+        if (profile == null || profile.getFullName() == null || profile.getFullName().isBlank()
+                || byName.containsKey(StudentProfileRepository.nameKey(profile.getFullName()))) {
+            return Optional.empty();
+        }
+        StudentProfile stored = profile.withId(repository.allocateId());
+        writeBehind.put(stored);
+        replace(null, stored);
+        return Optional.of(stored);
+    }
+
+    /**
+     * Replaces the profile stored under {@code originalName}. The change is written to storage in the background; see
+     * {@link #whenWritten()}.
+     *
+     * @param originalName   current name of the profile (case-insensitive)
+     * @param updatedProfile new values for the profile
+     * @return {@code true} when the profile was replaced, {@code false} when it does not exist or the new name is taken
+     * @throws IOException when the first load fails
+     * @see #updateProfile(int, StudentProfile)
+     */
+    public synchronized boolean updateProfile(String originalName, StudentProfile updatedProfile) throws IOException {
+        getProfiles();
+        if (originalName == null || originalName.isBlank()) {
+            return false;
+        }
+        StudentProfile previous = byName.get(StudentProfileRepository.nameKey(originalName));
+        return previous != null && updateProfile(previous.getId(), updatedProfile);
+    }
+
+    /**
+     * Replaces the profile with the given id, which it keeps when renamed. The change is written to storage in the
+     * background; see {@link #whenWritten()}.
+     *
+     * @param id             id of the profile
+     * @param updatedProfile new values for the profile; its own id is ignored
+     * @return {@code true} when the profile was replaced, {@code false} when it does not exist or the new name is taken
+     * @throws IOException when the first load fails
+     */
+    public synchronized boolean updateProfile(int id, StudentProfile updatedProfile) throws IOException {
+        getProfiles();
+        if (updatedProfile == null) {
+            return false;
+        }
+        StudentProfile previous = byId.get(id);
+        StudentProfile holder = byName.get(StudentProfileRepository.nameKey(updatedProfile.getFullName()));
+        if (previous == null || holder != null && holder.getId() != id) {
+            return false;
+        }
+        StudentProfile stored = updatedProfile.withId(id);
+        writeBehind.put(stored);
+        replace(previous, stored);
+        return true;
+    }
+
+    /**
+     * Appends a comment to the profile with the given name (case-insensitive). Only the comment is written to storage,
+     * in the background; see {@link #whenWritten()}.
+     *
+     * @param fullName name of the profile to comment on
+     * @param comment  comment to append
+     * @return {@code true} when the profile exists and the comment was appended
+     * @throws IOException when the first load fails
+     * @see #appendComment(int, String)
+     */
+    public synchronized boolean appendComment(String fullName, String comment) throws IOException {
+        getProfiles();
+        if (fullName == null || fullName.isBlank()) {
+            return false;
+        }
+        StudentProfile previous = byName.get(StudentProfileRepository.nameKey(fullName));
+        return previous != null && appendComment(previous.getId(), comment);
+    }
+
+    /**
+     * Appends a comment to the profile with the given id. Only the comment is written to storage, in the background;
+     * see {@link #whenWritten()}.
+     *
+     * @param id      id of the profile to comment on
+     * @param comment comment to append
+     * @return {@code true} when the profile exists and the comment was appended
+     * @throws IOException when the first load fails
+     */
+    public synchronized boolean appendComment(int id, String comment) throws IOException {
+        getProfiles();
+        if (comment == null || comment.isBlank()) {
+            return false;
+        }
+        StudentProfile previous = byId.get(id);
+        if (previous == null) {
+            return false;
+        }
+        StudentProfile updated = previous.withComment(comment);
+        writeBehind.appendComment(updated, comment);
+        replace(previous, updated);
+        return true;
+    }
+
+    /**
+     * Deletes the profile with the given name (case-insensitive). The deletion is written to storage in the
+     * background; see {@link #whenWritten()}.
+     *
+     * @param fullName name of the profile to delete
+     * @return {@code true} when a profile was removed
+     * @throws IOException when the first load fails
+     * @see #deleteById(int)
+     */
+    public synchronized boolean deleteByName(String fullName) throws IOException {
+        getProfiles();
+        if (fullName == null || fullName.isBlank()) {
+            return false;
+        }
+        StudentProfile previous = byName.get(StudentProfileRepository.nameKey(fullName));
+        return previous != null && deleteById(previous.getId());
+    }
+
+    /**
+     * Deletes the profile with the given id. The deletion is written to storage in the background; see
+     * {@link #whenWritten()}.
+     *
+     * @param id id of the profile to delete
+     * @return {@code true} when a profile was removed
+     * @throws IOException when the first load fails
+     */
+    public synchronized boolean deleteById(int id) throws IOException {
+        getProfiles();
+        StudentProfile previous = byId.get(id);
+        if (previous == null) {
+            return false;
+        }
+        writeBehind.delete(previous);
+        replace(previous, null);
+        return true;
+    }
+
+    /**
+     * Replaces every stored profile. Unlike the single-profile mutations, this writes to storage before returning.
+     * Profiles without an id are given one.
+     *
+     * @param replacement profiles to store
+     * @throws IOException when the storage file cannot be written
+     */
+    public synchronized void saveAll(List<StudentProfile> replacement) throws IOException {
+        writeBehind.flush();
+        repository.saveAll(replacement);
+        // Read back for the ids the repository assigned; the index is fresh, so nothing is parsed.
+        publish(repository.loadAll(), true);
+        notifyWriteListeners();
+    }
+
+    /**
+     * Returns a future that completes once every mutation made so far has been written to storage. It completes
+     * exceptionally when the batch holding them fails; the batch is retried, so a later call may still succeed.
+     *
+     * @return future completed with {@code null} once the writes are stored
+     */
+    public CompletableFuture<Void> whenWritten() {
+        return writeBehind.whenWritten();
+    }
+
+    /**
+     * @return the error raised by the most recent failed batch of queued writes, or {@code null} if the last batch was
+     *         stored; failed batches are retried with increasing delays
+     */
+    public Exception getLastWriteFailure() {
+        return writeBehind.getLastFailure();
+    }
+
+    /**
+     * Writes every queued mutation on the calling thread instead of waiting for the background flush.
+     *
+     * @throws IOException when the queued writes cannot be stored
+     */
+    public void flushWrites() throws IOException {
+        writeBehind.flush();
+    }
+
+    /**
+     * Opens a paged source over the stored profiles after writing any queued mutations, since the source reads the
+     * files directly.
+     *
+     * @param keyFields columns to keep in memory for every row
+     * @return the source
+     * @throws IOException when the queued writes cannot be stored or the files cannot be read
+     * @see StudentProfileRepository#openPagedSource(Set)
+     */
+    public PagedProfileSource openPagedSource(Set<ProfileField> keyFields) throws IOException {
+        writeBehind.flush();
+        return repository.openPagedSource(keyFields);
+    }
+
+    private synchronized List<StudentProfile> load(boolean force) throws IOException {
+        if (!force && profiles != null) {
+            return profiles;
+        }
+        if (force) {
+            writeBehind.flush();
+            repository.invalidate();
+        }
+        return publish(repository.loadAll(), true);
+    }
+
+    /**
+     * Removes the cached {@code removed} (if any) and inserts {@code added} (if any) in name order.
+     */
+    private void replace(StudentProfile removed, StudentProfile added) {
+        // Readers of getProfiles() keep an unchanging list without taking the monitor; each update costs O(log n).
+        SortedProfileList updated = profiles;
+        if (removed != null) {
+            byName.remove(StudentProfileRepository.nameKey(removed.getFullName()));
+            byId.remove(removed.getId());
+            // NameOrder is total and names are unique, so this removes the cached instance itself.
+            updated = updated.without(removed);
+            filterIndex.remove(removed.getId());
+        }
+        if (added != null) {
+            updated = updated.with(added);
+            byName.put(StudentProfileRepository.nameKey(added.getFullName()), added);
+            byId.put(added.getId(), added);
+            filterIndex.add(added);
+        }
+        commentIndex.update(removed == null ? null : removed.getFullName(), added);
+        profiles = updated;
+        version.incrementAndGet();
+    }
+
+    private void notifyListeners(ProfileChange change) {
+        for (WeakReference<Consumer<ProfileChange>> reference : listeners) {
+            Consumer<ProfileChange> listener = reference.get();
+            if (listener == null) {
+                listeners.remove(reference);
+            } else {
+                listener.accept(change);
+            }
+        }
+    }
+
+    private void notifyWriteListeners() {
+        for (WeakReference<Runnable> reference : writeListeners) {
+            Runnable listener = reference.get();
+            if (listener == null) {
+                writeListeners.remove(reference);
+            } else {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * Makes {@code loaded} the cached list. It must already be in {@link NameOrder}, as the repository's sorted index
+     * returns it, so it is not sorted again.
+     */
+    private List<StudentProfile> publish(List<StudentProfile> loaded, boolean rebuildIndex) {
+        byName.clear();
+        byId.clear();
+        for (StudentProfile profile : loaded) {
+            byName.put(StudentProfileRepository.nameKey(profile.getFullName()), profile);
+            byId.put(profile.getId(), profile);
+        }
+        if (rebuildIndex) {
+            filterIndex.rebuild(loaded);
+            commentIndex.invalidate();
+        }
+        SortedProfileList published = SortedProfileList.of(loaded);
+        profiles = published;
+        version.incrementAndGet();
+        return published;
+    }
+}
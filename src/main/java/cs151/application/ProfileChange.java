@@ -0,0 +1,69 @@
+package cs151.application;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Record-level difference between two versions of the stored profiles.
+ *
+ * @param added   profiles whose id was not stored before
+ * @param removed profiles whose id is no longer stored
+ * @param updated new versions of profiles whose id is unchanged but whose values, possibly including the name, differ
+ */
+public record ProfileChange(List<StudentProfile> added, List<StudentProfile> removed, List<StudentProfile> updated) {
+
+    /** Change that affects nothing. */
+    public static final ProfileChange NONE = new ProfileChange(List.of(), List.of(), List.of());
+
+    public ProfileChange {
+        added = List.copyOf(added);
+        removed = List.copyOf(removed);
+        updated = List.copyOf(updated);
+    }
+
+    /**
+     * @return {@code true} when no profile was added, removed or updated
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && updated.isEmpty();
+    }
+
+    /**
+     * Applies the change to a name-sorted list, touching only the affected rows so an observable list fires small
+     * change events. Added and updated profiles are inserted only when they pass {@code filter}.
+     *
+     * @param target name-sorted list to update
+     * @param filter profiles the list is meant to contain
+     */
+    public void applyTo(List<StudentProfile> target, Predicate<StudentProfile> filter) {
+        if (isEmpty()) {
+            return;
+        }
+
+        IntObjectMap<StudentProfile> replacedIds = new IntObjectMap<>(removed.size() + updated.size() + added.size());
+        for (StudentProfile profile : removed) {
+            replacedIds.put(profile.getId(), profile);
+        }
+        for (StudentProfile profile : updated) {
+            replacedIds.put(profile.getId(), profile);
+        }
+        for (StudentProfile profile : added) {
+            replacedIds.put(profile.getId(), profile);
+        }
+        target.removeIf(profile -> replacedIds.containsKey(profile.getId()));
+
+        insertSorted(target, updated, filter);
+        insertSorted(target, added, filter);
+    }
+
+    private static void insertSorted(List<StudentProfile> target, List<StudentProfile> profiles,
+                                     Predicate<StudentProfile> filter) {
+        for (StudentProfile profile : profiles) {
+            if (filter.test(profile)) {
+                int position = Collections.binarySearch(target, profile, NameOrder.PROFILES);
+                target.add(position < 0 ? -position - 1 : position, profile);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package cs151.application;
+
+/**
+ * Column-oriented copy of a roster's filterable attributes, for reports and aggregations over many rows.
+ * <p>
+ * Academic status and preferred role are stored as {@link ProfileDictionary} ids in one {@code int} array each, and
+ * the employed, whitelist and blacklist flags as bitmaps with one bit per row. Filters and counts therefore scan
+ * contiguous primitive arrays instead of following a reference to every profile, and run on {@link ColumnScans#best()}.
+ * Rows are numbered like the array the store was built from. The store is immutable; build a new one when the roster
+ * changes.
+ * </p>
+ */
+final class ProfileColumns {
+
+    private final int size;
+    private final int[] academicStatusIds;
+    private final int[] preferredRoleIds;
+    private final long[] employedBits;
+    private final long[] whitelistBits;
+    private final long[] blacklistBits;
+    private final ColumnScans scans;
+
+    ProfileColumns(int size, int[] academicStatusIds, int[] preferredRoleIds, long[] employedBits,
+                   long[] whitelistBits, long[] blacklistBits, ColumnScans scans) {
+        this.size = size;
+        this.academicStatusIds = academicStatusIds;
+        this.preferredRoleIds = preferredRoleIds;
+        this.employedBits = employedBits;
+        this.whitelistBits = whitelistBits;
+        this.blacklistBits = blacklistBits;
+        this.scans = scans;
+    }
+
+    /**
+     * Copies the columns of {@code profiles}, which may be partial as long as they hold the columns queried later.
+     */
+    static ProfileColumns of(StudentProfile[] profiles) {
+        int size = profiles.length;
+        int[] academicStatusIds = new int[size];
+        int[] preferredRoleIds = new int[size];
+        long[] employedBits = new long[words(size)];
+        long[] whitelistBits = new long[words(size)];
+        long[] blacklistBits = new long[words(size)];
+        for (int row = 0; row < size; row++) {
+            StudentProfile profile = profiles[row];
+            academicStatusIds[row] = profile.academicStatusId();
+            preferredRoleIds[row] = profile.preferredRoleId();
+            long bit = 1L << row;
+            if (profile.isEmployed()) {
+                employedBits[row >>> 6] |= bit;
+            }
+            if (profile.isWhitelist()) {
+                whitelistBits[row >>> 6] |= bit;
+            }
+            if (profile.isBlacklist()) {
+                blacklistBits[row >>> 6] |= bit;
+            }
+        }
+        return new ProfileColumns(size, academicStatusIds, preferredRoleIds, employedBits, whitelistBits,
+                blacklistBits, ColumnScans.best());
+    }
+
+    /**
+     * @return number of rows
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param flag {@link ProfileField#EMPLOYED}, {@link ProfileField#WHITELIST} or {@link ProfileField#BLACKLIST}
+     * @return bitmap of the rows with the flag set; must not be modified
+     * @throws IllegalArgumentException for other columns
+     */
+    long[] flagBits(ProfileField flag) {
+        return switch (flag) {
+            case EMPLOYED -> employedBits;
+            case WHITELIST -> whitelistBits;
+            case BLACKLIST -> blacklistBits;
+            default -> throw new IllegalArgumentException(flag + " is not a flag column");
+        };
+    }
+
+    /**
+     * @param rows bitmap numbered like the rows of this store
+     * @return number of rows set in the bitmap
+     */
+    int count(long[] rows) {
+        return scans.popCount(rows);
+    }
+
+    /**
+     * @param rows bitmap numbered like the rows of this store
+     * @return number of rows set in the bitmap that also have the flag set
+     * @throws IllegalArgumentException when {@code flag} is not a flag column
+     */
+    int countWithin(long[] rows, ProfileField flag) {
+        return scans.popCountAnd(rows, flagBits(flag));
+    }
+
+    /**
+     * @param rows   bitmap numbered like the rows of this store
+     * @param column {@link ProfileField#ACADEMIC_STATUS} or {@link ProfileField#PREFERRED_ROLE}
+     * @param value  exact value to count
+     * @return number of rows set in the bitmap that hold the value
+     * @throws IllegalArgumentException for other columns
+     */
+    int countWithin(long[] rows, ProfileField column, String value) {
+        return scans.popCountAnd(rows, matching(column, value));
+    }
+
+    /**
+     * @param column {@link ProfileField#ACADEMIC_STATUS} or {@link ProfileField#PREFERRED_ROLE}
+     * @param value  exact value to match
+     * @return new bitmap of the rows holding the value
+     * @throws IllegalArgumentException for other columns
+     */
+    long[] matching(ProfileField column, String value) {
+        int[] codes = codes(column);
+        long[] bits = new long[words(size)];
+        int id = idOf(value);
+        if (id != ProfileDictionary.UNKNOWN_ID) {
+            scans.markEqual(codes, size, id, bits);
+        }
+        return bits;
+    }
+
+    private int[] codes(ProfileField column) {
+        return switch (column) {
+            case ACADEMIC_STATUS -> academicStatusIds;
+            case PREFERRED_ROLE -> preferredRoleIds;
+            default -> throw new IllegalArgumentException(column + " is not a dictionary column");
+        };
+    }
+
+    private static int idOf(String value) {
+        return value == null ? ProfileDictionary.NULL_ID : ProfileDictionary.findStringId(value);
+    }
+
+    private static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+}
@@ -0,0 +1,103 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Folds the profile journal back into a sorted snapshot on a background thread.
+ * <p>
+ * A compaction is scheduled after a journal append once the journal exceeds either an absolute size or a fraction of
+ * the snapshot size. Only one compaction is queued at a time, and the work never runs on the caller's thread, so saves
+ * issued from the JavaFX application thread are not held up by it.
+ * </p>
+ */
+public class ProfileCompactor {
+
+    /** Default absolute journal size that triggers a compaction. */
+    public static final long DEFAULT_MAX_JOURNAL_BYTES = 4L * 1024 * 1024;
+
+    /** Default journal-to-snapshot size ratio that triggers a compaction. */
+    public static final double DEFAULT_MAX_JOURNAL_RATIO = 0.5;
+
+    /** Journals smaller than this are never compacted by ratio, so tiny rosters are not rewritten on every edit. */
+    private static final long MIN_RATIO_JOURNAL_BYTES = 64L * 1024;
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "profile-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final StudentProfileRepository repository;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile long maxJournalBytes = DEFAULT_MAX_JOURNAL_BYTES;
+    private volatile double maxJournalRatio = DEFAULT_MAX_JOURNAL_RATIO;
+    private volatile IOException lastFailure;
+
+    ProfileCompactor(StudentProfileRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Adjusts the thresholds that trigger a background compaction.
+     *
+     * @param maxJournalBytes journal size in bytes at which a compaction is scheduled
+     * @param maxJournalRatio journal-to-snapshot size ratio at which a compaction is scheduled
+     */
+    public void setThresholds(long maxJournalBytes, double maxJournalRatio) {
+        if (maxJournalBytes <= 0 || maxJournalRatio <= 0) {
+            throw new IllegalArgumentException("Compaction thresholds must be positive");
+        }
+        this.maxJournalBytes = maxJournalBytes;
+        this.maxJournalRatio = maxJournalRatio;
+    }
+
+    /**
+     * Schedules a compaction regardless of the thresholds.
+     *
+     * @return future completing once the queued compaction has run
+     */
+    public Future<?> requestCompaction() {
+        scheduled.set(true);
+        return WORKER.submit(this::runCompaction);
+    }
+
+    /**
+     * @return the error raised by the most recent failed compaction, or {@code null} if the last run succeeded
+     */
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    void onJournalAppended() {
+        if (scheduled.get()) {
+            return;
+        }
+        try {
+            long journalSize = repository.journalSize();
+            boolean overSize = journalSize >= maxJournalBytes;
+            boolean overRatio = journalSize >= MIN_RATIO_JOURNAL_BYTES
+                    && journalSize >= repository.snapshotSize() * maxJournalRatio;
+            if ((overSize || overRatio) && scheduled.compareAndSet(false, true)) {
+                WORKER.execute(this::runCompaction);
+            }
+        } catch (IOException exception) {
+            lastFailure = exception;
+        }
+    }
+
+    private void runCompaction() {
+        scheduled.set(false);
+        try {
+            repository.compact();
+            lastFailure = null;
+        } catch (IOException exception) {
+            // The journal is left in place, so no data is lost; the next trigger retries.
+            lastFailure = exception;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package cs151.application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of the profile values that repeat across students.
+ * <p>
+ * Academic status, preferred role and the language and database lists come from short option lists, so a roster holds
+ * only a handful of distinct values however many profiles it has. Each distinct value is stored once and profiles keep
+ * its integer id. Lists are interned whole, as unmodifiable lists of interned strings, so two students listing the
+ * same languages in the same order share one list. Ids are never reused or released; the dictionary grows with the
+ * number of distinct values seen, not with the number of profiles.
+ * </p>
+ * <p>
+ * Lookups of existing values are lock-free; adding a value takes a lock. All methods may be called from any thread.
+ * </p>
+ */
+final class ProfileDictionary {
+
+    /** Id standing for a {@code null} string. */
+    static final int NULL_ID = -1;
+    /** Id returned by {@link #findStringId(String)} for a string that was never interned; no profile holds it. */
+    static final int UNKNOWN_ID = -2;
+
+    private static final Table<String> STRINGS = new Table<>();
+    private static final Table<List<String>> LISTS = new Table<>();
+
+    private ProfileDictionary() {
+    }
+
+    /**
+     * @param value string to intern, or {@code null}
+     * @return the id of the value, or {@link #NULL_ID}
+     */
+    static int stringId(String value) {
+        return value == null ? NULL_ID : STRINGS.idOf(value, value);
+    }
+
+    /**
+     * Looks up a string without adding it, for queries that should not grow the dictionary.
+     *
+     * @param value string to look up, not {@code null}
+     * @return the id of the value, or {@link #UNKNOWN_ID}
+     */
+    static int findStringId(String value) {
+        int id = STRINGS.find(value);
+        return id < 0 ? UNKNOWN_ID : id;
+    }
+
+    /**
+     * @param id id returned by {@link #stringId(String)}
+     * @return the interned string, or {@code null} for {@link #NULL_ID}
+     */
+    static String string(int id) {
+        return id == NULL_ID ? null : STRINGS.get(id);
+    }
+
+    /**
+     * @param values list to intern; neither the list nor its elements may be {@code null}
+     * @return the id of an equal list
+     * @throws NullPointerException when the list or one of its elements is {@code null}
+     */
+    static int listId(List<String> values) {
+        int id = LISTS.find(values);
+        if (id >= 0) {
+            return id;
+        }
+        List<String> interned = new ArrayList<>(values.size());
+        for (String value : values) {
+            interned.add(string(stringId(Objects.requireNonNull(value))));
+        }
+        List<String> copy = List.copyOf(interned);
+        return LISTS.idOf(copy, copy);
+    }
+
+    /**
+     * @param id id returned by {@link #listId(List)}
+     * @return the interned, unmodifiable list
+     */
+    static List<String> list(int id) {
+        return LISTS.get(id);
+    }
+
+    /**
+     * Append-only table of values numbered in insertion order.
+     */
+    private static final class Table<T> {
+
+        private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+        /** Values by id. Rewritten under the lock after every addition, so readers holding an id see its value. */
+        private volatile Object[] values = new Object[16];
+        private int size;
+
+        int find(T value) {
+            Integer id = ids.get(value);
+            return id == null ? -1 : id;
+        }
+
+        /**
+         * @param key   value to look up
+         * @param value immutable instance stored when {@code key} is new; must equal {@code key}
+         */
+        int idOf(T key, T value) {
+            Integer id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            synchronized (this) {
+                id = ids.get(key);
+                if (id == null) {
+                    Object[] current = values;
+                    if (size == current.length) {
+                        current = Arrays.copyOf(current, size * 2);
+                    }
+                    current[size] = value;
+                    values = current;
+                    id = size++;
+                    ids.put(value, id);
+                }
+                return id;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int id) {
+            return (T) values[id];
+        }
+    }
+}
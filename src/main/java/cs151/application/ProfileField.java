@@ -0,0 +1,34 @@
+package cs151.application;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Identifies the stored columns of a {@link StudentProfile}, in file order.
+ * <p>
+ * Used to request partial loads: columns that are not requested are skipped while parsing and can be fetched later
+ * with {@link StudentProfileRepository#hydrate(StudentProfile)}.
+ * </p>
+ */
+public enum ProfileField {
+    FULL_NAME,
+    ACADEMIC_STATUS,
+    EMPLOYED,
+    JOB_DETAILS,
+    PROGRAMMING_LANGUAGES,
+    DATABASES,
+    PREFERRED_ROLE,
+    COMMENTS,
+    WHITELIST,
+    BLACKLIST;
+
+    private static final Set<ProfileField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ProfileField.class));
+
+    /**
+     * @return an unmodifiable set of every column
+     */
+    public static Set<ProfileField> all() {
+        return ALL;
+    }
+}
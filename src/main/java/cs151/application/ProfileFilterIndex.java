@@ -0,0 +1,396 @@
+package cs151.application;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index over the attributes the search screens filter on.
+ * <p>
+ * Each profile occupies a row id, and every distinct academic status, preferred role, programming language and
+ * database (compared case-insensitively) owns a {@link BitSet} of the rows holding that value. A multi-filter search is
+ * the AND of at most four bitsets, after which only the matching rows are materialized. Row ids of removed profiles are
+ * reused, so the bitsets stay as long as the largest roster seen.
+ * </p>
+ * <p>
+ * Substring name searches use a trigram index over the lower-cased names: every three-character sequence maps to a
+ * sorted posting list of row ids. A search fragment of three or more characters walks the shortest posting list of its
+ * trigrams, keeps rows present in the other lists and in the attribute filter, and only then verifies the substring.
+ * Shorter fragments are verified directly against the pre-folded names. Posting lists are used instead of bitsets
+ * because a roster has thousands of distinct trigrams, each held by few rows.
+ * </p>
+ * <p>
+ * A query on a single attribute and no name returns every row of one bitset, so its materialized list is kept until the
+ * index next changes. Such queries are what a search screen issues first, and the biggest results come from them.
+ * </p>
+ * <p>
+ * The index is maintained by {@link ProfileCache}; queries may run on any thread.
+ * </p>
+ */
+public final class ProfileFilterIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntObjectMap<Integer> rowsById = new IntObjectMap<>();
+    private final BitSet liveRows = new BitSet();
+    private final Map<String, BitSet> byStatus = new HashMap<>();
+    private final Map<String, BitSet> byRole = new HashMap<>();
+    private final Map<String, BitSet> byLanguage = new HashMap<>();
+    private final Map<String, BitSet> byDatabase = new HashMap<>();
+    private final Map<Long, PostingList> byTrigram = new HashMap<>();
+    private StudentProfile[] rows = new StudentProfile[16];
+    private String[] foldedNames = new String[16];
+    /** Results of single-attribute queries by attribute and value key; cleared on every change to the index. */
+    private final Map<String, List<StudentProfile>> materialized = new ConcurrentHashMap<>();
+
+    /** No row below this id is free, so the search for a free row starts here. */
+    private int firstFreeCandidate;
+
+    /**
+     * Returns the profiles matching every non-blank filter value. Blank filters match all profiles.
+     *
+     * @param nameFragment   text the name must contain (case-insensitive), or blank
+     * @param academicStatus academic status to match, or blank
+     * @param language       programming language the profile must list, or blank
+     * @param database       database the profile must list, or blank
+     * @param preferredRole  preferred role to match, or blank
+     * @return unmodifiable list of the matching profiles, in no particular order
+     */
+    public List<StudentProfile> query(String nameFragment, String academicStatus, String language, String database,
+                                      String preferredRole) {
+        String fragment = nameFragment == null ? "" : foldName(nameFragment);
+        String single = fragment.isEmpty() ? singleFilter(academicStatus, language, database, preferredRole) : null;
+        lock.readLock().lock();
+        try {
+            List<StudentProfile> cached = single == null ? null : materialized.get(single);
+            if (cached != null) {
+                return cached;
+            }
+            // Null while no attribute is filtered, so a name search neither copies nor tests the live rows.
+            BitSet matches = null;
+            matches = restrict(matches, byStatus, academicStatus);
+            matches = restrict(matches, byLanguage, language);
+            matches = restrict(matches, byDatabase, database);
+            matches = restrict(matches, byRole, preferredRole);
+
+            if (fragment.length() >= 3) {
+                return collectByTrigrams(fragment, matches);
+            }
+
+            BitSet candidates = matches == null ? liveRows : matches;
+            StudentProfile[] profiles = new StudentProfile[candidates.cardinality()];
+            int count = 0;
+            boolean unnamed = fragment.isEmpty();
+            long[] words = candidates.toLongArray();
+            for (int word = 0; word < words.length; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (unnamed || foldedNames[row].contains(fragment)) {
+                        profiles[count++] = rows[row];
+                    }
+                }
+            }
+            List<StudentProfile> result = asList(profiles, count);
+            if (single != null) {
+                // Writers wait for the read lock, so the result cannot be stale when stored.
+                materialized.put(single, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of indexed profiles
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole index with the given profiles.
+     */
+    void rebuild(Collection<StudentProfile> profiles) {
+        lock.writeLock().lock();
+        try {
+            materialized.clear();
+            rowsById.clear();
+            liveRows.clear();
+            byStatus.clear();
+            byRole.clear();
+            byLanguage.clear();
+            byDatabase.clear();
+            byTrigram.clear();
+            firstFreeCandidate = 0;
+            rows = new StudentProfile[Math.max(16, profiles.size())];
+            foldedNames = new String[rows.length];
+            for (StudentProfile profile : profiles) {
+                insert(profile);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a profile, replacing any indexed profile with the same id.
+     */
+    void add(StudentProfile profile) {
+        lock.writeLock().lock();
+        try {
+            materialized.clear();
+            delete(profile.getId());
+            insert(profile);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the profile with the given id, if indexed.
+     */
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            materialized.clear();
+            delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(StudentProfile profile) {
+        int row = liveRows.nextClearBit(firstFreeCandidate);
+        firstFreeCandidate = row + 1;
+        if (row == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+            foldedNames = Arrays.copyOf(foldedNames, rows.length);
+        }
+        rows[row] = profile;
+        String foldedName = foldName(profile.getFullName());
+        foldedNames[row] = foldedName;
+        for (long trigram : trigrams(foldedName)) {
+            byTrigram.computeIfAbsent(trigram, key -> new PostingList()).add(row);
+        }
+        liveRows.set(row);
+        rowsById.put(profile.getId(), row);
+
+        mark(byStatus, profile.getAcademicStatus(), row);
+        mark(byRole, profile.getPreferredRole(), row);
+        for (String language : profile.getProgrammingLanguages()) {
+            mark(byLanguage, language, row);
+        }
+        for (String database : profile.getDatabases()) {
+            mark(byDatabase, database, row);
+        }
+    }
+
+    private void delete(int id) {
+        Integer row = rowsById.remove(id);
+        if (row == null) {
+            return;
+        }
+
+        StudentProfile profile = rows[row];
+        unmark(byStatus, profile.getAcademicStatus(), row);
+        unmark(byRole, profile.getPreferredRole(), row);
+        for (String language : profile.getProgrammingLanguages()) {
+            unmark(byLanguage, language, row);
+        }
+        for (String database : profile.getDatabases()) {
+            unmark(byDatabase, database, row);
+        }
+        for (long trigram : trigrams(foldedNames[row])) {
+            PostingList postings = byTrigram.get(trigram);
+            if (postings != null && postings.remove(row) && postings.size == 0) {
+                byTrigram.remove(trigram);
+            }
+        }
+        rows[row] = null;
+        foldedNames[row] = null;
+        liveRows.clear(row);
+        firstFreeCandidate = Math.min(firstFreeCandidate, row);
+    }
+
+    /**
+     * Intersects the posting lists of the fragment's trigrams, starting from the shortest, with the attribute matches and
+     * verifies the remaining names, since sharing all trigrams does not guarantee the trigrams are adjacent. A
+     * three-character fragment is its own only trigram, so its posting list needs no verification.
+     *
+     * @param matches rows passing the attribute filters, or {@code null} when no attribute is filtered
+     */
+    private List<StudentProfile> collectByTrigrams(String fragment, BitSet matches) {
+        long[] fragmentTrigrams = trigrams(fragment);
+        PostingList[] postings = new PostingList[fragmentTrigrams.length];
+        for (int i = 0; i < fragmentTrigrams.length; i++) {
+            postings[i] = byTrigram.get(fragmentTrigrams[i]);
+            if (postings[i] == null) {
+                return List.of();
+            }
+        }
+        Arrays.sort(postings, (left, right) -> Integer.compare(left.size, right.size));
+        boolean verify = fragment.length() > 3;
+
+        PostingList shortest = postings[0];
+        StudentProfile[] profiles = new StudentProfile[shortest.size];
+        int count = 0;
+        candidates:
+        for (int i = 0; i < shortest.size; i++) {
+            int row = shortest.rows[i];
+            if (matches != null && !matches.get(row)) {
+                continue;
+            }
+            for (int j = 1; j < postings.length; j++) {
+                if (!postings[j].contains(row)) {
+                    continue candidates;
+                }
+            }
+            if (!verify || foldedNames[row].contains(fragment)) {
+                profiles[count++] = rows[row];
+            }
+        }
+        return asList(profiles, count);
+    }
+
+    /**
+     * @return cache key of the only non-blank filter, or {@code null} when there are none or several
+     */
+    private static String singleFilter(String academicStatus, String language, String database,
+                                       String preferredRole) {
+        String[] values = {academicStatus, language, database, preferredRole};
+        String key = null;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && !values[i].isBlank()) {
+                if (key != null) {
+                    return null;
+                }
+                key = i + ":" + valueKey(values[i]);
+            }
+        }
+        return key;
+    }
+
+    private static List<StudentProfile> asList(StudentProfile[] profiles, int count) {
+        return Collections.unmodifiableList(Arrays.asList(count == profiles.length
+                ? profiles : Arrays.copyOf(profiles, count)));
+    }
+
+    /**
+     * @return the distinct trigrams of an already folded name, each packed as three 16-bit characters
+     */
+    private static long[] trigrams(String folded) {
+        if (folded.length() < 3) {
+            return new long[0];
+        }
+        long[] packed = new long[folded.length() - 2];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = ((long) folded.charAt(i) << 32) | ((long) folded.charAt(i + 1) << 16) | folded.charAt(i + 2);
+        }
+        Arrays.sort(packed);
+        int distinct = 0;
+        for (int i = 0; i < packed.length; i++) {
+            if (i == 0 || packed[i] != packed[i - 1]) {
+                packed[distinct++] = packed[i];
+            }
+        }
+        return Arrays.copyOf(packed, distinct);
+    }
+
+    private static String foldName(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param matches rows passing the filters so far, or {@code null} for all live rows; may be modified
+     * @return rows also holding {@code value}, or {@code matches} unchanged when the value is blank
+     */
+    private static BitSet restrict(BitSet matches, Map<String, BitSet> index, String value) {
+        if (value == null || value.isBlank()) {
+            return matches;
+        }
+        BitSet rowsWithValue = index.get(valueKey(value));
+        if (rowsWithValue == null) {
+            return new BitSet();
+        }
+        if (matches == null) {
+            return (BitSet) rowsWithValue.clone();
+        }
+        matches.and(rowsWithValue);
+        return matches;
+    }
+
+    private static void mark(Map<String, BitSet> index, String value, int row) {
+        if (value != null && !value.isBlank()) {
+            index.computeIfAbsent(valueKey(value), key -> new BitSet()).set(row);
+        }
+    }
+
+    private static void unmark(Map<String, BitSet> index, String value, int row) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        String key = valueKey(value);
+        BitSet rowsWithValue = index.get(key);
+        if (rowsWithValue != null) {
+            rowsWithValue.clear(row);
+            if (rowsWithValue.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String valueKey(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sorted, growable list of row ids. Rebuilds add rows in increasing order, which appends; incremental updates shift
+     * at most the tail of one list per trigram.
+     */
+    private static final class PostingList {
+
+        private int[] rows = new int[4];
+        private int size;
+
+        void add(int row) {
+            int position = size == 0 || rows[size - 1] < row ? size : Arrays.binarySearch(rows, 0, size, row);
+            if (position >= 0 && position < size) {
+                return;
+            }
+            int insertAt = position < 0 ? -position - 1 : position;
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            System.arraycopy(rows, insertAt, rows, insertAt + 1, size - insertAt);
+            rows[insertAt] = row;
+            size++;
+        }
+
+        boolean remove(int row) {
+            int position = Arrays.binarySearch(rows, 0, size, row);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int row) {
+            return Arrays.binarySearch(rows, 0, size, row) >= 0;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package cs151.application;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decodes one stored profile record straight from UTF-8 bytes.
+ * <p>
+ * Delimiters are located by hand and Base64 columns are decoded into a buffer that is reused across records, so the
+ * only allocations per record are the resulting strings and the {@link StudentProfile} itself. Instances keep scratch
+ * state and must not be shared between threads.
+ * </p>
+ * <p>
+ * Records end with the profile id in decimal. Records written before ids existed have only the ten data columns and
+ * are returned with id 0.
+ * </p>
+ */
+final class ProfileRecordParser {
+
+    private static final int FIELD_COUNT = 11;
+    private static final int LEGACY_FIELD_COUNT = 10;
+    private static final byte FIELD_DELIMITER = '|';
+    private static final byte LIST_DELIMITER = ';';
+    private static final byte PADDING = '=';
+    private static final byte[] TRUE_BYTES = {'t', 'r', 'u', 'e'};
+    private static final int[] BASE64_VALUES = new int[256];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final int[] fieldStarts = new int[FIELD_COUNT];
+    private final int[] fieldEnds = new int[FIELD_COUNT];
+    private final List<String> languagesScratch = new ArrayList<>();
+    private final List<String> databasesScratch = new ArrayList<>();
+    private final List<String> commentsScratch = new ArrayList<>();
+    private byte[] decoded = new byte[256];
+
+    /**
+     * Parses the record stored in {@code line[start, end)}.
+     *
+     * @return the decoded profile, or {@code null} when the record does not have ten or eleven valid columns
+     * @throws IllegalArgumentException when a column is not valid Base64
+     */
+    StudentProfile parse(byte[] line, int start, int end) {
+        return parse(line, start, end, ProfileField.all());
+    }
+
+    /**
+     * Parses the record stored in {@code line[start, end)}, decoding only the requested columns. The name is always
+     * decoded because it identifies the record.
+     *
+     * @return the (possibly partial) profile, or {@code null} when the record does not have ten or eleven valid columns
+     * @throws IllegalArgumentException when a decoded column is not valid Base64
+     */
+    StudentProfile parse(byte[] line, int start, int end, Set<ProfileField> fields) {
+        int fieldCount = splitFields(line, start, end);
+        if (fieldCount != FIELD_COUNT && fieldCount != LEGACY_FIELD_COUNT) {
+            return null;
+        }
+        int id = fieldCount == FIELD_COUNT ? parseId(line, fieldStarts[10], fieldEnds[10]) : 0;
+        if (id < 0) {
+            return null;
+        }
+
+        String fullName = decodeString(line, fieldStarts[0], fieldEnds[0]);
+        String academicStatus = fields.contains(ProfileField.ACADEMIC_STATUS)
+                ? decodeString(line, fieldStarts[1], fieldEnds[1]) : "";
+        boolean employed = fields.contains(ProfileField.EMPLOYED) && parseBoolean(line, fieldStarts[2], fieldEnds[2]);
+        String jobDetails = fields.contains(ProfileField.JOB_DETAILS)
+                ? decodeString(line, fieldStarts[3], fieldEnds[3]) : "";
+        List<String> languages = fields.contains(ProfileField.PROGRAMMING_LANGUAGES)
+                ? decodeList(line, fieldStarts[4], fieldEnds[4], languagesScratch) : List.of();
+        List<String> databases = fields.contains(ProfileField.DATABASES)
+                ? decodeList(line, fieldStarts[5], fieldEnds[5], databasesScratch) : List.of();
+        String preferredRole = fields.contains(ProfileField.PREFERRED_ROLE)
+                ? decodeString(line, fieldStarts[6], fieldEnds[6]) : "";
+        List<String> comments = fields.contains(ProfileField.COMMENTS)
+                ? decodeList(line, fieldStarts[7], fieldEnds[7], commentsScratch) : List.of();
+        boolean whitelist = fields.contains(ProfileField.WHITELIST) && parseBoolean(line, fieldStarts[8], fieldEnds[8]);
+        boolean blacklist = fields.contains(ProfileField.BLACKLIST) && parseBoolean(line, fieldStarts[9], fieldEnds[9]);
+
+        return new StudentProfile(id, fullName, academicStatus, employed, jobDetails, languages, databases,
+                preferredRole, comments, whitelist, blacklist, fields);
+    }
+
+    /**
+     * Decodes a single Base64 column stored in {@code bytes[start, end)} into a string.
+     */
+    String decodeString(byte[] bytes, int start, int end) {
+        int length = decodeBase64(bytes, start, end);
+        // Most profiles leave some columns empty; they all share the one empty string rather than each holding its own.
+        return length == 0 ? "" : new String(decoded, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of columns, or {@code FIELD_COUNT + 1} when there are more than {@code FIELD_COUNT}
+     */
+    private int splitFields(byte[] line, int start, int end) {
+        int field = 0;
+        fieldStarts[0] = start;
+        for (int i = start; i < end; i++) {
+            if (line[i] == FIELD_DELIMITER) {
+                if (field == FIELD_COUNT - 1) {
+                    return FIELD_COUNT + 1;
+                }
+                fieldEnds[field] = i;
+                fieldStarts[++field] = i + 1;
+            }
+        }
+        fieldEnds[field] = end;
+        return field + 1;
+    }
+
+    /**
+     * @return the non-negative decimal id in {@code line[start, end)}, or -1 when the column is not one
+     */
+    static int parseId(byte[] line, int start, int end) {
+        if (end <= start || end - start > 10) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            id = id * 10 + digit;
+        }
+        return id > Integer.MAX_VALUE ? -1 : (int) id;
+    }
+
+    private List<String> decodeList(byte[] line, int start, int end, List<String> scratch) {
+        if (isBlank(line, start, end)) {
+            return List.of();
+        }
+
+        // StudentProfile copies its lists, so each list column reuses its own scratch list across records.
+        scratch.clear();
+        int elementStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || line[i] == LIST_DELIMITER) {
+                if (i > elementStart) {
+                    scratch.add(decodeString(line, elementStart, i));
+                }
+                elementStart = i + 1;
+            }
+        }
+        return scratch;
+    }
+
+    private int decodeBase64(byte[] source, int start, int end) {
+        int maxLength = (end - start) / 4 * 3 + 3;
+        if (decoded.length < maxLength) {
+            decoded = new byte[Math.max(maxLength, decoded.length * 2)];
+        }
+
+        int bits = 0;
+        int pending = 0;
+        int out = 0;
+        for (int i = start; i < end; i++) {
+            byte current = source[i];
+            if (current == PADDING) {
+                // Padding is accepted where java.util.Base64's decoder accepts it: completing the last unit only.
+                int paddingEnd = pending == 2 ? i + 2 : i + 1;
+                if (pending == 0 || pending == 2 && (paddingEnd > end || source[i + 1] != PADDING)) {
+                    throw new IllegalArgumentException("Input byte array has wrong 4-byte ending unit");
+                }
+                if (pending != 1 && paddingEnd < end) {
+                    throw new IllegalArgumentException("Input byte array has incorrect ending byte at " + paddingEnd);
+                }
+                break;
+            }
+            int value = BASE64_VALUES[current & 0xFF];
+            if (value < 0) {
+                throw new IllegalArgumentException("Illegal base64 character " + Integer.toHexString(current & 0xFF));
+            }
+            bits = (bits << 6) | value;
+            if (++pending == 4) {
+                decoded[out++] = (byte) (bits >> 16);
+                decoded[out++] = (byte) (bits >> 8);
+                decoded[out++] = (byte) bits;
+                bits = 0;
+                pending = 0;
+            }
+        }
+
+        if (pending == 1) {
+            throw new IllegalArgumentException("Last unit does not have enough valid bits");
+        } else if (pending == 2) {
+            decoded[out++] = (byte) (bits >> 4);
+        } else if (pending == 3) {
+            decoded[out++] = (byte) (bits >> 10);
+            decoded[out++] = (byte) (bits >> 2);
+        }
+        return out;
+    }
+
+    private static boolean parseBoolean(byte[] line, int start, int end) {
+        if (end - start != TRUE_BYTES.length) {
+            return false;
+        }
+        for (int i = 0; i < TRUE_BYTES.length; i++) {
+            if ((line[start + i] | 0x20) != TRUE_BYTES[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(byte[] line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
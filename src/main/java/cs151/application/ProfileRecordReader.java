@@ -0,0 +1,135 @@
+package cs151.application;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams the lines of a profile data file through a single reusable buffer.
+ * <p>
+ * Each call to {@link #nextLine()} exposes the next non-blank line as a byte range of {@link #buffer()}; the range is
+ * only valid until the following call. Lines may end in {@code \n}, {@code \r\n} or {@code \r}.
+ * </p>
+ */
+final class ProfileRecordReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private byte[] bytes;
+    private ByteBuffer window;
+    /** File offset of {@code bytes[0]}. */
+    private long bufferOffset;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private int lineStart;
+    private int lineEnd;
+
+    ProfileRecordReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.bytes = new byte[DEFAULT_BUFFER_SIZE];
+        this.window = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Advances to the next non-blank line.
+     *
+     * @return {@code false} once the end of the file has been reached
+     * @throws IOException when the file cannot be read
+     */
+    boolean nextLine() throws IOException {
+        while (true) {
+            int terminator = findTerminator();
+            if (terminator < 0) {
+                if (endOfInput) {
+                    if (position >= limit) {
+                        return false;
+                    }
+                    terminator = limit;
+                } else {
+                    fill();
+                    continue;
+                }
+            }
+
+            lineStart = position;
+            lineEnd = terminator;
+            position = terminator < limit ? terminator + 1 : limit;
+            if (!isBlank(lineStart, lineEnd)) {
+                return true;
+            }
+        }
+    }
+
+    byte[] buffer() {
+        return bytes;
+    }
+
+    int lineStart() {
+        return lineStart;
+    }
+
+    int lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * @return byte offset of the current line within the file
+     */
+    long lineOffset() {
+        return bufferOffset + lineStart;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int findTerminator() {
+        for (int i = position; i < limit; i++) {
+            byte current = bytes[i];
+            if (current == '\n' || current == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the unread tail to the front of the buffer, growing it for lines longer than the buffer, and reads more.
+     */
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position == 0 && remaining == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            window = ByteBuffer.wrap(bytes);
+        } else if (remaining > 0) {
+            System.arraycopy(bytes, position, bytes, 0, remaining);
+        }
+        bufferOffset += position;
+        position = 0;
+        limit = remaining;
+
+        window.clear().position(limit);
+        int read = channel.read(window);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
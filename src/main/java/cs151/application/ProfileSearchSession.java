@@ -0,0 +1,200 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Runs the successive searches of one search screen, reusing earlier results when a query only narrows them.
+ * <p>
+ * Appending characters to the name fragment or setting a filter that was blank can only remove matches, so such a
+ * query is answered by re-checking the previous, already sorted result instead of querying the whole roster. The
+ * session keeps the chain of results that led to the current query, each narrowing the one below it; deleting
+ * characters or clearing a filter again finds the earlier query on that stack and returns its result unchanged. The
+ * stack is discarded whenever the cache version changes.
+ * </p>
+ * <p>
+ * Re-checking a result touches every profile in it, while {@link ProfileFilterIndex} answers from compact bitsets and
+ * posting lists, so an earlier result is only refined once it holds at most a quarter of the roster. Broader results
+ * are still kept on the stack for going back.
+ * </p>
+ */
+final class ProfileSearchSession {
+
+    private static final int MAX_DEPTH = 16;
+    private static final int REFINE_FRACTION = 4;
+
+    private final ProfileCache profileCache;
+    private final Deque<Result> history = new ArrayDeque<>();
+
+    ProfileSearchSession(ProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    /**
+     * Returns the profiles matching every non-blank filter value, sorted by name. May be called from any thread; a
+     * thread interrupted while refining an earlier result gets a {@link CancellationException}.
+     *
+     * @return unmodifiable, name-sorted matches
+     * @throws IOException when the first load fails
+     */
+    List<StudentProfile> search(String nameFragment, String academicStatus, String language, String database,
+                                String preferredRole) throws IOException {
+        Query query = new Query(fold(nameFragment), fold(academicStatus), fold(language), fold(database),
+                fold(preferredRole));
+        long version = profileCache.getVersion();
+
+        Result base = null;
+        synchronized (history) {
+            while (!history.isEmpty()) {
+                Result top = history.peek();
+                if (top.version != version) {
+                    history.clear();
+                } else if (top.query.equals(query)) {
+                    return top.profiles;
+                } else if (query.narrows(top.query)) {
+                    base = top;
+                    break;
+                } else {
+                    history.pop();
+                }
+            }
+        }
+
+        boolean refinable = base != null
+                && (long) base.profiles.size() * REFINE_FRACTION <= profileCache.getProfiles().size();
+        List<StudentProfile> profiles = refinable ? refine(base, query) : queryIndex(query);
+        synchronized (history) {
+            // Another search may have pushed meanwhile; only extend the stack if it still ends where this one began.
+            if (history.peek() == base) {
+                history.push(new Result(query, version, profiles));
+                if (history.size() > MAX_DEPTH) {
+                    history.removeLast();
+                }
+            }
+        }
+        return profiles;
+    }
+
+    private List<StudentProfile> queryIndex(Query query) throws IOException {
+        List<StudentProfile> matches = new ArrayList<>(profileCache.filter(query.nameFragment, query.academicStatus,
+                query.language, query.database, query.preferredRole));
+        NameOrder.sort(matches);
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Keeps the profiles of an earlier, broader result that also match {@code query}, preserving their order. Only the
+     * filters that differ from the broader query are checked, since every profile in it already passed the others.
+     */
+    private static List<StudentProfile> refine(Result broader, Query query) {
+        Query changed = query.without(broader.query);
+        List<StudentProfile> profiles = broader.profiles;
+        List<StudentProfile> matches = new ArrayList<>();
+        for (int i = 0; i < profiles.size(); i++) {
+            if ((i & 4095) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+            StudentProfile profile = profiles.get(i);
+            if (changed.matches(profile)) {
+                matches.add(profile);
+            }
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    private static String fold(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Folded filter values; blank values match everything.
+     */
+    private record Query(String nameFragment, String academicStatus, String language, String database,
+                         String preferredRole) {
+
+        /**
+         * @return {@code true} when every profile matching this query also matches {@code broader}
+         */
+        boolean narrows(Query broader) {
+            return nameFragment.contains(broader.nameFragment)
+                    && (broader.academicStatus.isEmpty() || academicStatus.equals(broader.academicStatus))
+                    && (broader.language.isEmpty() || language.equals(broader.language))
+                    && (broader.database.isEmpty() || database.equals(broader.database))
+                    && (broader.preferredRole.isEmpty() || preferredRole.equals(broader.preferredRole));
+        }
+
+        /**
+         * @return this query with every filter that is unchanged from {@code broader} blanked out
+         */
+        Query without(Query broader) {
+            return new Query(nameFragment.equals(broader.nameFragment) ? "" : nameFragment,
+                    academicStatus.equals(broader.academicStatus) ? "" : academicStatus,
+                    language.equals(broader.language) ? "" : language,
+                    database.equals(broader.database) ? "" : database,
+                    preferredRole.equals(broader.preferredRole) ? "" : preferredRole);
+        }
+
+        /**
+         * Checks a profile without allocating, since it runs once per row of the broader result.
+         */
+        boolean matches(StudentProfile profile) {
+            return (nameFragment.isEmpty() || containsIgnoreCase(profile.getFullName(), nameFragment))
+                    && (academicStatus.isEmpty() || equalsIgnoreCase(profile.getAcademicStatus(), academicStatus))
+                    && (preferredRole.isEmpty() || equalsIgnoreCase(profile.getPreferredRole(), preferredRole))
+                    && (language.isEmpty() || containsValue(profile.getProgrammingLanguages(), language))
+                    && (database.isEmpty() || containsValue(profile.getDatabases(), database));
+        }
+
+        private static boolean containsValue(List<String> values, String folded) {
+            for (String value : values) {
+                if (equalsIgnoreCase(value, folded)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean containsIgnoreCase(String value, String folded) {
+            if (value == null) {
+                return false;
+            }
+            char lower = folded.charAt(0);
+            char upper = Character.toUpperCase(lower);
+            for (int start = 0; start <= value.length() - folded.length(); start++) {
+                char first = value.charAt(start);
+                if ((first == lower || first == upper || Character.toLowerCase(first) == lower)
+                        && value.regionMatches(true, start + 1, folded, 1, folded.length() - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Compares {@code value}, ignoring surrounding whitespace and case, with an already folded filter value.
+         */
+        private static boolean equalsIgnoreCase(String value, String folded) {
+            if (value == null) {
+                return false;
+            }
+            int start = 0;
+            int end = value.length();
+            while (start < end && Character.isWhitespace(value.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+                end--;
+            }
+            return end - start == folded.length() && value.regionMatches(true, start, folded, 0, folded.length());
+        }
+    }
+
+    private record Result(Query query, long version, List<StudentProfile> profiles) {
+    }
+}
@@ -0,0 +1,263 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue between {@link ProfileCache} and its {@link StudentProfileRepository}.
+ * <p>
+ * Mutations are reduced to the final state of each profile id they touch: the last profile stored under it, a
+ * deletion, or the comments appended to the stored profile. Comments stay separate appends only while nothing else is
+ * pending for the profile; once the whole profile is queued, it already carries them. Several edits of one profile in
+ * quick succession therefore leave a single pending write. The pending writes are handed to
+ * {@link StudentProfileRepository#applyBatch} together, {@link #FLUSH_DELAY_MILLIS} after the first of them was queued
+ * or as soon as {@link #MAX_PENDING} ids are pending, whichever comes first. A rename is an upsert like any other,
+ * since the id does not change.
+ * </p>
+ * <p>
+ * Each batch completes a future once the repository has written it, which callers that need to know the data reached
+ * storage can wait on. A batch that fails completes its future exceptionally and is put back under any newer writes,
+ * to be retried with the next batch. Retries after consecutive failures wait twice as long each time, up to
+ * {@link #MAX_RETRY_DELAY_MILLIS}, even when {@link #MAX_PENDING} ids pile up in the meantime, and
+ * {@link #getLastFailure()} reports the error until a batch is written again. After each batch that was written, the
+ * callback given at construction runs on the flushing thread.
+ * </p>
+ */
+final class ProfileWriteBehind {
+
+    /** How long the first queued write waits for further writes before the batch is flushed. */
+    static final long FLUSH_DELAY_MILLIS = 200;
+
+    /** Number of pending ids at which a batch is flushed without waiting for the delay. */
+    static final int MAX_PENDING = 256;
+
+    /** Longest wait before a failed batch is retried. */
+    static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    private static final System.Logger LOGGER = System.getLogger(ProfileWriteBehind.class.getName());
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "profile-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final StudentProfileRepository repository;
+    /** Run on the flushing thread after each batch has been written. */
+    private final Runnable onWritten;
+
+    /** Held while a batch is taken and written, so batches reach the repository in the order they were queued. */
+    private final Object flushLock = new Object();
+
+    /**
+     * Pending deletions, upserts and comment appends by profile id; an id is in at most one of them. Guarded by
+     * {@code this}.
+     */
+    private IntObjectMap<StudentProfile> deletions = new IntObjectMap<>();
+    private IntObjectMap<StudentProfile> upserts = new IntObjectMap<>();
+    private IntObjectMap<List<String>> comments = new IntObjectMap<>();
+    private CompletableFuture<Void> pendingWritten = new CompletableFuture<>();
+    private ScheduledFuture<?> scheduledFlush;
+    /** Batches that failed in a row since the last one was written; guarded by {@code this}. */
+    private int consecutiveFailures;
+    private volatile Exception lastFailure;
+
+    ProfileWriteBehind(StudentProfileRepository repository, Runnable onWritten) {
+        this.repository = repository;
+        this.onWritten = onWritten;
+    }
+
+    /**
+     * Queues storing {@code profile}, replacing whatever is stored or queued under its id.
+     *
+     * @return future completed once the write has been applied to the repository
+     */
+    synchronized CompletableFuture<Void> put(StudentProfile profile) {
+        deletions.remove(profile.getId());
+        comments.remove(profile.getId());
+        upserts.put(profile.getId(), profile);
+        return scheduleFlush();
+    }
+
+    /**
+     * Queues deleting the profile stored or queued under the id of {@code profile}.
+     *
+     * @return future completed once the deletion has been applied to the repository
+     */
+    synchronized CompletableFuture<Void> delete(StudentProfile profile) {
+        upserts.remove(profile.getId());
+        comments.remove(profile.getId());
+        deletions.put(profile.getId(), profile);
+        return scheduleFlush();
+    }
+
+    /**
+     * Queues appending {@code comment} to a stored profile.
+     *
+     * @param updated the profile with the comment already appended, queued whole when the profile is already pending
+     * @param comment the appended comment
+     * @return future completed once the comment has been applied to the repository
+     */
+    synchronized CompletableFuture<Void> appendComment(StudentProfile updated, String comment) {
+        int id = updated.getId();
+        if (upserts.containsKey(id)) {
+            upserts.put(id, updated);
+        } else {
+            List<String> pending = comments.get(id);
+            if (pending == null) {
+                pending = new ArrayList<>();
+                comments.put(id, pending);
+            }
+            pending.add(comment);
+        }
+        return scheduleFlush();
+    }
+
+    /**
+     * @return future completed once every write queued so far has been applied to the repository
+     */
+    synchronized CompletableFuture<Void> whenWritten() {
+        return isEmpty() ? CompletableFuture.completedFuture(null) : pendingWritten;
+    }
+
+    /**
+     * @return the error raised by the most recent failed batch, or {@code null} if the last batch was written
+     */
+    Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Writes every pending mutation on the calling thread, then returns.
+     *
+     * @throws IOException when the batch cannot be written; it stays queued
+     */
+    void flush() throws IOException {
+        synchronized (flushLock) {
+            IntObjectMap<StudentProfile> batchDeletions;
+            IntObjectMap<StudentProfile> batchUpserts;
+            IntObjectMap<List<String>> batchComments;
+            CompletableFuture<Void> batchWritten;
+            synchronized (this) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (isEmpty()) {
+                    return;
+                }
+                batchDeletions = deletions;
+                batchUpserts = upserts;
+                batchComments = comments;
+                batchWritten = pendingWritten;
+                deletions = new IntObjectMap<>();
+                upserts = new IntObjectMap<>();
+                comments = new IntObjectMap<>();
+                pendingWritten = new CompletableFuture<>();
+            }
+
+            try {
+                repository.applyBatch(batchDeletions.values(), batchUpserts.values(), batchComments);
+            } catch (IOException | RuntimeException failure) {
+                lastFailure = failure;
+                requeue(batchDeletions, batchUpserts, batchComments);
+                batchWritten.completeExceptionally(failure);
+                throw failure;
+            }
+            written();
+            batchWritten.complete(null);
+            onWritten.run();
+        }
+    }
+
+    private boolean isEmpty() {
+        return deletions.isEmpty() && upserts.isEmpty() && comments.isEmpty();
+    }
+
+    private CompletableFuture<Void> scheduleFlush() {
+        // While batches are failing, the retry scheduled by requeue stands however many writes queue up behind it.
+        if (consecutiveFailures == 0 && deletions.size() + upserts.size() + comments.size() >= MAX_PENDING) {
+            if (scheduledFlush == null || scheduledFlush.getDelay(TimeUnit.MILLISECONDS) > 0) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                }
+                scheduledFlush = FLUSHER.schedule(this::flushInBackground, 0, TimeUnit.MILLISECONDS);
+            }
+        } else if (scheduledFlush == null) {
+            scheduledFlush = FLUSHER.schedule(this::flushInBackground, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return pendingWritten;
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException exception) {
+            // The batch was put back and is retried with backoff; its future and getLastFailure() report the failure.
+        }
+    }
+
+    private synchronized void written() {
+        if (consecutiveFailures > 0) {
+            LOGGER.log(System.Logger.Level.INFO, "Queued profile writes stored after {0} failed attempts",
+                    consecutiveFailures);
+            consecutiveFailures = 0;
+        }
+        lastFailure = null;
+    }
+
+    /**
+     * Puts a failed batch back without overriding ids written again since it was taken, and schedules a retry after
+     * a delay that doubles with every consecutive failure.
+     */
+    private synchronized void requeue(IntObjectMap<StudentProfile> failedDeletions,
+                                      IntObjectMap<StudentProfile> failedUpserts,
+                                      IntObjectMap<List<String>> failedComments) {
+        failedDeletions.forEach((id, profile) -> {
+            if (!upserts.containsKey(id) && !deletions.containsKey(id)) {
+                deletions.put(id, profile);
+            }
+        });
+        failedUpserts.forEach((id, profile) -> {
+            if (deletions.containsKey(id)) {
+                return;
+            }
+            // Comments appended since were not queued whole, so the failed profile must absorb them.
+            StudentProfile newer = upserts.get(id);
+            StudentProfile merged = newer != null ? newer : profile;
+            if (newer == null) {
+                List<String> appended = comments.remove(id);
+                for (String comment : appended != null ? appended : List.<String>of()) {
+                    merged = merged.withComment(comment);
+                }
+            }
+            upserts.put(id, merged);
+        });
+        failedComments.forEach((id, failed) -> {
+            if (!deletions.containsKey(id) && !upserts.containsKey(id)) {
+                List<String> retried = new ArrayList<>(failed);
+                List<String> appended = comments.get(id);
+                if (appended != null) {
+                    retried.addAll(appended);
+                }
+                comments.put(id, retried);
+            }
+        });
+        consecutiveFailures++;
+        if (consecutiveFailures == 1) {
+            LOGGER.log(System.Logger.Level.WARNING, "Queued profile writes could not be stored; retrying", lastFailure);
+        }
+        long retryDelay = Math.min(MAX_RETRY_DELAY_MILLIS,
+                FLUSH_DELAY_MILLIS << Math.min(consecutiveFailures - 1, 20));
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = FLUSHER.schedule(this::flushInBackground, retryDelay, TimeUnit.MILLISECONDS);
+    }
+}
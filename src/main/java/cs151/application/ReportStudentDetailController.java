@@ -25,6 +25,7 @@ import javafx.stage.Stage;
  */
 public class ReportStudentDetailController {
 
+    private final AsyncProfileCache asyncProfileCache = AsyncProfileCache.getInstance();
     private final ObservableList<CommentEntry> comments = FXCollections.observableArrayList();
 
     private StudentProfile profile;
@@ -85,6 +86,21 @@ public class ReportStudentDetailController {
     }
 
     public void setProfile(StudentProfile profile) {
+        showProfile(profile, true);
+        if (profile.isComplete()) {
+            return;
+        }
+        // Show the loaded columns right away and the rest once it has been read from storage.
+        feedbackLabel.setText("Loading the full profile...");
+        feedbackLabel.setStyle("-fx-text-fill: #1976d2;");
+        asyncProfileCache.hydrate(profile).whenCompleteAsync((complete, error) -> {
+            if (this.profile == profile) {
+                showProfile(error == null ? complete.orElse(profile) : profile, error == null);
+            }
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    private void showProfile(StudentProfile profile, boolean hydrated) {
         this.profile = profile;
         nameValue.setText(profile.getFullName());
         statusValue.setText(profile.getAcademicStatus());
@@ -95,8 +111,13 @@ public class ReportStudentDetailController {
         roleValue.setText(profile.getPreferredRole());
         flagsValue.setText(buildFlagLabel(profile));
         comments.setAll(toCommentEntries(profile.getComments()));
-        feedbackLabel.setText("Double-click a comment to view it in full.");
-        feedbackLabel.setStyle("-fx-text-fill: #2e7d32;");
+        if (hydrated) {
+            feedbackLabel.setText("Double-click a comment to view it in full.");
+            feedbackLabel.setStyle("-fx-text-fill: #2e7d32;");
+        } else {
+            feedbackLabel.setText("Unable to load the full profile. Please try again.");
+            feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
+        }
     }
 
     public void setReturnFilter(ReportsController.ReportFilter filter) {
@@ -2,18 +2,22 @@ package cs151.application;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableRow;
@@ -24,13 +28,42 @@ import javafx.stage.Stage;
 
 /**
  * Provides simple whitelist/blacklist reports driven from persisted student profiles.
+ * <p>
+ * The report table pages through the stored profiles instead of holding the whole roster: only the columns the report
+ * filters and sorts on are kept for every student, and complete profiles are read from storage on the I/O executor as
+ * rows scroll into view. The whitelist and blacklist filters, the academic status and preferred role filters and the
+ * counts shown under the filters all scan the source's column bitmaps and dictionary id arrays.
+ * </p>
+ * <p>
+ * The source is reopened whenever the stored profiles change: after external edits are reloaded, after the
+ * application's own adds, edits and deletions have been written, and when the source finds the files changed under it.
+ * A burst of such changes leads to a single reopen once it has been quiet for {@value #REOPEN_DELAY_MILLIS} ms, and
+ * the new source's rows are matched to the shown ones by id, so the table keeps its scroll position and selection.
+ * The screen stops listening for changes once it leaves the scene.
+ * </p>
  */
 public class ReportsController {
 
-    private final StudentProfileRepository profileRepository = new StudentProfileRepository();
+    private static final Set<ProfileField> KEY_FIELDS = EnumSet.of(ProfileField.FULL_NAME,
+            ProfileField.ACADEMIC_STATUS, ProfileField.EMPLOYED, ProfileField.PREFERRED_ROLE, ProfileField.WHITELIST,
+            ProfileField.BLACKLIST);
+    private static final List<String> ACADEMIC_STATUSES = List.of("Freshman", "Sophomore", "Junior", "Senior", "Graduate");
+    private static final List<String> PREFERRED_ROLES = List.of("Front-End", "Back-End", "Full-Stack", "Data", "Other");
+    /** Quiet period after the last change before the source is reopened. */
+    private static final long REOPEN_DELAY_MILLIS = 250;
 
-    private final ObservableList<StudentProfile> displayedProfiles = FXCollections.observableArrayList();
-    private List<StudentProfile> allProfiles = new ArrayList<>();
+    private final AsyncProfileCache asyncProfileCache = AsyncProfileCache.getInstance();
+    private final ProfileCache profileCache = asyncProfileCache.getCache();
+
+    private final PagedProfileList displayedProfiles =
+            new PagedProfileList(AsyncProfileCache.IO_THREADS, AsyncProfileCache.FX_THREAD);
+    /** Incremented for every reopen so that only the latest source is shown. */
+    private final AtomicLong sourceGeneration = new AtomicLong();
+    private final Debouncer reopenDebouncer =
+            new Debouncer(REOPEN_DELAY_MILLIS, AsyncProfileCache.FX_THREAD, this::reopenSource);
+    // Held in fields because the cache only keeps weak references to them.
+    private final Consumer<ProfileChange> profileChangeListener = change -> reopenDebouncer.request();
+    private final Runnable profileWriteListener = reopenDebouncer::request;
 
     private ReportFilter currentFilter = ReportFilter.WHITELIST;
     private final ToggleGroup reportToggleGroup = new ToggleGroup();
@@ -44,6 +77,15 @@ public class ReportsController {
     @FXML
     private RadioButton blacklistRadio;
 
+    @FXML
+    private ComboBox<String> statusFilterCombo;
+
+    @FXML
+    private ComboBox<String> roleFilterCombo;
+
+    @FXML
+    private Label breakdownLabel;
+
     @FXML
     private TableView<StudentProfile> reportTable;
 
@@ -68,12 +110,30 @@ public class ReportsController {
     @FXML
     private void initialize() {
         setupToggleGroup();
+        setupValueFilters();
         setupTable();
-        refreshFromStorage();
         applyFilter();
+        reopenSource();
+        profileCache.addChangeListener(profileChangeListener);
+        profileCache.addWriteListener(profileWriteListener);
+        rootContainer.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene == null) {
+                stopListening();
+            }
+        });
         Platform.runLater(() -> rootContainer.requestFocus());
     }
 
+    /**
+     * Unregisters from the cache and drops any pending or running reopen, once the screen has been replaced.
+     */
+    private void stopListening() {
+        profileCache.removeChangeListener(profileChangeListener);
+        profileCache.removeWriteListener(profileWriteListener);
+        reopenDebouncer.cancel();
+        sourceGeneration.incrementAndGet();
+    }
+
     private void setupToggleGroup() {
         whitelistRadio.setToggleGroup(reportToggleGroup);
         blacklistRadio.setToggleGroup(reportToggleGroup);
@@ -88,8 +148,25 @@ public class ReportsController {
         whitelistRadio.setSelected(true);
     }
 
+    private void setupValueFilters() {
+        statusFilterCombo.setItems(FXCollections.observableArrayList(ACADEMIC_STATUSES));
+        roleFilterCombo.setItems(FXCollections.observableArrayList(PREFERRED_ROLES));
+        statusFilterCombo.setPromptText("Any");
+        roleFilterCombo.setPromptText("Any");
+        statusFilterCombo.valueProperty().addListener((observable, oldValue, newValue) -> {
+            displayedProfiles.setValueFilter(ProfileField.ACADEMIC_STATUS, newValue);
+            showReportStatus();
+        });
+        roleFilterCombo.valueProperty().addListener((observable, oldValue, newValue) -> {
+            displayedProfiles.setValueFilter(ProfileField.PREFERRED_ROLE, newValue);
+            showReportStatus();
+        });
+    }
+
     private void setupTable() {
         reportTable.setItems(displayedProfiles);
+        reportTable.setSortPolicy(table -> sortByColumn());
+        displayedProfiles.setOnStale(reopenDebouncer::request);
         reportTable.setPlaceholder(new Label("No students match the selected report."));
         nameColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getFullName()));
         statusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getAcademicStatus()));
@@ -112,44 +189,106 @@ public class ReportsController {
         });
     }
 
-    private void refreshFromStorage() {
-        try {
-            allProfiles = profileRepository.loadAll();
-            allProfiles.sort(Comparator.comparing(StudentProfile::getFullName, String.CASE_INSENSITIVE_ORDER));
-            statusLabel.setText("Select whitelist or blacklist to view matching students.");
-            statusLabel.setStyle("-fx-text-fill: #2e7d32;");
-        } catch (IOException exception) {
-            allProfiles = List.of();
-            statusLabel.setText("Unable to load profiles. Please define student profiles first.");
-            statusLabel.setStyle("-fx-text-fill: #d32f2f;");
+    /**
+     * Scans storage for the report's key columns on a background thread and shows the new source once it is ready.
+     * The previous source stays visible meanwhile.
+     */
+    private void reopenSource() {
+        long generation = sourceGeneration.incrementAndGet();
+        if (displayedProfiles.getSource() == null) {
+            reportTable.setPlaceholder(new ProgressIndicator());
         }
+        asyncProfileCache.openPagedSource(KEY_FIELDS).whenCompleteAsync((source, error) -> {
+            if (generation != sourceGeneration.get()) {
+                return;
+            }
+            reportTable.setPlaceholder(new Label("No students match the selected report."));
+            if (error != null) {
+                displayedProfiles.setSource(null);
+                breakdownLabel.setText("");
+                statusLabel.setText("Unable to load profiles. Please define student profiles first.");
+                statusLabel.setStyle("-fx-text-fill: #d32f2f;");
+            } else {
+                displayedProfiles.setSource(source);
+                showReportStatus();
+            }
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     private void applyFilter() {
-        if (allProfiles.isEmpty()) {
-            displayedProfiles.clear();
-            return;
-        }
+        displayedProfiles.setFlagFilter(currentFilter == ReportFilter.WHITELIST
+                ? ProfileField.WHITELIST : ProfileField.BLACKLIST);
+        showReportStatus();
+    }
 
-        List<StudentProfile> filtered = allProfiles.stream()
-                .filter(profile -> currentFilter == ReportFilter.WHITELIST ? profile.isWhitelist() : profile.isBlacklist())
-                .toList();
-        displayedProfiles.setAll(filtered);
+    /**
+     * Sorts by the first column in the table's sort order through the source's key index, since the paged list
+     * cannot be sorted in place.
+     */
+    private boolean sortByColumn() {
+        if (reportTable.getSortOrder().isEmpty()) {
+            displayedProfiles.sortBy(ProfileField.FULL_NAME, true);
+            return true;
+        }
+        TableColumn<StudentProfile, ?> column = reportTable.getSortOrder().get(0);
+        ProfileField field;
+        if (column == statusColumn) {
+            field = ProfileField.ACADEMIC_STATUS;
+        } else if (column == jobStatusColumn) {
+            field = ProfileField.EMPLOYED;
+        } else if (column == roleColumn) {
+            field = ProfileField.PREFERRED_ROLE;
+        } else if (column == flagsColumn) {
+            field = currentFilter == ReportFilter.WHITELIST ? ProfileField.WHITELIST : ProfileField.BLACKLIST;
+        } else {
+            field = ProfileField.FULL_NAME;
+        }
+        displayedProfiles.sortBy(field, column.getSortType() == TableColumn.SortType.ASCENDING);
+        return true;
+    }
 
-        if (filtered.isEmpty()) {
+    private void showReportStatus() {
+        if (displayedProfiles.getSource() == null) {
+            return;
+        }
+        if (displayedProfiles.isEmpty()) {
             statusLabel.setText("No students found for the selected report.");
             statusLabel.setStyle("-fx-text-fill: #d32f2f;");
+            breakdownLabel.setText("");
         } else {
-            statusLabel.setText(String.format("Showing %d student(s) marked as %s.", filtered.size(),
+            statusLabel.setText(String.format("Showing %d student(s) marked as %s.", displayedProfiles.size(),
                     currentFilter == ReportFilter.WHITELIST ? "Whitelist" : "Blacklist"));
             statusLabel.setStyle("-fx-text-fill: #2e7d32;");
+            breakdownLabel.setText(String.format("Employed: %d. By status: %s. By role: %s.",
+                    displayedProfiles.countListed(ProfileField.EMPLOYED),
+                    formatCounts(ProfileField.ACADEMIC_STATUS, ACADEMIC_STATUSES),
+                    formatCounts(ProfileField.PREFERRED_ROLE, PREFERRED_ROLES)));
+        }
+    }
+
+    /**
+     * Lists the number of shown students per value of a column, skipping values nobody shown holds.
+     */
+    private String formatCounts(ProfileField column, List<String> values) {
+        List<String> parts = new ArrayList<>();
+        for (String value : values) {
+            int count = displayedProfiles.countListed(column, value);
+            if (count > 0) {
+                parts.add(value + " " + count);
+            }
         }
+        return parts.isEmpty() ? "none" : String.join(", ", parts);
     }
 
     @FXML
     private void onRefresh() {
-        refreshFromStorage();
-        applyFilter();
+        reopenSource();
+    }
+
+    @FXML
+    private void onClearFilters() {
+        statusFilterCombo.getSelectionModel().clearSelection();
+        roleFilterCombo.getSelectionModel().clearSelection();
     }
 
     @FXML
@@ -0,0 +1,34 @@
+package cs151.application;
+
+/**
+ * Plain Java {@link ColumnScans}, used when the vector API is not available.
+ */
+final class ScalarColumnScans implements ColumnScans {
+
+    @Override
+    public void markEqual(int[] codes, int size, int code, long[] bits) {
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == code) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    @Override
+    public int popCount(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public int popCountAnd(long[] left, long[] right) {
+        int count = 0;
+        for (int i = 0; i < left.length; i++) {
+            count += Long.bitCount(left[i] & right[i]);
+        }
+        return count;
+    }
+}
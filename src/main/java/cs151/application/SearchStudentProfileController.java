@@ -1,15 +1,18 @@
 package cs151.application;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -19,6 +22,7 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Control;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -29,17 +33,42 @@ import javafx.stage.Stage;
 
 /**
  * Controller providing a read/search/delete experience for stored student profiles.
+ * <p>
+ * Results update as the user types or picks a filter; typing searches once it pauses for
+ * {@value #TYPING_DELAY_MILLIS} ms. Each search runs and sorts its matches on a virtual thread through a
+ * {@link LatestSearchRunner}: a newer search cancels the one in flight, and only the latest search's results are
+ * published to the table, so the FX thread never does more than swap in an already sorted list. A {@link ProfileSearchSession} answers queries that
+ * narrow or return to an earlier one from the earlier results. New results are diffed into the table's
+ * {@link DiffingObservableList}, so rows that stay visible keep their cells and the scroll position is preserved.
+ * </p>
  */
 public class SearchStudentProfileController {
 
     private static final List<String> ACADEMIC_STATUSES = List.of("Freshman", "Sophomore", "Junior", "Senior", "Graduate");
     private static final List<String> DATABASE_OPTIONS = List.of("MySQL", "Postgres", "MongoDB", "SQLite", "Oracle");
     private static final List<String> PREFERRED_ROLES = List.of("Front-End", "Back-End", "Full-Stack", "Data", "Other");
-
-    private final StudentProfileRepository profileRepository = new StudentProfileRepository();
-    private final LanguageRepository languageRepository = new LanguageRepository();
-    private final ObservableList<StudentProfile> allProfiles = FXCollections.observableArrayList();
-    private final ObservableList<StudentProfile> filteredProfiles = FXCollections.observableArrayList();
+    private static final ExecutorService SEARCH_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("profile-search-", 0).factory());
+    /** Pause in typing after which the name filter is searched. */
+    private static final long TYPING_DELAY_MILLIS = 150;
+
+    private final AsyncProfileCache asyncProfileCache = AsyncProfileCache.getInstance();
+    private final ProfileCache profileCache = asyncProfileCache.getCache();
+    private final ProfileSearchSession searchSession = new ProfileSearchSession(profileCache);
+    private final AsyncLanguageRepository languageRepository = AsyncLanguageRepository.getInstance();
+    private final DiffingObservableList<StudentProfile> filteredProfiles = new DiffingObservableList<>();
+    // Held in a field because the cache only keeps a weak reference to it.
+    private final Consumer<ProfileChange> profileChangeListener =
+            change -> Platform.runLater(() -> applyExternalChange(change));
+    private Predicate<StudentProfile> appliedFilter = profile -> true;
+    private final LatestSearchRunner searchRunner = new LatestSearchRunner(SEARCH_EXECUTOR, AsyncProfileCache.FX_THREAD);
+    private final Debouncer typingDebouncer =
+            new Debouncer(TYPING_DELAY_MILLIS, AsyncProfileCache.FX_THREAD, () -> applyFilters(false));
+    /** Set while several filters are changed at once, so that their listeners do not each start a search. */
+    private boolean settingFilters;
+    private boolean languagesLoaded;
+    /** Language to select once the language filter has been filled, or {@code null}. */
+    private String pendingLanguageFilter;
 
     @FXML
     private VBox rootContainer;
@@ -63,7 +92,7 @@ public class SearchStudentProfileController {
     private TableView<StudentProfile> profilesTable;
 
     @FXML
-    private TableColumn<StudentProfile, String> nameColumn;
+    private TableColumn<StudentProfile, StudentProfile> nameColumn;
 
     @FXML
     private TableColumn<StudentProfile, String> statusColumn;
@@ -108,14 +137,13 @@ public class SearchStudentProfileController {
     private void initialize() {
         setupFilters();
         setupTable();
+        setupLiveSearch();
     deleteButton.disableProperty().bind(profilesTable.getSelectionModel().selectedItemProperty().isNull());
     editButton.disableProperty().bind(profilesTable.getSelectionModel().selectedItemProperty().isNull());
     commentsButton.disableProperty().bind(profilesTable.getSelectionModel().selectedItemProperty().isNull());
-        boolean loaded = loadProfiles();
+        loadProfiles();
         applyFilters(false);
-        if (!loaded) {
-            showError("Unable to load stored profiles. Define profiles first.");
-        }
+        profileCache.addChangeListener(profileChangeListener);
         Platform.runLater(() -> rootContainer.requestFocus());
     }
 
@@ -126,7 +154,12 @@ public class SearchStudentProfileController {
 
     @FXML
     private void onResetFilters() {
-        clearFilters();
+        settingFilters = true;
+        try {
+            clearFilters();
+        } finally {
+            settingFilters = false;
+        }
         applyFilters(true);
     }
 
@@ -138,22 +171,19 @@ public class SearchStudentProfileController {
             return;
         }
 
-        try {
-            boolean removed = profileRepository.deleteByName(selected.getFullName());
-            if (removed) {
-                boolean reloaded = loadProfiles();
+        deleteButton.disableProperty().unbind();
+        deleteButton.setDisable(true);
+        asyncProfileCache.deleteById(selected.getId()).whenCompleteAsync((removed, error) -> {
+            deleteButton.disableProperty().bind(profilesTable.getSelectionModel().selectedItemProperty().isNull());
+            if (error != null) {
+                showError("Unable to delete the profile. Please try again.");
+            } else if (removed) {
                 applyFilters(false);
-                if (reloaded) {
-                    showSuccess(String.format("Deleted profile for %s.", selected.getFullName()));
-                } else {
-                    showError("Profile deleted, but unable to reload the latest records.");
-                }
+                showSuccess(String.format("Deleted profile for %s.", selected.getFullName()));
             } else {
                 showError("Profile not found in storage. Refresh and try again.");
             }
-        } catch (IOException exception) {
-            showError("Unable to delete the profile. Please try again.");
-        }
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     // [Edit Mode]
@@ -241,9 +271,21 @@ public class SearchStudentProfileController {
         populateLanguageFilter();
     }
 
+    /**
+     * Fills the language filter in the background; a language asked for by {@link #applyInitialFilters} meanwhile is
+     * selected once the languages are listed.
+     */
     private void populateLanguageFilter() {
-        try {
-            List<String> languages = languageRepository.loadAll().stream()
+        languageFilterCombo.setDisable(true);
+        languageRepository.loadAll().whenCompleteAsync((storedLanguages, error) -> {
+            languagesLoaded = true;
+            if (error != null) {
+                languageFilterCombo.setItems(FXCollections.observableArrayList());
+                languageFilterCombo.setDisable(true);
+                languageFilterCombo.setPromptText("Unable to load languages");
+                return;
+            }
+            List<String> languages = storedLanguages.stream()
                     .map(ProgrammingLanguage::getName)
                     .collect(Collectors.toList());
             languageFilterCombo.setItems(FXCollections.observableArrayList(languages));
@@ -253,15 +295,23 @@ public class SearchStudentProfileController {
             } else {
                 languageFilterCombo.setPromptText("Any");
             }
-        } catch (IOException exception) {
-            languageFilterCombo.setItems(FXCollections.observableArrayList());
-            languageFilterCombo.setDisable(true);
-            languageFilterCombo.setPromptText("Unable to load languages");
-        }
+            if (pendingLanguageFilter != null) {
+                selectComboValue(languageFilterCombo, pendingLanguageFilter);
+                pendingLanguageFilter = null;
+            }
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     private void setupTable() {
-        nameColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getFullName()));
+        // The column holds the profile itself, so sorting compares the collation keys cached on the profiles.
+        nameColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue()));
+        nameColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(StudentProfile profile, boolean empty) {
+                super.updateItem(profile, empty);
+                setText(empty || profile == null ? null : profile.getFullName());
+            }
+        });
         statusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getAcademicStatus()));
         jobStatusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getJobStatusLabel()));
         jobDetailsColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getJobDetailsDisplay()));
@@ -273,6 +323,7 @@ public class SearchStudentProfileController {
         blacklistColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getBlacklistLabel()));
 
         profilesTable.setItems(filteredProfiles);
+        nameColumn.setComparator(NameOrder.PROFILES);
         nameColumn.setSortType(TableColumn.SortType.ASCENDING);
         profilesTable.getSortOrder().clear();
         profilesTable.getSortOrder().add(nameColumn);
@@ -283,36 +334,101 @@ public class SearchStudentProfileController {
         profilesTable.setPlaceholder(new Label("No profiles match the current filters."));
     }
 
-    private boolean loadProfiles() {
-        try {
-            List<StudentProfile> storedProfiles = profileRepository.loadAll();
-            allProfiles.setAll(storedProfiles);
-            FXCollections.sort(allProfiles, Comparator.comparing(StudentProfile::getFullName, String.CASE_INSENSITIVE_ORDER));
-            return true;
-        } catch (IOException exception) {
-            allProfiles.clear();
-            return false;
+    /**
+     * Loads the stored profiles in the background, showing a progress indicator in the empty table meanwhile. The
+     * searches started while loading wait for the same load.
+     */
+    private void loadProfiles() {
+        profilesTable.setPlaceholder(new ProgressIndicator());
+        asyncProfileCache.getProfiles().whenCompleteAsync((profiles, error) -> {
+            profilesTable.setPlaceholder(new Label("No profiles match the current filters."));
+            if (error != null) {
+                showError("Unable to load stored profiles. Define profiles first.");
+            }
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    private void applyExternalChange(ProfileChange change) {
+        change.applyTo(filteredProfiles, appliedFilter);
+        if (!isSortedByName()) {
+            profilesTable.sort();
+        }
+    }
+
+    /**
+     * @return {@code true} when the table shows rows in the name order the backing list is kept in
+     */
+    private boolean isSortedByName() {
+        List<TableColumn<StudentProfile, ?>> sortOrder = profilesTable.getSortOrder();
+        return sortOrder.isEmpty() || sortOrder.size() == 1 && sortOrder.get(0) == nameColumn
+                && nameColumn.getSortType() == TableColumn.SortType.ASCENDING;
+    }
+
+    private void setupLiveSearch() {
+        nameFilterField.textProperty().addListener((observable, oldValue, newValue) -> {
+            if (!settingFilters) {
+                typingDebouncer.request();
+            }
+        });
+        for (ComboBox<String> combo : List.of(statusFilterCombo, languageFilterCombo, databaseFilterCombo,
+                roleFilterCombo)) {
+            combo.valueProperty().addListener((observable, oldValue, newValue) -> {
+                if (!settingFilters) {
+                    applyFilters(false);
+                }
+            });
         }
     }
 
+    /**
+     * Starts a search for the current filter values in the background, cancelling any search still running or still
+     * waiting for typing to pause. When {@code displayResult} is {@code false} the feedback label is cleared now rather
+     * than when the results arrive, so a message shown right after this call is kept.
+     */
     private void applyFilters(boolean displayResult) {
+        typingDebouncer.cancel();
         String nameFilter = normalize(nameFilterField.getText());
         String statusFilter = valueOrEmpty(statusFilterCombo == null ? null : statusFilterCombo.getValue());
         String languageFilter = valueOrEmpty(languageFilterCombo == null ? null : languageFilterCombo.getValue());
         String databaseFilter = valueOrEmpty(databaseFilterCombo == null ? null : databaseFilterCombo.getValue());
         String roleFilter = valueOrEmpty(roleFilterCombo == null ? null : roleFilterCombo.getValue());
 
-        List<StudentProfile> matches = allProfiles.stream()
-                .filter(profile -> matchesName(profile, nameFilter))
-                .filter(profile -> matchesSingleValue(profile.getAcademicStatus(), statusFilter))
-                .filter(profile -> matchesCollection(profile.getProgrammingLanguages(), languageFilter))
-                .filter(profile -> matchesCollection(profile.getDatabases(), databaseFilter))
-                .filter(profile -> matchesSingleValue(profile.getPreferredRole(), roleFilter))
-                .collect(Collectors.toList());
+        Predicate<StudentProfile> filter = profile -> matchesName(profile, nameFilter)
+                && matchesSingleValue(profile.getAcademicStatus(), statusFilter)
+                && matchesCollection(profile.getProgrammingLanguages(), languageFilter)
+                && matchesCollection(profile.getDatabases(), databaseFilter)
+                && matchesSingleValue(profile.getPreferredRole(), roleFilter);
+        if (!displayResult) {
+            clearFeedback();
+        }
+
+        searchRunner.submit(() -> {
+            long cacheVersion = profileCache.getVersion();
+            try {
+                return new SearchResult(cacheVersion,
+                        searchSession.search(nameFilter, statusFilter, languageFilter, databaseFilter, roleFilter));
+            } catch (IOException exception) {
+                return new SearchResult(cacheVersion, List.of());
+            }
+        }, result -> publishMatches(result.cacheVersion(), filter, result.matches(), displayResult));
+    }
+
+    /**
+     * Shows the results of the latest background search. Results computed against an older version of the cache are
+     * discarded and the search is run again, since a change listener may already have patched the table past them.
+     */
+    private void publishMatches(long cacheVersion, Predicate<StudentProfile> filter, List<StudentProfile> matches,
+                                boolean displayResult) {
+        if (profileCache.getVersion() != cacheVersion) {
+            applyFilters(displayResult);
+            return;
+        }
 
-        filteredProfiles.setAll(matches);
-        FXCollections.sort(filteredProfiles, Comparator.comparing(StudentProfile::getFullName, String.CASE_INSENSITIVE_ORDER));
-        profilesTable.sort();
+        appliedFilter = filter;
+        filteredProfiles.replaceSorted(matches, NameOrder.PROFILES);
+        if (!isSortedByName()) {
+            profilesTable.sort();
+        }
 
         if (displayResult) {
             if (matches.isEmpty()) {
@@ -329,7 +445,7 @@ public class SearchStudentProfileController {
         if (filter.isEmpty()) {
             return true;
         }
-        return profile.getFullName().toLowerCase(Locale.ENGLISH).contains(filter.toLowerCase(Locale.ENGLISH));
+        return profile.getFullName().toLowerCase(Locale.ROOT).contains(filter.toLowerCase(Locale.ROOT));
     }
 
     private boolean matchesSingleValue(String candidate, String filter) {
@@ -354,18 +470,27 @@ public class SearchStudentProfileController {
         roleFilterCombo.getSelectionModel().clearSelection();
     }
 
+    /**
+     * Restores the filters of an earlier visit and searches once for all of them.
+     */
     public void applyInitialFilters(String nameValue, String statusValue, String languageValue, String databaseValue,
                                     String roleValue) {
-        nameFilterField.setText(nameValue == null ? "" : nameValue);
-        selectComboValue(statusFilterCombo, statusValue);
-        selectComboValue(languageFilterCombo, languageValue);
-        selectComboValue(databaseFilterCombo, databaseValue);
-        selectComboValue(roleFilterCombo, roleValue);
-        boolean loaded = loadProfiles();
-        applyFilters(false);
-        if (!loaded) {
-            showError("Unable to load stored profiles. Define profiles first.");
+        settingFilters = true;
+        try {
+            nameFilterField.setText(nameValue == null ? "" : nameValue);
+            selectComboValue(statusFilterCombo, statusValue);
+            if (languagesLoaded) {
+                selectComboValue(languageFilterCombo, languageValue);
+            } else {
+                pendingLanguageFilter = languageValue;
+            }
+            selectComboValue(databaseFilterCombo, databaseValue);
+            selectComboValue(roleFilterCombo, roleValue);
+        } finally {
+            settingFilters = false;
         }
+        loadProfiles();
+        applyFilters(false);
     }
 
     public void showSuccessMessage(String message) {
@@ -456,6 +581,9 @@ public class SearchStudentProfileController {
                 roleFilterCombo.getValue());
     }
 
+    private record SearchResult(long cacheVersion, List<StudentProfile> matches) {
+    }
+
     private static final class FilterState {
         private final String nameFilter;
         private final String statusFilter;
@@ -0,0 +1,277 @@
+package cs151.application;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable list of profiles in {@link NameOrder}, held as a weight-balanced binary tree.
+ * <p>
+ * {@link #with(StudentProfile)} and {@link #without(StudentProfile)} return a new list that shares every node with
+ * this one except the O(log n) nodes on the path to the change, so an index can hand its current list to readers on
+ * other threads and still insert or remove a profile without copying the whole roster. Positional access takes
+ * O(log n); iteration and {@link #toArray()} visit each node once.
+ * </p>
+ * <p>
+ * The tree keeps the balance of Adams' weight-balanced trees: neither subtree of a node holds more than
+ * {@value #DELTA} times the profiles of the other, and a single or double rotation restores it after each change.
+ * </p>
+ */
+final class SortedProfileList extends AbstractList<StudentProfile> {
+
+    private static final SortedProfileList EMPTY = new SortedProfileList(null);
+    /** Largest allowed ratio between the sizes of two sibling subtrees. */
+    private static final int DELTA = 3;
+    /** Ratio between the inner and outer grandchild above which a double rotation is used. */
+    private static final int RATIO = 2;
+
+    private final Node root;
+
+    private SortedProfileList(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @return a list without profiles
+     */
+    static SortedProfileList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a list from profiles that are already in {@link NameOrder}, without comparing them.
+     *
+     * @param sorted profiles in name order, with no two comparing as equal
+     * @return the list
+     */
+    static SortedProfileList of(List<StudentProfile> sorted) {
+        if (sorted instanceof SortedProfileList list) {
+            return list;
+        }
+        StudentProfile[] profiles = sorted.toArray(new StudentProfile[0]);
+        return profiles.length == 0 ? EMPTY : new SortedProfileList(build(profiles, 0, profiles.length));
+    }
+
+    /**
+     * @param profile profile to insert
+     * @return a list holding {@code profile} in name order, in place of any profile comparing as equal to it
+     */
+    SortedProfileList with(StudentProfile profile) {
+        return new SortedProfileList(insert(root, profile));
+    }
+
+    /**
+     * @param profile profile to remove
+     * @return a list without the profile comparing as equal to {@code profile}, or this list when there is none
+     */
+    SortedProfileList without(StudentProfile profile) {
+        Node updated = remove(root, profile);
+        return updated == root ? this : updated == null ? EMPTY : new SortedProfileList(updated);
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public StudentProfile get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.profile;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<StudentProfile> iterator() {
+        return new InOrder(root);
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] profiles = new Object[size()];
+        fill(root, profiles, 0);
+        return profiles;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] array) {
+        int size = size();
+        T[] profiles = array.length >= size
+                ? array : (T[]) Array.newInstance(array.getClass().getComponentType(), size);
+        fill(root, profiles, 0);
+        if (profiles.length > size) {
+            profiles[size] = null;
+        }
+        return profiles;
+    }
+
+    private static Node build(StudentProfile[] profiles, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(build(profiles, from, middle), profiles[middle], build(profiles, middle + 1, to));
+    }
+
+    private static int fill(Node node, Object[] target, int position) {
+        if (node == null) {
+            return position;
+        }
+        position = fill(node.left, target, position);
+        target[position++] = node.profile;
+        return fill(node.right, target, position);
+    }
+
+    private static Node insert(Node node, StudentProfile profile) {
+        if (node == null) {
+            return new Node(null, profile, null);
+        }
+        int order = NameOrder.PROFILES.compare(profile, node.profile);
+        if (order < 0) {
+            return balance(insert(node.left, profile), node.profile, node.right);
+        }
+        if (order > 0) {
+            return balance(node.left, node.profile, insert(node.right, profile));
+        }
+        return new Node(node.left, profile, node.right);
+    }
+
+    private static Node remove(Node node, StudentProfile profile) {
+        if (node == null) {
+            return null;
+        }
+        int order = NameOrder.PROFILES.compare(profile, node.profile);
+        if (order < 0) {
+            Node left = remove(node.left, profile);
+            return left == node.left ? node : balance(left, node.profile, node.right);
+        }
+        if (order > 0) {
+            Node right = remove(node.right, profile);
+            return right == node.right ? node : balance(node.left, node.profile, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replace the node by its neighbour from the larger side, which keeps the tree closest to balance.
+        if (node.left.size > node.right.size) {
+            Node last = node.left;
+            while (last.right != null) {
+                last = last.right;
+            }
+            return balance(removeLast(node.left), last.profile, node.right);
+        }
+        Node first = node.right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(node.left, first.profile, removeFirst(node.right));
+    }
+
+    private static Node removeFirst(Node node) {
+        return node.left == null ? node.right : balance(removeFirst(node.left), node.profile, node.right);
+    }
+
+    private static Node removeLast(Node node) {
+        return node.right == null ? node.left : balance(node.left, node.profile, removeLast(node.right));
+    }
+
+    /**
+     * Joins two subtrees whose sizes are at most one insertion or removal away from balance.
+     */
+    private static Node balance(Node left, StudentProfile profile, Node right) {
+        int leftSize = size(left);
+        int rightSize = size(right);
+        if (leftSize + rightSize <= 1) {
+            return new Node(left, profile, right);
+        }
+        if (rightSize > DELTA * leftSize) {
+            if (size(right.left) < RATIO * size(right.right)) {
+                return new Node(new Node(left, profile, right.left), right.profile, right.right);
+            }
+            Node inner = right.left;
+            return new Node(new Node(left, profile, inner.left), inner.profile,
+                    new Node(inner.right, right.profile, right.right));
+        }
+        if (leftSize > DELTA * rightSize) {
+            if (size(left.right) < RATIO * size(left.left)) {
+                return new Node(left.left, left.profile, new Node(left.right, profile, right));
+            }
+            Node inner = left.right;
+            return new Node(new Node(left.left, left.profile, inner.left), inner.profile,
+                    new Node(inner.right, profile, right));
+        }
+        return new Node(left, profile, right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+
+        private final Node left;
+        private final StudentProfile profile;
+        private final Node right;
+        private final int size;
+
+        private Node(Node left, StudentProfile profile, Node right) {
+            this.left = left;
+            this.profile = profile;
+            this.right = right;
+            this.size = size(left) + 1 + size(right);
+        }
+    }
+
+    /**
+     * Walks the tree in order, keeping the nodes whose right subtree is still to be visited on a stack.
+     */
+    private static final class InOrder implements Iterator<StudentProfile> {
+
+        private final Deque<Node> pending = new ArrayDeque<>();
+
+        private InOrder(Node root) {
+            descend(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public StudentProfile next() {
+            Node node = pending.poll();
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            descend(node.right);
+            return node.profile;
+        }
+
+        private void descend(Node node) {
+            for (Node current = node; current != null; current = current.left) {
+                pending.push(current);
+            }
+        }
+    }
+}
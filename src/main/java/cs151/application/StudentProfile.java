@@ -1,23 +1,38 @@
 package cs151.application;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Represents a student profile captured through the Define Student Profiles workflow.
+ * <p>
+ * Values shared across a roster (academic status, preferred role, the language and database lists) are held as
+ * {@link ProfileDictionary} ids and the three flags are packed into one byte, so a profile only owns its name, job
+ * details and comments. Getters return the stored immutable values without allocating.
+ * </p>
+ * <p>
+ * Stored profiles carry a positive {@linkplain #getId() id} assigned by the repository; profiles built by the
+ * screens have id 0 until they are added.
+ * </p>
  */
 public class StudentProfile {
 
+    private static final int EMPLOYED_FLAG = 1;
+    private static final int WHITELIST_FLAG = 1 << 1;
+    private static final int BLACKLIST_FLAG = 1 << 2;
+
+    private final int id;
     private final String fullName;
-    private final String academicStatus;
-    private final boolean employed;
     private final String jobDetails;
-    private final List<String> programmingLanguages;
-    private final List<String> databases;
-    private final String preferredRole;
     private final List<String> comments;
-    private final boolean whitelist;
-    private final boolean blacklist;
+    private final int academicStatusId;
+    private final int preferredRoleId;
+    private final int programmingLanguagesId;
+    private final int databasesId;
+    private final byte flags;
+    private final Set<ProfileField> loadedFields;
 
     public StudentProfile(String fullName,
                           String academicStatus,
@@ -29,16 +44,135 @@ public class StudentProfile {
                           List<String> comments,
                           boolean whitelist,
                           boolean blacklist) {
+        this(0, fullName, academicStatus, employed, jobDetails, programmingLanguages, databases, preferredRole,
+                comments, whitelist, blacklist, ProfileField.all());
+    }
+
+    /**
+     * Creates a profile of which only {@code loadedFields} were read from storage; the remaining columns hold empty
+     * placeholder values until the profile is hydrated. The set is kept as-is, so callers pass an unmodifiable set
+     * shared by every profile of the same load.
+     */
+    StudentProfile(int id,
+                   String fullName,
+                   String academicStatus,
+                   boolean employed,
+                   String jobDetails,
+                   List<String> programmingLanguages,
+                   List<String> databases,
+                   String preferredRole,
+                   List<String> comments,
+                   boolean whitelist,
+                   boolean blacklist,
+                   Set<ProfileField> loadedFields) {
+        this.id = id;
         this.fullName = fullName;
-        this.academicStatus = academicStatus;
-        this.employed = employed;
         this.jobDetails = jobDetails;
-        this.programmingLanguages = List.copyOf(programmingLanguages);
-        this.databases = List.copyOf(databases);
-        this.preferredRole = preferredRole;
         this.comments = List.copyOf(comments);
-        this.whitelist = whitelist;
-        this.blacklist = blacklist;
+        this.academicStatusId = ProfileDictionary.stringId(academicStatus);
+        this.preferredRoleId = ProfileDictionary.stringId(preferredRole);
+        this.programmingLanguagesId = ProfileDictionary.listId(programmingLanguages);
+        this.databasesId = ProfileDictionary.listId(databases);
+        this.flags = (byte) ((employed ? EMPLOYED_FLAG : 0)
+                | (whitelist ? WHITELIST_FLAG : 0)
+                | (blacklist ? BLACKLIST_FLAG : 0));
+        this.loadedFields = loadedFields.size() == ProfileField.values().length ? ProfileField.all() : loadedFields;
+    }
+
+    /**
+     * @return {@code true} when every column was loaded from storage
+     */
+    public boolean isComplete() {
+        return loadedFields == ProfileField.all();
+    }
+
+    /**
+     * @param field column to check
+     * @return {@code true} when the column was loaded and its getter returns the stored value
+     */
+    public boolean hasField(ProfileField field) {
+        return loadedFields.contains(field);
+    }
+
+    private StudentProfile(StudentProfile source, int id, List<String> comments) {
+        this.id = id;
+        this.fullName = source.fullName;
+        this.jobDetails = source.jobDetails;
+        this.comments = List.copyOf(comments);
+        this.academicStatusId = source.academicStatusId;
+        this.preferredRoleId = source.preferredRoleId;
+        this.programmingLanguagesId = source.programmingLanguagesId;
+        this.databasesId = source.databasesId;
+        this.flags = source.flags;
+        this.loadedFields = source.loadedFields;
+    }
+
+    /**
+     * Compares every stored column with another profile. Profiles deliberately keep identity equality, so lists of
+     * profiles behave as before; this is used to tell whether a reloaded record actually changed.
+     *
+     * @param other profile to compare with
+     * @return {@code true} when both profiles hold the same values
+     */
+    boolean hasSameContent(StudentProfile other) {
+        // Equal dictionary values have equal ids.
+        return other != null
+                && id == other.id
+                && flags == other.flags
+                && academicStatusId == other.academicStatusId
+                && preferredRoleId == other.preferredRoleId
+                && programmingLanguagesId == other.programmingLanguagesId
+                && databasesId == other.databasesId
+                && Objects.equals(fullName, other.fullName)
+                && Objects.equals(jobDetails, other.jobDetails)
+                && comments.equals(other.comments)
+                && loadedFields.equals(other.loadedFields);
+    }
+
+    /**
+     * Returns a copy of this profile with {@code comment} appended to its comments. A profile loaded without its
+     * comments yields a copy that still lacks them, since appending to the placeholder would hide the stored ones.
+     *
+     * @param comment comment to append
+     * @return new profile; this one is left unchanged
+     */
+    StudentProfile withComment(String comment) {
+        List<String> updatedComments = comments;
+        if (hasField(ProfileField.COMMENTS)) {
+            updatedComments = new ArrayList<>(comments.size() + 1);
+            updatedComments.addAll(comments);
+            updatedComments.add(comment);
+        }
+        return new StudentProfile(this, id, updatedComments);
+    }
+
+    /**
+     * @param id id to assign
+     * @return this profile when it already has the id, otherwise a copy with it
+     */
+    StudentProfile withId(int id) {
+        return id == this.id ? this : new StudentProfile(this, id, comments);
+    }
+
+    /**
+     * @return the id assigned when the profile was first stored, or 0 for a profile that was never stored
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return dictionary id of the academic status, see {@link ProfileDictionary#stringId(String)}
+     */
+    int academicStatusId() {
+        return academicStatusId;
+    }
+
+    /**
+     * @return dictionary id of the preferred role, see {@link ProfileDictionary#stringId(String)}
+     */
+    int preferredRoleId() {
+        return preferredRoleId;
     }
 
     public String getFullName() {
@@ -46,11 +180,11 @@ public class StudentProfile {
     }
 
     public String getAcademicStatus() {
-        return academicStatus;
+        return ProfileDictionary.string(academicStatusId);
     }
 
     public boolean isEmployed() {
-        return employed;
+        return (flags & EMPLOYED_FLAG) != 0;
     }
 
     public String getJobDetails() {
@@ -62,45 +196,45 @@ public class StudentProfile {
      */
     public String getJobDetailsDisplay() {
         if (jobDetails == null || jobDetails.isBlank()) {
-            return employed ? "" : "N/A";
+            return isEmployed() ? "" : "N/A";
         }
         return jobDetails;
     }
 
     public List<String> getProgrammingLanguages() {
-        return Collections.unmodifiableList(programmingLanguages);
+        return ProfileDictionary.list(programmingLanguagesId);
     }
 
     public List<String> getDatabases() {
-        return Collections.unmodifiableList(databases);
+        return ProfileDictionary.list(databasesId);
     }
 
     public String getPreferredRole() {
-        return preferredRole;
+        return ProfileDictionary.string(preferredRoleId);
     }
 
     public List<String> getComments() {
-        return Collections.unmodifiableList(comments);
+        return comments;
     }
 
     public boolean isWhitelist() {
-        return whitelist;
+        return (flags & WHITELIST_FLAG) != 0;
     }
 
     public boolean isBlacklist() {
-        return blacklist;
+        return (flags & BLACKLIST_FLAG) != 0;
     }
 
     public String getJobStatusLabel() {
-        return employed ? "Employed" : "Not Employed";
+        return isEmployed() ? "Employed" : "Not Employed";
     }
 
     public String formatLanguages() {
-        return String.join(", ", programmingLanguages);
+        return String.join(", ", getProgrammingLanguages());
     }
 
     public String formatDatabases() {
-        return String.join(", ", databases);
+        return String.join(", ", getDatabases());
     }
 
     public String formatComments() {
@@ -143,10 +277,10 @@ public class StudentProfile {
     }
 
     public String getWhitelistLabel() {
-        return whitelist ? "Yes" : "No";
+        return isWhitelist() ? "Yes" : "No";
     }
 
     public String getBlacklistLabel() {
-        return blacklist ? "Yes" : "No";
+        return isBlacklist() ? "Yes" : "No";
     }
 }
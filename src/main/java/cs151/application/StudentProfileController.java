@@ -4,11 +4,15 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -24,6 +28,7 @@ import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Control;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableCell;
@@ -52,10 +57,15 @@ public class StudentProfileController {
     private static final List<String> DATABASE_OPTIONS = List.of("MySQL", "Postgres", "MongoDB", "SQLite", "Oracle");
     private static final List<String> PREFERRED_ROLES = List.of("Front-End", "Back-End", "Full-Stack", "Data", "Other");
     private static final DateTimeFormatter COMMENT_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-    private final LanguageRepository languageRepository = new LanguageRepository();
-    private final StudentProfileRepository profileRepository = new StudentProfileRepository();
-    private final ObservableList<StudentProfile> profiles = FXCollections.observableArrayList();
+    private final AsyncLanguageRepository languageRepository = AsyncLanguageRepository.getInstance();
+    private final AsyncProfileCache asyncProfileCache = AsyncProfileCache.getInstance();
+    private final ProfileCache profileCache = asyncProfileCache.getCache();
+    // Held in fields because the cache and the watcher only keep weak references to their listeners.
+    private final Consumer<ProfileChange> profileChangeListener =
+            change -> Platform.runLater(() -> applyExternalChange(change));
+    private final Consumer<LanguageChange> languageChangeListener =
+            change -> Platform.runLater(() -> applyLanguageChange(change));
+    private final DiffingObservableList<StudentProfile> profiles = new DiffingObservableList<>();
     private final ObservableList<String> comments = FXCollections.observableArrayList();
     private ToggleGroup jobStatusGroup;
 
@@ -101,11 +111,14 @@ public class StudentProfileController {
     @FXML
     private Button toggleProfilesButton;
 
+    @FXML
+    private Button saveButton;
+
     @FXML
     private TableView<StudentProfile> profilesTable;
 
     @FXML
-    private TableColumn<StudentProfile, String> nameColumn;
+    private TableColumn<StudentProfile, StudentProfile> nameColumn;
 
     @FXML
     private TableColumn<StudentProfile, String> statusColumn;
@@ -146,7 +159,9 @@ public class StudentProfileController {
         initializeSelections();
         initializeTable();
         loadLanguages();
-        loadProfiles();
+        loadProfiles(false, null);
+        profileCache.addChangeListener(profileChangeListener);
+        DataDirectoryWatcher.getInstance().addLanguageListener(languageChangeListener);
         profilesContainer.setVisible(false);
         profilesContainer.setManaged(false);
         toggleProfilesButton.setText("View Stored Profiles");
@@ -186,7 +201,15 @@ public class StudentProfileController {
     }
 
     private void initializeTable() {
-        nameColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getFullName()));
+        // The column holds the profile itself, so sorting compares the collation keys cached on the profiles.
+        nameColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue()));
+        nameColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(StudentProfile profile, boolean empty) {
+                super.updateItem(profile, empty);
+                setText(empty || profile == null ? null : profile.getFullName());
+            }
+        });
         statusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getAcademicStatus()));
         jobStatusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getJobStatusLabel()));
         jobDetailsColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getJobDetailsDisplay()));
@@ -198,6 +221,7 @@ public class StudentProfileController {
         blacklistColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getBlacklistLabel()));
 
         profilesTable.setItems(profiles);
+        nameColumn.setComparator(NameOrder.PROFILES);
         nameColumn.setSortType(TableColumn.SortType.ASCENDING);
         profilesTable.getSortOrder().clear();
         profilesTable.getSortOrder().add(nameColumn);
@@ -208,9 +232,19 @@ public class StudentProfileController {
         profilesTable.setPlaceholder(new Label("Click \"View Stored Profiles\" to display records."));
     }
 
+    /**
+     * Lists the defined languages in the background; when a profile is being edited meanwhile, its languages are
+     * selected once they are listed.
+     */
     private void loadLanguages() {
-        try {
-            List<ProgrammingLanguage> allLanguages = languageRepository.loadAll();
+        languagesListView.setDisable(true);
+        languageRepository.loadAll().whenCompleteAsync((allLanguages, error) -> {
+            if (error != null) {
+                feedbackLabel.setText("Unable to load programming languages. Define them first.");
+                feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
+                languagesListView.setPlaceholder(new Label("Define programming languages first."));
+                return;
+            }
             List<String> languageNames = allLanguages.stream()
                     .map(ProgrammingLanguage::getName)
                     .collect(Collectors.toList());
@@ -221,28 +255,76 @@ public class StudentProfileController {
             } else {
                 languagesListView.setPlaceholder(null);
             }
-        } catch (IOException exception) {
-            feedbackLabel.setText("Unable to load programming languages. Define them first.");
-            feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
-            languagesListView.setDisable(true);
-            languagesListView.setPlaceholder(new Label("Define programming languages first."));
+            if (editingProfile != null) {
+                selectLanguages(editingProfile.getProgrammingLanguages());
+            }
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    private void applyExternalChange(ProfileChange change) {
+        change.applyTo(profiles, profile -> true);
+        if (!isSortedByName()) {
+            profilesTable.sort();
         }
     }
 
-    private boolean loadProfiles() {
-        try {
-            List<StudentProfile> storedProfiles = profileRepository.loadAll();
-            profiles.setAll(storedProfiles);
-            sortProfiles();
-            return true;
-        } catch (IOException exception) {
-            feedbackLabel.setText("Unable to load stored profiles. Add a new profile to begin.");
-            feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
-            return false;
+    /**
+     * @return {@code true} when the table shows rows in the name order the backing list is kept in
+     */
+    private boolean isSortedByName() {
+        List<TableColumn<StudentProfile, ?>> sortOrder = profilesTable.getSortOrder();
+        return sortOrder.isEmpty() || sortOrder.size() == 1 && sortOrder.get(0) == nameColumn
+                && nameColumn.getSortType() == TableColumn.SortType.ASCENDING;
+    }
+
+    private void applyLanguageChange(LanguageChange change) {
+        ObservableList<String> languageNames = languagesListView.getItems();
+        languageNames.removeIf(name -> change.removed().stream().anyMatch(name::equalsIgnoreCase));
+        for (String added : change.added()) {
+            if (languageNames.stream().noneMatch(added::equalsIgnoreCase)) {
+                int position = Collections.binarySearch(languageNames, added, NameOrder.NAMES);
+                languageNames.add(position < 0 ? -position - 1 : position, added);
+            }
         }
+        languagesListView.setDisable(languageNames.isEmpty());
+        languagesListView.setPlaceholder(languageNames.isEmpty() ? new Label("Define programming languages first.") : null);
+    }
+
+    /**
+     * Loads the stored profiles in the background, showing a progress indicator in the empty table meanwhile.
+     *
+     * @param onLoaded run on the JavaFX application thread once the table shows the profiles, or {@code null}
+     */
+    private void loadProfiles(boolean reloadFromDisk, Runnable onLoaded) {
+        profilesTable.setPlaceholder(new ProgressIndicator());
+        (reloadFromDisk ? asyncProfileCache.refresh() : asyncProfileCache.getProfiles())
+                .whenCompleteAsync((storedProfiles, error) -> {
+                    profilesTable.setPlaceholder(new Label("Click \"View Stored Profiles\" to display records."));
+                    if (error != null) {
+                        feedbackLabel.setText("Unable to load stored profiles. Add a new profile to begin.");
+                        feedbackLabel.setStyle("-fx-text-fill: #d32f2f;");
+                        return;
+                    }
+                    profiles.replaceSorted(storedProfiles, NameOrder.PROFILES);
+                    if (!isSortedByName()) {
+                        profilesTable.sort();
+                    }
+                    if (onLoaded != null) {
+                        onLoaded.run();
+                    }
+                }, AsyncProfileCache.FX_THREAD);
     }
 
     // [Edit Mode]
+    private void selectLanguages(List<String> languages) {
+        languages.forEach(lang -> {
+            int index = languagesListView.getItems().indexOf(lang);
+            if (index >= 0) {
+                languagesListView.getSelectionModel().select(index);
+            }
+        });
+    }
+
     private void populateFormWithProfile(StudentProfile profile) {
         fullNameField.setText(profile.getFullName());
         academicStatusCombo.setValue(profile.getAcademicStatus());
@@ -254,13 +336,7 @@ public class StudentProfileController {
             unemployedRadio.setSelected(true);
         }
 
-        // Select languages
-        profile.getProgrammingLanguages().forEach(lang -> {
-            int index = languagesListView.getItems().indexOf(lang);
-            if (index >= 0) {
-                languagesListView.getSelectionModel().select(index);
-            }
-        });
+        selectLanguages(profile.getProgrammingLanguages());
 
         // Select databases
         profile.getDatabases().forEach(db -> {
@@ -346,17 +422,6 @@ public class StudentProfileController {
             return;
         }
 
-        // [Edit Mode]
-        boolean nameExists = profiles.stream()
-                .filter(profile -> currentMode == Mode.CREATE || !profile.getFullName().equals(editingProfile.getFullName()))
-                .anyMatch(profile -> profile.getFullName().equalsIgnoreCase(trimmedName));
-        if (nameExists) {
-            setError("A profile with this name already exists.");
-            fullNameField.requestFocus();
-            fullNameField.selectAll();
-            return;
-        }
-
         String academicStatus = academicStatusCombo.getValue();
         if (academicStatus == null || academicStatus.isBlank()) {
             setError("Select the academic status.");
@@ -413,45 +478,71 @@ public class StudentProfileController {
                 whitelist,
                 blacklist);
 
-        // [Edit Mode]
+        // The name check needs the stored profiles, so it runs last, in the background.
+        saveButton.setDisable(true);
+        feedbackLabel.setText("Saving profile...");
+        feedbackLabel.setStyle("-fx-text-fill: #1976d2;");
+        asyncProfileCache.containsName(trimmedName).whenCompleteAsync((exists, error) -> {
+            if (error != null) {
+                saveButton.setDisable(false);
+                setError("Unable to verify the profile name. Please try again.");
+                return;
+            }
+            // [Edit Mode]
+            boolean nameExists = exists
+                    && (currentMode == Mode.CREATE || !editingProfile.getFullName().equalsIgnoreCase(trimmedName));
+            if (nameExists) {
+                saveButton.setDisable(false);
+                setError("A profile with this name already exists.");
+                fullNameField.requestFocus();
+                fullNameField.selectAll();
+                return;
+            }
+            storeProfile(profile);
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    private void storeProfile(StudentProfile profile) {
+        // Rows carry the id the cache stores them under, so later changes to the student replace the row by id.
+        CompletableFuture<Optional<StudentProfile>> store;
         if (currentMode == Mode.EDIT) {
-            // Remove old profile
-            profiles.removeIf(p -> p.getFullName().equals(editingProfile.getFullName()));
+            // [Edit Mode] Replace old profile, keeping its id
+            StudentProfile edited = profile.withId(editingProfile.getId());
+            profiles.removeIf(p -> p.getId() == edited.getId());
+            insertProfile(edited);
+            store = asyncProfileCache.updateProfile(edited.getId(), edited)
+                    .thenApply(updated -> updated ? Optional.of(edited) : Optional.empty());
+        } else {
+            // [Create Mode] The id is assigned by the cache, so the row is added once it is known
+            store = asyncProfileCache.addProfile(profile);
         }
-
-        // [Create Mode][Edit Mode]
-        profiles.add(profile);
-        sortProfiles();
-        try {
-            profileRepository.saveAll(profiles);
+        store.whenCompleteAsync((stored, error) -> {
+            saveButton.setDisable(false);
+            if (error != null || stored.isEmpty()) {
+                if (currentMode == Mode.EDIT) {
+                    profiles.removeIf(p -> p.getId() == editingProfile.getId());
+                    insertProfile(editingProfile); // Restore old profile
+                }
+                setError("Unable to save profile. Please try again.");
+                return;
+            }
             if (currentMode == Mode.EDIT) {
                 // Return to search view
-                Platform.runLater(() -> {
-                    try {
-                        setSuccess("Profile updated successfully.");
-                        // Thread.sleep(1000);
-                        // [Edit Mode] Back to home page
-                        // onBackToHome();
-                        // [Edit Mode] Back to search student profiles page
-                        Stage currentStage = (Stage) feedbackLabel.getScene().getWindow();
-                        FXMLLoader loader = new FXMLLoader(Main.class.getResource("search-student-profile-view.fxml"));
-                        switchScene(currentStage, loader, "Search Student Profiles");
-                    } catch (Exception e) {
-                        // Ignore
-                    }
-                });
+                try {
+                    setSuccess("Profile updated successfully.");
+                    // [Edit Mode] Back to search student profiles page
+                    Stage currentStage = (Stage) feedbackLabel.getScene().getWindow();
+                    FXMLLoader loader = new FXMLLoader(Main.class.getResource("search-student-profile-view.fxml"));
+                    switchScene(currentStage, loader, "Search Student Profiles");
+                } catch (Exception e) {
+                    // Ignore
+                }
             } else {
+                insertProfile(stored.get());
                 clearForm();
                 setSuccess("Profile saved successfully.");
             }
-        } catch (IOException exception) {
-            if (currentMode == Mode.EDIT) {
-                profiles.add(editingProfile); // Restore old profile
-            } else {
-                profiles.remove(profile);
-            }
-            setError("Unable to save profile. Please try again.");
-        }
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     @FXML
@@ -461,9 +552,7 @@ public class StudentProfileController {
             return;
         }
 
-        if (loadProfiles()) {
-            setSuccess("Profiles refreshed.");
-        }
+        loadProfiles(true, () -> setSuccess("Profiles refreshed."));
     }
 
     @FXML
@@ -493,8 +582,12 @@ public class StudentProfileController {
         blacklistCheckBox.setSelected(false);
     }
 
-    private void sortProfiles() {
-        FXCollections.sort(profiles, Comparator.comparing(StudentProfile::getFullName, String.CASE_INSENSITIVE_ORDER));
+    /**
+     * Inserts {@code profile} at its place in the name-ordered list, instead of sorting the whole list again.
+     */
+    private void insertProfile(StudentProfile profile) {
+        int position = Collections.binarySearch(profiles, profile, NameOrder.PROFILES);
+        profiles.add(position < 0 ? -position - 1 : position, profile);
         profilesTable.sort();
     }
 
@@ -514,11 +607,12 @@ public class StudentProfileController {
         profilesContainer.setVisible(makeVisible);
         profilesContainer.setManaged(makeVisible);
         if (makeVisible) {
-            boolean loaded = loadProfiles();
             toggleProfilesButton.setText("Hide Stored Profiles");
-            if (loaded && profiles.isEmpty()) {
-                setSuccess("No stored profiles yet. Save a profile to populate the table.");
-            }
+            loadProfiles(false, () -> {
+                if (profiles.isEmpty()) {
+                    setSuccess("No stored profiles yet. Save a profile to populate the table.");
+                }
+            });
         } else {
             toggleProfilesButton.setText("View Stored Profiles");
         }
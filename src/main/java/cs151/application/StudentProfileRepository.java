@@ -1,36 +1,220 @@
 package cs151.application;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Simple flat-file persistence for {@link StudentProfile} records using Base64 delimited columns.
+ * <p>
+ * In {@link PersistenceMode#JOURNALED} mode single-record mutations are appended to a journal file stored next to the
+ * snapshot instead of rewriting the whole snapshot. The journal is replayed by {@link #loadAll()} in every mode, so a
+ * repository always sees the combined state of snapshot and journal. Besides whole records ({@code U}) and deletions
+ * ({@code D}), the journal holds single appended comments ({@code C}, name and comment), so
+ * {@link #appendComment(String, String)} writes only the new comment.
+ * </p>
+ * <p>
+ * A {@link ProfileCompactor} folds the journal back into a fresh snapshot on a background thread once it grows past the
+ * configured thresholds. Compaction first rotates the journal aside so new mutations keep appending, rebuilds the
+ * snapshot without holding any lock and then swaps it in with an atomic rename.
+ * </p>
+ * <p>
+ * The merged state is kept in memory as a case-folded name index, so lookups and single-record mutations do not reparse
+ * the files. The index is reloaded only when the files change size or modification time outside this repository.
+ * Beside it, the profiles are kept in a tree in {@link NameOrder}, so a mutation re-positions one profile in
+ * logarithmic time and {@link #loadAll()} copies the profiles out in order instead of sorting them.
+ * </p>
+ * <p>
+ * Every stored profile has a positive {@linkplain StudentProfile#getId() id}, handed out in increasing order and never
+ * reused, which identifies it across renames; the name stays unique and serves as a secondary key. Ids are the last
+ * column of each record, deletions in the journal name the deleted id, and rewritten snapshots start with a
+ * {@code #next-id=N} line holding the next id to hand out. Records written before ids existed are numbered in name
+ * order when loaded, in memory only; {@link #migrateLegacyIds()} writes the numbers back, and so does the first
+ * mutation, since journal entries must not name ids the snapshot does not hold.
+ * </p>
+ * <p>
+ * After parsing the CSV snapshot, or compacting into a new one, the repository writes a {@link ProfileBinarySnapshot}
+ * beside it. Later loads memory-map that binary copy instead of decoding Base64 text, and fall back to the CSV whenever
+ * the copy is missing or no longer matches it.
+ * </p>
  */
 public class StudentProfileRepository {
 
     private static final String FIELD_DELIMITER = "|";
     private static final String LIST_DELIMITER = ";";
+    private static final char JOURNAL_UPSERT = 'U';
+    private static final char JOURNAL_DELETE = 'D';
+    private static final char JOURNAL_COMMENT = 'C';
+    private static final Set<ProfileField> NAME_ONLY = Collections.unmodifiableSet(EnumSet.of(ProfileField.FULL_NAME));
+    private static final String NEXT_ID_HEADER = "#next-id=";
+    private static final System.Logger LOGGER = System.getLogger(StudentProfileRepository.class.getName());
+
+    /** Default snapshot size above which {@link #loadAll()} parses the file in parallel. */
+    public static final long DEFAULT_PARALLEL_LOAD_THRESHOLD = 16L * 1024 * 1024;
+    /** Default snapshot size from which {@link #openPagedSource(Set)} keeps complete records off the heap. */
+    public static final long DEFAULT_OFF_HEAP_RECORD_THRESHOLD = 64L * 1024 * 1024;
 
     private final Path storagePath;
+    private final Path journalPath;
+    private final Path compactingJournalPath;
+    private final Path warmStartPath;
+    private final PersistenceMode mode;
+    /** Created on first use, so the constructor does not hand out a reference to a half-built repository. */
+    private volatile ProfileCompactor compactor;
+    private final DurableFileWriter fileWriter = new DurableFileWriter(FsyncPolicy.BATCHED);
+    private final ReadWriteLock storeLock = new ReentrantReadWriteLock();
+
+    /** Bumped whenever the snapshot is replaced by {@link #saveAll}, so a running compaction knows to discard its output. */
+    private long snapshotGeneration;
+
+    /** Case-folded name to profile index of the merged snapshot and journal; guarded by {@link #storeLock}. */
+    private Map<String, StudentProfile> nameIndex;
+    /** Id to profile index of the same profiles as {@link #nameIndex}, set and cleared together with it. */
+    private IntObjectMap<StudentProfile> idIndex;
+    /** The same profiles again, in {@link NameOrder}; set and cleared together with {@link #nameIndex}. */
+    private SortedProfileList sortedIndex;
+    private StoreStamp indexStamp;
+
+    /** Id handed to the next new profile; guarded by the write lock of {@link #storeLock}. */
+    private int nextId = 1;
+    /** Ids from {@link #allocateId()} not yet stored; guarded by the write lock of {@link #storeLock}. */
+    private final Set<Integer> reservedIds = new HashSet<>();
+    /** Set once the files are known to hold ids, so partial loads need not check again. */
+    private volatile boolean idsAssigned;
+    /** Profiles of the index whose ids so far only exist in memory; guarded by the write lock of {@link #storeLock}. */
+    private int unnumberedProfiles;
+
+    private volatile long parallelLoadThreshold = DEFAULT_PARALLEL_LOAD_THRESHOLD;
+    private volatile boolean warmStartEnabled = true;
+    private volatile long offHeapRecordThreshold = DEFAULT_OFF_HEAP_RECORD_THRESHOLD;
 
     /**
      * Builds a repository targeting the default data folder within the project workspace.
      */
     public StudentProfileRepository() {
-        this(Paths.get(System.getProperty("user.dir"), "data", "student-profiles.csv"));
+        this(PersistenceMode.REWRITE);
+    }
+
+    /**
+     * Builds a repository targeting the default data folder using the provided persistence mode.
+     *
+     * @param mode how single-record mutations are written to disk
+     */
+    public StudentProfileRepository(PersistenceMode mode) {
+        this(Paths.get(System.getProperty("user.dir"), "data", "student-profiles.csv"), mode);
     }
 
     StudentProfileRepository(Path storagePath) {
+        this(storagePath, PersistenceMode.REWRITE);
+    }
+
+    StudentProfileRepository(Path storagePath, PersistenceMode mode) {
         this.storagePath = storagePath;
+        this.journalPath = storagePath.resolveSibling(baseName(storagePath) + ".journal");
+        this.compactingJournalPath = storagePath.resolveSibling(baseName(storagePath) + ".journal.compacting");
+        this.warmStartPath = storagePath.resolveSibling(baseName(storagePath) + ".snapshot.bin");
+        this.mode = mode;
+    }
+
+    /**
+     * @return the persistence mode used for single-record mutations
+     */
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the snapshot size from which loads are split into chunks and parsed on the common fork/join pool.
+     *
+     * @param thresholdBytes snapshot size in bytes; {@link Long#MAX_VALUE} disables parallel loading
+     */
+    public void setParallelLoadThreshold(long thresholdBytes) {
+        if (thresholdBytes < 0) {
+            throw new IllegalArgumentException("Parallel load threshold must not be negative");
+        }
+        this.parallelLoadThreshold = thresholdBytes;
+    }
+
+    /**
+     * Sets the snapshot size from which paged sources copy the complete records into an {@link OffHeapProfileStore}
+     * instead of reading them back from the snapshot file.
+     *
+     * @param thresholdBytes snapshot size in bytes; {@link Long#MAX_VALUE} always reads records from the file
+     */
+    public void setOffHeapRecordThreshold(long thresholdBytes) {
+        if (thresholdBytes < 0) {
+            throw new IllegalArgumentException("Off-heap record threshold must not be negative");
+        }
+        this.offHeapRecordThreshold = thresholdBytes;
+    }
+
+    /**
+     * Enables or disables the binary warm-start snapshot. When disabled, loads always parse the CSV snapshot and no binary
+     * copy is written.
+     *
+     * @param enabled whether to read and maintain the binary snapshot
+     */
+    public void setWarmStartEnabled(boolean enabled) {
+        this.warmStartEnabled = enabled;
+    }
+
+    /**
+     * Chooses when snapshot rewrites and journal appends are forced to disk. Defaults to {@link FsyncPolicy#BATCHED}.
+     *
+     * @param policy fsync policy for all files written by this repository
+     */
+    public void setFsyncPolicy(FsyncPolicy policy) {
+        fileWriter.setPolicy(policy);
+    }
+
+    /**
+     * @return time spent forcing this repository's files to disk so far
+     */
+    public FsyncStats getFsyncStats() {
+        return fileWriter.stats();
+    }
+
+    /**
+     * @return the compactor responsible for folding this repository's journal into its snapshot
+     */
+    public ProfileCompactor getCompactor() {
+        ProfileCompactor current = compactor;
+        if (current == null) {
+            synchronized (this) {
+                current = compactor;
+                if (current == null) {
+                    current = new ProfileCompactor(this);
+                    compactor = current;
+                }
+            }
+        }
+        return current;
     }
 
     /**
@@ -40,42 +224,361 @@ public class StudentProfileRepository {
      * @throws IOException when the storage file cannot be read
      */
     public List<StudentProfile> loadAll() throws IOException {
-        if (Files.notExists(storagePath)) {
-            ensureParentDirectory();
-            return new ArrayList<>();
+        FxThreadGuard.checkNotFxThread("loadAll");
+        storeLock.readLock().lock();
+        try {
+            if (isIndexFresh()) {
+                return new ArrayList<>(sortedIndex);
+            }
+        } finally {
+            storeLock.readLock().unlock();
         }
 
-        List<String> lines = Files.readAllLines(storagePath, StandardCharsets.UTF_8);
-        List<StudentProfile> profiles = new ArrayList<>(lines.size());
-        for (String line : lines) {
-            if (line == null || line.isBlank()) {
-                continue;
+        storeLock.writeLock().lock();
+        try {
+            currentIndex();
+            return new ArrayList<>(sortedIndex);
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads all stored student profiles sorted by name, decoding only the requested columns.
+     * <p>
+     * Skipped columns hold empty placeholder values; {@link StudentProfile#hasField(ProfileField)} reports which ones
+     * were loaded, and {@link #hydrate(StudentProfile)} fetches the rest for a single profile. When the name index is
+     * already loaded the complete profiles are returned, since no parsing is needed.
+     * </p>
+     *
+     * @param fields columns to decode; the name is always included
+     * @return list of stored profiles (empty list when none exist)
+     * @throws IOException when the storage file cannot be read
+     */
+    public List<StudentProfile> loadAll(Set<ProfileField> fields) throws IOException {
+        FxThreadGuard.checkNotFxThread("loadAll");
+        Set<ProfileField> requested = normalizeFields(fields);
+        if (requested == ProfileField.all()) {
+            return loadAll();
+        }
+
+        ensureIdsAssigned();
+        storeLock.readLock().lock();
+        try {
+            if (isIndexFresh()) {
+                return new ArrayList<>(sortedIndex);
             }
-            StudentProfile profile = parseLine(line);
-            if (profile != null) {
-                profiles.add(profile);
+            List<StudentProfile> profiles = new ArrayList<>(loadMerged(requested, false).values());
+            NameOrder.sort(profiles);
+            return profiles;
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Opens a paged view of the stored profiles that keeps only each record's position in the snapshot and the given key
+     * columns in memory. Complete records are read back from the snapshot a page at a time; records that so far only
+     * exist in the journals are kept whole, and snapshot records with comments appended in the journal keep only their
+     * key columns until hydrated.
+     * <p>
+     * When the snapshot is at least {@link #setOffHeapRecordThreshold(long) the off-heap threshold} in size, every
+     * complete record is copied into an {@link OffHeapProfileStore} instead. Snapshot records that no journal entry
+     * touches are copied byte for byte; the others are merged with their journal entries and re-encoded, so every row
+     * keeps only its key columns on the heap and fetches return complete records.
+     * </p>
+     *
+     * @param keyFields columns to keep for every record, used for sorting and filtering; the name is always included
+     * @return source listing the stored profiles in name order
+     * @throws IOException when the files cannot be read
+     */
+    public PagedProfileSource openPagedSource(Set<ProfileField> keyFields) throws IOException {
+        FxThreadGuard.checkNotFxThread("openPagedSource");
+        Set<ProfileField> requested = normalizeFields(keyFields);
+        ensureIdsAssigned();
+        storeLock.readLock().lock();
+        try {
+            boolean hasSnapshot = Files.exists(storagePath);
+            long size = hasSnapshot ? Files.size(storagePath) : 0;
+            long modified = hasSnapshot ? modifiedNanos(storagePath) : 0;
+            OffHeapProfileStore.Builder records =
+                    size >= offHeapRecordThreshold ? new OffHeapProfileStore.Builder(size) : null;
+            Set<String> journaledKeys = records != null ? journaledKeys() : Set.of();
+
+            Map<String, StudentProfile> merged = new HashMap<>();
+            Map<StudentProfile, Integer> snapshotRows = new IdentityHashMap<>();
+            long[] snapshotOffsets = new long[1024];
+            int[] snapshotLengths = new int[1024];
+            ProfileRecordParser parser = new ProfileRecordParser();
+            if (hasSnapshot) {
+                try (ProfileRecordReader reader = new ProfileRecordReader(storagePath)) {
+                    while (reader.nextLine()) {
+                        byte[] line = reader.buffer();
+                        StudentProfile key = parser.parse(line, reader.lineStart(), reader.lineEnd(), requested);
+                        if (key == null) {
+                            continue;
+                        }
+                        String name = nameKey(key.getFullName());
+                        if (journaledKeys.contains(name)) {
+                            // Merged with its journal entries below, which needs every column, and stored re-encoded.
+                            merged.put(name, parser.parse(line, reader.lineStart(), reader.lineEnd()));
+                            continue;
+                        }
+                        if (records != null) {
+                            snapshotRows.put(key, records.addSnapshotRecord(line, reader.lineStart(),
+                                    reader.lineEnd()));
+                        } else {
+                            int row = snapshotRows.size();
+                            if (row == snapshotOffsets.length) {
+                                snapshotOffsets = Arrays.copyOf(snapshotOffsets, row * 2);
+                                snapshotLengths = Arrays.copyOf(snapshotLengths, row * 2);
+                            }
+                            snapshotOffsets[row] = reader.lineOffset();
+                            snapshotLengths[row] = reader.lineEnd() - reader.lineStart();
+                            snapshotRows.put(key, row);
+                        }
+                        merged.put(name, key);
+                    }
+                }
             }
+            replayJournal(compactingJournalPath, merged, ProfileField.all());
+            replayJournal(journalPath, merged, ProfileField.all());
+
+            StudentProfile[] keys = merged.values().toArray(new StudentProfile[0]);
+            // The files predate ids; list the rows under the ids the index numbered them with.
+            boolean renumber = unnumberedProfiles > 0 && isIndexFresh();
+            Map<StudentProfile, Integer> rows = new IdentityHashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                StudentProfile key = keys[i];
+                Integer row = snapshotRows.get(key);
+                if (row == null && records != null) {
+                    byte[] encoded = formatLine(key).getBytes(StandardCharsets.UTF_8);
+                    row = records.addJournalRecord(encoded);
+                    key = parser.parse(encoded, 0, encoded.length, requested);
+                }
+                if (renumber) {
+                    StudentProfile indexed = nameIndex.get(nameKey(key.getFullName()));
+                    if (indexed != null) {
+                        key = key.withId(indexed.getId());
+                    }
+                }
+                keys[i] = key;
+                if (row != null) {
+                    rows.put(key, row);
+                }
+            }
+            NameOrder.sort(keys);
+
+            if (records != null) {
+                int[] recordRows = new int[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    recordRows[i] = rows.get(keys[i]);
+                }
+                return new PagedProfileSource(storagePath, size, modified, requested, keys, records.build(),
+                        recordRows);
+            }
+            long[] offsets = new long[keys.length];
+            int[] lengths = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                Integer row = rows.get(keys[i]);
+                offsets[i] = row == null ? -1 : snapshotOffsets[row];
+                lengths[i] = row == null ? 0 : snapshotLengths[row];
+            }
+            return new PagedProfileSource(storagePath, size, modified, requested, keys, offsets, lengths);
+        } finally {
+            storeLock.readLock().unlock();
         }
+    }
 
-        profiles.sort(Comparator.comparing(StudentProfile::getFullName, String.CASE_INSENSITIVE_ORDER));
-        return profiles;
+    /**
+     * Returns the complete stored version of a profile that may have been loaded with only some of its columns.
+     *
+     * @param profile complete or partial profile
+     * @return the complete profile, or an empty optional when it is no longer stored
+     * @throws IOException when the storage file cannot be read
+     */
+    public Optional<StudentProfile> hydrate(StudentProfile profile) throws IOException {
+        FxThreadGuard.checkNotFxThread("hydrate");
+        if (profile.isComplete()) {
+            return Optional.of(profile);
+        }
+
+        String key = nameKey(profile.getFullName());
+        storeLock.readLock().lock();
+        try {
+            if (isIndexFresh()) {
+                return Optional.ofNullable(nameIndex.get(key));
+            }
+            return Optional.ofNullable(scanForRecord(key));
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up a stored profile by name using the case-insensitive name index.
+     *
+     * @param fullName name of the profile to find
+     * @return the stored profile, or an empty optional when no profile uses that name
+     * @throws IOException when the storage file cannot be read
+     */
+    public Optional<StudentProfile> findByName(String fullName) throws IOException {
+        FxThreadGuard.checkNotFxThread("findByName");
+        if (fullName == null || fullName.isBlank()) {
+            return Optional.empty();
+        }
+
+        storeLock.readLock().lock();
+        try {
+            if (isIndexFresh()) {
+                return Optional.ofNullable(nameIndex.get(nameKey(fullName)));
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+
+        storeLock.writeLock().lock();
+        try {
+            return Optional.ofNullable(currentIndex().get(nameKey(fullName)));
+        } finally {
+            storeLock.writeLock().unlock();
+        }
     }
 
     /**
-     * Persists the provided profiles, replacing any previously stored entries.
+     * Looks up a stored profile by id.
+     *
+     * @param id id of the profile to find
+     * @return the stored profile, or an empty optional when no profile has that id
+     * @throws IOException when the storage file cannot be read
+     */
+    public Optional<StudentProfile> findById(int id) throws IOException {
+        FxThreadGuard.checkNotFxThread("findById");
+        storeLock.readLock().lock();
+        try {
+            if (isIndexFresh()) {
+                return Optional.ofNullable(idIndex.get(id));
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+
+        storeLock.writeLock().lock();
+        try {
+            currentIndex();
+            return Optional.ofNullable(idIndex.get(id));
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether a profile with the given name (case-insensitive) is stored.
+     *
+     * @param fullName name to check
+     * @return {@code true} when a stored profile already uses the name
+     * @throws IOException when the storage file cannot be read
+     */
+    public boolean containsName(String fullName) throws IOException {
+        return findByName(fullName).isPresent();
+    }
+
+    /**
+     * Persists the provided profiles, replacing any previously stored entries. Profiles without an id, or sharing one
+     * with another of the profiles, are given a new id.
      *
      * @param profiles collection of profiles to save
      * @throws IOException when the storage file cannot be written
      */
     public void saveAll(List<StudentProfile> profiles) throws IOException {
-        ensureParentDirectory();
-        List<String> sortedLines = profiles.stream()
-                .sorted(Comparator.comparing(StudentProfile::getFullName, String.CASE_INSENSITIVE_ORDER))
-                .map(this::formatLine)
-                .collect(Collectors.toList());
+        FxThreadGuard.checkNotFxThread("saveAll");
+        storeLock.writeLock().lock();
+        try {
+            // Loaded for the ids handed out so far, which must not be handed out again.
+            currentIndex();
+            List<StudentProfile> stored = assignIds(profiles);
+            ensureParentDirectory();
+            Stream<String> sortedLines = Stream.concat(Stream.of(NEXT_ID_HEADER + nextId),
+                    stored.stream().map(this::formatLine));
 
-        Files.write(storagePath, sortedLines, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            nameIndex = null;
+            idIndex = null;
+            sortedIndex = null;
+            fileWriter.replace(storagePath, sortedLines::iterator);
+            Files.deleteIfExists(warmStartPath);
+            Files.deleteIfExists(journalPath);
+            Files.deleteIfExists(compactingJournalPath);
+            snapshotGeneration++;
+
+            setIndex(stored);
+            indexStamp = StoreStamp.capture(storagePath, journalPath, compactingJournalPath);
+            unnumberedProfiles = 0;
+            idsAssigned = true;
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes ids into files saved before profiles had ids, rewriting the snapshot once. Loads number such records in
+     * memory but leave the files alone, so this is the step that changes them; mutations run it first as well. Does
+     * nothing when every record already has an id.
+     *
+     * @return {@code true} when records were numbered and the files rewritten
+     * @throws IOException when the files cannot be read or written
+     */
+    public boolean migrateLegacyIds() throws IOException {
+        FxThreadGuard.checkNotFxThread("migrateLegacyIds");
+        storeLock.writeLock().lock();
+        try {
+            currentIndex();
+            return writeBackIds();
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a new profile unless another profile already uses the same name (case-insensitive). A profile without an
+     * id is stored under the next free id. A profile that has one keeps it, provided it was reserved with
+     * {@link #allocateId()} or has never been handed out; ids that belong, or once belonged, to another profile are
+     * rejected so that they are never reused.
+     *
+     * @param profile profile to add
+     * @return {@code true} when the profile was stored, {@code false} if the name is blank or already taken
+     * @throws IllegalArgumentException when the profile carries an id that was handed out before and not reserved
+     * @throws IOException              when the underlying storage file cannot be accessed
+     */
+    public boolean addProfile(StudentProfile profile) throws IOException {
+        FxThreadGuard.checkNotFxThread("addProfile");
+        if (profile == null || profile.getFullName() == null || profile.getFullName().isBlank()) {
+            return false;
+        }
+
+        storeLock.writeLock().lock();
+        try {
+            Map<String, StudentProfile> index = writableIndex();
+            if (index.containsKey(nameKey(profile.getFullName()))) {
+                return false;
+            }
+
+            int id = profile.getId();
+            if (id > 0 && id < nextId && !reservedIds.contains(id)) {
+                throw new IllegalArgumentException("Id " + id + " was handed out before and cannot be reused");
+            }
+            StudentProfile stored = id > 0 ? profile : profile.withId(nextId);
+            if (mode == PersistenceMode.JOURNALED) {
+                appendJournal(List.of(upsertEntry(stored)));
+                index(stored);
+            } else {
+                List<StudentProfile> profiles = new ArrayList<>(sortedIndex);
+                profiles.add(stored);
+                saveAll(profiles);
+            }
+            return true;
+        } finally {
+            storeLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -85,38 +588,109 @@ public class StudentProfileRepository {
      * @param updatedProfile profile instance containing new values
      * @return {@code true} when the record was replaced, {@code false} if a conflict or missing record prevented the update
      * @throws IOException when the underlying storage file cannot be accessed
+     * @see #updateProfile(int, StudentProfile)
      */
     public boolean updateProfile(String originalName, StudentProfile updatedProfile) throws IOException {
+        FxThreadGuard.checkNotFxThread("updateProfile");
         if (originalName == null || originalName.isBlank() || updatedProfile == null) {
             return false;
         }
 
-        List<StudentProfile> profiles = loadAll();
-        int matchIndex = -1;
-        for (int i = 0; i < profiles.size(); i++) {
-            if (profiles.get(i).getFullName().equalsIgnoreCase(originalName.trim())) {
-                matchIndex = i;
-                break;
-            }
+        storeLock.writeLock().lock();
+        try {
+            StudentProfile previous = currentIndex().get(nameKey(originalName));
+            return previous != null && updateProfile(previous.getId(), updatedProfile);
+        } finally {
+            storeLock.writeLock().unlock();
         }
+    }
 
-        if (matchIndex < 0) {
+    /**
+     * Replaces the stored profile with the given id. The profile keeps its id when renamed, and the new name must not
+     * be used by another profile (case-insensitive).
+     *
+     * @param id             id of the stored profile
+     * @param updatedProfile new values for the profile; its own id is ignored
+     * @return {@code true} when the record was replaced, {@code false} if a conflict or missing record prevented the update
+     * @throws IOException when the underlying storage file cannot be accessed
+     */
+    public boolean updateProfile(int id, StudentProfile updatedProfile) throws IOException {
+        FxThreadGuard.checkNotFxThread("updateProfile");
+        if (updatedProfile == null) {
             return false;
         }
 
-        String updatedName = updatedProfile.getFullName() == null ? "" : updatedProfile.getFullName().trim();
-        for (int i = 0; i < profiles.size(); i++) {
-            if (i == matchIndex) {
-                continue;
+        storeLock.writeLock().lock();
+        try {
+            Map<String, StudentProfile> index = writableIndex();
+            StudentProfile previous = idIndex.get(id);
+            if (previous == null) {
+                return false;
             }
-            if (profiles.get(i).getFullName().equalsIgnoreCase(updatedName)) {
+
+            boolean renamed = !nameKey(previous.getFullName()).equals(nameKey(updatedProfile.getFullName()));
+            if (renamed && index.containsKey(nameKey(updatedProfile.getFullName()))) {
                 return false;
             }
+
+            StudentProfile stored = updatedProfile.withId(id);
+            if (mode == PersistenceMode.JOURNALED) {
+                if (renamed) {
+                    appendJournal(List.of(deleteEntry(previous), upsertEntry(stored)));
+                } else {
+                    appendJournal(List.of(upsertEntry(stored)));
+                }
+                unindex(previous);
+                index(stored);
+                return true;
+            }
+
+            List<StudentProfile> profiles = new ArrayList<>(sortedIndex);
+            profiles.remove(previous);
+            profiles.add(stored);
+            saveAll(profiles);
+            return true;
+        } finally {
+            storeLock.writeLock().unlock();
         }
+    }
 
-        profiles.set(matchIndex, updatedProfile);
-        saveAll(profiles);
-        return true;
+    /**
+     * Appends one comment to a stored profile. In journaled mode only the comment is written, instead of the whole
+     * record.
+     *
+     * @param fullName name of the profile (case-insensitive)
+     * @param comment  comment to append
+     * @return {@code true} when the comment was stored, {@code false} if no profile uses the name
+     * @throws IOException when the underlying storage file cannot be accessed
+     */
+    public boolean appendComment(String fullName, String comment) throws IOException {
+        FxThreadGuard.checkNotFxThread("appendComment");
+        if (fullName == null || fullName.isBlank() || comment == null) {
+            return false;
+        }
+
+        storeLock.writeLock().lock();
+        try {
+            Map<String, StudentProfile> index = writableIndex();
+            StudentProfile previous = index.get(nameKey(fullName));
+            if (previous == null) {
+                return false;
+            }
+
+            if (mode == PersistenceMode.JOURNALED) {
+                appendJournal(List.of(commentEntry(previous.getFullName(), comment)));
+                index(previous.withComment(comment));
+            } else {
+                List<StudentProfile> profiles = new ArrayList<>(sortedIndex);
+                profiles.remove(previous);
+                profiles.add(previous.withComment(comment));
+                saveAll(profiles);
+            }
+            return true;
+        } finally {
+            storeLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -127,37 +701,750 @@ public class StudentProfileRepository {
      * @throws IOException when the storage file cannot be updated
      */
     public boolean deleteByName(String fullName) throws IOException {
+        FxThreadGuard.checkNotFxThread("deleteByName");
         if (fullName == null || fullName.isBlank()) {
             return false;
         }
 
-        List<StudentProfile> profiles = loadAll();
-        boolean removed = profiles.removeIf(profile -> profile.getFullName().equalsIgnoreCase(fullName.trim()));
-        if (removed) {
-            saveAll(profiles);
+        storeLock.writeLock().lock();
+        try {
+            StudentProfile previous = currentIndex().get(nameKey(fullName));
+            return previous != null && deleteById(previous.getId());
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes the profile with the given id. The id is not handed out again.
+     *
+     * @param id id of the profile to delete
+     * @return {@code true} if a profile was removed, {@code false} otherwise
+     * @throws IOException when the storage file cannot be updated
+     */
+    public boolean deleteById(int id) throws IOException {
+        FxThreadGuard.checkNotFxThread("deleteById");
+        storeLock.writeLock().lock();
+        try {
+            Map<String, StudentProfile> index = writableIndex();
+            StudentProfile previous = idIndex.get(id);
+            if (previous == null) {
+                return false;
+            }
+
+            if (mode == PersistenceMode.JOURNALED) {
+                appendJournal(List.of(deleteEntry(previous)));
+                unindex(previous);
+            } else {
+                List<StudentProfile> profiles = new ArrayList<>(sortedIndex);
+                profiles.remove(previous);
+                saveAll(profiles);
+            }
+            return true;
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reserves an id for a profile that is about to be added, as {@link ProfileCache} does before queuing the write.
+     *
+     * @return an id no stored profile has had
+     * @throws IOException when the storage file cannot be read
+     */
+    int allocateId() throws IOException {
+        FxThreadGuard.checkNotFxThread("allocateId");
+        storeLock.writeLock().lock();
+        try {
+            writableIndex();
+            reservedIds.add(nextId);
+            return nextId++;
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the net effect of several queued mutations at once: one journal append in journaled mode, one snapshot
+     * rewrite otherwise. Every id may appear at most once across the three arguments, so the order of the writes does
+     * not matter. Unlike the single-record methods, no conflicts are checked; {@link ProfileCache} validated each
+     * mutation against its own, newer copy of the data when it was queued.
+     *
+     * @param deleted          profiles to delete, by id; ids that are not stored are ignored
+     * @param upserts          profiles to store, replacing any stored profile with the same id, which may have had
+     *                         another name
+     * @param appendedComments comments to append, in order, by profile id; ids that are not stored are ignored
+     * @throws IOException when the storage files cannot be written
+     */
+    void applyBatch(Collection<StudentProfile> deleted, Collection<StudentProfile> upserts,
+                    IntObjectMap<List<String>> appendedComments) throws IOException {
+        FxThreadGuard.checkNotFxThread("applyBatch");
+        storeLock.writeLock().lock();
+        try {
+            writableIndex();
+            // Old names of renamed profiles are deleted like removed profiles. All deletions are written before the
+            // upserts, so replaying the journal by name never deletes a name that another profile in the batch took.
+            List<StudentProfile> removed = new ArrayList<>(deleted.size());
+            for (StudentProfile profile : deleted) {
+                StudentProfile previous = idIndex.get(profile.getId());
+                if (previous != null) {
+                    removed.add(previous);
+                }
+            }
+            for (StudentProfile profile : upserts) {
+                StudentProfile previous = idIndex.get(profile.getId());
+                if (previous != null && !nameKey(previous.getFullName()).equals(nameKey(profile.getFullName()))) {
+                    removed.add(previous);
+                }
+            }
+
+            if (mode == PersistenceMode.JOURNALED) {
+                List<String> entries = new ArrayList<>(removed.size() + upserts.size());
+                for (StudentProfile previous : removed) {
+                    entries.add(deleteEntry(previous));
+                }
+                for (StudentProfile profile : upserts) {
+                    entries.add(upsertEntry(profile));
+                }
+                appendedComments.forEach((id, comments) -> {
+                    StudentProfile previous = idIndex.get(id);
+                    if (previous != null) {
+                        for (String comment : comments) {
+                            entries.add(commentEntry(previous.getFullName(), comment));
+                        }
+                    }
+                });
+                if (entries.isEmpty()) {
+                    return;
+                }
+                appendJournal(entries);
+                applyToIndex(removed, upserts, appendedComments);
+            } else {
+                // saveAll drops the index before writing, so a failed rewrite does not leave it ahead of the files.
+                applyToIndex(removed, upserts, appendedComments);
+                saveAll(new ArrayList<>(sortedIndex));
+            }
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private void applyToIndex(List<StudentProfile> removed, Collection<StudentProfile> upserts,
+                              IntObjectMap<List<String>> appendedComments) {
+        for (StudentProfile previous : removed) {
+            unindex(previous);
+        }
+        for (StudentProfile profile : upserts) {
+            index(profile);
+        }
+        appendedComments.forEach((id, comments) -> {
+            StudentProfile profile = idIndex.get(id);
+            if (profile != null) {
+                for (String comment : comments) {
+                    profile = profile.withComment(comment);
+                }
+                index(profile);
+            }
+        });
+    }
+
+    /**
+     * Folds the journal into a fresh sorted snapshot. Called by {@link ProfileCompactor} on its worker thread.
+     * <p>
+     * The store lock is only held while the journal is rotated aside and while the rebuilt snapshot is renamed into
+     * place; readers and writers keep working against the old snapshot plus both journals in between. The binary copy
+     * of the new snapshot is written after the lock is released.
+     * </p>
+     *
+     * @return {@code true} when a new snapshot was installed
+     * @throws IOException when the snapshot cannot be rebuilt
+     */
+    boolean compact() throws IOException {
+        long generation;
+        int idFloor;
+        storeLock.writeLock().lock();
+        try {
+            if (Files.notExists(compactingJournalPath)) {
+                if (Files.notExists(journalPath)) {
+                    return false;
+                }
+                boolean indexWasFresh = isIndexFresh();
+                Files.move(journalPath, compactingJournalPath, StandardCopyOption.ATOMIC_MOVE);
+                // The files hold the same records under other names, so the index stays valid.
+                if (indexWasFresh) {
+                    indexStamp = StoreStamp.capture(storagePath, journalPath, compactingJournalPath);
+                }
+            }
+            generation = snapshotGeneration;
+            idFloor = nextId;
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+
+        Map<String, StudentProfile> merged = new HashMap<>();
+        for (StudentProfile profile : readSnapshot(ProfileField.all(), false)) {
+            merged.put(nameKey(profile.getFullName()), profile);
+        }
+        int highestId = replayJournal(compactingJournalPath, merged, ProfileField.all());
+        List<StudentProfile> sorted = new ArrayList<>(merged.values());
+        NameOrder.sort(sorted);
+        int next = Math.max(idFloor, Math.max(readNextIdHeader(), highestId + 1));
+        for (StudentProfile profile : sorted) {
+            next = Math.max(next, profile.getId() + 1);
+        }
+        Path compacted = fileWriter.writeTemporary(storagePath,
+                Stream.concat(Stream.of(NEXT_ID_HEADER + next), sorted.stream().map(this::formatLine))::iterator);
+
+        // The rename keeps size and modification time, so the binary copy can be encoded before taking the lock.
+        ByteBuffer warmStart = warmStartEnabled
+                ? ProfileBinarySnapshot.encode(sorted, Files.size(compacted), modifiedNanos(compacted))
+                : null;
+
+        storeLock.writeLock().lock();
+        try {
+            if (generation != snapshotGeneration) {
+                Files.deleteIfExists(compacted);
+                return false;
+            }
+            boolean indexWasFresh = isIndexFresh();
+            fileWriter.commit(compacted, storagePath);
+            Files.deleteIfExists(compactingJournalPath);
+            if (warmStart == null) {
+                Files.deleteIfExists(warmStartPath);
+            }
+            if (indexWasFresh) {
+                indexStamp = StoreStamp.capture(storagePath, journalPath, compactingJournalPath);
+            }
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+
+        // The copy names the size and modification time of the snapshot it was encoded from, so if a rewrite replaced
+        // that snapshot in the meantime, the copy is rejected on read rather than served.
+        if (warmStart != null) {
+            writeWarmStart(warmStart);
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} when the name index is loaded and the files have not changed since
+     * @throws IOException when the files cannot be inspected
+     */
+    boolean isUpToDate() throws IOException {
+        storeLock.readLock().lock();
+        try {
+            return isIndexFresh();
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return file next to the snapshot where the comment search index is kept
+     */
+    Path commentIndexPath() {
+        return storagePath.resolveSibling(baseName(storagePath) + ".comments.idx");
+    }
+
+    /**
+     * Drops the in-memory name index so the next access reads the files again.
+     */
+    void invalidate() {
+        storeLock.writeLock().lock();
+        try {
+            nameIndex = null;
+            idIndex = null;
+            sortedIndex = null;
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return combined size in bytes of the pending journal files
+     */
+    long journalSize() throws IOException {
+        long size = 0;
+        if (Files.exists(journalPath)) {
+            size += Files.size(journalPath);
+        }
+        if (Files.exists(compactingJournalPath)) {
+            size += Files.size(compactingJournalPath);
+        }
+        return size;
+    }
+
+    /**
+     * @return size in bytes of the snapshot file
+     */
+    long snapshotSize() throws IOException {
+        return Files.exists(storagePath) ? Files.size(storagePath) : 0;
+    }
+
+    /**
+     * Reads the snapshot, preferring the binary copy when it still matches the CSV. The binary copy always holds complete
+     * profiles, whatever columns were requested.
+     *
+     * @param refreshWarmStart whether to rewrite the binary copy after a full CSV parse; only set under the write lock
+     */
+    private List<StudentProfile> readSnapshot(Set<ProfileField> fields, boolean refreshWarmStart) throws IOException {
+        if (Files.notExists(storagePath)) {
+            return new ArrayList<>();
+        }
+
+        long size = Files.size(storagePath);
+        long modified = modifiedNanos(storagePath);
+        if (warmStartEnabled) {
+            List<StudentProfile> warm = ProfileBinarySnapshot.read(warmStartPath, size, modified);
+            if (warm != null) {
+                return warm;
+            }
+        }
+
+        List<StudentProfile> profiles = parseSnapshot(fields, size);
+        if (refreshWarmStart && warmStartEnabled && fields == ProfileField.all()) {
+            writeWarmStart(ProfileBinarySnapshot.encode(profiles, size, modified));
+        }
+        return profiles;
+    }
+
+    private List<StudentProfile> parseSnapshot(Set<ProfileField> fields, long size) throws IOException {
+        if (size >= parallelLoadThreshold) {
+            return ParallelProfileLoader.load(storagePath, fields, ForkJoinPool.commonPool());
+        }
+
+        List<StudentProfile> profiles = new ArrayList<>();
+        ProfileRecordParser parser = new ProfileRecordParser();
+        try (ProfileRecordReader reader = new ProfileRecordReader(storagePath)) {
+            while (reader.nextLine()) {
+                StudentProfile profile = parser.parse(reader.buffer(), reader.lineStart(), reader.lineEnd(), fields);
+                if (profile != null) {
+                    profiles.add(profile);
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Writes the binary copy of the snapshot. The copy is only an accelerator, so a failed write is not reported; the
+     * next load simply parses the CSV again.
+     */
+    private void writeWarmStart(ByteBuffer encoded) {
+        try {
+            fileWriter.replace(warmStartPath, encoded);
+        } catch (IOException exception) {
+            try {
+                Files.deleteIfExists(warmStartPath);
+            } catch (IOException ignored) {
+                // A stale copy is rejected on read because its header no longer matches the CSV.
+            }
         }
-        return removed;
     }
 
-    private StudentProfile parseLine(String line) {
-        String[] segments = line.split("\\|", -1);
-        if (segments.length != 10) {
+    private static long modifiedNanos(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reads the snapshot and replays the journals on top of it, keyed by case-folded profile name. A journal that is
+     * being compacted holds older entries than the live journal, so it is replayed first.
+     *
+     * @param refreshWarmStart whether a full CSV parse may rewrite the binary copy; only set under the write lock
+     */
+    private Map<String, StudentProfile> loadMerged(Set<ProfileField> fields, boolean refreshWarmStart)
+            throws IOException {
+        Map<String, StudentProfile> merged = new HashMap<>();
+        for (StudentProfile profile : readSnapshot(fields, refreshWarmStart)) {
+            merged.put(nameKey(profile.getFullName()), profile);
+        }
+        replayJournal(compactingJournalPath, merged, fields);
+        replayJournal(journalPath, merged, fields);
+        return merged;
+    }
+
+    /**
+     * Scans the snapshot and journals for a single record, decoding only the name column of records that do not match.
+     *
+     * @return the fully decoded record, or {@code null} when no stored profile uses the name
+     */
+    private StudentProfile scanForRecord(String key) throws IOException {
+        ProfileRecordParser parser = new ProfileRecordParser();
+        StudentProfile found = null;
+        if (Files.exists(storagePath)) {
+            try (ProfileRecordReader reader = new ProfileRecordReader(storagePath)) {
+                while (found == null && reader.nextLine()) {
+                    found = parseIfMatches(parser, reader.buffer(), reader.lineStart(), reader.lineEnd(), key);
+                }
+            }
+        }
+
+        for (Path journal : List.of(compactingJournalPath, journalPath)) {
+            if (Files.notExists(journal)) {
+                continue;
+            }
+            try (ProfileRecordReader reader = new ProfileRecordReader(journal)) {
+                while (reader.nextLine()) {
+                    byte[] line = reader.buffer();
+                    int start = reader.lineStart();
+                    int end = reader.lineEnd();
+                    if (end - start < 2 || line[start + 1] != FIELD_DELIMITER.charAt(0)) {
+                        continue;
+                    }
+                    if (line[start] == JOURNAL_UPSERT) {
+                        StudentProfile match = parseIfMatches(parser, line, start + 2, end, key);
+                        if (match != null) {
+                            found = match;
+                        }
+                    } else if (line[start] == JOURNAL_DELETE) {
+                        int nameEnd = deletedNameEnd(line, start, end);
+                        if (key.equals(nameKey(parser.decodeString(line, start + 2, nameEnd)))) {
+                            found = null;
+                        }
+                    } else if (line[start] == JOURNAL_COMMENT && found != null) {
+                        int separator = indexOf(line, FIELD_DELIMITER.charAt(0), start + 2, end);
+                        if (separator >= 0 && key.equals(nameKey(parser.decodeString(line, start + 2, separator)))) {
+                            found = found.withComment(parser.decodeString(line, separator + 1, end));
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the name keys of every profile written, deleted or commented on in the journals
+     */
+    private Set<String> journaledKeys() throws IOException {
+        Set<String> keys = new HashSet<>();
+        ProfileRecordParser parser = new ProfileRecordParser();
+        for (Path journal : List.of(compactingJournalPath, journalPath)) {
+            if (Files.notExists(journal)) {
+                continue;
+            }
+            try (ProfileRecordReader reader = new ProfileRecordReader(journal)) {
+                while (reader.nextLine()) {
+                    byte[] line = reader.buffer();
+                    int start = reader.lineStart();
+                    int end = reader.lineEnd();
+                    if (end - start < 2 || line[start + 1] != FIELD_DELIMITER.charAt(0)) {
+                        continue;
+                    }
+                    if (line[start] == JOURNAL_UPSERT) {
+                        StudentProfile nameOnly = parser.parse(line, start + 2, end, NAME_ONLY);
+                        if (nameOnly != null) {
+                            keys.add(nameKey(nameOnly.getFullName()));
+                        }
+                    } else if (line[start] == JOURNAL_DELETE) {
+                        keys.add(nameKey(parser.decodeString(line, start + 2, deletedNameEnd(line, start, end))));
+                    } else if (line[start] == JOURNAL_COMMENT) {
+                        int separator = indexOf(line, FIELD_DELIMITER.charAt(0), start + 2, end);
+                        if (separator >= 0) {
+                            keys.add(nameKey(parser.decodeString(line, start + 2, separator)));
+                        }
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static StudentProfile parseIfMatches(ProfileRecordParser parser, byte[] line, int start, int end,
+                                                 String key) {
+        StudentProfile nameOnly = parser.parse(line, start, end, NAME_ONLY);
+        if (nameOnly == null || !key.equals(nameKey(nameOnly.getFullName()))) {
             return null;
         }
+        return parser.parse(line, start, end);
+    }
+
+    private static Set<ProfileField> normalizeFields(Set<ProfileField> fields) {
+        EnumSet<ProfileField> requested = EnumSet.of(ProfileField.FULL_NAME);
+        requested.addAll(fields);
+        return requested.size() == ProfileField.values().length
+                ? ProfileField.all()
+                : Collections.unmodifiableSet(requested);
+    }
+
+    /**
+     * @return the highest id written or deleted in the journal, or 0
+     */
+    private int replayJournal(Path journal, Map<String, StudentProfile> merged, Set<ProfileField> fields)
+            throws IOException {
+        if (Files.notExists(journal)) {
+            return 0;
+        }
 
-        String fullName = decode(segments[0]);
-        String academicStatus = decode(segments[1]);
-        boolean employed = Boolean.parseBoolean(segments[2]);
-        String jobDetails = decode(segments[3]);
-        List<String> languages = parseList(segments[4]);
-        List<String> databases = parseList(segments[5]);
-        String preferredRole = decode(segments[6]);
-        List<String> comments = parseList(segments[7]);
-        boolean whitelist = Boolean.parseBoolean(segments[8]);
-        boolean blacklist = Boolean.parseBoolean(segments[9]);
+        int highestId = 0;
+        ProfileRecordParser parser = new ProfileRecordParser();
+        try (ProfileRecordReader reader = new ProfileRecordReader(journal)) {
+            while (reader.nextLine()) {
+                byte[] line = reader.buffer();
+                int start = reader.lineStart();
+                int end = reader.lineEnd();
+                if (end - start < 2 || line[start + 1] != FIELD_DELIMITER.charAt(0)) {
+                    continue;
+                }
+                if (line[start] == JOURNAL_UPSERT) {
+                    StudentProfile profile = parser.parse(line, start + 2, end, fields);
+                    if (profile != null) {
+                        merged.put(nameKey(profile.getFullName()), profile);
+                        highestId = Math.max(highestId, profile.getId());
+                    }
+                } else if (line[start] == JOURNAL_DELETE) {
+                    int nameEnd = deletedNameEnd(line, start, end);
+                    merged.remove(nameKey(parser.decodeString(line, start + 2, nameEnd)));
+                    if (nameEnd < end) {
+                        highestId = Math.max(highestId, ProfileRecordParser.parseId(line, nameEnd + 1, end));
+                    }
+                } else if (line[start] == JOURNAL_COMMENT) {
+                    int separator = indexOf(line, FIELD_DELIMITER.charAt(0), start + 2, end);
+                    if (separator >= 0) {
+                        // Profiles loaded without comments are still replaced by a copy, which tells callers tracking
+                        // the instances read from the snapshot (see openPagedSource) that the record changed.
+                        merged.computeIfPresent(nameKey(parser.decodeString(line, start + 2, separator)),
+                                (key, profile) -> profile.withComment(parser.decodeString(line, separator + 1, end)));
+                    }
+                }
+            }
+        }
+        return highestId;
+    }
 
-        return new StudentProfile(fullName, academicStatus, employed, jobDetails, languages, databases, preferredRole,
-                comments, whitelist, blacklist);
+    /**
+     * @return end of the name in a deletion record, which is followed by the deleted id unless written before ids
+     */
+    private static int deletedNameEnd(byte[] line, int start, int end) {
+        int separator = indexOf(line, FIELD_DELIMITER.charAt(0), start + 2, end);
+        return separator >= 0 ? separator : end;
+    }
+
+    private static int indexOf(byte[] line, char value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendJournal(List<String> entries) throws IOException {
+        ensureParentDirectory();
+        fileWriter.append(journalPath, entries);
+        indexStamp = StoreStamp.capture(storagePath, journalPath, compactingJournalPath);
+        getCompactor().onJournalAppended();
+    }
+
+    /**
+     * @return {@code true} when the in-memory name index still reflects the files on disk; caller holds a lock
+     */
+    private boolean isIndexFresh() throws IOException {
+        return nameIndex != null
+                && indexStamp.equals(StoreStamp.capture(storagePath, journalPath, compactingJournalPath));
+    }
+
+    /**
+     * Returns the name index, reloading it and the other indexes from disk when stale. Records without an id are
+     * numbered in memory only; see {@link #writableIndex()}. Caller holds the write lock.
+     */
+    private Map<String, StudentProfile> currentIndex() throws IOException {
+        if (isIndexFresh()) {
+            return nameIndex;
+        }
+
+        nameIndex = null;
+        idIndex = null;
+        sortedIndex = null;
+        ensureParentDirectory();
+        StoreStamp stamp = StoreStamp.capture(storagePath, journalPath, compactingJournalPath);
+        Map<String, StudentProfile> loaded = new HashMap<>();
+        for (StudentProfile profile : readSnapshot(ProfileField.all(), true)) {
+            loaded.put(nameKey(profile.getFullName()), profile);
+        }
+        int highestId = Math.max(replayJournal(compactingJournalPath, loaded, ProfileField.all()),
+                replayJournal(journalPath, loaded, ProfileField.all()));
+        nextId = Math.max(nextId, Math.max(readNextIdHeader(), highestId + 1));
+
+        List<StudentProfile> stored = assignIds(loaded.values());
+        setIndex(stored);
+        indexStamp = stamp;
+        unnumberedProfiles = 0;
+        for (StudentProfile profile : stored) {
+            if (loaded.get(nameKey(profile.getFullName())) != profile) {
+                unnumberedProfiles++;
+            }
+        }
+        idsAssigned = unnumberedProfiles == 0;
+        return nameIndex;
+    }
+
+    /**
+     * Returns the current name index for a mutation, first writing back ids that so far only exist in memory, since
+     * journal entries and later rewrites must refer to the same ids as the snapshot. Caller holds the write lock.
+     */
+    private Map<String, StudentProfile> writableIndex() throws IOException {
+        currentIndex();
+        writeBackIds();
+        return nameIndex;
+    }
+
+    /**
+     * Rewrites the snapshot with the ids of the current index when some of them are not stored yet. Caller holds the
+     * write lock and has refreshed the index.
+     */
+    private boolean writeBackIds() throws IOException {
+        if (unnumberedProfiles == 0) {
+            return false;
+        }
+        LOGGER.log(System.Logger.Level.INFO, "Writing ids of {0} profiles stored without one to {1}",
+                unnumberedProfiles, storagePath);
+        saveAll(new ArrayList<>(sortedIndex));
+        return true;
+    }
+
+    /**
+     * Gives the next free id to every profile without one, or with one another of the profiles already has. Profiles
+     * are numbered in name order, so a file written before ids existed is numbered alphabetically. Caller holds the
+     * write lock.
+     *
+     * @return the profiles with their ids, in name order
+     */
+    private List<StudentProfile> assignIds(Collection<StudentProfile> profiles) {
+        List<StudentProfile> sorted = new ArrayList<>(profiles);
+        NameOrder.sort(sorted);
+        for (StudentProfile profile : sorted) {
+            nextId = Math.max(nextId, profile.getId() + 1);
+        }
+        IntObjectMap<StudentProfile> taken = new IntObjectMap<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            StudentProfile profile = sorted.get(i);
+            if (profile.getId() <= 0 || taken.containsKey(profile.getId())) {
+                profile = profile.withId(nextId++);
+                sorted.set(i, profile);
+            }
+            taken.put(profile.getId(), profile);
+        }
+        return sorted;
+    }
+
+    /**
+     * Replaces the indexes with the given profiles, which are in {@link NameOrder} and have distinct ids. Caller holds
+     * the write lock.
+     */
+    private void setIndex(List<StudentProfile> sorted) {
+        Map<String, StudentProfile> byName = new HashMap<>();
+        IntObjectMap<StudentProfile> byId = new IntObjectMap<>(sorted.size());
+        for (StudentProfile profile : sorted) {
+            byName.put(nameKey(profile.getFullName()), profile);
+            byId.put(profile.getId(), profile);
+            reservedIds.remove(profile.getId());
+        }
+        nameIndex = byName;
+        idIndex = byId;
+        sortedIndex = SortedProfileList.of(sorted);
+    }
+
+    /**
+     * Adds or replaces a profile in the indexes. A different profile holding the same name is dropped, as replaying
+     * the journal would drop it. Caller holds the write lock.
+     */
+    private void index(StudentProfile profile) {
+        StudentProfile sameId = idIndex.get(profile.getId());
+        if (sameId != null && !nameKey(sameId.getFullName()).equals(nameKey(profile.getFullName()))) {
+            unindex(sameId);
+        }
+        StudentProfile displaced = nameIndex.put(nameKey(profile.getFullName()), profile);
+        if (displaced != null) {
+            sortedIndex = sortedIndex.without(displaced);
+            if (displaced.getId() != profile.getId()) {
+                idIndex.remove(displaced.getId());
+            }
+        }
+        idIndex.put(profile.getId(), profile);
+        sortedIndex = sortedIndex.with(profile);
+        reservedIds.remove(profile.getId());
+        nextId = Math.max(nextId, profile.getId() + 1);
+    }
+
+    /**
+     * Removes the profile with the id of {@code profile} from the indexes. Caller holds the write lock.
+     */
+    private void unindex(StudentProfile profile) {
+        StudentProfile stored = idIndex.remove(profile.getId());
+        if (stored != null) {
+            nameIndex.remove(nameKey(stored.getFullName()));
+            sortedIndex = sortedIndex.without(stored);
+        }
+    }
+
+    /**
+     * Makes sure records written before ids existed are numbered in the index before a partial load reads them, so
+     * that the load can be answered from the index. Snapshots written since start with the next-id header, so only
+     * files without it are loaded in full to find out.
+     */
+    private void ensureIdsAssigned() throws IOException {
+        if (idsAssigned) {
+            return;
+        }
+        boolean anyFile = Files.exists(storagePath) || Files.exists(journalPath) || Files.exists(compactingJournalPath);
+        if (!anyFile || readNextIdHeader() > 0) {
+            idsAssigned = true;
+            return;
+        }
+        storeLock.writeLock().lock();
+        try {
+            currentIndex();
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the next id recorded at the top of the snapshot, or 0 when the snapshot is missing or has no header
+     */
+    private int readNextIdHeader() throws IOException {
+        if (Files.notExists(storagePath)) {
+            return 0;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(storagePath, StandardCharsets.UTF_8)) {
+            String first = reader.readLine();
+            if (first == null || !first.startsWith(NEXT_ID_HEADER)) {
+                return 0;
+            }
+            try {
+                return Math.max(0, Integer.parseInt(first.substring(NEXT_ID_HEADER.length())));
+            } catch (NumberFormatException exception) {
+                return 0;
+            }
+        }
+    }
+
+    private String upsertEntry(StudentProfile profile) {
+        return JOURNAL_UPSERT + FIELD_DELIMITER + formatLine(profile);
+    }
+
+    private String deleteEntry(StudentProfile profile) {
+        return JOURNAL_DELETE + FIELD_DELIMITER + encode(profile.getFullName().trim()) + FIELD_DELIMITER
+                + profile.getId();
+    }
+
+    private String commentEntry(String fullName, String comment) {
+        return JOURNAL_COMMENT + FIELD_DELIMITER + encode(fullName.trim()) + FIELD_DELIMITER + encode(comment);
+    }
+
+    /**
+     * @return the case-folded key under which a profile name is indexed
+     */
+    static String nameKey(String fullName) {
+        return fullName == null ? "" : fullName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String baseName(Path path) {
+        String fileName = path.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        return extension > 0 ? fileName.substring(0, extension) : fileName;
     }
 
     private String formatLine(StudentProfile profile) {
@@ -171,7 +1458,8 @@ public class StudentProfileRepository {
                 encode(profile.getPreferredRole()),
                 encodeList(profile.getComments()),
                 Boolean.toString(profile.isWhitelist()),
-                Boolean.toString(profile.isBlacklist()));
+                Boolean.toString(profile.isBlacklist()),
+                Integer.toString(profile.getId()));
     }
 
     private String encode(String value) {
@@ -179,11 +1467,6 @@ public class StudentProfileRepository {
         return Base64.getEncoder().encodeToString(nonNull.getBytes(StandardCharsets.UTF_8));
     }
 
-    private String decode(String encodedValue) {
-        byte[] bytes = Base64.getDecoder().decode(encodedValue);
-        return new String(bytes, StandardCharsets.UTF_8);
-    }
-
     private String encodeList(List<String> values) {
         if (values == null || values.isEmpty()) {
             return "";
@@ -193,25 +1476,41 @@ public class StudentProfileRepository {
                 .collect(Collectors.joining(LIST_DELIMITER));
     }
 
-    private List<String> parseList(String encoded) {
-        if (encoded == null || encoded.isBlank()) {
-            return List.of();
-        }
-        String[] elements = encoded.split(";", -1);
-        List<String> decoded = new ArrayList<>(elements.length);
-        for (String element : elements) {
-            if (element.isEmpty()) {
-                continue;
-            }
-            decoded.add(decode(element));
-        }
-        return decoded;
-    }
-
     private void ensureParentDirectory() throws IOException {
         Path parent = storagePath.getParent();
         if (parent != null && Files.notExists(parent)) {
             Files.createDirectories(parent);
         }
     }
+
+    /**
+     * Size and modification time of the snapshot and journal files, used to detect changes made outside the repository.
+     */
+    private record StoreStamp(long snapshotSize, FileTime snapshotTime, long journalSize, FileTime journalTime,
+                              long compactingSize, FileTime compactingTime) {
+
+        static StoreStamp capture(Path snapshot, Path journal, Path compacting) throws IOException {
+            return new StoreStamp(sizeOf(snapshot), timeOf(snapshot), sizeOf(journal), timeOf(journal),
+                    sizeOf(compacting), timeOf(compacting));
+        }
+
+        private static long sizeOf(Path path) throws IOException {
+            return Files.exists(path) ? Files.size(path) : -1;
+        }
+
+        private static FileTime timeOf(Path path) throws IOException {
+            return Files.exists(path) ? Files.getLastModifiedTime(path) : null;
+        }
+    }
+
+    /**
+     * Controls how single-record mutations ({@link #addProfile}, {@link #updateProfile}, {@link #deleteById}) reach
+     * the disk.
+     */
+    public enum PersistenceMode {
+        /** Every mutation rewrites the full snapshot file. */
+        REWRITE,
+        /** Mutations are appended to a journal next to the snapshot and replayed on load. */
+        JOURNALED
+    }
 }
@@ -0,0 +1,66 @@
+package cs151.application;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ColumnScans} on the {@code jdk.incubator.vector} API, processing as many rows per instruction as the CPU's
+ * preferred vector width holds. Tails shorter than one vector are finished with scalar code.
+ * <p>
+ * Only loaded through {@link ColumnScans#best()}, after checking that the vector module is present.
+ * </p>
+ */
+final class VectorColumnScans implements ColumnScans {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void markEqual(int[] codes, int size, int code, long[] bits) {
+        // The lane count divides 64, so the lanes of one vector always land in the same bitmap word.
+        int bound = INTS.loopBound(size);
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            long equal = IntVector.fromArray(INTS, codes, i).eq(code).toLong();
+            bits[i >>> 6] |= equal << i;
+        }
+        for (; i < size; i++) {
+            if (codes[i] == code) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    @Override
+    public int popCount(long[] bits) {
+        LongVector counts = LongVector.zero(LONGS);
+        int bound = LONGS.loopBound(bits.length);
+        int i = 0;
+        for (; i < bound; i += LONGS.length()) {
+            counts = counts.add(LongVector.fromArray(LONGS, bits, i).lanewise(VectorOperators.BIT_COUNT));
+        }
+        long count = counts.reduceLanes(VectorOperators.ADD);
+        for (; i < bits.length; i++) {
+            count += Long.bitCount(bits[i]);
+        }
+        return (int) count;
+    }
+
+    @Override
+    public int popCountAnd(long[] left, long[] right) {
+        LongVector counts = LongVector.zero(LONGS);
+        int bound = LONGS.loopBound(left.length);
+        int i = 0;
+        for (; i < bound; i += LONGS.length()) {
+            LongVector both = LongVector.fromArray(LONGS, left, i).and(LongVector.fromArray(LONGS, right, i));
+            counts = counts.add(both.lanewise(VectorOperators.BIT_COUNT));
+        }
+        long count = counts.reduceLanes(VectorOperators.ADD);
+        for (; i < left.length; i++) {
+            count += Long.bitCount(left[i] & right[i]);
+        }
+        return (int) count;
+    }
+}
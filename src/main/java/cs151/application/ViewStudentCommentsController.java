@@ -3,8 +3,6 @@ package cs151.application;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 
 import javafx.application.Platform;
@@ -14,6 +12,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
@@ -29,7 +28,7 @@ public class ViewStudentCommentsController {
 
     private static final DateTimeFormatter COMMENT_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private final StudentProfileRepository profileRepository = new StudentProfileRepository();
+    private final AsyncProfileCache asyncProfileCache = AsyncProfileCache.getInstance();
 
     private final ObservableList<String> comments = FXCollections.observableArrayList();
 
@@ -57,6 +56,9 @@ public class ViewStudentCommentsController {
     @FXML
     private Label feedbackLabel;
 
+    @FXML
+    private Button addCommentButton;
+
     @FXML
     private void initialize() {
         commentsListView.setItems(comments);
@@ -84,6 +86,25 @@ public class ViewStudentCommentsController {
     }
 
     public void setProfile(StudentProfile profile) {
+        if (profile.isComplete()) {
+            showProfile(profile);
+            return;
+        }
+        this.currentProfile = profile;
+        studentNameLabel.setText(profile.getFullName());
+        addCommentButton.setDisable(true);
+        feedbackLabel.setText("Loading the stored comments...");
+        feedbackLabel.setStyle("-fx-text-fill: #1976d2;");
+        asyncProfileCache.hydrate(profile).whenCompleteAsync((complete, error) -> {
+            if (currentProfile == profile) {
+                addCommentButton.setDisable(false);
+                // Left partial on failure; onAddComment refuses to save it and showProfile explains why.
+                showProfile(error == null ? complete.orElse(profile) : profile);
+            }
+        }, AsyncProfileCache.FX_THREAD);
+    }
+
+    private void showProfile(StudentProfile profile) {
         this.currentProfile = profile;
         studentNameLabel.setText(profile.getFullName());
         comments.setAll(profile.getComments());
@@ -92,6 +113,9 @@ public class ViewStudentCommentsController {
         }
         commentInputArea.clear();
         clearFeedback();
+        if (!profile.isComplete()) {
+            setError("Unable to load the stored comments. Please try again.");
+        }
     }
 
     public void setReturnState(String nameFilter, String statusFilter, String languageFilter, String databaseFilter,
@@ -112,37 +136,27 @@ public class ViewStudentCommentsController {
             commentInputArea.requestFocus();
             return;
         }
+        if (!currentProfile.isComplete()) {
+            setError("Unable to save the comment. Please try again.");
+            return;
+        }
 
         String stampedComment = String.format(Locale.ENGLISH, "%s\n%s",
                 LocalDate.now().format(COMMENT_DATE_FORMAT), enteredComment);
-        List<String> updatedComments = new ArrayList<>(currentProfile.getComments());
-        updatedComments.add(stampedComment);
-
-        StudentProfile updatedProfile = new StudentProfile(currentProfile.getFullName(),
-                currentProfile.getAcademicStatus(),
-                currentProfile.isEmployed(),
-                currentProfile.getJobDetails(),
-                currentProfile.getProgrammingLanguages(),
-                currentProfile.getDatabases(),
-                currentProfile.getPreferredRole(),
-                updatedComments,
-                currentProfile.isWhitelist(),
-                currentProfile.isBlacklist());
-
-        try {
-            boolean updated = profileRepository.updateProfile(currentProfile.getFullName(), updatedProfile);
-            if (updated) {
-                currentProfile = updatedProfile;
-                comments.setAll(updatedProfile.getComments());
+
+        addCommentButton.setDisable(true);
+        asyncProfileCache.appendComment(currentProfile.getId(), stampedComment).whenCompleteAsync((appended, error) -> {
+            addCommentButton.setDisable(false);
+            if (error == null && appended) {
+                currentProfile = currentProfile.withComment(stampedComment);
+                comments.add(stampedComment);
                 commentInputArea.clear();
                 successMessageOnReturn = String.format(Locale.ENGLISH, "Added comment for %s.", currentProfile.getFullName());
                 setSuccess("Comment added.");
             } else {
                 setError("Unable to save the comment. Please try again.");
             }
-        } catch (IOException exception) {
-            setError("Unable to save the comment. Please try again.");
-        }
+        }, AsyncProfileCache.FX_THREAD);
     }
 
     @FXML
@@ -6,6 +6,9 @@ module cs151.application {
 
     requires com.dlsc.formsfx;
 
+    // Optional: report scans use SIMD kernels when the module is added at launch, scalar ones otherwise.
+    requires static jdk.incubator.vector;
+
     opens cs151.application to javafx.fxml;
     exports cs151.application;
 }
\ No newline at end of file
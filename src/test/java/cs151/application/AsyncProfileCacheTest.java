@@ -0,0 +1,86 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncProfileCacheTest {
+
+    /** Whether the JavaFX toolkit could be started; it cannot without a display. */
+    private static boolean fxAvailable;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void startToolkit() {
+        try {
+            Platform.startup(() -> { });
+            fxAvailable = true;
+        } catch (IllegalStateException alreadyStarted) {
+            fxAvailable = true;
+        } catch (RuntimeException | Error noDisplay) {
+            fxAvailable = false;
+        }
+    }
+
+    private AsyncProfileCache cache() throws IOException {
+        StudentProfileRepository repository = new StudentProfileRepository(directory.resolve("student-profiles.csv"));
+        repository.saveAll(TestProfiles.roster(50));
+        return new AsyncProfileCache(new ProfileCache(repository));
+    }
+
+    @Test
+    void operationsRunOnTheIoThreads() throws Exception {
+        Thread caller = Thread.currentThread();
+        Thread worker = AsyncProfileCache.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+        assertTrue(worker.isVirtual());
+        assertTrue(worker.getName().startsWith("profile-io-"), worker.getName());
+        assertFalse(worker == caller);
+        assertEquals(50, cache().getProfiles().get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void failuresCompleteTheFutureExceptionally() throws IOException {
+        Path notAFile = Files.createDirectories(directory.resolve("programming-languages.csv"));
+        AsyncLanguageRepository languages = new AsyncLanguageRepository(new LanguageRepository(notAFile));
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> languages.loadAll().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failure.getCause());
+    }
+
+    @Test
+    void callbacksAttachedWithFxThreadRunOnTheApplicationThread() throws Exception {
+        assumeTrue(fxAvailable, "the JavaFX toolkit cannot start without a display");
+        AsyncProfileCache cache = cache();
+
+        CompletableFuture<Boolean> onFxThread = cache.getProfiles()
+                .thenApplyAsync(profiles -> Platform.isFxApplicationThread(), AsyncProfileCache.FX_THREAD);
+        assertTrue(onFxThread.get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> failedOnFxThread = AsyncProfileCache.<List<StudentProfile>>submit(() -> {
+            throw new IOException("disk gone");
+        }).handleAsync((profiles, error) -> error != null && Platform.isFxApplicationThread(),
+                AsyncProfileCache.FX_THREAD);
+        assertTrue(failedOnFxThread.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,140 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommentIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private Path indexPath() {
+        return directory.resolve("student-profiles.comments.idx");
+    }
+
+    private static StudentProfile student(String name, String... comments) {
+        return new StudentProfile(name, "Junior", false, "", List.of("Java"), List.of("MySQL"), "Data",
+                List.of(comments), false, false);
+    }
+
+    private static CommentIndex synced(Path path, List<StudentProfile> profiles) {
+        CommentIndex index = new CommentIndex(path);
+        index.reconcile(profiles);
+        return index;
+    }
+
+    @Test
+    void ranksWithBm25() {
+        CommentIndex index = synced(indexPath(), List.of(
+                student("Alice", "java java java", "python projects"),
+                student("Bob", "java and many other words about the internship"),
+                student("Carl", "rust")));
+
+        List<CommentSearchResult> results = index.search("Java", 10);
+
+        assertEquals(List.of("java java java", "java and many other words about the internship"),
+                results.stream().map(CommentSearchResult::comment).toList());
+        double averageLength = (3 + 2 + 8 + 1) / 4.0;
+        double idf = Math.log(1 + (4 - 2 + 0.5) / (2 + 0.5));
+        assertEquals(bm25(idf, 3, 3 / averageLength), results.get(0).score(), 1e-9);
+        assertEquals(bm25(idf, 1, 8 / averageLength), results.get(1).score(), 1e-9);
+
+        // A rare term outweighs a common one; the limit keeps the best.
+        List<CommentSearchResult> rare = index.search("rust java", 1);
+        assertEquals(List.of("rust"), rare.stream().map(CommentSearchResult::comment).toList());
+        assertEquals(List.of(), index.search("cobol", 10));
+    }
+
+    private static double bm25(double idf, int frequency, double lengthRatio) {
+        return idf * frequency * 2.2 / (frequency + 1.2 * (0.25 + 0.75 * lengthRatio));
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceTheIndexedComments() {
+        CommentIndex index = synced(indexPath(), List.of(student("Alice", "likes databases"),
+                student("Bob", "likes compilers")));
+
+        index.update("Alice", student("Alicia", "prefers frontend work"));
+        index.update("Bob", null);
+        index.update(null, student("Carl", "likes databases too"));
+
+        assertEquals(List.of("Carl"), studentNames(index.search("likes", 10)));
+        assertEquals(List.of("Alicia"), studentNames(index.search("frontend", 10)));
+        assertEquals(List.of(), index.search("compilers", 10));
+    }
+
+    @Test
+    void reindexingReusesDocumentSlots() {
+        List<StudentProfile> roster = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            roster.add(student("Student " + i, "first meeting " + i, "follow up " + i));
+        }
+        CommentIndex index = synced(indexPath(), roster);
+        Random random = new Random(3);
+
+        for (int round = 0; round < 5_000; round++) {
+            int student = random.nextInt(roster.size());
+            String[] comments = new String[1 + random.nextInt(2)];
+            for (int i = 0; i < comments.length; i++) {
+                comments[i] = "round " + round + " note " + i;
+            }
+            StudentProfile updated = student("Student " + student, comments);
+            index.update(roster.get(student).getFullName(), updated);
+            roster.set(student, updated);
+        }
+
+        assertEquals(100, index.documentSlots());
+        CommentIndex fresh = synced(directory.resolve("missing.idx"), roster);
+        for (String query : List.of("round", "note 1", "4999", "meeting", "round 17 note 0")) {
+            assertEquals(sorted(fresh.search(query, 200)), sorted(index.search(query, 200)), query);
+        }
+    }
+
+    @Test
+    void reconcileRepairsAStaleIndexFile() throws IOException {
+        List<StudentProfile> before = List.of(student("Alice", "likes databases"), student("Bob", "likes compilers"),
+                student("Carl", "likes rust", "second note"));
+        synced(indexPath(), before).save();
+        List<StudentProfile> after = List.of(student("Alice", "likes databases"), student("Bob", "prefers testing"),
+                student("Dan", "likes rust"), student("Carl", "second note"));
+
+        CommentIndex reloaded = synced(indexPath(), after);
+        CommentIndex fresh = synced(directory.resolve("missing.idx"), after);
+
+        for (String query : List.of("likes", "rust", "compilers", "testing", "second note", "databases")) {
+            // Equal scores may come back in either order, depending on which document ids the comments got.
+            assertEquals(sorted(fresh.search(query, 10)), sorted(reloaded.search(query, 10)), query);
+        }
+        assertTrue(reloaded.search("compilers", 10).isEmpty());
+    }
+
+    @Test
+    void reconcileRebuildsACorruptIndexFile() throws IOException {
+        Files.write(indexPath(), new byte[] {0x43, 0x49, 0x44, 0x58, 0, 0, 0, 1, 0x7f});
+
+        CommentIndex index = synced(indexPath(), List.of(student("Alice", "likes databases")));
+
+        assertEquals(List.of("Alice"), studentNames(index.search("databases", 10)));
+    }
+
+    private static List<CommentSearchResult> sorted(List<CommentSearchResult> results) {
+        List<CommentSearchResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparing(CommentSearchResult::studentName).thenComparing(CommentSearchResult::comment));
+        return sorted;
+    }
+
+    private static List<String> studentNames(List<CommentSearchResult> results) {
+        return results.stream().map(CommentSearchResult::studentName).toList();
+    }
+}
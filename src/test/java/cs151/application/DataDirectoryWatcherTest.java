@@ -0,0 +1,107 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DataDirectoryWatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<Long> reloadTimes = new CopyOnWriteArrayList<>();
+    private final Consumer<ProfileChange> listener = change -> reloadTimes.add(System.nanoTime());
+    private StudentProfileRepository script;
+    private ProfileCacheTest.CountingRepository repository;
+    private ProfileCache cache;
+    private DataDirectoryWatcher watcher;
+
+    @BeforeEach
+    void startWatching() throws IOException {
+        script = new StudentProfileRepository(directory.resolve("student-profiles.csv"),
+                StudentProfileRepository.PersistenceMode.JOURNALED);
+        script.saveAll(List.of(profile("Alice")));
+        repository = new ProfileCacheTest.CountingRepository(directory);
+        cache = new ProfileCache(repository);
+        cache.getProfiles();
+        cache.addChangeListener(listener);
+        repository.loads.set(0);
+        watcher = new DataDirectoryWatcher(directory, cache,
+                new LanguageRepository(directory.resolve("programming-languages.csv")));
+        watcher.start();
+    }
+
+    @AfterEach
+    void stopWatching() {
+        watcher.close();
+    }
+
+    @Test
+    void outsideEditsReachTheListeners() throws Exception {
+        script.addProfile(profile("Bob"));
+
+        awaitReloads(1);
+        assertTrue(cache.containsName("Bob"));
+    }
+
+    @Test
+    void theApplicationsOwnWritesAreNotReloaded() throws Exception {
+        cache.addProfile(profile("Bob"));
+        cache.flushWrites();
+
+        Thread.sleep(DataDirectoryWatcher.DEBOUNCE_MILLIS * 5);
+        assertEquals(0, repository.loads.get());
+        assertEquals(List.of(), reloadTimes);
+    }
+
+    @Test
+    void aBurstOfEventsIsReloadedOnce() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            script.appendComment("Alice", "Edit " + i);
+            Thread.sleep(DataDirectoryWatcher.DEBOUNCE_MILLIS / 10);
+        }
+
+        awaitReloads(1);
+        Thread.sleep(DataDirectoryWatcher.DEBOUNCE_MILLIS * 3);
+        assertEquals(1, repository.loads.get());
+        assertEquals(1, reloadTimes.size());
+        assertEquals(11, cache.findByName("Alice").orElseThrow().getComments().size());
+    }
+
+    @Test
+    void aSteadyStreamOfEventsStillReloadsWithinTheMaximumDelay() throws Exception {
+        long start = System.nanoTime();
+        long streamEnd = start + TimeUnit.MILLISECONDS.toNanos(DataDirectoryWatcher.MAX_DEBOUNCE_MILLIS * 2);
+        int edits = 0;
+        while (System.nanoTime() < streamEnd) {
+            script.appendComment("Alice", "Edit " + edits++);
+            Thread.sleep(DataDirectoryWatcher.DEBOUNCE_MILLIS / 4);
+        }
+
+        // Without the cap, the first reload would wait for the stream to go quiet.
+        assertTrue(reloadTimes.size() >= 1, "no reload while the edits kept coming");
+        long firstReloadMillis = TimeUnit.NANOSECONDS.toMillis(reloadTimes.get(0) - start);
+        assertTrue(firstReloadMillis < DataDirectoryWatcher.MAX_DEBOUNCE_MILLIS + 1_000,
+                "first reload after " + firstReloadMillis + " ms");
+    }
+
+    private void awaitReloads(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (reloadTimes.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(DataDirectoryWatcher.DEBOUNCE_MILLIS / 4);
+        }
+        assertTrue(reloadTimes.size() >= count, "expected " + count + " reloads, saw " + reloadTimes.size());
+    }
+}
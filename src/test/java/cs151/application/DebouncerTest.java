@@ -0,0 +1,86 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class DebouncerTest {
+
+    @Test
+    void aBurstOfRequestsRunsTheActionOnce() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(1);
+        Debouncer debouncer = new Debouncer(50, Runnable::run, () -> {
+            runs.incrementAndGet();
+            ran.countDown();
+        });
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            debouncer.request();
+        }
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "ran before the delay");
+        Thread.sleep(150);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void aRequestDuringTheDelayPostponesTheRun() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        Debouncer debouncer = new Debouncer(200, Runnable::run, ran::countDown);
+
+        debouncer.request();
+        Thread.sleep(120);
+        long postponed = System.nanoTime();
+        debouncer.request();
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - postponed >= TimeUnit.MILLISECONDS.toNanos(200), "ran before the delay");
+    }
+
+    @Test
+    void cancelledRequestsDoNotRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        Debouncer debouncer = new Debouncer(20, Runnable::run, runs::incrementAndGet);
+
+        debouncer.request();
+        debouncer.cancel();
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void aCancellationAfterTheDelayStillApplies() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch handedOver = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        // Holds the run back on the executor, as a busy FX thread would, until the cancellation has been made.
+        Debouncer debouncer = new Debouncer(0, task -> new Thread(() -> {
+            handedOver.countDown();
+            try {
+                cancelled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            task.run();
+        }).start(), runs::incrementAndGet);
+
+        debouncer.request();
+        assertTrue(handedOver.await(5, TimeUnit.SECONDS));
+        debouncer.cancel();
+        cancelled.countDown();
+        Thread.sleep(100);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void rejectsNegativeDelays() {
+        assertThrows(IllegalArgumentException.class, () -> new Debouncer(-1, Runnable::run, () -> { }));
+    }
+}
@@ -0,0 +1,141 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.collections.ListChangeListener;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DiffingObservableListTest {
+
+    private static final Comparator<String> ORDER = Comparator.naturalOrder();
+
+    private final DiffingObservableList<String> list = new DiffingObservableList<>();
+    /** One entry per change event, each listing its sub-changes. */
+    private final List<List<String>> events = new ArrayList<>();
+
+    @BeforeEach
+    void recordChanges() {
+        list.setAll(List.of("a", "c", "e", "g", "i", "k"));
+        list.addListener((ListChangeListener<String>) change -> {
+            List<String> parts = new ArrayList<>();
+            while (change.next()) {
+                if (change.wasReplaced()) {
+                    parts.add("set " + change.getFrom() + " " + change.getRemoved() + "->" + change.getAddedSubList());
+                } else if (change.wasRemoved()) {
+                    parts.add("remove " + change.getFrom() + " " + change.getRemoved());
+                } else if (change.wasAdded()) {
+                    parts.add("add " + change.getFrom() + " " + change.getAddedSubList());
+                }
+            }
+            events.add(parts);
+        });
+    }
+
+    @Test
+    void reportsOnlyTheRowsThatDiffer() {
+        list.replaceSorted(List.of("a", "b", "c", "g", "i", "k"), ORDER);
+
+        assertEquals(List.of("a", "b", "c", "g", "i", "k"), list);
+        assertEquals(1, events.size());
+        assertEquals(List.of("add 1 [b]", "remove 3 [e]"), events.get(0));
+    }
+
+    @Test
+    void swapsInEqualRowsInPlace() {
+        String replacement = new String("e");
+        list.replaceSorted(List.of("a", "c", replacement, "g", "i", "k"), ORDER);
+
+        assertSame(replacement, list.get(2));
+        assertEquals(List.of(List.of("set 2 [e]->[e]")), events);
+    }
+
+    @Test
+    void unchangedContentsFireNothing() {
+        list.replaceSorted(new ArrayList<>(list), ORDER);
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void mostlyNewContentsAreReplacedInOneStep() {
+        list.replaceSorted(List.of("b", "d", "f", "k"), ORDER);
+
+        assertEquals(List.of("b", "d", "f", "k"), list);
+        assertEquals(List.of(List.of("set 0 [a, c, e, g, i, k]->[b, d, f, k]")), events);
+    }
+
+    @Test
+    void setAllIsOneChange() {
+        list.setAll(List.of("x", "y"));
+
+        assertEquals(List.of("x", "y"), list);
+        assertEquals(List.of(List.of("set 0 [a, c, e, g, i, k]->[x, y]")), events);
+    }
+
+    @Test
+    void replayingTheReportedChangeReproducesRandomTargets() {
+        Random random = new Random(16);
+        for (int pair = 0; pair < 20_000; pair++) {
+            List<String> current = randomSortedRow(random);
+            List<String> replacement = randomSortedRow(random);
+            DiffingObservableList<String> diffed = new DiffingObservableList<>();
+            diffed.setAll(current);
+            List<String> replayed = new ArrayList<>(current);
+            AtomicInteger changes = new AtomicInteger();
+            diffed.addListener((ListChangeListener<String>) change -> {
+                changes.incrementAndGet();
+                while (change.next()) {
+                    replayed.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+                    replayed.addAll(change.getFrom(), change.getAddedSubList());
+                }
+            });
+
+            diffed.replaceSorted(replacement, ORDER);
+
+            String context = current + " -> " + replacement;
+            assertEquals(replacement, diffed, context);
+            assertEquals(replacement.equals(current) && sameInstances(current, replacement) ? 0 : 1, changes.get(),
+                    context);
+            for (int i = 0; i < replacement.size(); i++) {
+                assertSame(replacement.get(i), diffed.get(i), context);
+                assertSame(replacement.get(i), replayed.get(i), context);
+            }
+            assertEquals(replacement.size(), replayed.size(), context);
+        }
+    }
+
+    /**
+     * @return up to twelve distinct letters in order, each a fresh instance a quarter of the time so that equal rows are
+     *         sometimes different objects
+     */
+    private static List<String> randomSortedRow(Random random) {
+        List<String> row = new ArrayList<>();
+        int density = random.nextInt(100);
+        for (char letter = 'a'; letter <= 'p' && row.size() < 12; letter++) {
+            if (random.nextInt(100) < density) {
+                String value = String.valueOf(letter).intern();
+                row.add(random.nextInt(4) == 0 ? new String(value) : value);
+            }
+        }
+        return row;
+    }
+
+    private static boolean sameInstances(List<String> left, List<String> right) {
+        for (int i = 0; i < left.size(); i++) {
+            if (left.get(i) != right.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
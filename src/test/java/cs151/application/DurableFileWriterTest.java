@@ -0,0 +1,104 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DurableFileWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void batchedRewritesAreForcedBeforeTheyReplaceTheFile() throws IOException {
+        DurableFileWriter writer = new DurableFileWriter(FsyncPolicy.BATCHED);
+        Path target = directory.resolve("student-profiles.csv");
+
+        writer.replace(target, List.of("first", "second"));
+
+        assertEquals(List.of("first", "second"), Files.readAllLines(target));
+        // The temporary file, and the directory unless the platform refuses to open it.
+        assertTrue(writer.stats().syncs() >= 1);
+        assertEquals(0, writer.stats().deferred());
+        assertEquals(List.of(target), listDirectory());
+    }
+
+    @Test
+    void batchedAppendsAreForcedByTheNextBatch() throws Exception {
+        DurableFileWriter writer = new DurableFileWriter(FsyncPolicy.BATCHED);
+        Path journal = directory.resolve("student-profiles.journal");
+
+        writer.append(journal, List.of("U|entry"));
+
+        assertEquals(1, writer.stats().deferred());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.stats().syncs() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(DurableFileWriter.BATCH_INTERVAL_MILLIS / 5);
+        }
+        assertEquals(1, writer.stats().syncs());
+    }
+
+    @Test
+    void neverPolicyDoesNotForce() throws IOException {
+        DurableFileWriter writer = new DurableFileWriter(FsyncPolicy.NEVER);
+
+        writer.replace(directory.resolve("student-profiles.csv"), List.of("line"));
+
+        assertEquals(0, writer.stats().syncs());
+        assertEquals(1, writer.stats().deferred());
+    }
+
+    @Test
+    void concurrentRewritesOfOneFileDoNotShareATemporaryFile() throws Exception {
+        DurableFileWriter writer = new DurableFileWriter(FsyncPolicy.NEVER);
+        Path target = directory.resolve("student-profiles.csv");
+        List<List<String>> contents = new ArrayList<>();
+        for (int version = 0; version < 8; version++) {
+            String prefix = "version " + version + " line ";
+            contents.add(Stream.iterate(0, line -> line + 1).limit(2_000).map(line -> prefix + line).toList());
+        }
+
+        ExecutorService writers = Executors.newFixedThreadPool(contents.size());
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (List<String> content : contents) {
+                results.add(writers.submit(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        writer.replace(target, content);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        assertTrue(contents.contains(Files.readAllLines(target)));
+        assertEquals(List.of(target), listDirectory());
+    }
+
+    private List<Path> listDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> listed = new ArrayList<>(files.toList());
+            Collections.sort(listed);
+            return listed;
+        }
+    }
+}
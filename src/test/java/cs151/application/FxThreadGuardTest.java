@@ -0,0 +1,96 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FxThreadGuardTest {
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void clearProperty() {
+        System.clearProperty(FxThreadGuard.STRICT_PROPERTY);
+    }
+
+    @FunctionalInterface
+    private interface Io {
+        void run() throws Exception;
+    }
+
+    /**
+     * Registers a new thread as the application thread, then runs {@code io} on it.
+     *
+     * @return what {@code io} threw, or {@code null}
+     */
+    private static Throwable runOnRegisteredThread(Io io) throws InterruptedException {
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            FxThreadGuard.install();
+            try {
+                io.run();
+            } catch (Throwable failure) {
+                thrown.set(failure);
+            }
+        }, "fx-stand-in");
+        thread.start();
+        thread.join();
+        return thrown.get();
+    }
+
+    @Test
+    void strictModeRejectsBlockingIoOnTheApplicationThread() throws Exception {
+        System.setProperty(FxThreadGuard.STRICT_PROPERTY, "true");
+        StudentProfileRepository profiles = new StudentProfileRepository(directory.resolve("student-profiles.csv"));
+        LanguageRepository languages = new LanguageRepository(directory.resolve("programming-languages.csv"));
+
+        assertInstanceOf(IllegalStateException.class, runOnRegisteredThread(profiles::loadAll));
+        assertInstanceOf(IllegalStateException.class,
+                runOnRegisteredThread(() -> profiles.addProfile(TestProfiles.profile("Alice"))));
+        assertInstanceOf(IllegalStateException.class, runOnRegisteredThread(languages::loadAll));
+        assertInstanceOf(IllegalStateException.class,
+                runOnRegisteredThread(() -> languages.saveAll(List.of(new ProgrammingLanguage("Java")))));
+
+        // Other threads are not affected.
+        profiles.addProfile(TestProfiles.profile("Alice"));
+        languages.saveAll(List.of(new ProgrammingLanguage("Java")));
+        assertEquals(1, profiles.loadAll().size());
+    }
+
+    @Test
+    void asyncCallsFromTheApplicationThreadAreAllowed() throws Exception {
+        System.setProperty(FxThreadGuard.STRICT_PROPERTY, "true");
+        LanguageRepository repository = new LanguageRepository(directory.resolve("programming-languages.csv"));
+        repository.saveAll(List.of(new ProgrammingLanguage("Java"), new ProgrammingLanguage("C")));
+        AsyncLanguageRepository languages = new AsyncLanguageRepository(repository);
+        AsyncProfileCache profiles = new AsyncProfileCache(
+                new ProfileCache(new StudentProfileRepository(directory.resolve("student-profiles.csv"))));
+
+        assertNull(runOnRegisteredThread(() -> {
+            assertEquals(List.of("C", "Java"), languages.loadAll().get(5, TimeUnit.SECONDS).stream()
+                    .map(ProgrammingLanguage::getName).toList());
+            languages.saveAll(List.of(new ProgrammingLanguage("Go"))).get(5, TimeUnit.SECONDS);
+            profiles.addProfile(TestProfiles.profile("Alice")).get(5, TimeUnit.SECONDS);
+            assertEquals(1, profiles.getProfiles().get(5, TimeUnit.SECONDS).size());
+        }));
+        assertEquals("Go", repository.loadAll().get(0).getName());
+    }
+
+    @Test
+    void withoutThePropertyNothingIsRejected() throws Exception {
+        LanguageRepository languages = new LanguageRepository(directory.resolve("programming-languages.csv"));
+
+        assertNull(runOnRegisteredThread(() -> languages.saveAll(List.of(new ProgrammingLanguage("Java")))));
+        assertNull(runOnRegisteredThread(languages::loadAll));
+    }
+}
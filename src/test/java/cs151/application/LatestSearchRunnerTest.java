@@ -0,0 +1,169 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LatestSearchRunnerTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void aNewerSearchInterruptsTheRunningOne() throws InterruptedException {
+        List<String> published = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch latestPublished = new CountDownLatch(1);
+        LatestSearchRunner runner = new LatestSearchRunner(executor, Runnable::run);
+
+        runner.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "old";
+        }, published::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        runner.submit(() -> "new", result -> {
+            published.add(result);
+            latestPublished.countDown();
+        });
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "older search kept running");
+        assertTrue(latestPublished.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(List.of("new"), published);
+    }
+
+    @Test
+    void resultsOfSupersededSearchesAreDropped() throws InterruptedException {
+        List<String> published = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        LatestSearchRunner runner = new LatestSearchRunner(executor, Runnable::run);
+
+        // Ignores the interrupt, as a search blocked in uninterruptible work would.
+        runner.submit(() -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+            finished.countDown();
+            return "old";
+        }, published::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        runner.submit(() -> "new", published::add);
+        release.countDown();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(List.of("new"), published);
+    }
+
+    @Test
+    void resultsQueuedBeforeANewerSearchAreDroppedWhenPublished() throws InterruptedException {
+        Queue<Runnable> fxQueue = new ArrayDeque<>();
+        CountDownLatch queued = new CountDownLatch(1);
+        List<String> published = new CopyOnWriteArrayList<>();
+        LatestSearchRunner runner = new LatestSearchRunner(executor, task -> {
+            synchronized (fxQueue) {
+                fxQueue.add(task);
+            }
+            queued.countDown();
+        });
+
+        runner.submit(() -> "old", published::add);
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        runner.cancel();
+        synchronized (fxQueue) {
+            fxQueue.remove().run();
+        }
+        assertEquals(List.of(), published);
+    }
+
+    @Test
+    void resultsArePublishedOnThePublishingExecutor() throws InterruptedException {
+        CountDownLatch published = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        ExecutorService publisher = Executors.newSingleThreadExecutor(task -> new Thread(task, "publisher"));
+        try {
+            LatestSearchRunner runner = new LatestSearchRunner(executor, publisher);
+            runner.submit(() -> "result", result -> {
+                threads.add(Thread.currentThread().getName());
+                published.countDown();
+            });
+            assertTrue(published.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("publisher"), threads);
+        } finally {
+            publisher.shutdownNow();
+        }
+    }
+
+    @Test
+    void typingBurstSearchesOnceForTheLastText() throws InterruptedException {
+        AtomicInteger searches = new AtomicInteger();
+        List<String> published = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        LatestSearchRunner runner = new LatestSearchRunner(executor, Runnable::run);
+        StringBuilder text = new StringBuilder();
+        Debouncer typing = new Debouncer(200, Runnable::run, () -> {
+            String typed;
+            synchronized (text) {
+                typed = text.toString();
+            }
+            runner.submit(() -> {
+                searches.incrementAndGet();
+                return typed;
+            }, result -> {
+                published.add(result);
+                done.countDown();
+            });
+        });
+
+        for (char c : "student".toCharArray()) {
+            synchronized (text) {
+                text.append(c);
+            }
+            typing.request();
+            Thread.sleep(5);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(1, searches.get());
+        assertEquals(List.of("student"), published);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
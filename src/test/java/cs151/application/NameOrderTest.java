@@ -0,0 +1,101 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.names;
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class NameOrderTest {
+
+    private static final List<String> SORTED = List.of("Ada", "ada", "Ádám", "Bob", "Émile", "Eve", "Zoë");
+
+    @Test
+    void ignoresCaseAndSortsAccentsBesideTheirLetters() {
+        List<String> shuffled = new ArrayList<>(List.of("Zoë", "Eve", "Bob", "ada", "Émile", "Ádám", "Ada"));
+        shuffled.sort(NameOrder.NAMES);
+
+        assertEquals(SORTED, shuffled);
+    }
+
+    @Test
+    void profilesSortLikeTheirNames() {
+        List<StudentProfile> profiles = new ArrayList<>();
+        for (String name : SORTED.reversed()) {
+            profiles.add(profile(name));
+        }
+        profiles.sort(NameOrder.PROFILES);
+
+        assertEquals(SORTED, names(profiles));
+    }
+
+    @Test
+    void equalNamesDifferingOnlyInCaseStillCompareUnequal() {
+        assertTrue(NameOrder.NAMES.compare("Ada", "ada") < 0);
+        assertTrue(NameOrder.PROFILES.compare(profile("ada"), profile("Ada")) > 0);
+        assertEquals(0, NameOrder.NAMES.compare("Ada", "Ada"));
+    }
+
+    @Test
+    void plainNamesCompareAsTheCollatorDoes() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.SECONDARY);
+        String alphabet = "  0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        Random random = new Random(5);
+        for (int i = 0; i < 50_000; i++) {
+            String left = randomName(random, alphabet);
+            String right = random.nextInt(4) == 0 ? left.toUpperCase(Locale.ROOT) + " " : randomName(random, alphabet);
+            int order = collator.compare(left, right);
+            int expected = Integer.signum(order != 0 ? order : left.compareTo(right));
+
+            assertEquals(expected, Integer.signum(NameOrder.NAMES.compare(left, right)), left + " / " + right);
+        }
+    }
+
+    @Test
+    void sortingWithoutPlainNamesMatchesTheComparator() {
+        List<StudentProfile> profiles = new ArrayList<>(TestProfiles.roster(500));
+        for (String name : SORTED) {
+            profiles.add(profile(name));
+        }
+        profiles.add(profile("Zoe-Ann O'Neil"));
+        Collections.shuffle(profiles, new Random(3));
+        List<StudentProfile> expected = new ArrayList<>(profiles);
+        expected.sort(NameOrder.PROFILES);
+
+        NameOrder.sort(profiles);
+
+        assertEquals(names(expected), names(profiles));
+    }
+
+    @Test
+    void orderDoesNotDependOnTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("sv-SE"));
+            List<String> names = new ArrayList<>(List.of("Zoë", "Åsa", "Ola", "Öberg"));
+            names.sort(NameOrder.NAMES);
+
+            // Swedish collation would put Å and Ö after Z.
+            assertEquals(List.of("Åsa", "Öberg", "Ola", "Zoë"), names);
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private static String randomName(Random random, String alphabet) {
+        StringBuilder name = new StringBuilder();
+        for (int length = random.nextInt(8); length > 0; length--) {
+            name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return name.toString();
+    }
+}
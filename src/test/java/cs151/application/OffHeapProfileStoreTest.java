@@ -0,0 +1,134 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OffHeapProfileStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotAndJournalRecordsRoundTrip() {
+        List<StudentProfile> roster = new ArrayList<>(TestProfiles.roster(300));
+        // Longer than the store's initial line buffer.
+        roster.set(7, TestProfiles.profile("Long comment", "x".repeat(10_000)));
+        List<StudentProfile> journaled = List.of(TestProfiles.profile("Journal one", "Added later"),
+                TestProfiles.profile("Journal two", "Ünïcödé 李"));
+        byte[] snapshot = snapshotFile(roster);
+
+        OffHeapProfileStore.Builder builder = new OffHeapProfileStore.Builder(snapshot.length);
+        List<StudentProfile> expected = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < roster.size(); i++) {
+            int end = indexOf(snapshot, (byte) '\n', start);
+            if (i == 100) {
+                assertEquals(expected.size(), builder.addJournalRecord(encoded(journaled.get(0), 900)));
+                expected.add(journaled.get(0).withId(900));
+            }
+            assertEquals(expected.size(), builder.addSnapshotRecord(snapshot, start, end));
+            expected.add(roster.get(i).withId(i + 1));
+            start = end + 1;
+        }
+        assertEquals(expected.size(), builder.addJournalRecord(encoded(journaled.get(1), 901)));
+        expected.add(journaled.get(1).withId(901));
+        OffHeapProfileStore store = builder.build();
+
+        assertEquals(expected.size(), store.size());
+        long journalBytes = encoded(journaled.get(0), 900).length + encoded(journaled.get(1), 901).length;
+        assertEquals(snapshot.length + journalBytes + expected.size() * 16L, store.offHeapBytes());
+        for (int row = 0; row < expected.size(); row++) {
+            StudentProfile profile = store.get(row);
+            assertTrue(profile.isComplete(), profile.getFullName());
+            assertTrue(expected.get(row).hasSameContent(profile), profile.getFullName());
+
+            StudentProfile key = store.get(row, EnumSet.of(ProfileField.FULL_NAME, ProfileField.ACADEMIC_STATUS));
+            assertFalse(key.isComplete(), key.getFullName());
+            assertEquals(expected.get(row).getFullName(), key.getFullName());
+            assertEquals(expected.get(row).getAcademicStatus(), key.getAcademicStatus());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(expected.size()));
+    }
+
+    @Test
+    void readsAreUnaffectedWhenTheSnapshotIsRewritten() throws IOException {
+        List<StudentProfile> roster = TestProfiles.roster(200);
+        Path snapshotPath = directory.resolve("student-profiles.csv");
+        Files.write(snapshotPath, snapshotFile(roster));
+        byte[] snapshot = Files.readAllBytes(snapshotPath);
+
+        OffHeapProfileStore.Builder builder = new OffHeapProfileStore.Builder(snapshot.length);
+        int start = 0;
+        for (int row = 0; row < roster.size(); row++) {
+            int end = indexOf(snapshot, (byte) '\n', start);
+            builder.addSnapshotRecord(snapshot, start, end);
+            start = end + 1;
+        }
+        OffHeapProfileStore store = builder.build();
+
+        Files.write(snapshotPath, snapshotFile(TestProfiles.roster(20)));
+        Arrays.fill(snapshot, (byte) 0);
+        for (int row = 0; row < roster.size(); row++) {
+            assertTrue(roster.get(row).withId(row + 1).hasSameContent(store.get(row)), roster.get(row).getFullName());
+        }
+        Files.delete(snapshotPath);
+        assertTrue(roster.get(199).withId(200).hasSameContent(store.get(199)));
+    }
+
+    @Test
+    void memoryIsReleasedOnceTheStoreIsUnreachable() throws InterruptedException {
+        BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct")).findFirst().orElseThrow();
+        long size = 64L << 20;
+        long before = direct.getMemoryUsed();
+
+        OffHeapProfileStore store = new OffHeapProfileStore.Builder(size).build();
+        assertTrue(store.offHeapBytes() >= size);
+        assertTrue(direct.getMemoryUsed() >= before + size, "off-heap records are not counted");
+
+        store = null;
+        for (int attempt = 0; attempt < 100 && direct.getMemoryUsed() >= before + size; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertTrue(direct.getMemoryUsed() < before + size, "records still allocated");
+    }
+
+    private static byte[] snapshotFile(List<StudentProfile> profiles) {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < profiles.size(); i++) {
+            file.append(TestProfiles.record(profiles.get(i), Integer.toString(i + 1))).append('\n');
+        }
+        return file.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encoded(StudentProfile profile, int id) {
+        return TestProfiles.record(profile, Integer.toString(id)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,213 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.names;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javafx.collections.ListChangeListener;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PagedProfileListTest {
+
+    private static final Set<ProfileField> KEY_FIELDS = EnumSet.of(ProfileField.FULL_NAME,
+            ProfileField.ACADEMIC_STATUS, ProfileField.EMPLOYED, ProfileField.PREFERRED_ROLE, ProfileField.WHITELIST,
+            ProfileField.BLACKLIST);
+
+    @TempDir
+    Path directory;
+
+    private StudentProfileRepository repository;
+    private List<StudentProfile> stored;
+    private PagedProfileSource source;
+
+    @BeforeEach
+    void openSource() throws IOException {
+        repository = new StudentProfileRepository(directory.resolve("student-profiles.csv"));
+        repository.saveAll(TestProfiles.roster(3_000));
+        stored = repository.loadAll();
+        source = repository.openPagedSource(KEY_FIELDS);
+    }
+
+    private List<StudentProfile> storedMatching(Predicate<StudentProfile> predicate) {
+        return stored.stream().filter(predicate).toList();
+    }
+
+    @Test
+    void flagAndValueFiltersCombine() {
+        PagedProfileList list = new PagedProfileList();
+        list.setSource(source);
+        list.setFlagFilter(ProfileField.WHITELIST);
+        list.setValueFilter(ProfileField.ACADEMIC_STATUS, "Junior");
+        list.setValueFilter(ProfileField.PREFERRED_ROLE, "Data");
+
+        List<StudentProfile> expected = storedMatching(profile -> profile.isWhitelist()
+                && profile.getAcademicStatus().equals("Junior") && profile.getPreferredRole().equals("Data"));
+        assertEquals(names(expected), names(list));
+
+        list.setValueFilter(ProfileField.PREFERRED_ROLE, null);
+        assertEquals(names(storedMatching(profile -> profile.isWhitelist()
+                && profile.getAcademicStatus().equals("Junior"))), names(list));
+    }
+
+    @Test
+    void countsCoverTheListedRowsOnly() {
+        PagedProfileList list = new PagedProfileList();
+        list.setSource(source);
+        list.setFlagFilter(ProfileField.BLACKLIST);
+
+        List<StudentProfile> listed = storedMatching(StudentProfile::isBlacklist);
+        assertEquals(listed.stream().filter(StudentProfile::isEmployed).count(),
+                list.countListed(ProfileField.EMPLOYED));
+        for (String status : TestProfiles.ACADEMIC_STATUSES) {
+            assertEquals(listed.stream().filter(profile -> profile.getAcademicStatus().equals(status)).count(),
+                    list.countListed(ProfileField.ACADEMIC_STATUS, status), status);
+        }
+        assertEquals(0, list.countListed(ProfileField.PREFERRED_ROLE, "Unknown role"));
+
+        list.setFilter(profile -> profile.getFullName().endsWith("7"));
+        assertEquals(storedMatching(profile -> profile.getFullName().endsWith("7") && profile.isEmployed()).size(),
+                list.countListed(ProfileField.EMPLOYED));
+    }
+
+    @Test
+    void sortsByKeyColumnWithNameAsTieBreak() {
+        PagedProfileList list = new PagedProfileList();
+        list.setSource(source);
+        list.sortBy(ProfileField.ACADEMIC_STATUS, true);
+
+        List<StudentProfile> expected = new ArrayList<>(stored);
+        expected.sort((left, right) -> {
+            int byStatus = left.getAcademicStatus().compareToIgnoreCase(right.getAcademicStatus());
+            return byStatus != 0 ? byStatus : NameOrder.PROFILES.compare(left, right);
+        });
+        assertEquals(names(expected), names(list));
+    }
+
+    @Test
+    void backgroundFetchServesKeysUntilThePageArrives() {
+        Queue<Runnable> fetches = new ArrayDeque<>();
+        Queue<Runnable> results = new ArrayDeque<>();
+        PagedProfileList list = new PagedProfileList(fetches::add, results::add);
+        list.setSource(source);
+        List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<StudentProfile>) change -> {
+            while (change.next()) {
+                changes.add(change.getFrom() + "-" + change.getTo() + (change.wasReplaced() ? " replaced" : ""));
+            }
+        });
+
+        assertFalse(list.get(5).isComplete());
+        list.get(6);
+        assertEquals(1, fetches.size());
+        fetches.remove().run();
+        results.remove().run();
+
+        assertTrue(list.get(5).isComplete());
+        assertEquals(stored.get(5).getComments(), list.get(5).getComments());
+        assertEquals(stored.get(5).getId(), list.get(5).getId());
+        assertEquals(List.of("0-256 replaced"), changes);
+    }
+
+    @Test
+    void offHeapRecordsMatchTheStoredProfilesAfterTheSnapshotIsRewritten() throws IOException {
+        StudentProfileRepository repository = new StudentProfileRepository(
+                directory.resolve("off-heap").resolve("student-profiles.csv"),
+                StudentProfileRepository.PersistenceMode.JOURNALED);
+        repository.setOffHeapRecordThreshold(0);
+        repository.saveAll(TestProfiles.roster(500));
+        List<StudentProfile> saved = repository.loadAll();
+        repository.deleteById(saved.get(3).getId());
+        repository.updateProfile(saved.get(10).getId(), TestProfiles.profile("Renamed student", "Rewritten"));
+        repository.appendComment(saved.get(20).getFullName(), "Appended in the journal");
+        repository.addProfile(TestProfiles.profile("Journal only"));
+        List<StudentProfile> expected = repository.loadAll();
+
+        PagedProfileSource offHeap = repository.openPagedSource(KEY_FIELDS);
+        assertTrue(offHeap.offHeapBytes() > 0);
+        for (int row = 0; row < offHeap.size(); row++) {
+            assertFalse(offHeap.keyAt(row).isComplete(), offHeap.keyAt(row).getFullName());
+        }
+        assertFetchesAll(expected, offHeap);
+
+        repository.saveAll(expected.subList(0, 100));
+        assertFetchesAll(expected, offHeap);
+        assertTrue(offHeap.isStale());
+    }
+
+    private static void assertFetchesAll(List<StudentProfile> expected, PagedProfileSource source) throws IOException {
+        int[] rows = new int[source.size()];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = row;
+        }
+        StudentProfile[] fetched = source.fetch(rows, 0, rows.length);
+        assertEquals(expected.size(), fetched.length);
+        for (int row = 0; row < fetched.length; row++) {
+            assertTrue(fetched[row].isComplete(), fetched[row].getFullName());
+            assertTrue(expected.get(row).hasSameContent(fetched[row]), fetched[row].getFullName());
+        }
+    }
+
+    @Test
+    void reopeningAfterAFewChangesReportsOnlyTheChangedRows() throws IOException {
+        PagedProfileList list = new PagedProfileList();
+        list.setSource(source);
+        List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<StudentProfile>) change -> {
+            while (change.next()) {
+                changes.add(change.wasReplaced() ? "replaced " + change.getFrom()
+                        : change.wasRemoved() ? "removed " + change.getFrom() : "added " + change.getFrom());
+            }
+        });
+
+        StudentProfile edited = stored.stream().skip(40)
+                .filter(profile -> !profile.getAcademicStatus().equals("Junior")).findFirst().orElseThrow();
+        repository.deleteById(stored.get(10).getId());
+        repository.updateProfile(edited.getId(), TestProfiles.profile(edited.getFullName(), "Edited"));
+        repository.addProfile(TestProfiles.profile("Student 2999b"));
+        List<StudentProfile> expected = repository.loadAll();
+        list.setSource(repository.openPagedSource(KEY_FIELDS));
+
+        int editedAt = names(expected).indexOf(edited.getFullName());
+        int addedAt = names(expected).indexOf("Student 2999b");
+        assertEquals(List.of("removed 10", "replaced " + editedAt, "added " + addedAt), changes);
+        assertEquals(names(expected), names(list));
+        assertEquals("Junior", list.get(editedAt).getAcademicStatus());
+
+        changes.clear();
+        list.sortBy(ProfileField.ACADEMIC_STATUS, true);
+        // A new order replaces the whole list.
+        assertEquals(List.of("replaced 0"), changes);
+    }
+
+    @Test
+    void pagesFetchedForAnOlderViewAreDropped() {
+        Queue<Runnable> fetches = new ArrayDeque<>();
+        Queue<Runnable> results = new ArrayDeque<>();
+        PagedProfileList list = new PagedProfileList(fetches::add, results::add);
+        list.setSource(source);
+
+        list.get(0);
+        fetches.remove().run();
+        list.setFlagFilter(ProfileField.WHITELIST);
+        results.remove().run();
+
+        assertFalse(list.get(0).isComplete());
+        assertEquals(1, fetches.size());
+        assertNull(results.peek());
+    }
+}
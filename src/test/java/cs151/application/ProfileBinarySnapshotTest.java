@@ -0,0 +1,108 @@
+package cs151.application;
+
+import static cs151.application.StudentProfileRepositoryTest.assertSameProfiles;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileBinarySnapshotTest {
+
+    private static final long SOURCE_SIZE = 1234;
+    private static final long SOURCE_MODIFIED = 5678;
+
+    @TempDir
+    Path directory;
+
+    private static List<StudentProfile> numbered(List<StudentProfile> profiles) {
+        List<StudentProfile> numbered = new ArrayList<>(profiles.size());
+        for (int i = 0; i < profiles.size(); i++) {
+            numbered.add(profiles.get(i).withId(i + 1));
+        }
+        return numbered;
+    }
+
+    private Path write(List<StudentProfile> profiles) throws IOException {
+        Path path = directory.resolve("profiles.bin");
+        ByteBuffer encoded = ProfileBinarySnapshot.encode(profiles, SOURCE_SIZE, SOURCE_MODIFIED);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+        }
+        return path;
+    }
+
+    private static void flipLastByte(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+    }
+
+    @Test
+    void roundTripKeepsEveryColumnAndId() throws IOException {
+        List<StudentProfile> profiles = numbered(TestProfiles.roster(500));
+        profiles.add(new StudentProfile("Zoë été", "Senior", true, "Café ☕", List.of(), List.of(),
+                "Other", List.of("line one\nline two"), true, true).withId(501));
+
+        List<StudentProfile> read = ProfileBinarySnapshot.read(write(profiles), SOURCE_SIZE, SOURCE_MODIFIED);
+
+        assertNotNull(read);
+        assertSameProfiles(profiles, read);
+    }
+
+    @Test
+    void copyOfAnotherSnapshotIsIgnored() throws IOException {
+        Path path = write(numbered(TestProfiles.roster(10)));
+
+        assertNull(ProfileBinarySnapshot.read(path, SOURCE_SIZE + 1, SOURCE_MODIFIED));
+        assertNull(ProfileBinarySnapshot.read(path, SOURCE_SIZE, SOURCE_MODIFIED + 1));
+        assertNull(ProfileBinarySnapshot.read(directory.resolve("missing.bin"), SOURCE_SIZE, SOURCE_MODIFIED));
+    }
+
+    @Test
+    void damagedBodyFailsTheChecksum() throws IOException {
+        Path path = write(numbered(TestProfiles.roster(10)));
+        flipLastByte(path);
+
+        assertNull(ProfileBinarySnapshot.read(path, SOURCE_SIZE, SOURCE_MODIFIED));
+    }
+
+    @Test
+    void truncatedFileIsIgnored() throws IOException {
+        Path path = write(numbered(TestProfiles.roster(10)));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, 20));
+
+        assertNull(ProfileBinarySnapshot.read(path, SOURCE_SIZE, SOURCE_MODIFIED));
+    }
+
+    @Test
+    void repositoryFallsBackToTheCsvWhenTheCopyIsDamaged() throws IOException {
+        Path storagePath = directory.resolve("student-profiles.csv");
+        Path warmStartPath = directory.resolve("student-profiles.snapshot.bin");
+        new StudentProfileRepository(storagePath).saveAll(TestProfiles.roster(200));
+        List<StudentProfile> expected = new StudentProfileRepository(storagePath).loadAll();
+        assertTrue(Files.exists(warmStartPath));
+
+        flipLastByte(warmStartPath);
+        StudentProfileRepository reopened = new StudentProfileRepository(storagePath);
+
+        assertSameProfiles(expected, reopened.loadAll());
+        assertSameProfiles(expected, ProfileBinarySnapshot.read(warmStartPath, Files.size(storagePath),
+                Files.getLastModifiedTime(storagePath).to(TimeUnit.NANOSECONDS)));
+    }
+}
@@ -0,0 +1,173 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.names;
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private StudentProfileRepository journaled() {
+        return new StudentProfileRepository(directory.resolve("student-profiles.csv"),
+                StudentProfileRepository.PersistenceMode.JOURNALED);
+    }
+
+    @Test
+    void mutationsKeepTheProfilesInNameOrder() throws Exception {
+        journaled().saveAll(TestProfiles.roster(300));
+        ProfileCache cache = new ProfileCache(journaled());
+        Random random = new Random(5);
+
+        for (int round = 0; round < 500; round++) {
+            List<StudentProfile> current = cache.getProfiles();
+            StudentProfile picked = current.get(random.nextInt(current.size()));
+            switch (random.nextInt(4)) {
+                case 0 -> assertTrue(cache.deleteById(picked.getId()));
+                case 1 -> assertTrue(cache.addProfile(profile("Added " + round)).isPresent());
+                case 2 -> assertTrue(cache.updateProfile(picked.getId(), profile("Renamed " + round)));
+                default -> assertTrue(cache.appendComment(picked.getId(), "Note " + round));
+            }
+            List<StudentProfile> sorted = new ArrayList<>(cache.getProfiles());
+            sorted.sort(NameOrder.PROFILES);
+            assertEquals(names(sorted), names(cache.getProfiles()), "round " + round);
+        }
+        cache.whenWritten().get();
+        assertEquals(names(cache.getProfiles()), names(journaled().loadAll()));
+    }
+
+    @Test
+    void reloadReportsOutsideEditsByIdAndKeepsUnchangedInstances() throws IOException {
+        StudentProfileRepository script = journaled();
+        script.saveAll(List.of(profile("Alice"), profile("Bob"), profile("Carl")));
+        ProfileCache cache = new ProfileCache(journaled());
+        List<StudentProfile> before = cache.getProfiles();
+        List<ProfileChange> notified = new ArrayList<>();
+        Consumer<ProfileChange> listener = notified::add;
+        cache.addChangeListener(listener);
+
+        int bobId = script.findByName("Bob").orElseThrow().getId();
+        int carlId = script.findByName("Carl").orElseThrow().getId();
+        script.addProfile(profile("Dan"));
+        script.updateProfile(bobId, profile("Zed", "Renamed"));
+        script.deleteById(carlId);
+        ProfileChange change = cache.reloadIfChanged();
+
+        assertEquals(List.of("Dan"), names(change.added()));
+        assertEquals(List.of(carlId), change.removed().stream().map(StudentProfile::getId).toList());
+        assertEquals(List.of(bobId), change.updated().stream().map(StudentProfile::getId).toList());
+        assertEquals(List.of("Zed"), names(change.updated()));
+        assertEquals(List.of(change), notified);
+        assertEquals(List.of("Alice", "Dan", "Zed"), names(cache.getProfiles()));
+        assertSame(before.get(0), cache.getProfiles().get(0));
+        assertTrue(cache.findByName("Bob").isEmpty());
+        assertEquals("Zed", cache.findById(bobId).orElseThrow().getFullName());
+
+        assertSame(ProfileChange.NONE, cache.reloadIfChanged());
+        assertEquals(1, notified.size());
+    }
+
+    @Test
+    void reloadIgnoresTheCachesOwnWrites() throws IOException {
+        journaled().saveAll(List.of(profile("Alice")));
+        CountingRepository repository = new CountingRepository(directory);
+        ProfileCache cache = new ProfileCache(repository);
+        assertSame(ProfileChange.NONE, cache.reloadIfChanged());
+        cache.getProfiles();
+
+        cache.addProfile(profile("Bob"));
+        cache.appendComment("Alice", "Follow-up");
+        cache.flushWrites();
+        repository.loads.set(0);
+
+        assertSame(ProfileChange.NONE, cache.reloadIfChanged());
+        assertEquals(0, repository.loads.get());
+    }
+
+    @Test
+    void reloadStoresQueuedWritesBeforeComparing() throws IOException {
+        StudentProfileRepository script = journaled();
+        script.saveAll(List.of(profile("Alice")));
+        ProfileCache cache = new ProfileCache(journaled());
+        cache.getProfiles();
+
+        cache.addProfile(profile("Bob"));
+        script.appendComment("Alice", "Edited by a script");
+        ProfileChange change = cache.reloadIfChanged();
+
+        // Bob was still queued when the files changed; he is written first rather than reported as removed.
+        assertEquals(List.of(), change.added());
+        assertEquals(List.of(), change.removed());
+        assertEquals(List.of("Alice"), names(change.updated()));
+        assertEquals(List.of("Alice", "Bob"), names(cache.getProfiles()));
+        assertEquals(List.of("Alice", "Bob"), names(journaled().loadAll()));
+    }
+
+    @Test
+    void lookupsByNameNeverMissWhileTheCacheIsRefreshed() throws Exception {
+        journaled().saveAll(TestProfiles.roster(2_000));
+        ProfileCache cache = new ProfileCache(journaled());
+        cache.getProfiles();
+
+        AtomicBoolean refreshing = new AtomicBoolean(true);
+        CompletableFuture<Void> refresher = CompletableFuture.runAsync(() -> {
+            try {
+                for (int round = 0; round < 50; round++) {
+                    cache.refresh();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                refreshing.set(false);
+            }
+        });
+        AtomicInteger misses = new AtomicInteger();
+        int lookups = 0;
+        while (refreshing.get() || lookups == 0) {
+            String name = "Student " + lookups++ % 2_000;
+            if (!cache.containsName(name) || cache.findByName(name.toUpperCase()).isEmpty()) {
+                misses.incrementAndGet();
+            }
+        }
+        refresher.join();
+
+        assertEquals(0, misses.get());
+        for (StudentProfile profile : cache.getProfiles()) {
+            assertTrue(cache.findByName(profile.getFullName()).isPresent(), profile.getFullName());
+        }
+    }
+
+    /**
+     * Counts the full loads, which is what a reload costs.
+     */
+    static final class CountingRepository extends StudentProfileRepository {
+
+        final AtomicInteger loads = new AtomicInteger();
+
+        CountingRepository(Path directory) {
+            super(directory.resolve("student-profiles.csv"), PersistenceMode.JOURNALED);
+        }
+
+        @Override
+        public List<StudentProfile> loadAll() throws IOException {
+            loads.incrementAndGet();
+            return super.loadAll();
+        }
+    }
+}
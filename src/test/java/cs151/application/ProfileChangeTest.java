@@ -0,0 +1,63 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.names;
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ProfileChangeTest {
+
+    private final StudentProfile alice = profile("Alice").withId(1);
+    private final StudentProfile bob = profile("Bob").withId(2);
+    private final StudentProfile carl = profile("Carl").withId(3);
+    private final List<StudentProfile> target = new ArrayList<>(List.of(alice, bob, carl));
+
+    @Test
+    void removesAddsAndRepositionsRenamedProfiles() {
+        StudentProfile renamed = profile("Zoe", "Renamed").withId(1);
+        StudentProfile dan = profile("dan").withId(4);
+
+        new ProfileChange(List.of(dan), List.of(bob), List.of(renamed)).applyTo(target, profile -> true);
+
+        assertEquals(List.of("Carl", "dan", "Zoe"), names(target));
+        assertSame(renamed, target.get(2));
+    }
+
+    @Test
+    void updatedProfilesReplaceTheRowWithTheSameId() {
+        StudentProfile edited = profile("Bob", "Edited").withId(2);
+
+        new ProfileChange(List.of(), List.of(), List.of(edited)).applyTo(target, profile -> true);
+
+        assertEquals(List.of("Alice", "Bob", "Carl"), names(target));
+        assertSame(edited, target.get(1));
+    }
+
+    @Test
+    void filterKeepsProfilesOutAndDropsUpdatedOnesThatNoLongerMatch() {
+        StudentProfile edited = profile("Bob", "Edited").withId(2);
+        StudentProfile dan = profile("Dan").withId(4);
+
+        new ProfileChange(List.of(dan), List.of(), List.of(edited)).applyTo(target,
+                profile -> profile.getComments().contains("First meeting"));
+
+        assertEquals(List.of("Alice", "Carl", "Dan"), names(target));
+    }
+
+    @Test
+    void emptyChangeLeavesTheListAlone() {
+        assertTrue(ProfileChange.NONE.isEmpty());
+        assertFalse(new ProfileChange(List.of(), List.of(alice), List.of()).isEmpty());
+
+        ProfileChange.NONE.applyTo(target, profile -> false);
+
+        assertEquals(List.of(alice, bob, carl), target);
+    }
+}
@@ -0,0 +1,72 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+class ProfileColumnsTest {
+
+    // Not a multiple of 64 or of any vector length, so the kernels' tails are exercised.
+    private final StudentProfile[] profiles = TestProfiles.roster(1_003).toArray(new StudentProfile[0]);
+
+    private ProfileColumns columns(ColumnScans scans) {
+        ProfileColumns copied = ProfileColumns.of(profiles);
+        return new ProfileColumns(copied.size(), codes(ProfileField.ACADEMIC_STATUS),
+                codes(ProfileField.PREFERRED_ROLE), copied.flagBits(ProfileField.EMPLOYED),
+                copied.flagBits(ProfileField.WHITELIST), copied.flagBits(ProfileField.BLACKLIST), scans);
+    }
+
+    private int[] codes(ProfileField column) {
+        int[] codes = new int[profiles.length];
+        for (int row = 0; row < profiles.length; row++) {
+            codes[row] = column == ProfileField.ACADEMIC_STATUS
+                    ? profiles[row].academicStatusId() : profiles[row].preferredRoleId();
+        }
+        return codes;
+    }
+
+    private long expectedCount(Predicate<StudentProfile> predicate) {
+        return List.of(profiles).stream().filter(predicate).count();
+    }
+
+    @Test
+    void scalarKernelsMatchThePerProfileValues() {
+        ProfileColumns columns = columns(new ScalarColumnScans());
+        long[] whitelisted = columns.flagBits(ProfileField.WHITELIST);
+
+        assertEquals(expectedCount(StudentProfile::isWhitelist), columns.count(whitelisted));
+        assertEquals(expectedCount(profile -> profile.isWhitelist() && profile.isEmployed()),
+                columns.countWithin(whitelisted, ProfileField.EMPLOYED));
+        for (String status : TestProfiles.ACADEMIC_STATUSES) {
+            assertEquals(expectedCount(profile -> profile.getAcademicStatus().equals(status)),
+                    columns.count(columns.matching(ProfileField.ACADEMIC_STATUS, status)), status);
+        }
+        assertEquals(expectedCount(profile -> profile.isWhitelist() && profile.getPreferredRole().equals("Data")),
+                columns.countWithin(whitelisted, ProfileField.PREFERRED_ROLE, "Data"));
+        assertEquals(0, columns.count(columns.matching(ProfileField.PREFERRED_ROLE, "Unknown role")));
+    }
+
+    @Test
+    void vectorKernelsAgreeWithScalarOnes() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "jdk.incubator.vector is not part of the test image");
+        ProfileColumns scalar = columns(new ScalarColumnScans());
+        ProfileColumns vector = columns(new VectorColumnScans());
+
+        for (String role : TestProfiles.PREFERRED_ROLES) {
+            assertArrayEquals(scalar.matching(ProfileField.PREFERRED_ROLE, role),
+                    vector.matching(ProfileField.PREFERRED_ROLE, role), role);
+        }
+        long[] employed = scalar.flagBits(ProfileField.EMPLOYED);
+        assertEquals(scalar.count(employed), vector.count(employed));
+        assertEquals(scalar.countWithin(employed, ProfileField.BLACKLIST),
+                vector.countWithin(employed, ProfileField.BLACKLIST));
+        assertEquals(scalar.countWithin(employed, ProfileField.ACADEMIC_STATUS, "Senior"),
+                vector.countWithin(employed, ProfileField.ACADEMIC_STATUS, "Senior"));
+    }
+}
@@ -0,0 +1,101 @@
+package cs151.application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times {@link ProfileFilterIndex} queries against the linear scan the search screens did before it, on a synthetic
+ * roster of a million profiles by default. Each query is also timed right after a change to the index, since
+ * single-attribute queries are otherwise answered from a cached result.
+ * <p>
+ * Not a test; run it from the test classpath with {@code java cs151.application.ProfileFilterBenchmark [size]}.
+ * </p>
+ */
+public final class ProfileFilterBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    private ProfileFilterBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<StudentProfile> roster = TestProfiles.roster(size);
+        List<StudentProfile> profiles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            profiles.add(roster.get(i).withId(i + 1));
+        }
+
+        long start = System.nanoTime();
+        ProfileFilterIndex index = new ProfileFilterIndex();
+        index.rebuild(profiles);
+        System.out.printf("%d profiles, index built in %.0f ms%n", size, (System.nanoTime() - start) / 1e6);
+
+        compare(index, profiles, "", "Senior", "", "", "");
+        compare(index, profiles, "", "Junior", "Rust", "", "Data");
+        compare(index, profiles, "", "Graduate", "Go", "Oracle", "Front-End");
+        compare(index, profiles, "t 4", "", "", "", "");
+        compare(index, profiles, "nt 99999", "", "", "", "");
+        compare(index, profiles, "12345", "", "", "", "");
+        compare(index, profiles, "ent 77", "Senior", "Java", "", "");
+        compare(index, profiles, "zzz", "", "", "", "");
+    }
+
+    private static void compare(ProfileFilterIndex index, List<StudentProfile> profiles, String fragment,
+                                String status, String language, String database, String role) {
+        long changed = Long.MAX_VALUE;
+        long indexed = Long.MAX_VALUE;
+        long scanned = Long.MAX_VALUE;
+        int matches = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            // Re-adding a profile is a change to the index, which drops cached results.
+            index.add(profiles.get(round));
+            long start = System.nanoTime();
+            matches = index.query(fragment, status, language, database, role).size();
+            changed = Math.min(changed, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            index.query(fragment, status, language, database, role);
+            indexed = Math.min(indexed, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int scannedMatches = scan(profiles, fragment, status, language, database, role).size();
+            scanned = Math.min(scanned, System.nanoTime() - start);
+            if (scannedMatches != matches) {
+                throw new IllegalStateException("index found " + matches + ", scan found " + scannedMatches);
+            }
+        }
+        System.out.printf("%-45s %7d matches: index %5.2f ms, after a change %5.2f ms, scan %6.2f ms%n",
+                String.join("/", "'" + fragment + "'", status, language, database, role), matches, indexed / 1e6,
+                changed / 1e6, scanned / 1e6);
+    }
+
+    /**
+     * The filtering the search screens did before the index: every profile, every filter, case-insensitively.
+     */
+    private static List<StudentProfile> scan(List<StudentProfile> profiles, String fragment, String status,
+                                             String language, String database, String role) {
+        String foldedFragment = fragment.toLowerCase(Locale.ROOT);
+        List<StudentProfile> matches = new ArrayList<>();
+        for (StudentProfile profile : profiles) {
+            if (profile.getFullName().toLowerCase(Locale.ROOT).contains(foldedFragment)
+                    && (status.isBlank() || profile.getAcademicStatus().equalsIgnoreCase(status))
+                    && (language.isBlank() || containsIgnoreCase(profile.getProgrammingLanguages(), language))
+                    && (database.isBlank() || containsIgnoreCase(profile.getDatabases(), database))
+                    && (role.isBlank() || profile.getPreferredRole().equalsIgnoreCase(role))) {
+                matches.add(profile);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean containsIgnoreCase(List<String> values, String wanted) {
+        for (String value : values) {
+            if (value.equalsIgnoreCase(wanted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
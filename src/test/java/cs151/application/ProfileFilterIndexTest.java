@@ -0,0 +1,192 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks {@link ProfileFilterIndex} against a linear scan over the same random profiles.
+ */
+class ProfileFilterIndexTest {
+
+    private static final String[] LANGUAGES = {"Java", "python", "C++", "Go", "Cobol", ""};
+    private static final String[] DATABASES = {"MySQL", "postgres", "SQLite", "Db2", ""};
+
+    private final Random random = new Random(7);
+
+    @Test
+    void matchesALinearScanOnRandomProfiles() {
+        List<StudentProfile> profiles = withIds(withRepetitiveNames(TestProfiles.roster(3_000)));
+        ProfileFilterIndex index = new ProfileFilterIndex();
+        index.rebuild(profiles);
+
+        for (int query = 0; query < 2_000; query++) {
+            assertQueryMatchesScan(index, profiles);
+        }
+    }
+
+    @Test
+    void matchesALinearScanAfterIncrementalChanges() {
+        List<StudentProfile> roster = withIds(withRepetitiveNames(TestProfiles.roster(4_000)));
+        List<StudentProfile> profiles = new ArrayList<>(roster.subList(0, 1_000));
+        ProfileFilterIndex index = new ProfileFilterIndex();
+        index.rebuild(profiles);
+        int nextProfile = profiles.size();
+
+        for (int step = 0; step < 3_000; step++) {
+            int operation = random.nextInt(3);
+            if (operation == 0 && nextProfile < roster.size()) {
+                StudentProfile added = roster.get(nextProfile++);
+                profiles.add(added);
+                index.add(added);
+            } else if (operation == 1 && !profiles.isEmpty()) {
+                StudentProfile removed = profiles.remove(random.nextInt(profiles.size()));
+                index.remove(removed.getId());
+            } else if (!profiles.isEmpty()) {
+                // An edit keeps the id but may change every indexed column.
+                int position = random.nextInt(profiles.size());
+                StudentProfile donor = roster.get(random.nextInt(roster.size()));
+                StudentProfile edited = donor.withId(profiles.get(position).getId());
+                profiles.set(position, edited);
+                index.add(edited);
+            }
+            if (step % 10 == 0) {
+                assertEquals(profiles.size(), index.size());
+                assertQueryMatchesScan(index, profiles);
+            }
+        }
+    }
+
+    @Test
+    void singleAttributeResultsFollowChanges() {
+        List<StudentProfile> profiles = withIds(TestProfiles.roster(500));
+        ProfileFilterIndex index = new ProfileFilterIndex();
+        index.rebuild(profiles);
+        List<StudentProfile> seniors = index.query("", "Senior", "", "", "");
+        assertSame(seniors, index.query("", " senior ", null, "", " "));
+
+        StudentProfile senior = seniors.get(0);
+        StudentProfile junior = profiles.stream()
+                .filter(profile -> profile.getAcademicStatus().equals("Junior")).findFirst().orElseThrow();
+        index.remove(senior.getId());
+        index.add(junior.withId(senior.getId()));
+
+        List<Integer> expected = new ArrayList<>();
+        for (StudentProfile profile : seniors) {
+            if (profile != senior) {
+                expected.add(profile.getId());
+            }
+        }
+        List<Integer> actual = new ArrayList<>();
+        index.query("", "Senior", "", "", "").forEach(profile -> actual.add(profile.getId()));
+        expected.sort(null);
+        actual.sort(null);
+        assertEquals(expected, actual);
+        assertEquals(seniors.size() - 1, index.query("", "SENIOR", "", "", "").size());
+        assertTrue(index.query("", "Junior", "", "", "").stream()
+                .anyMatch(profile -> profile.getId() == senior.getId()));
+    }
+
+    private void assertQueryMatchesScan(ProfileFilterIndex index, List<StudentProfile> profiles) {
+        String status = pick(TestProfiles.ACADEMIC_STATUSES);
+        String language = pick(LANGUAGES);
+        String database = pick(DATABASES);
+        String role = pick(TestProfiles.PREFERRED_ROLES);
+        String fragment = fragment(profiles);
+
+        List<Integer> expected = new ArrayList<>();
+        for (StudentProfile profile : profiles) {
+            if (matches(profile, fragment, status, language, database, role)) {
+                expected.add(profile.getId());
+            }
+        }
+        List<Integer> actual = new ArrayList<>();
+        for (StudentProfile profile : index.query(fragment, status, language, database, role)) {
+            actual.add(profile.getId());
+        }
+        expected.sort(null);
+        actual.sort(null);
+        assertEquals(expected, actual, String.join(", ", fragment, status, language, database, role));
+    }
+
+    /**
+     * @return a piece of a stored name in random case, sometimes empty or absent, of up to six characters so that both
+     *         the direct check of short fragments and the trigram lookup are exercised
+     */
+    private String fragment(List<StudentProfile> profiles) {
+        int choice = random.nextInt(8);
+        if (choice == 0 || profiles.isEmpty()) {
+            return "";
+        } else if (choice == 1) {
+            return "zq" + random.nextInt(10);
+        }
+        String name = profiles.get(random.nextInt(profiles.size())).getFullName();
+        int length = Math.min(name.length(), 1 + random.nextInt(6));
+        int start = random.nextInt(name.length() - length + 1);
+        String fragment = name.substring(start, start + length);
+        return random.nextBoolean() ? fragment.toUpperCase(Locale.ROOT) : fragment;
+    }
+
+    /**
+     * @return a blank filter half of the time, otherwise one of the values in random case and padding
+     */
+    private String pick(String[] values) {
+        if (random.nextBoolean()) {
+            return random.nextBoolean() ? "" : " ";
+        }
+        String value = values[random.nextInt(values.length)];
+        value = random.nextBoolean() ? value.toUpperCase(Locale.ROOT) : value;
+        return random.nextInt(4) == 0 ? " " + value + " " : value;
+    }
+
+    private static boolean matches(StudentProfile profile, String fragment, String status, String language,
+                                   String database, String role) {
+        return profile.getFullName().toLowerCase(Locale.ROOT).contains(fragment.toLowerCase(Locale.ROOT))
+                && (status.isBlank() || same(profile.getAcademicStatus(), status))
+                && (language.isBlank() || containsSame(profile.getProgrammingLanguages(), language))
+                && (database.isBlank() || containsSame(profile.getDatabases(), database))
+                && (role.isBlank() || same(profile.getPreferredRole(), role));
+    }
+
+    private static boolean containsSame(List<String> stored, String filter) {
+        return stored.stream().anyMatch(value -> same(value, filter));
+    }
+
+    private static boolean same(String stored, String filter) {
+        return stored.trim().equalsIgnoreCase(filter.trim());
+    }
+
+    /**
+     * Renames every tenth profile to a random string over a three-letter alphabet, so names repeat trigrams, share
+     * trigrams that are not adjacent and differ only in case.
+     */
+    private List<StudentProfile> withRepetitiveNames(List<StudentProfile> roster) {
+        List<StudentProfile> renamed = new ArrayList<>(roster);
+        for (int i = 0; i < renamed.size(); i += 10) {
+            StringBuilder name = new StringBuilder();
+            for (int length = 2 + random.nextInt(10); length > 0; length--) {
+                name.append("aAb ".charAt(random.nextInt(4)));
+            }
+            StudentProfile profile = renamed.get(i);
+            renamed.set(i, new StudentProfile(name.toString(), profile.getAcademicStatus(), profile.isEmployed(),
+                    profile.getJobDetails(), profile.getProgrammingLanguages(), profile.getDatabases(),
+                    profile.getPreferredRole(), profile.getComments(), profile.isWhitelist(), profile.isBlacklist()));
+        }
+        return renamed;
+    }
+
+    private static List<StudentProfile> withIds(List<StudentProfile> roster) {
+        List<StudentProfile> profiles = new ArrayList<>(roster.size());
+        for (int i = 0; i < roster.size(); i++) {
+            profiles.add(roster.get(i).withId(i + 1));
+        }
+        return profiles;
+    }
+}
@@ -0,0 +1,127 @@
+package cs151.application;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Reports the heap retained per loaded {@link StudentProfile}, next to the same records loaded into the profile class
+ * and parsing the repository had before {@link ProfileDictionary}: a String per text column, a list per list column
+ * and a boolean per flag, all owned by the profile.
+ * <p>
+ * Not a test; run it from the test classpath with a collector that does not hold on to garbage between full
+ * collections, e.g. {@code java -XX:+UseSerialGC cs151.application.ProfileHeapBenchmark [size]}.
+ * </p>
+ */
+public final class ProfileHeapBenchmark {
+
+    private ProfileHeapBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path storagePath = Files.createTempDirectory("profile-heap-benchmark").resolve("student-profiles.csv");
+        StudentProfileRepository writer = new StudentProfileRepository(storagePath);
+        writer.setWarmStartEnabled(false);
+        writer.saveAll(TestProfiles.roster(size));
+        writer = null;
+
+        long before = retainedHeap();
+        StudentProfileRepository repository = new StudentProfileRepository(storagePath);
+        repository.setWarmStartEnabled(false);
+        List<StudentProfile> profiles = repository.loadAll();
+        repository = null;
+        long loaded = retainedHeap();
+        double current = (loaded - before) / (double) profiles.size();
+
+        List<BaselineProfile> baseline = BaselineProfile.loadAll(storagePath);
+        long baselineLoaded = retainedHeap();
+        double old = (baselineLoaded - loaded) / (double) baseline.size();
+        if (profiles.size() != baseline.size()) {
+            throw new IllegalStateException();
+        }
+        System.out.printf("%d profiles: %5.0f bytes retained per profile, %5.0f before the dictionary (%.0f%% less)%n",
+                profiles.size(), current, old, 100 * (1 - current / old));
+    }
+
+    private static long retainedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * The profile class before the dictionary, with the parsing its repository used: {@code split} and the JDK Base64
+     * decoder give every record its own strings and lists, and the constructor copies the lists again.
+     */
+    private static final class BaselineProfile {
+
+        private final String fullName;
+        private final String academicStatus;
+        private final boolean employed;
+        private final String jobDetails;
+        private final List<String> programmingLanguages;
+        private final List<String> databases;
+        private final String preferredRole;
+        private final List<String> comments;
+        private final boolean whitelist;
+        private final boolean blacklist;
+
+        private BaselineProfile(String fullName, String academicStatus, boolean employed, String jobDetails,
+                                List<String> programmingLanguages, List<String> databases, String preferredRole,
+                                List<String> comments, boolean whitelist, boolean blacklist) {
+            this.fullName = fullName;
+            this.academicStatus = academicStatus;
+            this.employed = employed;
+            this.jobDetails = jobDetails;
+            this.programmingLanguages = List.copyOf(programmingLanguages);
+            this.databases = List.copyOf(databases);
+            this.preferredRole = preferredRole;
+            this.comments = List.copyOf(comments);
+            this.whitelist = whitelist;
+            this.blacklist = blacklist;
+        }
+
+        static List<BaselineProfile> loadAll(Path storagePath) throws IOException {
+            List<BaselineProfile> profiles = new ArrayList<>();
+            try (var lines = Files.lines(storagePath, StandardCharsets.UTF_8)) {
+                lines.forEach(line -> {
+                    // The baseline had no id column or next-id header.
+                    String[] segments = line.split("\\|", -1);
+                    if (segments.length >= 10) {
+                        profiles.add(new BaselineProfile(decode(segments[0]), decode(segments[1]),
+                                Boolean.parseBoolean(segments[2]), decode(segments[3]), parseList(segments[4]),
+                                parseList(segments[5]), decode(segments[6]), parseList(segments[7]),
+                                Boolean.parseBoolean(segments[8]), Boolean.parseBoolean(segments[9])));
+                    }
+                });
+            }
+            return profiles;
+        }
+
+        private static String decode(String encodedValue) {
+            return new String(Base64.getDecoder().decode(encodedValue), StandardCharsets.UTF_8);
+        }
+
+        private static List<String> parseList(String encoded) {
+            if (encoded == null || encoded.isBlank()) {
+                return List.of();
+            }
+            List<String> decoded = new ArrayList<>();
+            for (String element : encoded.split(";", -1)) {
+                if (!element.isEmpty()) {
+                    decoded.add(decode(element));
+                }
+            }
+            return decoded;
+        }
+    }
+}
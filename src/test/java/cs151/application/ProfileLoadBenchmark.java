@@ -0,0 +1,140 @@
+package cs151.application;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Times {@link StudentProfileRepository#loadAll()} on a synthetic roster: parsing the CSV snapshot on one thread and on
+ * the fork/join pool, and reading the binary warm-start copy. Also reports the bytes allocated per record by the
+ * streaming {@link ProfileRecordParser} and by the {@code split}/{@link Base64} parsing it replaced.
+ * <p>
+ * Not a test; run it from the test classpath with {@code java cs151.application.ProfileLoadBenchmark [size]}.
+ * </p>
+ */
+public final class ProfileLoadBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private ProfileLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path directory = Files.createTempDirectory("profile-load-benchmark");
+        Path storagePath = directory.resolve("student-profiles.csv");
+        StudentProfileRepository writer = new StudentProfileRepository(storagePath);
+        writer.setWarmStartEnabled(false);
+        writer.saveAll(TestProfiles.roster(size));
+        System.out.printf("%d profiles, snapshot %.1f MB%n", size, Files.size(storagePath) / 1e6);
+
+        allocation("streaming parser", size, () -> parseStreaming(storagePath));
+        allocation("split + Base64", size, () -> parseSplit(storagePath));
+
+        time("csv, sequential", size, () -> {
+            StudentProfileRepository repository = new StudentProfileRepository(storagePath);
+            repository.setWarmStartEnabled(false);
+            repository.setParallelLoadThreshold(Long.MAX_VALUE);
+            return repository.loadAll();
+        });
+        time("csv, parallel", size, () -> {
+            StudentProfileRepository repository = new StudentProfileRepository(storagePath);
+            repository.setWarmStartEnabled(false);
+            repository.setParallelLoadThreshold(0);
+            return repository.loadAll();
+        });
+        // Writes the binary copy, which the timed loads then read.
+        new StudentProfileRepository(storagePath).loadAll();
+        time("binary warm start", size, () -> new StudentProfileRepository(storagePath).loadAll());
+    }
+
+    private static void time(String label, int size, Load load) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<StudentProfile> loaded = load.run();
+            best = Math.min(best, System.nanoTime() - start);
+            if (loaded.size() != size) {
+                throw new IllegalStateException(label + " loaded " + loaded.size() + " profiles");
+            }
+        }
+        System.out.printf("%-20s best %6.0f ms, %5.2f µs per record%n", label, best / 1e6, best / 1e3 / size);
+    }
+
+    /**
+     * Measures the bytes the calling thread allocates while parsing the snapshot, once the parse has been warmed up.
+     */
+    private static void allocation(String label, int size, Load parse) throws IOException {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            List<StudentProfile> parsed = parse.run();
+            fewest = Math.min(fewest, threads.getThreadAllocatedBytes(threadId) - before);
+            if (parsed.size() != size) {
+                throw new IllegalStateException(label + " parsed " + parsed.size() + " profiles");
+            }
+        }
+        System.out.printf("%-20s %6.0f bytes allocated per record%n", label, fewest / (double) size);
+    }
+
+    private static List<StudentProfile> parseStreaming(Path storagePath) throws IOException {
+        List<StudentProfile> profiles = new ArrayList<>();
+        ProfileRecordParser parser = new ProfileRecordParser();
+        try (ProfileRecordReader reader = new ProfileRecordReader(storagePath)) {
+            while (reader.nextLine()) {
+                StudentProfile profile = parser.parse(reader.buffer(), reader.lineStart(), reader.lineEnd());
+                if (profile != null) {
+                    profiles.add(profile);
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * The parsing the repository did before {@link ProfileRecordParser}: whole lines, {@code split} and a Base64
+     * decoder call per column.
+     */
+    private static List<StudentProfile> parseSplit(Path storagePath) throws IOException {
+        List<StudentProfile> profiles = new ArrayList<>();
+        for (String line : Files.readAllLines(storagePath, StandardCharsets.UTF_8)) {
+            String[] segments = line.split("\\|", -1);
+            if (segments.length != 11) {
+                continue;
+            }
+            profiles.add(new StudentProfile(Integer.parseInt(segments[10]), decode(segments[0]), decode(segments[1]),
+                    Boolean.parseBoolean(segments[2]), decode(segments[3]), decodeList(segments[4]),
+                    decodeList(segments[5]), decode(segments[6]), decodeList(segments[7]),
+                    Boolean.parseBoolean(segments[8]), Boolean.parseBoolean(segments[9]), ProfileField.all()));
+        }
+        return profiles;
+    }
+
+    private static String decode(String encoded) {
+        return new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> decodeList(String encoded) {
+        List<String> decoded = new ArrayList<>();
+        for (String element : encoded.split(";")) {
+            if (!element.isEmpty()) {
+                decoded.add(decode(element));
+            }
+        }
+        return decoded;
+    }
+
+    @FunctionalInterface
+    private interface Load {
+        List<StudentProfile> run() throws IOException;
+    }
+}
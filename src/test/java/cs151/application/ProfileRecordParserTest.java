@@ -0,0 +1,134 @@
+package cs151.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks {@link ProfileRecordParser} against the {@code split("\\|")} and {@link Base64#getDecoder()} parsing that
+ * {@code StudentProfileRepository} used before it.
+ */
+class ProfileRecordParserTest {
+
+    private final ProfileRecordParser parser = new ProfileRecordParser();
+
+    @Test
+    void matchesSplitAndJdkDecoderOnStoredRecords() {
+        List<StudentProfile> roster = new ArrayList<>(TestProfiles.roster(2_000));
+        roster.add(new StudentProfile("Zoë Ångström 李", "", true, "Büro | Teilzeit", List.of(), List.of(), "",
+                List.of("2026-01-02\nLine one\nLine two;three", ""), true, true));
+        int id = 1;
+        for (StudentProfile profile : roster) {
+            String line = TestProfiles.record(profile, Integer.toString(id++));
+            assertParsedLike(line);
+            assertParsedLike(line.substring(0, line.lastIndexOf('|')));
+        }
+    }
+
+    @Test
+    void acceptsTheSamePaddingAsTheJdkDecoder() {
+        // "A", "AB" and "ABC" padded, unpadded and with the non-zero trailing bits the JDK decoder ignores.
+        for (String name : List.of("QQ==", "QQ", "QUI=", "QUI", "QUJD", "", "QR==", "QUJ=")) {
+            assertParsedLike(withName(name));
+        }
+    }
+
+    @Test
+    void rejectsWhatTheJdkDecoderRejects() {
+        for (String name : List.of("Q", "Q===", "QQ=", "QQ=x", "QQ==x", "QUI=QQ==", "=", "====", "QQ=A", "Q*==",
+                "QQ ==", "QQ==\r")) {
+            String line = withName(name);
+            assertThrows(IllegalArgumentException.class, () -> decodeLikeSplit(line), name);
+            assertThrows(IllegalArgumentException.class, () -> parse(line), name);
+        }
+    }
+
+    @Test
+    void malformedLayoutsAreSkippedLikeBefore() {
+        String valid = TestProfiles.record(TestProfiles.profile("Alice"), "7");
+        for (String line : List.of("", "|||", valid + "|extra", valid.substring(0, valid.lastIndexOf('|')) + "|-1",
+                valid.substring(0, valid.lastIndexOf('|')) + "|12345678901")) {
+            assertNull(decodeLikeSplit(line), line);
+            assertNull(parse(line), line);
+        }
+    }
+
+    private String withName(String encodedName) {
+        String line = TestProfiles.record(TestProfiles.profile("Alice"), "3");
+        return encodedName + line.substring(line.indexOf('|'));
+    }
+
+    private StudentProfile parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parser.parse(bytes, 0, bytes.length);
+    }
+
+    private void assertParsedLike(String line) {
+        StudentProfile expected;
+        try {
+            expected = decodeLikeSplit(line);
+        } catch (IllegalArgumentException rejected) {
+            assertThrows(IllegalArgumentException.class, () -> parse(line), line);
+            return;
+        }
+        StudentProfile actual = parse(line);
+        if (expected == null) {
+            assertNull(actual, line);
+            return;
+        }
+        if (actual == null) {
+            fail("Parser skipped " + line);
+        }
+        assertTrue(expected.hasSameContent(actual), line);
+        assertEquals(expected.getProgrammingLanguages(), actual.getProgrammingLanguages(), line);
+        assertEquals(expected.getComments(), actual.getComments(), line);
+    }
+
+    /**
+     * The parsing {@code StudentProfileRepository.parseLine} did before the streaming parser, extended by the id
+     * column.
+     */
+    private static StudentProfile decodeLikeSplit(String line) {
+        String[] segments = line.split("\\|", -1);
+        if (segments.length != 10 && segments.length != 11) {
+            return null;
+        }
+        int id = 0;
+        if (segments.length == 11) {
+            if (!segments[10].matches("\\d{1,10}") || Long.parseLong(segments[10]) > Integer.MAX_VALUE) {
+                return null;
+            }
+            id = Integer.parseInt(segments[10]);
+        }
+        return new StudentProfile(id, decode(segments[0]), decode(segments[1]), Boolean.parseBoolean(segments[2]),
+                decode(segments[3]), decodeList(segments[4]), decodeList(segments[5]), decode(segments[6]),
+                decodeList(segments[7]), Boolean.parseBoolean(segments[8]), Boolean.parseBoolean(segments[9]),
+                ProfileField.all());
+    }
+
+    private static String decode(String encoded) {
+        return new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> decodeList(String encoded) {
+        if (encoded.isBlank()) {
+            return List.of();
+        }
+        List<String> decoded = new ArrayList<>();
+        for (String element : encoded.split(";", -1)) {
+            if (!element.isEmpty()) {
+                decoded.add(decode(element));
+            }
+        }
+        return decoded;
+    }
+}
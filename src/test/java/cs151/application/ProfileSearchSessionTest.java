@@ -0,0 +1,180 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.names;
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileSearchSessionTest {
+
+    @TempDir
+    Path directory;
+
+    private ProfileCache cache;
+    private ProfileSearchSession session;
+
+    @BeforeEach
+    void openSession() throws IOException {
+        StudentProfileRepository repository = new StudentProfileRepository(directory.resolve("student-profiles.csv"));
+        List<StudentProfile> roster = new ArrayList<>(TestProfiles.roster(400));
+        // Names that every prefix of the alphabet matches, for chains of narrowing name fragments.
+        for (int i = 0; i < 30; i++) {
+            roster.add(profile("abcdefghijklmnopqrstuvwxyz " + i));
+        }
+        repository.saveAll(roster);
+        cache = new ProfileCache(repository);
+        // Loaded first, since the load itself moves the version and would discard the first result.
+        cache.getProfiles();
+        session = new ProfileSearchSession(cache);
+    }
+
+    private List<StudentProfile> search(String name, String status, String role) throws IOException {
+        return session.search(name, status, "", "", role);
+    }
+
+    /**
+     * @return the expected result, worked out from the whole roster
+     */
+    private List<String> expected(String name, String status, String role) throws IOException {
+        String fragment = name.toLowerCase(Locale.ROOT);
+        return names(cache.getProfiles().stream()
+                .filter(profile -> profile.getFullName().toLowerCase(Locale.ROOT).contains(fragment))
+                .filter(profile -> status.isEmpty() || profile.getAcademicStatus().equalsIgnoreCase(status))
+                .filter(profile -> role.isEmpty() || profile.getPreferredRole().equalsIgnoreCase(role))
+                .toList());
+    }
+
+    /**
+     * Tells whether a search would refine an earlier result rather than query the index: refining is the only path
+     * that checks for interruption. A refining search is cancelled and leaves the session unchanged.
+     */
+    private boolean refines(String name, String status, String role) throws IOException {
+        Thread.currentThread().interrupt();
+        try {
+            search(name, status, role);
+            return false;
+        } catch (CancellationException cancelled) {
+            return true;
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void narrowingASmallResultRefinesIt() throws IOException {
+        List<StudentProfile> seniors = search("", "Senior", "");
+        assertTrue(seniors.size() * 4 <= cache.getProfiles().size(), "test roster has too many seniors");
+        assertEquals(expected("", "Senior", ""), names(seniors));
+
+        assertTrue(refines("", "Senior", "Data"));
+        assertEquals(expected("", "Senior", "Data"), names(search("", "Senior", "Data")));
+        assertTrue(refines("1", "Senior", "Data"));
+        assertEquals(expected("1", "Senior", "Data"), names(search("1", "Senior", "Data")));
+    }
+
+    @Test
+    void resultsOverAQuarterOfTheRosterAreNotRefined() throws IOException {
+        List<StudentProfile> broad = search("1", "", "");
+        assertTrue(broad.size() * 4 > cache.getProfiles().size(), "test roster has too few names with a 1");
+
+        assertFalse(refines("1", "Junior", ""));
+        assertEquals(expected("1", "Junior", ""), names(search("1", "Junior", "")));
+        // The broad result is still kept for going back.
+        assertSame(broad, search("1", "", ""));
+    }
+
+    @Test
+    void goingBackReturnsTheEarlierResult() throws IOException {
+        List<StudentProfile> all = search("", "", "");
+        List<StudentProfile> juniors = search("", "Junior", "");
+        List<StudentProfile> dataJuniors = search("", "Junior", "Data");
+        List<StudentProfile> named = search("2", "Junior", "Data");
+
+        assertSame(dataJuniors, search("", "Junior", "Data"));
+        assertSame(juniors, search("", "Junior", ""));
+        assertSame(all, search("", "", ""));
+        assertEquals(expected("2", "Junior", "Data"), names(named));
+    }
+
+    @Test
+    void backtrackingPastTheDepthCapQueriesAgain() throws IOException {
+        String alphabet = "abcdefghijklmnopqrstuvwxyz";
+        List<List<StudentProfile>> chain = new ArrayList<>();
+        for (int length = 1; length <= 20; length++) {
+            chain.add(search(alphabet.substring(0, length), "", ""));
+        }
+
+        // The last sixteen results are kept; the older ones were dropped from the bottom of the stack.
+        for (int length = 20; length >= 5; length--) {
+            assertSame(chain.get(length - 1), search(alphabet.substring(0, length), "", ""), "length " + length);
+        }
+        for (int length = 4; length >= 1; length--) {
+            List<StudentProfile> again = search(alphabet.substring(0, length), "", "");
+            assertNotSame(chain.get(length - 1), again, "length " + length);
+            assertEquals(names(chain.get(length - 1)), names(again), "length " + length);
+        }
+    }
+
+    @Test
+    void wideningOrChangingAFilterQueriesTheIndex() throws IOException {
+        List<StudentProfile> dataJuniors = search("", "Junior", "Data");
+
+        assertFalse(refines("", "Junior", ""));
+        assertEquals(expected("", "Junior", ""), names(search("", "Junior", "")));
+        assertFalse(refines("", "Senior", "Data"));
+        assertEquals(expected("", "Senior", "Data"), names(search("", "Senior", "Data")));
+        assertEquals(expected("3", "", ""), names(search("3", "", "")));
+        assertEquals(names(dataJuniors), names(search("", "Junior", "Data")));
+    }
+
+    @Test
+    void rosterChangesDiscardTheEarlierResults() throws IOException {
+        List<StudentProfile> juniors = search("", "Junior", "");
+        assertTrue(cache.addProfile(profile("Zed Junior")).isPresent());
+
+        assertFalse(refines("", "Junior", "Data"));
+        List<StudentProfile> dataJuniors = search("", "Junior", "Data");
+        assertTrue(names(dataJuniors).contains("Zed Junior"));
+        assertEquals(expected("", "Junior", "Data"), names(dataJuniors));
+
+        List<StudentProfile> again = search("", "Junior", "");
+        assertNotSame(juniors, again);
+        assertEquals(juniors.size() + 1, again.size());
+    }
+
+    @Test
+    void aNewCacheVersionDiscardsTheEarlierResults() throws IOException {
+        List<StudentProfile> juniors = search("", "Junior", "");
+        long version = cache.getVersion();
+        cache.refresh();
+        assertNotEquals(version, cache.getVersion());
+
+        List<StudentProfile> again = search("", "Junior", "");
+        assertNotSame(juniors, again);
+        assertEquals(names(juniors), names(again));
+        assertSame(again, search("", "Junior", ""));
+    }
+
+    @Test
+    void blankAndPaddedValuesAreFolded() throws IOException {
+        List<StudentProfile> juniors = search(null, " junior ", null);
+        assertSame(juniors, search("", "JUNIOR", ""));
+        assertThrows(UnsupportedOperationException.class, () -> juniors.add(profile("Someone")));
+    }
+}
@@ -0,0 +1,178 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileWriteBehindTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void editsOfOneProfileLeaveOneWrite() throws IOException {
+        RecordingRepository repository = new RecordingRepository(directory);
+        ProfileWriteBehind writeBehind = new ProfileWriteBehind(repository, () -> { });
+        StudentProfile alice = profile("Alice").withId(1);
+
+        writeBehind.put(alice);
+        writeBehind.appendComment(alice.withComment("Second"), "Second");
+        writeBehind.put(profile("Alicia").withId(1));
+        writeBehind.appendComment(profile("Alicia").withId(1).withComment("Third"), "Third");
+        writeBehind.appendComment(profile("Bob").withId(2).withComment("One"), "One");
+        writeBehind.appendComment(profile("Bob").withId(2).withComment("Two"), "Two");
+        writeBehind.put(profile("Carl").withId(3));
+        writeBehind.delete(profile("Carl").withId(3));
+        writeBehind.flush();
+
+        assertEquals(1, repository.batches.size());
+        Batch batch = repository.batches.get(0);
+        assertEquals(List.of(3), batch.deleted());
+        assertEquals(Map.of(1, List.of("First meeting", "Third")), batch.upsertComments());
+        assertEquals("Alicia", batch.upserts().get(0).getFullName());
+        assertEquals(Map.of(2, List.of("One", "Two")), batch.comments());
+        assertTrue(writeBehind.whenWritten().isDone());
+    }
+
+    @Test
+    void aFailedBatchGoesBackUnderNewerWrites() throws IOException {
+        RecordingRepository repository = new RecordingRepository(directory);
+        ProfileWriteBehind writeBehind = new ProfileWriteBehind(repository, () -> { });
+        writeBehind.put(profile("Alice").withId(1));
+        writeBehind.put(profile("Bob").withId(2));
+        writeBehind.appendComment(profile("Carl").withId(3).withComment("Failed"), "Failed");
+        writeBehind.put(profile("Dan").withId(4));
+        writeBehind.delete(profile("Eve").withId(5));
+        // Queued while the batch above is being written, so they are newer than everything in it.
+        repository.failuresLeft.set(1);
+        repository.duringNextBatch = () -> {
+            writeBehind.put(profile("Alice", "Replaced").withId(1));
+            writeBehind.appendComment(profile("Bob").withId(2).withComment("Later"), "Later");
+            writeBehind.appendComment(profile("Carl").withId(3).withComment("Later"), "Later");
+            writeBehind.delete(profile("Dan").withId(4));
+            writeBehind.put(profile("Eve").withId(5));
+        };
+
+        assertThrows(IOException.class, writeBehind::flush);
+        assertTrue(writeBehind.getLastFailure() instanceof IOException);
+        writeBehind.flush();
+
+        assertEquals(2, repository.batches.size());
+        Batch retried = repository.batches.get(1);
+        assertEquals(List.of(4), retried.deleted());
+        assertEquals(Map.of(1, List.of("Replaced"), 2, List.of("First meeting", "Later"), 5, List.of("First meeting")),
+                retried.upsertComments());
+        assertEquals(Map.of(3, List.of("Failed", "Later")), retried.comments());
+        assertNull(writeBehind.getLastFailure());
+    }
+
+    @Test
+    void retriesBackOffExponentially() throws Exception {
+        RecordingRepository repository = new RecordingRepository(directory);
+        ProfileWriteBehind writeBehind = new ProfileWriteBehind(repository, () -> { });
+        repository.failuresLeft.set(4);
+
+        writeBehind.put(profile("Alice").withId(1));
+        awaitBatches(repository, 5, TimeUnit.SECONDS.toMillis(10));
+
+        long delay = ProfileWriteBehind.FLUSH_DELAY_MILLIS;
+        for (int attempt = 1; attempt < 5; attempt++) {
+            long gap = TimeUnit.NANOSECONDS.toMillis(
+                    repository.batches.get(attempt).startNanos() - repository.batches.get(attempt - 1).startNanos());
+            assertTrue(gap >= delay - 20, "retry " + attempt + " after " + gap + " ms, expected " + delay);
+            delay *= 2;
+        }
+        assertEquals(5, repository.batches.size());
+    }
+
+    @Test
+    void aFullQueueWaitsForTheRetryDelay() throws Exception {
+        RecordingRepository repository = new RecordingRepository(directory);
+        ProfileWriteBehind writeBehind = new ProfileWriteBehind(repository, () -> { });
+        writeBehind.put(profile("Student 0").withId(1));
+        repository.failuresLeft.set(3);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThrows(IOException.class, writeBehind::flush);
+        }
+        long failed = System.nanoTime();
+        long retryDelay = ProfileWriteBehind.FLUSH_DELAY_MILLIS << 2;
+
+        for (int id = 2; id <= ProfileWriteBehind.MAX_PENDING + 1; id++) {
+            writeBehind.put(profile("Student " + id).withId(id));
+        }
+        awaitBatches(repository, 4, retryDelay * 5);
+
+        long waited = TimeUnit.NANOSECONDS.toMillis(repository.batches.get(3).startNanos() - failed);
+        assertTrue(waited >= retryDelay - 20, "retried after " + waited + " ms, expected " + retryDelay);
+        assertEquals(ProfileWriteBehind.MAX_PENDING + 1, repository.batches.get(3).upsertComments().size());
+    }
+
+    private static void awaitBatches(RecordingRepository repository, int count, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (repository.batches.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(repository.batches.size() >= count, "saw " + repository.batches.size() + " batches");
+    }
+
+    /**
+     * One call to {@link StudentProfileRepository#applyBatch}, with the upserts' comments by id for comparison.
+     */
+    private record Batch(long startNanos, List<Integer> deleted, List<StudentProfile> upserts,
+                         Map<Integer, List<String>> upsertComments, Map<Integer, List<String>> comments) {
+    }
+
+    /**
+     * Records each batch instead of writing it, failing the next {@link #failuresLeft} of them.
+     */
+    private static final class RecordingRepository extends StudentProfileRepository {
+
+        final List<Batch> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        volatile Runnable duringNextBatch;
+
+        RecordingRepository(Path directory) {
+            super(directory.resolve("student-profiles.csv"), PersistenceMode.JOURNALED);
+        }
+
+        @Override
+        void applyBatch(Collection<StudentProfile> deleted, Collection<StudentProfile> upserts,
+                        IntObjectMap<List<String>> appendedComments) throws IOException {
+            long start = System.nanoTime();
+            List<Integer> deletedIds = new ArrayList<>();
+            deleted.forEach(profile -> deletedIds.add(profile.getId()));
+            deletedIds.sort(null);
+            Map<Integer, List<String>> upsertComments = new TreeMap<>();
+            upserts.forEach(profile -> upsertComments.put(profile.getId(), profile.getComments()));
+            Map<Integer, List<String>> comments = new TreeMap<>();
+            appendedComments.forEach((id, appended) -> comments.put(id, List.copyOf(appended)));
+            batches.add(new Batch(start, deletedIds, List.copyOf(upserts), upsertComments, comments));
+
+            Runnable injected = duringNextBatch;
+            duringNextBatch = null;
+            if (injected != null) {
+                injected.run();
+            }
+            if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IOException("disk full");
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cs151.application;
+
+import java.util.Random;
+
+/**
+ * Times the report's column scans with the scalar and the vector kernels: matching a dictionary value and counting
+ * flags within a bitmap. The vector kernels need {@code --add-modules jdk.incubator.vector}.
+ * <p>
+ * The columns are generated directly rather than copied from profiles, so the default ten million rows fit in a
+ * small heap. Statuses and roles are drawn from the same values as {@link TestProfiles#roster(int)}, about 40% of the
+ * rows are employed, 10% whitelisted and 5% blacklisted.
+ * </p>
+ * <p>
+ * Not a test; run it from the test classpath with {@code java cs151.application.ReportScanBenchmark [size]}.
+ * </p>
+ */
+public final class ReportScanBenchmark {
+
+    private static final int ROUNDS = 60;
+
+    private static long sink;
+
+    private ReportScanBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(42);
+        int[] statusIds = new int[TestProfiles.ACADEMIC_STATUSES.length];
+        for (int i = 0; i < statusIds.length; i++) {
+            statusIds[i] = ProfileDictionary.stringId(TestProfiles.ACADEMIC_STATUSES[i]);
+        }
+        int[] roleIds = new int[TestProfiles.PREFERRED_ROLES.length];
+        for (int i = 0; i < roleIds.length; i++) {
+            roleIds[i] = ProfileDictionary.stringId(TestProfiles.PREFERRED_ROLES[i]);
+        }
+        int[] statuses = new int[size];
+        int[] roles = new int[size];
+        long[] employed = new long[(size + 63) >>> 6];
+        long[] whitelisted = new long[employed.length];
+        long[] blacklisted = new long[employed.length];
+        for (int row = 0; row < size; row++) {
+            statuses[row] = statusIds[random.nextInt(statusIds.length)];
+            roles[row] = roleIds[random.nextInt(roleIds.length)];
+            setIf(employed, row, random.nextInt(5) < 2);
+            setIf(whitelisted, row, random.nextInt(10) == 0);
+            setIf(blacklisted, row, random.nextInt(20) == 0);
+        }
+        System.out.printf("%,d rows%n", size);
+
+        run("scalar", new ProfileColumns(size, statuses, roles, employed, whitelisted, blacklisted,
+                new ScalarColumnScans()));
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            run("vector", new ProfileColumns(size, statuses, roles, employed, whitelisted, blacklisted,
+                    new VectorColumnScans()));
+        } else {
+            System.out.println("vector: skipped, jdk.incubator.vector is not loaded");
+        }
+    }
+
+    private static void setIf(long[] bits, int row, boolean set) {
+        if (set) {
+            bits[row >>> 6] |= 1L << row;
+        }
+    }
+
+    private static void run(String kernels, ProfileColumns columns) {
+        long[] whitelisted = columns.flagBits(ProfileField.WHITELIST);
+        System.out.printf("%-7s match status %.3f ms, count employed in whitelist %.3f ms, "
+                        + "count role in whitelist %.3f ms%n", kernels,
+                best(() -> columns.matching(ProfileField.ACADEMIC_STATUS, "Junior").length),
+                best(() -> columns.countWithin(whitelisted, ProfileField.EMPLOYED)),
+                best(() -> columns.countWithin(whitelisted, ProfileField.PREFERRED_ROLE, "Data")));
+    }
+
+    private static double best(Scan scan) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += scan.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    @FunctionalInterface
+    private interface Scan {
+        long run();
+    }
+}
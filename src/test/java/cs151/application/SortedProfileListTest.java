@@ -0,0 +1,85 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.names;
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SortedProfileListTest {
+
+    @Test
+    void matchesASortedArrayListUnderRandomChanges() {
+        Random random = new Random(11);
+        List<StudentProfile> expected = new ArrayList<>();
+        SortedProfileList list = SortedProfileList.empty();
+        for (int round = 0; round < 5_000; round++) {
+            StudentProfile profile = profile("Student " + random.nextInt(2_000));
+            int position = Collections.binarySearch(expected, profile, NameOrder.PROFILES);
+            if (random.nextInt(3) == 0) {
+                list = list.without(profile);
+                if (position >= 0) {
+                    expected.remove(position);
+                }
+            } else {
+                list = list.with(profile);
+                if (position >= 0) {
+                    expected.set(position, profile);
+                } else {
+                    expected.add(-position - 1, profile);
+                }
+            }
+            if (round % 500 == 0) {
+                assertSameContents(expected, list);
+            }
+        }
+        assertSameContents(expected, list);
+    }
+
+    @Test
+    void changesLeaveEarlierVersionsIntact() {
+        List<StudentProfile> roster = new ArrayList<>(TestProfiles.roster(1_000));
+        NameOrder.sort(roster);
+        SortedProfileList original = SortedProfileList.of(roster);
+        assertSameContents(roster, original);
+
+        SortedProfileList changed = original.without(roster.get(500)).with(profile("Aaron")).with(profile("Zed"));
+        StudentProfile replacement = profile(roster.get(3).getFullName(), "Replaced");
+        changed = changed.with(replacement);
+
+        assertSameContents(roster, original);
+        assertEquals(1_001, changed.size());
+        assertEquals("Aaron", changed.get(0).getFullName());
+        assertEquals("Zed", changed.get(1_000).getFullName());
+        assertSame(replacement, changed.get(4));
+        assertSame(original, original.without(profile("Not stored")));
+        assertSame(original, SortedProfileList.of(original));
+    }
+
+    @Test
+    void staysEmptyOnceEveryProfileIsRemoved() {
+        SortedProfileList list = SortedProfileList.empty().with(profile("Ada")).with(profile("Bob"));
+
+        list = list.without(profile("Bob")).without(profile("Ada"));
+
+        assertEquals(0, list.size());
+        assertEquals(List.of(), names(list));
+        assertArrayEquals(new Object[0], list.toArray());
+    }
+
+    private static void assertSameContents(List<StudentProfile> expected, SortedProfileList actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, new ArrayList<>(actual));
+        assertArrayEquals(expected.toArray(new StudentProfile[0]), actual.toArray(new StudentProfile[0]));
+        for (int i = 0; i < expected.size(); i += 37) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package cs151.application;
+
+import static cs151.application.TestProfiles.names;
+import static cs151.application.TestProfiles.profile;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StudentProfileRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private Path storagePath() {
+        return directory.resolve("student-profiles.csv");
+    }
+
+    private StudentProfileRepository journaled() {
+        return new StudentProfileRepository(storagePath(), StudentProfileRepository.PersistenceMode.JOURNALED);
+    }
+
+    @Test
+    void journaledMutationsAppendToTheJournalAndReplayOnLoad() throws IOException {
+        StudentProfileRepository repository = journaled();
+        repository.saveAll(List.of(profile("Alice"), profile("Bob"), profile("Carl")));
+        byte[] snapshot = Files.readAllBytes(storagePath());
+        int bobId = repository.findByName("Bob").orElseThrow().getId();
+        int carlId = repository.findByName("Carl").orElseThrow().getId();
+
+        assertTrue(repository.addProfile(profile("Dan")));
+        assertTrue(repository.updateProfile(bobId, profile("Bea", "Renamed")));
+        assertTrue(repository.deleteById(carlId));
+        assertTrue(repository.appendComment("alice", "Follow-up"));
+
+        assertArrayEquals(snapshot, Files.readAllBytes(storagePath()));
+        assertTrue(repository.journalSize() > 0);
+
+        StudentProfileRepository reopened = journaled();
+        List<StudentProfile> loaded = reopened.loadAll();
+        assertEquals(List.of("Alice", "Bea", "Dan"), names(loaded));
+        assertEquals(List.of("First meeting", "Follow-up"), loaded.get(0).getComments());
+        assertEquals(bobId, loaded.get(1).getId());
+        assertEquals(List.of("Renamed"), loaded.get(1).getComments());
+        assertEquals(4, loaded.get(2).getId());
+        assertTrue(reopened.findById(carlId).isEmpty());
+    }
+
+    @Test
+    void idsAreHandedOutInOrderAndNeverReused() throws IOException {
+        for (StudentProfileRepository.PersistenceMode mode : StudentProfileRepository.PersistenceMode.values()) {
+            Path path = directory.resolve(mode + ".csv");
+            StudentProfileRepository repository = new StudentProfileRepository(path, mode);
+            repository.saveAll(List.of(profile("Eve"), profile("bob"), profile("Alice")));
+            assertEquals(1, repository.findByName("Alice").orElseThrow().getId(), mode.name());
+            assertEquals(3, repository.findByName("eve").orElseThrow().getId(), mode.name());
+
+            repository.addProfile(profile("Fay"));
+            repository.deleteById(4);
+            repository.addProfile(profile("Gus"));
+
+            assertEquals(5, new StudentProfileRepository(path, mode).findByName("Gus").orElseThrow().getId(),
+                    mode.name());
+            assertFalse(repository.updateProfile(2, profile("alice")), mode.name());
+        }
+    }
+
+    @Test
+    void addingKeepsOnlyReservedOrUnusedIds() throws IOException {
+        StudentProfileRepository repository = journaled();
+        repository.saveAll(List.of(profile("Alice"), profile("Bob")));
+        assertTrue(repository.deleteById(2));
+        int reserved = repository.allocateId();
+
+        assertThrows(IllegalArgumentException.class, () -> repository.addProfile(profile("Carl").withId(2)));
+        assertThrows(IllegalArgumentException.class, () -> repository.addProfile(profile("Carl").withId(1)));
+        assertTrue(repository.addProfile(profile("Carl").withId(reserved)));
+        assertThrows(IllegalArgumentException.class, () -> repository.addProfile(profile("Dan").withId(reserved)));
+        assertTrue(repository.addProfile(profile("Dan").withId(10)));
+        assertTrue(repository.addProfile(profile("Eve")));
+
+        StudentProfileRepository reopened = journaled();
+        assertEquals(reserved, reopened.findByName("Carl").orElseThrow().getId());
+        assertEquals(11, reopened.findByName("Eve").orElseThrow().getId());
+        assertTrue(reopened.findById(2).isEmpty());
+    }
+
+    @Test
+    void compactionFoldsTheJournalIntoTheSnapshot() throws Exception {
+        StudentProfileRepository repository = journaled();
+        repository.saveAll(List.of(profile("Alice"), profile("Bob")));
+        repository.addProfile(profile("Carl"));
+        repository.deleteById(repository.findByName("Alice").orElseThrow().getId());
+        repository.appendComment("Bob", "Follow-up");
+        List<StudentProfile> before = journaled().loadAll();
+
+        repository.getCompactor().requestCompaction().get();
+
+        assertEquals(0, repository.journalSize());
+        assertEquals("#next-id=4", Files.readAllLines(storagePath()).get(0));
+        assertSameProfiles(before, journaled().loadAll());
+        assertSameProfiles(before, repository.loadAll());
+        // Written after the swap, outside the store lock, for the snapshot the compaction installed.
+        List<StudentProfile> warmStart = ProfileBinarySnapshot.read(directory.resolve("student-profiles.snapshot.bin"),
+                Files.size(storagePath()), Files.getLastModifiedTime(storagePath()).to(TimeUnit.NANOSECONDS));
+        assertSameProfiles(before, warmStart);
+    }
+
+    @Test
+    void compactionKeepsTheLoadedIndex() throws Exception {
+        StudentProfileRepository repository = journaled();
+        repository.saveAll(List.of(profile("Alice"), profile("Bob")));
+        repository.addProfile(profile("Carl"));
+        repository.appendComment("Bob", "Follow-up");
+        StudentProfile carl = repository.findByName("Carl").orElseThrow();
+        assertTrue(repository.isUpToDate());
+
+        repository.getCompactor().requestCompaction().get();
+
+        assertTrue(repository.isUpToDate());
+        assertSame(carl, repository.findByName("Carl").orElseThrow());
+        assertSameProfiles(journaled().loadAll(), repository.loadAll());
+    }
+
+    @Test
+    void parallelLoadKeepsNameOrder() throws IOException {
+        List<StudentProfile> roster = new ArrayList<>(TestProfiles.roster(20_000));
+        Collections.shuffle(roster, new Random(1));
+        StudentProfileRepository writer = new StudentProfileRepository(storagePath());
+        writer.setWarmStartEnabled(false);
+        writer.saveAll(roster);
+
+        StudentProfileRepository sequential = new StudentProfileRepository(storagePath());
+        sequential.setWarmStartEnabled(false);
+        sequential.setParallelLoadThreshold(Long.MAX_VALUE);
+        StudentProfileRepository parallel = new StudentProfileRepository(storagePath());
+        parallel.setWarmStartEnabled(false);
+        parallel.setParallelLoadThreshold(0);
+
+        List<StudentProfile> expected = sequential.loadAll();
+        List<StudentProfile> sorted = new ArrayList<>(expected);
+        sorted.sort(NameOrder.PROFILES);
+        assertEquals(names(sorted), names(expected));
+        assertSameProfiles(expected, parallel.loadAll());
+
+        StudentProfileRepository partial = new StudentProfileRepository(storagePath());
+        partial.setWarmStartEnabled(false);
+        partial.setParallelLoadThreshold(0);
+        assertEquals(names(expected), names(partial.loadAll(EnumSet.of(ProfileField.FULL_NAME))));
+    }
+
+    @Test
+    void legacyRecordsAreNumberedInMemoryUntilMigrated() throws IOException {
+        List<String> legacy = writeLegacySnapshot(List.of(profile("Zed"), profile("Amy"), profile("Mo")));
+
+        StudentProfileRepository repository = journaled();
+        assertEquals(3, repository.findByName("Zed").orElseThrow().getId());
+        assertEquals(1, repository.openPagedSource(EnumSet.of(ProfileField.FULL_NAME)).keyAt(0).getId());
+        assertEquals(legacy, Files.readAllLines(storagePath()));
+
+        assertTrue(repository.migrateLegacyIds());
+        assertFalse(repository.migrateLegacyIds());
+        assertEquals("#next-id=4", Files.readAllLines(storagePath()).get(0));
+        assertEquals(3, journaled().findByName("Zed").orElseThrow().getId());
+    }
+
+    @Test
+    void firstMutationWritesLegacyIdsBack() throws IOException {
+        writeLegacySnapshot(List.of(profile("Zed"), profile("Amy")));
+
+        journaled().addProfile(profile("Bo"));
+
+        StudentProfileRepository reopened = journaled();
+        assertEquals(1, reopened.findByName("Amy").orElseThrow().getId());
+        assertEquals(2, reopened.findByName("Zed").orElseThrow().getId());
+        assertEquals(3, reopened.findByName("Bo").orElseThrow().getId());
+    }
+
+    /**
+     * Stores the profiles, then strips the id header and id column, as files saved before profiles had ids look.
+     *
+     * @return the lines of the legacy snapshot
+     */
+    private List<String> writeLegacySnapshot(List<StudentProfile> profiles) throws IOException {
+        new StudentProfileRepository(storagePath()).saveAll(profiles);
+        List<String> legacy = new ArrayList<>();
+        for (String line : Files.readAllLines(storagePath())) {
+            if (!line.startsWith("#")) {
+                legacy.add(line.substring(0, line.lastIndexOf('|')));
+            }
+        }
+        Files.write(storagePath(), legacy);
+        Files.deleteIfExists(directory.resolve("student-profiles.snapshot.bin"));
+        return legacy;
+    }
+
+    static void assertSameProfiles(List<StudentProfile> expected, List<StudentProfile> actual) {
+        assertEquals(names(expected), names(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(expected.get(i).hasSameContent(actual.get(i)), expected.get(i).getFullName());
+        }
+    }
+}
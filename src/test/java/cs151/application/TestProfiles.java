@@ -0,0 +1,88 @@
+package cs151.application;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Profiles shared by the tests and benchmarks.
+ */
+final class TestProfiles {
+
+    static final String[] ACADEMIC_STATUSES = {"Freshman", "Sophomore", "Junior", "Senior", "Graduate"};
+    static final String[] PREFERRED_ROLES = {"Front-End", "Back-End", "Full-Stack", "Data", "Other"};
+    private static final String[] LANGUAGES = {"Java", "Python", "C++", "JavaScript", "Go", "Rust", "Kotlin", "C#"};
+    private static final String[] DATABASES = {"MySQL", "Postgres", "MongoDB", "SQLite", "Oracle"};
+
+    private TestProfiles() {
+    }
+
+    /**
+     * @return a complete profile with fixed values apart from the name and one comment
+     */
+    static StudentProfile profile(String fullName, String comment) {
+        return new StudentProfile(fullName, "Junior", false, "", List.of("Java"), List.of("MySQL"), "Data",
+                List.of(comment), false, false);
+    }
+
+    static StudentProfile profile(String fullName) {
+        return profile(fullName, "First meeting");
+    }
+
+    /**
+     * Builds {@code size} distinct students with varied columns; the same size always yields the same roster.
+     */
+    static List<StudentProfile> roster(int size) {
+        Random random = new Random(42);
+        List<StudentProfile> roster = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<String> languages = new ArrayList<>();
+            for (int j = random.nextInt(3); j >= 0; j--) {
+                String language = LANGUAGES[random.nextInt(LANGUAGES.length)];
+                if (!languages.contains(language)) {
+                    languages.add(language);
+                }
+            }
+            List<String> comments = new ArrayList<>();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                comments.add("2026-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(9) + "\nDiscussed course plan");
+            }
+            boolean employed = random.nextInt(5) < 2;
+            roster.add(new StudentProfile("Student " + i, ACADEMIC_STATUSES[random.nextInt(ACADEMIC_STATUSES.length)],
+                    employed, employed ? "Intern at Company " + random.nextInt(50) : "", languages,
+                    List.of(DATABASES[random.nextInt(DATABASES.length)]),
+                    PREFERRED_ROLES[random.nextInt(PREFERRED_ROLES.length)], comments, random.nextInt(10) == 0,
+                    random.nextInt(20) == 0));
+        }
+        return roster;
+    }
+
+    /**
+     * @return the names of the profiles, in list order
+     */
+    static List<String> names(List<StudentProfile> profiles) {
+        return profiles.stream().map(StudentProfile::getFullName).toList();
+    }
+
+    /**
+     * @return the profile as a line of the snapshot file, without the line break
+     */
+    static String record(StudentProfile profile, String id) {
+        return String.join("|", encode(profile.getFullName()), encode(profile.getAcademicStatus()),
+                Boolean.toString(profile.isEmployed()), encode(profile.getJobDetails()),
+                encodeList(profile.getProgrammingLanguages()), encodeList(profile.getDatabases()),
+                encode(profile.getPreferredRole()), encodeList(profile.getComments()),
+                Boolean.toString(profile.isWhitelist()), Boolean.toString(profile.isBlacklist()), id);
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encodeList(List<String> values) {
+        return values.stream().map(TestProfiles::encode).collect(Collectors.joining(";"));
+    }
+}
@@ -0,0 +1,56 @@
+package cs151.application;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Compares storing a burst of profile edits directly through {@link StudentProfileRepository} with queuing them on
+ * {@link ProfileCache}, in both persistence modes and with every write forced to disk. Reports how long the caller
+ * waits, how long until the edits are stored, and how many fsyncs that took.
+ * <p>
+ * Not a test; run it from the test classpath with {@code java cs151.application.WriteBehindBenchmark [size] [edits]}.
+ * </p>
+ */
+public final class WriteBehindBenchmark {
+
+    private WriteBehindBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        List<StudentProfile> roster = TestProfiles.roster(size);
+        for (StudentProfileRepository.PersistenceMode mode : StudentProfileRepository.PersistenceMode.values()) {
+            Path storagePath = Files.createTempDirectory("write-behind-benchmark").resolve("student-profiles.csv");
+            StudentProfileRepository repository = new StudentProfileRepository(storagePath, mode);
+            repository.setFsyncPolicy(FsyncPolicy.ALWAYS);
+            repository.saveAll(roster);
+
+            long syncsBefore = repository.getFsyncStats().syncs();
+            long start = System.nanoTime();
+            for (int edit = 0; edit < edits; edit++) {
+                repository.appendComment("Student " + edit % 10, "Direct edit " + edit);
+            }
+            long direct = System.nanoTime() - start;
+            long directSyncs = repository.getFsyncStats().syncs() - syncsBefore;
+
+            ProfileCache cache = new ProfileCache(repository);
+            cache.getProfiles();
+            syncsBefore = repository.getFsyncStats().syncs();
+            start = System.nanoTime();
+            for (int edit = 0; edit < edits; edit++) {
+                int id = cache.findByName("Student " + edit % 10).orElseThrow().getId();
+                cache.appendComment(id, "Queued edit " + edit);
+            }
+            long accepted = System.nanoTime() - start;
+            cache.whenWritten().get();
+            long stored = System.nanoTime() - start;
+            long queuedSyncs = repository.getFsyncStats().syncs() - syncsBefore;
+
+            System.out.printf("%-9s %d edits: direct %.1f ms (%d fsyncs); queued accepted in %.2f ms, "
+                            + "stored after %.1f ms (%d fsyncs)%n", mode, edits, direct / 1e6, directSyncs,
+                    accepted / 1e6, stored / 1e6, queuedSyncs);
+        }
+    }
+}